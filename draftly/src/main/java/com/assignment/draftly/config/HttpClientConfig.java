@@ -0,0 +1,67 @@
+package com.assignment.draftly.config;
+
+import java.net.http.HttpClient;
+import java.time.Duration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Shared HTTP clients for Gmail, OpenAI and draft job callbacks.
+ *
+ * All use the JDK {@link HttpClient} rather than the default {@code HttpURLConnection}
+ * factory: HttpURLConnection blocks inside synchronized sections, which pins virtual
+ * threads to their carrier for the whole remote call, while the JDK client parks cleanly.
+ */
+@Configuration
+public class HttpClientConfig {
+
+    @Bean
+    HttpClient httpClient(
+            Environment environment,
+            @Value("${draftly.http.connect-timeout-ms:5000}") long connectTimeoutMillis
+    ) {
+        HttpClient.Builder builder = HttpClient.newBuilder()
+                .connectTimeout(Duration.ofMillis(connectTimeoutMillis));
+        if (Threading.VIRTUAL.isActive(environment)) {
+            builder.executor(new VirtualThreadTaskExecutor("http-client-"));
+        }
+        return builder.build();
+    }
+
+    @Bean
+    RestTemplate gmailRestTemplate(
+            HttpClient httpClient,
+            @Value("${draftly.gmail.read-timeout-ms:30000}") long readTimeoutMillis
+    ) {
+        return restTemplate(httpClient, readTimeoutMillis);
+    }
+
+    @Bean
+    RestTemplate openAiRestTemplate(
+            HttpClient httpClient,
+            @Value("${draftly.openai.read-timeout-ms:120000}") long readTimeoutMillis
+    ) {
+        return restTemplate(httpClient, readTimeoutMillis);
+    }
+
+    @Bean
+    RestTemplate jobCallbackRestTemplate(
+            HttpClient httpClient,
+            @Value("${draftly.jobs.callback-timeout-ms:5000}") long readTimeoutMillis
+    ) {
+        return restTemplate(httpClient, readTimeoutMillis);
+    }
+
+    private static RestTemplate restTemplate(HttpClient httpClient, long readTimeoutMillis) {
+        JdkClientHttpRequestFactory requestFactory = new JdkClientHttpRequestFactory(httpClient);
+        requestFactory.setReadTimeout(Duration.ofMillis(readTimeoutMillis));
+        return new RestTemplate(requestFactory);
+    }
+}
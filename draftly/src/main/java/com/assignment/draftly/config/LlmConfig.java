@@ -0,0 +1,45 @@
+package com.assignment.draftly.config;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.core.env.Environment;
+
+import com.assignment.draftly.llm.FailoverLlmProvider;
+import com.assignment.draftly.llm.LlmProvider;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * The failover chain used wherever an {@link LlmProvider} is injected.
+ * {@code draftly.llm.providers} lists provider names in the order they are tried
+ * ({@code openai,local} by default; {@code local} alone runs fully offline).
+ */
+@Configuration
+public class LlmConfig {
+
+    @Bean
+    @Primary
+    LlmProvider llmProvider(Environment env, List<LlmProvider> providers, MeterRegistry meterRegistry) {
+        Map<String, LlmProvider> byName = providers.stream()
+                .collect(Collectors.toMap(LlmProvider::name, Function.identity()));
+        List<LlmProvider> chain = Arrays.stream(env.getProperty("draftly.llm.providers", "openai,local").split(","))
+                .map(String::strip)
+                .filter(name -> !name.isEmpty())
+                .map(name -> {
+                    LlmProvider provider = byName.get(name);
+                    if (provider == null) {
+                        throw new IllegalStateException("Unknown LLM provider " + name + ", known: " + byName.keySet());
+                    }
+                    return provider;
+                })
+                .toList();
+        return new FailoverLlmProvider(chain, meterRegistry);
+    }
+}
@@ -0,0 +1,93 @@
+package com.assignment.draftly.config;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.resilience.AdaptiveConcurrencyLimiter;
+import com.assignment.draftly.resilience.CircuitBreaker;
+import com.assignment.draftly.resilience.ConcurrencyLimiterRegistry;
+import com.assignment.draftly.resilience.ResiliencePolicyRegistry;
+import com.assignment.draftly.resilience.RetryBudget;
+import com.assignment.draftly.resilience.RetryPolicy;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-dependency resilience settings, read from {@code draftly.<dependency>.*}
+ * (e.g. {@code draftly.openai.concurrency.max-limit}, {@code draftly.gmail.retry.max-attempts}).
+ * Every property has a default, so none of them need to be configured.
+ */
+@Configuration
+public class ResilienceConfig {
+
+    @Bean
+    ConcurrencyLimiterRegistry concurrencyLimiterRegistry(Environment env, MeterRegistry meterRegistry) {
+        return new ConcurrencyLimiterRegistry(
+                Arrays.stream(ExternalDependency.values())
+                        .map(dependency -> limiter(env, dependency))
+                        .toList(),
+                meterRegistry
+        );
+    }
+
+    @Bean
+    ResiliencePolicyRegistry resiliencePolicyRegistry(Environment env, MeterRegistry meterRegistry) {
+        return new ResiliencePolicyRegistry(
+                Arrays.stream(ExternalDependency.values())
+                        .map(dependency -> policy(env, dependency))
+                        .toList(),
+                meterRegistry
+        );
+    }
+
+    private AdaptiveConcurrencyLimiter limiter(Environment env, ExternalDependency dependency) {
+        // OpenAI calls take seconds, Gmail calls take tens of milliseconds
+        boolean openAi = dependency == ExternalDependency.OPENAI;
+        String prefix = prefix(dependency) + ".concurrency.";
+        return new AdaptiveConcurrencyLimiter(
+                dependency,
+                env.getProperty(prefix + "initial-limit", Integer.class, openAi ? 10 : 40),
+                env.getProperty(prefix + "min-limit", Integer.class, openAi ? 2 : 5),
+                env.getProperty(prefix + "max-limit", Integer.class, openAi ? 50 : 200),
+                env.getProperty(prefix + "max-queue", Integer.class, openAi ? 20 : 100),
+                env.getProperty(prefix + "max-wait-ms", Long.class, 2000L),
+                env.getProperty(prefix + "latency-threshold-ms", Long.class, openAi ? 15000L : 3000L),
+                env.getProperty(prefix + "backoff-ratio", Double.class, 0.9)
+        );
+    }
+
+    private ResiliencePolicyRegistry.DependencyPolicy policy(Environment env, ExternalDependency dependency) {
+        String breaker = prefix(dependency) + ".circuit-breaker.";
+        String retry = prefix(dependency) + ".retry.";
+        return new ResiliencePolicyRegistry.DependencyPolicy(
+                new CircuitBreaker(
+                        dependency,
+                        env.getProperty(breaker + "window-size", Integer.class, 50),
+                        env.getProperty(breaker + "minimum-calls", Integer.class, 10),
+                        env.getProperty(breaker + "failure-rate-threshold", Double.class, 0.5),
+                        env.getProperty(breaker + "open-duration-ms", Long.class, 30000L),
+                        env.getProperty(breaker + "half-open-trial-calls", Integer.class, 3)
+                ),
+                new RetryPolicy(
+                        env.getProperty(retry + "max-attempts", Integer.class, 3),
+                        env.getProperty(retry + "base-delay-ms", Long.class, 200L),
+                        env.getProperty(retry + "max-delay-ms", Long.class, 2000L),
+                        Duration.ofMillis(env.getProperty(retry + "max-retry-after-ms", Long.class, 5000L))
+                ),
+                new RetryBudget(
+                        env.getProperty(retry + "budget-ratio", Double.class, 0.2),
+                        env.getProperty(retry + "budget-min-per-second", Integer.class, 5),
+                        env.getProperty(retry + "budget-max-balance", Double.class, 100.0)
+                )
+        );
+    }
+
+    private String prefix(ExternalDependency dependency) {
+        return "draftly." + dependency.name().toLowerCase();
+    }
+}
@@ -0,0 +1,71 @@
+package com.assignment.draftly.config;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.env.Environment;
+
+import com.assignment.draftly.llm.LlmProvider;
+import com.assignment.draftly.routing.ModelRouter;
+import com.assignment.draftly.routing.ModelTier;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Model tiers and routing thresholds, read from {@code draftly.routing.*}.
+ *
+ * {@code draftly.routing.tiers} lists the tier names from fastest to most capable; each is
+ * configured under {@code draftly.routing.tier.<name>.*} ({@code model},
+ * {@code prompt-cost-per-million}, {@code cached-prompt-cost-per-million},
+ * {@code completion-cost-per-million}). The built-in {@code fast}, {@code standard} and
+ * {@code advanced} tiers have defaults; {@code standard} uses {@code openai.model}.
+ */
+@Configuration
+public class RoutingConfig {
+
+    private static final List<ModelTier> DEFAULT_TIERS = List.of(
+            new ModelTier("fast", "gpt-4.1-nano", 0.10, 0.025, 0.40),
+            new ModelTier("standard", null, 0.40, 0.10, 1.60),
+            new ModelTier("advanced", "gpt-4.1", 2.00, 0.50, 8.00)
+    );
+
+    @Bean
+    ModelRouter modelRouter(Environment env, LlmProvider llmProvider, MeterRegistry meterRegistry) {
+        List<ModelTier> tiers = Arrays.stream(env.getProperty("draftly.routing.tiers", "fast,standard,advanced").split(","))
+                .map(String::strip)
+                .filter(name -> !name.isEmpty())
+                .map(name -> tier(env, name))
+                .toList();
+        return new ModelRouter(
+                llmProvider,
+                tiers,
+                env.getProperty("draftly.routing.long-inbound-chars", Integer.class, 1500),
+                env.getProperty("draftly.routing.deep-thread", Integer.class, 4),
+                env.getProperty("draftly.routing.high-edit-ratio", Double.class, 0.35),
+                env.getProperty("draftly.routing.max-attempts", Integer.class, 2),
+                meterRegistry
+        );
+    }
+
+    private ModelTier tier(Environment env, String name) {
+        ModelTier defaults = DEFAULT_TIERS.stream()
+                .filter(tier -> tier.name().equals(name))
+                .findFirst()
+                .orElse(new ModelTier(name, null, 0, 0, 0));
+        String prefix = "draftly.routing.tier." + name + ".";
+        String defaultModel = defaults.model() != null ? defaults.model() : env.getProperty("openai.model");
+        String model = env.getProperty(prefix + "model", defaultModel != null ? defaultModel : "");
+        if (model.isBlank()) {
+            throw new IllegalStateException("No model configured for routing tier " + name);
+        }
+        return new ModelTier(
+                name,
+                model,
+                env.getProperty(prefix + "prompt-cost-per-million", Double.class, defaults.promptCostPerMillion()),
+                env.getProperty(prefix + "cached-prompt-cost-per-million", Double.class, defaults.cachedPromptCostPerMillion()),
+                env.getProperty(prefix + "completion-cost-per-million", Double.class, defaults.completionCostPerMillion())
+        );
+    }
+}
@@ -0,0 +1,15 @@
+package com.assignment.draftly.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Runs the {@code @Scheduled} pollers (work queue, provider batches, inbox events, cleanup).
+ * Tests turn them off with {@code draftly.scheduling.enabled=false} and call them directly.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(name = "draftly.scheduling.enabled", havingValue = "true", matchIfMissing = true)
+public class SchedulingConfig {
+}
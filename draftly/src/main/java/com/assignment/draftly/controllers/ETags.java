@@ -0,0 +1,36 @@
+package com.assignment.draftly.controllers;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * Strong ETags computed from the values a response is built from. Setting one on a
+ * {@code ResponseEntity} lets Spring answer a matching {@code If-None-Match} with 304 and no body.
+ */
+final class ETags {
+
+    private ETags() {
+    }
+
+    /** A quoted strong ETag over {@code values}; nulls and field boundaries are distinguished. */
+    static String of(Object... values) {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+        for (Object value : values) {
+            if (value == null) {
+                digest.update((byte) 0);
+            } else {
+                digest.update((byte) 1);
+                digest.update(value.toString().getBytes(StandardCharsets.UTF_8));
+            }
+            digest.update((byte) 0x1f);
+        }
+        return "\"" + HexFormat.of().formatHex(digest.digest(), 0, 16) + "\"";
+    }
+}
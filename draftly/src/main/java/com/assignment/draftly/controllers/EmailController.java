@@ -1,27 +1,45 @@
 package com.assignment.draftly.controllers;
 
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.assignment.draftly.dto.ApproveReplyRequest;
 import com.assignment.draftly.dto.ApproveReplyResponse;
 import com.assignment.draftly.dto.DraftEmailRequest;
+import com.assignment.draftly.dto.DraftJobResponse;
 import com.assignment.draftly.dto.EmailBodyResponse;
 import com.assignment.draftly.dto.InboxEmail;
+import com.assignment.draftly.dto.InboxEvent;
 import com.assignment.draftly.dto.RejectReplyResponse;
 import com.assignment.draftly.dto.ReplyDraftRequest;
 import com.assignment.draftly.dto.ReplyDraftResponse;
 import com.assignment.draftly.enums.Tone;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
 import com.assignment.draftly.integrations.GmailClient;
 import com.assignment.draftly.services.AuthService;
+import com.assignment.draftly.services.DraftGenerationJobService;
 import com.assignment.draftly.services.EmailDraftService;
+import com.assignment.draftly.services.EmailService;
+import com.assignment.draftly.services.IdempotencyService;
+import com.assignment.draftly.services.InboxEventService;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,6 +52,10 @@ public class EmailController {
     private final AuthService authService;
     private final GmailClient gmailClient;
     private final EmailDraftService emailDraftService;
+    private final EmailService emailService;
+    private final DraftGenerationJobService draftGenerationJobService;
+    private final IdempotencyService idempotencyService;
+    private final InboxEventService inboxEventService;
 
     @GetMapping("/emails")
     public List<String> getEmails(Authentication authentication) {
@@ -44,13 +66,75 @@ public class EmailController {
         return gmailClient.fetchLast10SentEmailBodies(accessToken);
     }
 
+    /**
+     * A page of the inbox, newest first. When there are more, the {@code X-Next-Cursor} header (and
+     * a {@code Link rel="next"}) carries the cursor for the next page. {@code view=metadata} lists
+     * messages without bodies; fetch one with {@code /emails/messages/{messageId}/body}. The strong
+     * ETag covers the page content and draft overlay, so an unchanged page is answered with 304.
+     */
     @GetMapping("/emails/inbox")
-    public List<InboxEmail> getInboxEmails(Authentication authentication) {
+    public ResponseEntity<List<InboxEmail>> getInboxEmails(
+            Authentication authentication,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer pageSize,
+            @RequestParam(defaultValue = "full") String view
+    ) {
+        if (!"full".equals(view) && !"metadata".equals(view)) {
+            throw new IllegalArgumentException("view must be full or metadata");
+        }
+        String accessToken =
+                authService.getAccessToken(authentication);
+
+        GmailClient.InboxPage page = emailService.getInboxPage(accessToken, cursor, pageSize, "metadata".equals(view));
+        List<InboxEmail> emails = emailDraftService.withDraftOverlay(page.emails());
+
+        String nextCursor = EmailService.encodeCursor(page.nextPageToken());
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok().eTag(inboxETag(emails, nextCursor, view));
+        if (nextCursor != null) {
+            String next = UriComponentsBuilder.fromPath("/emails/inbox")
+                    .queryParam("cursor", nextCursor)
+                    .queryParamIfPresent("pageSize", Optional.ofNullable(pageSize))
+                    .queryParam("view", view)
+                    .toUriString();
+            response.header("X-Next-Cursor", nextCursor)
+                    .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+        return response.body(emails);
+    }
+
+    private static String inboxETag(List<InboxEmail> emails, String nextCursor, String view) {
+        List<Object> values = new ArrayList<>(emails.size() * 9 + 2);
+        values.add(view);
+        values.add(nextCursor);
+        for (InboxEmail email : emails) {
+            values.addAll(Arrays.asList(email.getMessageId(), email.getThreadId(), email.getFrom(),
+                    email.getSubject(), email.getSnippet(), email.getBody(), email.getDraftStatus(),
+                    email.getDraftPreview()));
+        }
+        return ETags.of(values.toArray());
+    }
+
+    /**
+     * Server-sent events for the signed-in user: {@code NEW_MESSAGE}, {@code DRAFT_READY} and
+     * {@code SEND_COMPLETE}, each with an {@link InboxEvent} as data. All of a user's open tabs
+     * share one Gmail history poller, so keep this open instead of re-polling the inbox.
+     */
+    @GetMapping(value = "/emails/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEvents(Authentication authentication) {
+        // Fails fast when the account has no Gmail token the poller could use
+        authService.getAccessToken(authentication);
+        return inboxEventService.subscribe(authService.userIdOf(authentication));
+    }
 
+    @GetMapping("/emails/messages/{messageId}/body")
+    public ResponseEntity<EmailBodyResponse> getMessageBody(
+            Authentication authentication,
+            @PathVariable String messageId
+    ) {
         String accessToken =
                 authService.getAccessToken(authentication);
 
-        return gmailClient.fetchLast50InboxEmails(accessToken);
+        return ResponseEntity.ok(emailService.getMessageBody(accessToken, messageId));
     }
 
 
@@ -63,11 +147,21 @@ public class EmailController {
     }
 
     @PostMapping("/emails/draft/reply")
-    public ResponseEntity<ReplyDraftResponse> draftReply(
+    public ResponseEntity<?> draftReply(
             Authentication auth,
-            @RequestBody ReplyDraftRequest request
+            @RequestBody ReplyDraftRequest request,
+            @RequestHeader(value = "Prefer", required = false) String prefer
     ) {
         log.info("[API_REQUEST] endpoint=/emails/draft/reply threadId={}", request.getThreadId());
+        if (prefer != null && prefer.contains("respond-async")) {
+            // Run as a background job; the client polls the Location or waits for its callback
+            DraftJobResponse job = draftGenerationJobService.submit(auth, request);
+            log.info("[API_RESPONSE] endpoint=/emails/draft/reply threadId={} status=ACCEPTED jobId={}",
+                    request.getThreadId(), job.getJobId());
+            return ResponseEntity.accepted()
+                    .location(URI.create("/emails/draft/jobs/" + job.getJobId()))
+                    .body(job);
+        }
         try {
             ReplyDraftResponse response = emailDraftService.generateReplyDraft(auth, request);
             log.info("[API_RESPONSE] endpoint=/emails/draft/reply threadId={} status={}", 
@@ -101,6 +195,10 @@ public class EmailController {
                     threadId, response.getStatus(), response.getDraftId());
             
             return ResponseEntity.ok(response);
+        } catch (DependencyUnavailableException e) {
+            log.warn("[API_RESPONSE] endpoint=/emails/draft/reply/regenerate threadId={} status=UNAVAILABLE retryAfterSeconds={}",
+                    threadId, e.getRetryAfterSeconds());
+            throw e;
         } catch (Exception e) {
             log.error("[API_ERROR] endpoint=/emails/draft/reply/regenerate threadId={} error={}", 
                     threadId, e.getMessage(), e);
@@ -114,18 +212,41 @@ public class EmailController {
 
 
 
+    /**
+     * Switches the thread's draft to another tone. Drafts generated with {@code allTones} switch
+     * without a completion and Gmail is updated once the user stops switching; otherwise the
+     * reply is regenerated in that tone.
+     */
+    @PostMapping("/emails/draft/reply/tone")
+    public ResponseEntity<ReplyDraftResponse> switchReplyTone(
+            Authentication auth,
+            @RequestParam String threadId,
+            @RequestParam Tone tone
+    ) {
+        log.info("[API_REQUEST] endpoint=/emails/draft/reply/tone threadId={} tone={}", threadId, tone);
+        ReplyDraftResponse response = emailDraftService.switchTone(auth, threadId, tone);
+        log.info("[API_RESPONSE] endpoint=/emails/draft/reply/tone threadId={} status={}", threadId, response.getStatus());
+        return ResponseEntity.ok(response);
+    }
+
     @PostMapping("/emails/draft/reply/approve")
     public ResponseEntity<ApproveReplyResponse> approveReplyDraft(
             Authentication auth,
             @RequestParam String threadId,
-            @RequestBody ApproveReplyRequest request
+            @RequestBody ApproveReplyRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
     ) {
         log.info("[API_REQUEST] endpoint=/emails/draft/reply/approve threadId={}", threadId);
         try {
-            ApproveReplyResponse response = emailDraftService.approveReplyDraft(
+            // A replayed key returns the stored response without calling Gmail again
+            ApproveReplyResponse response = idempotencyService.execute(
                     auth,
-                    threadId,
-                    request.getReplyMessage()
+                    idempotencyKey,
+                    "approve",
+                    List.of(threadId, String.valueOf(request.getReplyMessage())),
+                    ApproveReplyResponse.class,
+                    EmailController::isFinal,
+                    () -> emailDraftService.approveReplyDraft(auth, threadId, request.getReplyMessage())
             );
 
             log.info("[API_RESPONSE] endpoint=/emails/draft/reply/approve threadId={} status={} statusCode={}", 
@@ -146,6 +267,88 @@ public class EmailController {
         }
     }
 
+    // Bulk drafting: generated in the next provider batch instead of interactively; each job is polled as usual
+    @PostMapping("/emails/draft/reply/batch")
+    public ResponseEntity<List<DraftJobResponse>> draftRepliesInBatch(
+            Authentication auth,
+            @RequestBody List<ReplyDraftRequest> requests
+    ) {
+        log.info("[API_REQUEST] endpoint=/emails/draft/reply/batch count={}", requests.size());
+        List<DraftJobResponse> jobs = draftGenerationJobService.submitBatch(auth, requests);
+        log.info("[API_RESPONSE] endpoint=/emails/draft/reply/batch status=ACCEPTED jobs={}", jobs.size());
+        return ResponseEntity.accepted().body(jobs);
+    }
+
+    @GetMapping("/emails/draft/jobs/{jobId}")
+    public ResponseEntity<DraftJobResponse> getDraftJob(
+            Authentication auth,
+            @PathVariable String jobId
+    ) {
+        return ResponseEntity.ok(draftGenerationJobService.getJob(auth, jobId));
+    }
+
+    // Async variants: the servlet thread is released while the pipeline runs, and the
+    // response is written when the CompletableFuture completes
+
+    @PostMapping("/emails/draft/reply/async")
+    public CompletableFuture<ResponseEntity<ReplyDraftResponse>> draftReplyAsync(
+            Authentication auth,
+            @RequestBody ReplyDraftRequest request
+    ) {
+        log.info("[API_REQUEST] endpoint=/emails/draft/reply/async threadId={}", request.getThreadId());
+        return emailDraftService.generateReplyDraftAsync(auth, request)
+                .thenApply(response -> {
+                    log.info("[API_RESPONSE] endpoint=/emails/draft/reply/async threadId={} status={}",
+                            request.getThreadId(), response.getStatus());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    @PostMapping("/emails/draft/reply/regenerate/async")
+    public CompletableFuture<ResponseEntity<ReplyDraftResponse>> regenerateReplyDraftAsync(
+            Authentication auth,
+            @RequestParam String threadId,
+            @RequestBody(required = false) ReplyDraftRequest request
+    ) {
+        log.info("[API_REQUEST] endpoint=/emails/draft/reply/regenerate/async threadId={}", threadId);
+        Tone tone = request != null ? request.getTone() : null;
+        return emailDraftService.regenerateReplyDraftAsync(auth, threadId, tone)
+                .thenApply(response -> {
+                    log.info("[API_RESPONSE] endpoint=/emails/draft/reply/regenerate/async threadId={} status={} draftId={}",
+                            threadId, response.getStatus(), response.getDraftId());
+                    return ResponseEntity.ok(response);
+                });
+    }
+
+    @PostMapping("/emails/draft/reply/approve/async")
+    public CompletableFuture<ResponseEntity<ApproveReplyResponse>> approveReplyDraftAsync(
+            Authentication auth,
+            @RequestParam String threadId,
+            @RequestBody ApproveReplyRequest request,
+            @RequestHeader(value = "Idempotency-Key", required = false) String idempotencyKey
+    ) {
+        log.info("[API_REQUEST] endpoint=/emails/draft/reply/approve/async threadId={}", threadId);
+        return idempotencyService.executeAsync(
+                        auth,
+                        idempotencyKey,
+                        "approve",
+                        List.of(threadId, String.valueOf(request.getReplyMessage())),
+                        ApproveReplyResponse.class,
+                        EmailController::isFinal,
+                        () -> emailDraftService.approveReplyDraftAsync(auth, threadId, request.getReplyMessage())
+                )
+                .thenApply(response -> {
+                    log.info("[API_RESPONSE] endpoint=/emails/draft/reply/approve/async threadId={} status={} statusCode={}",
+                            threadId, response.getStatus(), response.getStatusCode());
+                    return ResponseEntity.status(response.getStatusCode()).body(response);
+                });
+    }
+
+    // Sent, queued or rejected for good; a 5xx or 429 may succeed when retried with the same key
+    private static boolean isFinal(ApproveReplyResponse response) {
+        return response.getStatusCode() < 500 && response.getStatusCode() != 429;
+    }
+
     @PostMapping("/emails/draft/reply/reject")
     public ResponseEntity<RejectReplyResponse> rejectReplyDraft(
             Authentication auth,
@@ -213,7 +416,11 @@ public class EmailController {
         try {
             EmailBodyResponse response = emailDraftService.getEmailBodyByThreadId(auth, threadId);
             log.info("[API_RESPONSE] endpoint=/emails/thread/body threadId={} status=SUCCESS", threadId);
-            return ResponseEntity.ok(response);
+            // Revalidating clients get 304 until the draft changes
+            return ResponseEntity.ok()
+                    .eTag(ETags.of(response.getThreadId(), response.getMessageId(), response.getFrom(),
+                            response.getSubject(), response.getBody()))
+                    .body(response);
         } catch (RuntimeException e) {
             if (e.getMessage() != null && e.getMessage().contains("not found")) {
                 log.warn("[API_RESPONSE] endpoint=/emails/thread/body threadId={} status=NOT_FOUND", threadId);
@@ -0,0 +1,38 @@
+package com.assignment.draftly.dto;
+
+import com.assignment.draftly.entity.DraftGenerationJob;
+import com.assignment.draftly.enums.DraftJobStatus;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class DraftJobResponse {
+
+    private String jobId;
+    private DraftJobStatus status;
+    private String threadId;
+    private String draftId;
+    private String replyMessage;
+    private String errorMessage;
+    private Instant createdAt;
+    private Instant updatedAt;
+
+    public static DraftJobResponse of(DraftGenerationJob job) {
+        return new DraftJobResponse(
+                job.getId(),
+                job.getStatus(),
+                job.getThreadId(),
+                job.getDraftId(),
+                job.getReplyMessage(),
+                job.getErrorMessage(),
+                job.getCreatedAt(),
+                job.getUpdatedAt()
+        );
+    }
+}
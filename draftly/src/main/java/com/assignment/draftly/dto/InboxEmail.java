@@ -1,5 +1,7 @@
 package com.assignment.draftly.dto;
 
+import com.assignment.draftly.enums.ReplyDraftStatus;
+
 import lombok.Data;
 import lombok.RequiredArgsConstructor;
 
@@ -10,5 +12,10 @@ public class InboxEmail {
     String threadId;
     String from;
     String subject;
+    String snippet;
+    // Null in metadata-only listings; load it from /emails/messages/{messageId}/body
     String body;
+    // Latest live reply draft for the thread, if any; preview is its first 200 characters
+    ReplyDraftStatus draftStatus;
+    String draftPreview;
 }
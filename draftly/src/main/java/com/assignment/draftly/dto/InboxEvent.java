@@ -0,0 +1,42 @@
+package com.assignment.draftly.dto;
+
+import com.assignment.draftly.enums.InboxEventType;
+import com.assignment.draftly.integrations.GmailMessage;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.Instant;
+
+/**
+ * Data of one {@code /emails/events} event; the SSE event name is {@link #type}. Fields that do
+ * not apply to the type are null.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class InboxEvent {
+
+    private InboxEventType type;
+    private String threadId;
+    private String messageId;
+    private String draftId;
+    private String from;
+    private String subject;
+    private String snippet;
+    private Instant at;
+
+    public static InboxEvent newMessage(GmailMessage message) {
+        return new InboxEvent(InboxEventType.NEW_MESSAGE, message.threadId(), message.id(), null,
+                message.from(), message.subject(), message.snippet(), Instant.now());
+    }
+
+    public static InboxEvent draftReady(String threadId, String draftId) {
+        return new InboxEvent(InboxEventType.DRAFT_READY, threadId, null, draftId, null, null, null, Instant.now());
+    }
+
+    public static InboxEvent sendComplete(String threadId, String draftId) {
+        return new InboxEvent(InboxEventType.SEND_COMPLETE, threadId, null, draftId, null, null, null, Instant.now());
+    }
+}
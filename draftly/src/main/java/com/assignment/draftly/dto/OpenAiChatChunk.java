@@ -0,0 +1,23 @@
+package com.assignment.draftly.dto;
+
+import lombok.Data;
+
+import java.util.List;
+
+/** One server-sent event of a streamed chat completion. */
+@Data
+public class OpenAiChatChunk {
+    private List<Choice> choices;
+    // Only on the last chunk, when requested with stream_options.include_usage
+    private OpenAiChatResponse.Usage usage;
+
+    @Data
+    public static class Choice {
+        private Delta delta;
+    }
+
+    @Data
+    public static class Delta {
+        private String content;
+    }
+}
@@ -1,5 +1,8 @@
 package com.assignment.draftly.dto;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
@@ -7,11 +10,22 @@ import lombok.NoArgsConstructor;
 import java.util.List;
 
 @Data
-@AllArgsConstructor
 @NoArgsConstructor
+@JsonInclude(JsonInclude.Include.NON_NULL)
 public class OpenAiChatRequest {
     private String model;
     private List<Message> messages;
+    // Routes requests with the same stable prefix to the same prompt cache
+    @JsonProperty("prompt_cache_key")
+    private String promptCacheKey;
+    private Boolean stream;
+    @JsonProperty("stream_options")
+    private StreamOptions streamOptions;
+
+    public OpenAiChatRequest(String model, List<Message> messages) {
+        this.model = model;
+        this.messages = messages;
+    }
 
     @Data
     @AllArgsConstructor
@@ -20,4 +34,13 @@ public class OpenAiChatRequest {
         private String role; // system | user
         private String content;
     }
-}
\ No newline at end of file
+
+    @Data
+    @AllArgsConstructor
+    @NoArgsConstructor
+    public static class StreamOptions {
+        // Adds a final chunk carrying the usage block
+        @JsonProperty("include_usage")
+        private boolean includeUsage;
+    }
+}
@@ -1,12 +1,16 @@
 package com.assignment.draftly.dto;
 
+import com.fasterxml.jackson.annotation.JsonProperty;
+
 import lombok.Data;
 
 import java.util.List;
 
 @Data
 public class OpenAiChatResponse {
+    private String model;
     private List<Choice> choices;
+    private Usage usage;
 
     @Data
     public static class Choice {
@@ -18,4 +22,21 @@ public class OpenAiChatResponse {
         private String role;
         private String content;
     }
+
+    @Data
+    public static class Usage {
+        @JsonProperty("prompt_tokens")
+        private long promptTokens;
+        @JsonProperty("completion_tokens")
+        private long completionTokens;
+        @JsonProperty("prompt_tokens_details")
+        private PromptTokensDetails promptTokensDetails;
+    }
+
+    @Data
+    public static class PromptTokensDetails {
+        // Prompt tokens served from the provider's prefix cache
+        @JsonProperty("cached_tokens")
+        private long cachedTokens;
+    }
 }
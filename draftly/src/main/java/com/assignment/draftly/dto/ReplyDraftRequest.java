@@ -13,4 +13,8 @@ public class ReplyDraftRequest {
     private String subject;
     private String body;
     private Tone tone;
+    // Also generate the other tones, so /emails/draft/reply/tone can switch without a completion
+    private boolean allTones;
+    // Only used with Prefer: respond-async; POSTed the job result when it finishes
+    private String callbackUrl;
 }
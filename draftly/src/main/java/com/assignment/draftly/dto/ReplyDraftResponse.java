@@ -1,11 +1,14 @@
 package com.assignment.draftly.dto;
 
 import com.assignment.draftly.enums.DraftStatus;
+import com.assignment.draftly.enums.Tone;
 
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
+import java.util.Map;
+
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -16,6 +19,8 @@ public class ReplyDraftResponse {
     private String draftId;
     private String threadId;
     private String replyMessage;
+    // Every tone's reply when generated with allTones, otherwise null
+    private Map<Tone, String> variants;
 
     public static ReplyDraftResponse noReply(String threadId) {
         ReplyDraftResponse response = new ReplyDraftResponse(
@@ -23,6 +28,7 @@ public class ReplyDraftResponse {
                 "This email does not require a reply",
                 null,
                 threadId,
+                null,
                 null
         );
         return response;
@@ -34,7 +40,8 @@ public class ReplyDraftResponse {
                 "Reply draft created successfully",
                 draftId,
                 threadId,
-                replyMessage
+                replyMessage,
+                null
         );
     }
 
@@ -44,6 +51,7 @@ public class ReplyDraftResponse {
                 message,
                 null,
                 threadId,
+                null,
                 null
         );
     }
@@ -0,0 +1,74 @@
+package com.assignment.draftly.entity;
+
+import com.assignment.draftly.enums.DraftJobStatus;
+import com.assignment.draftly.enums.Tone;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A reply draft generation requested with {@code Prefer: respond-async}. Holds the original
+ * request so a worker can run it after the HTTP request has returned, and the outcome so
+ * the client can poll for it.
+ *
+ * Bulk jobs ({@code batched}) skip the work queue: they are collected into a provider batch
+ * ({@link GenerationBatch}, {@code batchId}) and finished when the batch's results come back.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "draft_generation_jobs",
+        indexes = {
+                @Index(name = "idx_draft_jobs_status", columnList = "status"),
+                @Index(name = "idx_draft_jobs_user", columnList = "userId"),
+                @Index(name = "idx_draft_jobs_batch", columnList = "batchId")
+        }
+)
+public class DraftGenerationJob {
+
+    @Id
+    private String id;
+
+    private Long userId;
+
+    private String threadId;
+    private String messageId;
+    private String fromEmail;
+
+    @Column(length = 1000)
+    private String subject;
+
+    @Column(columnDefinition = "TEXT")
+    private String body;
+
+    @Enumerated(EnumType.STRING)
+    private Tone tone;
+
+    @Column(length = 2048)
+    private String callbackUrl;
+
+    @Enumerated(EnumType.STRING)
+    private DraftJobStatus status;
+
+    private boolean batched;
+
+    // Provider batch the job was submitted in, or the claim token while it is being submitted
+    private String batchId;
+
+    // Batches the job was submitted in without getting a result back
+    private int batchAttempts;
+
+    private String draftId;
+
+    @Column(columnDefinition = "TEXT")
+    private String replyMessage;
+
+    @Column(columnDefinition = "TEXT")
+    private String errorMessage;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
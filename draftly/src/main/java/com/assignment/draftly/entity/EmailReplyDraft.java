@@ -1,6 +1,7 @@
 package com.assignment.draftly.entity;
 
 import com.assignment.draftly.enums.ReplyDraftStatus;
+import com.assignment.draftly.enums.Tone;
 import jakarta.persistence.*;
 import lombok.Getter;
 import lombok.Setter;
@@ -10,7 +11,10 @@ import java.time.Instant;
 @Getter
 @Setter
 @Entity
-@Table(name = "email_reply_drafts")
+@Table(
+        name = "email_reply_drafts",
+        indexes = @Index(name = "idx_email_reply_drafts_thread", columnList = "threadId, deleted, createdAt")
+)
 public class EmailReplyDraft {
 
     @Id
@@ -31,6 +35,17 @@ public class EmailReplyDraft {
 
     private String gmailDraftId;
 
+    // Tone of replyMessage; null for drafts generated before tones were recorded
+    @Enumerated(EnumType.STRING)
+    private Tone tone;
+
+    // Set by a local tone switch; the Gmail draft still holds the previous text until it settles
+    private Instant toneSelectedAt;
+    private boolean gmailDraftStale = false;
+
+    // Set before the first send attempt; a later attempt must first check whether that one reached Gmail
+    private Instant sendAttemptedAt;
+
     private Instant createdAt;
     private Instant updatedAt;
 
@@ -0,0 +1,37 @@
+package com.assignment.draftly.entity;
+
+import com.assignment.draftly.enums.Tone;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A reply generated in one tone for an {@link EmailReplyDraft}, kept so switching tone does not
+ * need another completion.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "email_reply_variants",
+        uniqueConstraints = @UniqueConstraint(name = "uk_email_reply_variants_draft_tone", columnNames = {"draftId", "tone"})
+)
+public class EmailReplyVariant {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    // EmailReplyDraft.id
+    private Long draftId;
+
+    @Enumerated(EnumType.STRING)
+    private Tone tone;
+
+    @Column(columnDefinition = "TEXT")
+    private String replyMessage;
+
+    private Instant createdAt;
+}
@@ -0,0 +1,45 @@
+package com.assignment.draftly.entity;
+
+import com.assignment.draftly.enums.GenerationBatchStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A provider batch of bulk reply generations (see {@code DraftBatchService}).
+ *
+ * SUBMITTED batches are polled until the provider is done; RECEIVED means the results were
+ * copied onto the batch's jobs, which are still being turned into drafts; COMPLETED means
+ * every job of the batch is finished or back in the queue. An instance polling or fanning out
+ * a batch holds it through {@code claim} so no other instance works on it at the same time.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "generation_batches",
+        indexes = @Index(name = "idx_generation_batches_status", columnList = "status")
+)
+public class GenerationBatch {
+
+    // Id returned by the LLM provider on submit
+    @Id
+    private String id;
+
+    private String tier;
+    private String model;
+
+    private int jobCount;
+
+    @Enumerated(EnumType.STRING)
+    private GenerationBatchStatus status;
+
+    // Held while one instance polls or fans out the batch; stale after the claim timeout
+    private String claim;
+    private Instant claimedAt;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,46 @@
+package com.assignment.draftly.entity;
+
+import com.assignment.draftly.enums.IdempotencyStatus;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * Outcome of a request sent with an {@code Idempotency-Key} header. The key is scoped to the
+ * user; {@code requestHash} ties it to one request body so a reused key with different
+ * parameters is rejected instead of replayed.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "idempotency_records",
+        uniqueConstraints = @UniqueConstraint(name = "uk_idempotency_user_key", columnNames = {"userId", "idempotencyKey"}),
+        indexes = @Index(name = "idx_idempotency_created", columnList = "createdAt")
+)
+public class IdempotencyRecord {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    private String idempotencyKey;
+
+    private String operation;
+
+    @Column(length = 64)
+    private String requestHash;
+
+    @Enumerated(EnumType.STRING)
+    private IdempotencyStatus status;
+
+    @Column(columnDefinition = "TEXT")
+    private String responseBody;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,53 @@
+package com.assignment.draftly.entity;
+
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * A user's writing style, distilled from their sent mail into
+ * {@link com.assignment.draftly.style.StyleStats} and the descriptor used in prompts.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "user_style_profiles",
+        uniqueConstraints = @UniqueConstraint(name = "uk_user_style_profiles_user", columnNames = "userId")
+)
+public class UserStyleProfile {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private Long userId;
+
+    // StyleStats.VERSION the stats were built with; a different one means rebuild from scratch
+    private int version;
+
+    // Bumped on every update; concurrent refreshes of the same profile lose instead of double counting
+    @Version
+    private Long revision;
+
+    @Column(columnDefinition = "TEXT")
+    private String stats;
+
+    @Column(length = 2000)
+    private String descriptor;
+
+    // Most recent sent message ids already folded into stats, comma separated
+    @Column(length = 2000)
+    private String seenMessageIds;
+
+    // Set when the user sends mail; the next use reads the new sent mail
+    private boolean stale;
+
+    // Moving average of how much of each generated reply the user rewrote before sending it
+    private double editRatio;
+    private int editSamples;
+
+    private Instant updatedAt;
+}
@@ -0,0 +1,62 @@
+package com.assignment.draftly.entity;
+
+import com.assignment.draftly.enums.WorkItemStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import jakarta.persistence.*;
+import lombok.Getter;
+import lombok.Setter;
+
+import java.time.Instant;
+
+/**
+ * One task on the durable work queue (see {@code WorkQueue}).
+ *
+ * READY items become claimable at {@code visibleAt}. A claimed item is LEASED until
+ * {@code leaseExpiresAt}, which is extended while its worker runs; if the worker dies the
+ * item is claimable again, and after {@code maxAttempts} it is moved to DEAD for inspection.
+ */
+@Getter
+@Setter
+@Entity
+@Table(
+        name = "work_items",
+        indexes = {
+                @Index(name = "idx_work_items_claim", columnList = "status, visibleAt, priority"),
+                @Index(name = "idx_work_items_user", columnList = "userId, status")
+        }
+)
+public class WorkItem {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Enumerated(EnumType.STRING)
+    private WorkItemType type;
+
+    @Enumerated(EnumType.ORDINAL)
+    private WorkPriority priority;
+
+    private Long userId;
+
+    @Column(columnDefinition = "TEXT")
+    private String payload;
+
+    @Enumerated(EnumType.STRING)
+    private WorkItemStatus status;
+
+    private int attempts;
+    private int maxAttempts;
+
+    private Instant visibleAt;
+
+    private String leaseToken;
+    private Instant leaseExpiresAt;
+
+    @Column(columnDefinition = "TEXT")
+    private String lastError;
+
+    private Instant createdAt;
+    private Instant updatedAt;
+}
@@ -0,0 +1,8 @@
+package com.assignment.draftly.enums;
+
+public enum DraftJobStatus {
+    QUEUED,
+    RUNNING,
+    SUCCEEDED,
+    FAILED
+}
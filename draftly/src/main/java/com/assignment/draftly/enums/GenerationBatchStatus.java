@@ -0,0 +1,7 @@
+package com.assignment.draftly.enums;
+
+public enum GenerationBatchStatus {
+    SUBMITTED,
+    RECEIVED,
+    COMPLETED
+}
@@ -0,0 +1,6 @@
+package com.assignment.draftly.enums;
+
+public enum IdempotencyStatus {
+    IN_PROGRESS,
+    COMPLETED
+}
@@ -0,0 +1,7 @@
+package com.assignment.draftly.enums;
+
+public enum InboxEventType {
+    NEW_MESSAGE,
+    DRAFT_READY,
+    SEND_COMPLETE
+}
@@ -0,0 +1,8 @@
+package com.assignment.draftly.enums;
+
+public enum WorkItemStatus {
+    READY,
+    LEASED,
+    DONE,
+    DEAD
+}
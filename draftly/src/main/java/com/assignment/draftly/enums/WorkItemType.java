@@ -0,0 +1,8 @@
+package com.assignment.draftly.enums;
+
+public enum WorkItemType {
+    GENERATE_REPLY,
+    SEND_REPLY,
+    DELETE_GMAIL_DRAFT,
+    SYNC_GMAIL_DRAFT
+}
@@ -0,0 +1,11 @@
+package com.assignment.draftly.enums;
+
+/**
+ * Work queue priorities, highest first. Stored by ordinal so the claim query can order
+ * on the column directly; only append new values.
+ */
+public enum WorkPriority {
+    INTERACTIVE,
+    BULK,
+    PREGENERATION
+}
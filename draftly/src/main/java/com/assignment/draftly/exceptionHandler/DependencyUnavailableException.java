@@ -0,0 +1,27 @@
+package com.assignment.draftly.exceptionHandler;
+
+import com.assignment.draftly.enums.ExternalDependency;
+
+/**
+ * Thrown when a call to an external dependency is refused locally (limiter full,
+ * circuit open, ...) instead of being attempted. Carries a retry-after hint in seconds.
+ */
+public class DependencyUnavailableException extends RuntimeException {
+
+    private final ExternalDependency dependency;
+    private final long retryAfterSeconds;
+
+    public DependencyUnavailableException(String message, ExternalDependency dependency, long retryAfterSeconds) {
+        super(message);
+        this.dependency = dependency;
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public ExternalDependency getDependency() {
+        return dependency;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
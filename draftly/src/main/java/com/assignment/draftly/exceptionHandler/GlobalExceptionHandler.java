@@ -1,6 +1,7 @@
 package com.assignment.draftly.exceptionHandler;
 
 import io.jsonwebtoken.JwtException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.core.AuthenticationException;
@@ -40,6 +41,12 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiError, status);
     }
 
+    @ExceptionHandler(IllegalArgumentException.class)
+    public ResponseEntity<ApiError> handleIllegalArgumentException(IllegalArgumentException ex) {
+        ApiError apiError = new ApiError(ex.getLocalizedMessage(), HttpStatus.BAD_REQUEST);
+        return new ResponseEntity<>(apiError, HttpStatus.BAD_REQUEST);
+    }
+
     @ExceptionHandler(GmailApiException.class)
     public ResponseEntity<ApiError> handleGmailApiException(GmailApiException ex) {
         HttpStatus status = HttpStatus.INTERNAL_SERVER_ERROR;
@@ -56,6 +63,30 @@ public class GlobalExceptionHandler {
         return new ResponseEntity<>(apiError, status);
     }
 
+    @ExceptionHandler(DependencyUnavailableException.class)
+    public ResponseEntity<ApiError> handleDependencyUnavailableException(DependencyUnavailableException ex) {
+        ApiError apiError = new ApiError(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiError);
+    }
+
+    @ExceptionHandler(LoadSheddingException.class)
+    public ResponseEntity<ApiError> handleLoadSheddingException(LoadSheddingException ex) {
+        ApiError apiError = new ApiError(ex.getMessage(), HttpStatus.SERVICE_UNAVAILABLE);
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+                .body(apiError);
+    }
+
+    @ExceptionHandler(IdempotencyConflictException.class)
+    public ResponseEntity<ApiError> handleIdempotencyConflictException(IdempotencyConflictException ex) {
+        ApiError apiError = new ApiError(ex.getMessage(), HttpStatus.CONFLICT);
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body(apiError);
+    }
+
     @ExceptionHandler(HttpClientErrorException.class)
     public ResponseEntity<ApiError> handleHttpClientErrorException(HttpClientErrorException ex) {
         HttpStatus status = HttpStatus.resolve(ex.getStatusCode().value());
@@ -11,6 +11,12 @@ public class GmailApiException extends RuntimeException {
         this.errorBody = errorBody;
     }
 
+    public GmailApiException(String message, int statusCode, String errorBody, Throwable cause) {
+        super(message, cause);
+        this.statusCode = statusCode;
+        this.errorBody = errorBody;
+    }
+
     public int getStatusCode() {
         return statusCode;
     }
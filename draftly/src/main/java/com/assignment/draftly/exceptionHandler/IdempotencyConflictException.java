@@ -0,0 +1,12 @@
+package com.assignment.draftly.exceptionHandler;
+
+/**
+ * Thrown when a request arrives with an {@code Idempotency-Key} whose first request is still
+ * being processed.
+ */
+public class IdempotencyConflictException extends RuntimeException {
+
+    public IdempotencyConflictException(String message) {
+        super(message);
+    }
+}
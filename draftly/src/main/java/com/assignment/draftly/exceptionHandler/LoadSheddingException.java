@@ -0,0 +1,19 @@
+package com.assignment.draftly.exceptionHandler;
+
+/**
+ * Thrown when work is refused because a local queue is already full. Carries a
+ * retry-after hint in seconds.
+ */
+public class LoadSheddingException extends RuntimeException {
+
+    private final long retryAfterSeconds;
+
+    public LoadSheddingException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -0,0 +1,62 @@
+package com.assignment.draftly.integrations;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Stable key for the Gmail account behind an access token, used to partition per-user state
+ * (quota buckets, caches).
+ *
+ * GmailClient only ever sees the bearer token, which Google rotates on every refresh, so
+ * AuthService registers each token it hands out against the local user id. A refreshed token
+ * therefore maps to the same quota bucket and cache. Tokens that were never registered fall
+ * back to a hash of the token, so raw tokens are never kept as map keys.
+ */
+@Component
+public class GmailAccounts {
+
+    private final Map<String, String> keysByToken;
+
+    public GmailAccounts(@Value("${draftly.gmail.accounts.max-tokens:10000}") int maxTokens) {
+        this.keysByToken = Collections.synchronizedMap(new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, String> eldest) {
+                return size() > maxTokens;
+            }
+        });
+    }
+
+    /** Records that {@code accessToken} belongs to the local user {@code userId}. */
+    public void register(String accessToken, Long userId) {
+        if (accessToken != null && userId != null) {
+            keysByToken.put(hash(accessToken), "user-" + userId);
+        }
+    }
+
+    public String keyOf(String accessToken) {
+        if (accessToken == null) {
+            return "anonymous";
+        }
+        String hash = hash(accessToken);
+        String key = keysByToken.get(hash);
+        return key != null ? key : hash;
+    }
+
+    private static String hash(String accessToken) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(accessToken.getBytes(StandardCharsets.UTF_8));
+            return HexFormat.of().formatHex(digest, 0, 16);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+}
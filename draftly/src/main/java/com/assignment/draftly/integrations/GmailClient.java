@@ -1,32 +1,98 @@
 package com.assignment.draftly.integrations;
 
 import java.util.ArrayList;
-import java.util.Base64;
 import java.util.List;
 import java.util.Map;
-
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.context.annotation.Lazy;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
 import org.springframework.stereotype.Component;
 import org.springframework.web.client.HttpClientErrorException;
 import org.springframework.web.client.HttpServerErrorException;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
 
 import com.assignment.draftly.dto.InboxEmail;
+import com.assignment.draftly.enums.ExternalDependency;
 import com.assignment.draftly.exceptionHandler.GmailApiException;
+import com.assignment.draftly.mail.AddressParser;
+import com.assignment.draftly.mail.MailAddress;
+import com.assignment.draftly.mail.MimeMessageBuilder;
+import com.assignment.draftly.resilience.ExternalCall;
 
 import lombok.extern.slf4j.Slf4j;
 
 @Slf4j
 @Component
-public class GmailClient {
+public class GmailClient implements DisposableBean {
+
+    private final RestTemplate restTemplate;
+
+    // Base of the per-user Gmail endpoints; the host is configurable so tests can use a local stand-in
+    private final String gmailApiUrl;
+
+    // Fan-out for per-message fetches; runs on virtual threads when spring.threads.virtual.enabled.
+    // Its own pool, not applicationTaskExecutor: async draft stages running there call into this
+    // client and wait for the fetches, which must never queue behind those same stages
+    private final Executor fetchExecutor;
+
+    // Decoded bytes of a body part beyond which the rest is ignored
+    private final int maxBodyBytes;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final GmailResponseCache cache;
+
+    private final GmailAccounts accounts;
+
+    // Proxied self-reference so internal calls (bulk fetches, history pages) still go
+    // through the @ExternalCall resilience policy instead of bypassing it
+    @Autowired
+    @Lazy
+    private GmailClient self;
+
+    public GmailClient(
+            @Qualifier("gmailRestTemplate") RestTemplate restTemplate,
+            Environment environment,
+            @Value("${draftly.gmail.fetch-threads:32}") int fetchThreads,
+            @Value("${draftly.gmail.base-url:https://gmail.googleapis.com}") String baseUrl,
+            @Value("${draftly.mail.max-body-bytes:262144}") int maxBodyBytes,
+            GmailResponseCache cache,
+            GmailAccounts accounts
+    ) {
+        this.restTemplate = restTemplate;
+        // With every fetch thread busy the caller fetches itself rather than waiting for a thread
+        this.fetchExecutor = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("gmail-fetch-")
+                : new ThreadPoolExecutor(0, fetchThreads, 60, TimeUnit.SECONDS, new SynchronousQueue<>(),
+                        new CustomizableThreadFactory("gmail-fetch-"), new ThreadPoolExecutor.CallerRunsPolicy());
+        this.maxBodyBytes = maxBodyBytes;
+        this.cache = cache;
+        this.accounts = accounts;
+        this.gmailApiUrl = baseUrl + "/gmail/v1/users/me";
+    }
 
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "messages.list.sent", idempotent = true, quotaUnits = 5)
     public List<String> fetchLast10SentMessageIds(String accessToken) {
 
         HttpHeaders headers = new HttpHeaders();
@@ -35,7 +101,7 @@ public class GmailClient {
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
         String url =
-                "https://gmail.googleapis.com/gmail/v1/users/me/messages?q=in:sent&maxResults=10";
+                gmailApiUrl + "/messages?q=in:sent&maxResults=10";
 
         try {
             ResponseEntity<Map> response =
@@ -56,23 +122,39 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
     }
 
 
     // fetch full message
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "messages.get", idempotent = true, quotaUnits = 5,
+            hedgeable = true)
     public Map<String, Object> fetchMessageById(
             String accessToken,
             String messageId
     ) {
+        return getMessage(accessToken, messageId, "");
+    }
+
+    // From, Subject and snippet only; Gmail sends no body parts, which keeps list pages small
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "messages.get.metadata", idempotent = true,
+            quotaUnits = 5, hedgeable = true)
+    public Map<String, Object> fetchMessageMetadata(
+            String accessToken,
+            String messageId
+    ) {
+        return getMessage(accessToken, messageId, "?format=metadata&metadataHeaders=From&metadataHeaders=Subject");
+    }
+
+    private Map<String, Object> getMessage(String accessToken, String messageId, String query) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
 
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
         String url =
-                "https://gmail.googleapis.com/gmail/v1/users/me/messages/" + messageId;
+                gmailApiUrl + "/messages/" + messageId + query;
 
         try {
             ResponseEntity<Map> response =
@@ -88,52 +170,36 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
     }
 
-    private String decode(String data) {
-        return new String(Base64.getUrlDecoder().decode(data));
-    }
-
-    private String extractBody(Map<String, Object> message) {
-
-        Map<String, Object> payload =
-                (Map<String, Object>) message.get("payload");
-
-        List<Map<String, Object>> parts =
-                (List<Map<String, Object>>) payload.get("parts");
-
-        if (parts == null) return "";
-
-        for (Map<String, Object> part : parts) {
-            if ("text/plain".equals(part.get("mimeType"))) {
-                Map<String, Object> body =
-                        (Map<String, Object>) part.get("body");
+    /**
+     * A plain-text reply to Gmail message {@code messageId}. {@code clientMessageId}, when set,
+     * becomes the {@code Message-ID} header.
+     */
+    static MimeMessageBuilder replyMessage(String to, String subject, String body, String messageId, String clientMessageId) {
+        String replySubject = subject.startsWith("Re:") ? subject : "Re: " + subject;
 
-                return decode((String) body.get("data"));
-            }
+        MimeMessageBuilder mime = new MimeMessageBuilder().to(to);
+        if (clientMessageId != null) {
+            mime.messageId(clientMessageId);
         }
-
-        return "";
+        return mime.subject(replySubject)
+                .inReplyTo(messageId + "@mail.gmail.com")
+                .text(body);
     }
 
     public List<String> fetchLast10SentEmailBodies(String accessToken) {
 
-        List<String> ids = fetchLast10SentMessageIds(accessToken);
-        List<String> bodies = new ArrayList<>();
+        List<String> ids = self.fetchLast10SentMessageIds(accessToken);
 
-        for (String id : ids) {
-            Map<String, Object> message =
-                    fetchMessageById(accessToken, id);
-
-            String body = extractBody(message);
-            bodies.add(body);
-        }
-
-        return bodies;
+        return getMessages(accessToken, ids).stream()
+                .map(GmailMessage::body)
+                .toList();
     }
 
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "drafts.create", quotaUnits = 10)
     public void createDraft(
             String accessToken,
             String to,
@@ -141,16 +207,11 @@ public class GmailClient {
             String body
     ) {
 
-        String email =
-                "To: " + to + "\r\n" +
-                        "Subject: " + subject + "\r\n" +
-                        "Content-Type: text/plain; charset=\"UTF-8\"\r\n" +
-                        "\r\n" +
-                        body;
-
-        String encodedEmail =
-                Base64.getUrlEncoder()
-                        .encodeToString(email.getBytes());
+        String encodedEmail = new MimeMessageBuilder()
+                .to(to)
+                .subject(subject)
+                .text(body)
+                .toRaw();
 
         Map<String, Object> message = Map.of(
                 "raw", encodedEmail
@@ -170,7 +231,7 @@ public class GmailClient {
         try {
             ResponseEntity<Map> response =
                     restTemplate.postForEntity(
-                            "https://gmail.googleapis.com/gmail/v1/users/me/drafts",
+                            gmailApiUrl + "/drafts",
                             entity,
                             Map.class
                     );
@@ -187,21 +248,29 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
 
     }
 
-    public List<String> fetchLast50InboxMessageIds(String accessToken) {
+    /**
+     * One page of inbox message ids, newest first. {@code pageToken} is the {@code nextPageToken}
+     * of the previous page, or null for the first.
+     */
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "messages.list.inbox", idempotent = true, quotaUnits = 5)
+    public MessageIdPage fetchInboxMessageIds(String accessToken, int maxResults, String pageToken) {
 
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
 
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-        String url =
-                "https://gmail.googleapis.com/gmail/v1/users/me/messages" +
-                        "?q=in:inbox&maxResults=10";
+        String url = UriComponentsBuilder.fromUriString(gmailApiUrl + "/messages")
+                .queryParam("q", "in:inbox")
+                .queryParam("maxResults", maxResults)
+                .queryParamIfPresent("pageToken", Optional.ofNullable(pageToken))
+                .encode()
+                .toUriString();
 
         try {
             log.info("Fetching inbox message IDs from Gmail API...");
@@ -212,22 +281,23 @@ public class GmailClient {
 
             if (response.getBody() == null) {
                 log.warn("Gmail API returned null response body");
-                return List.of();
+                return new MessageIdPage(List.of(), null);
             }
 
             List<Map<String, Object>> messages =
                     (List<Map<String, Object>>) response.getBody().get("messages");
+            String nextPageToken = (String) response.getBody().get("nextPageToken");
 
             if (messages == null) {
                 log.info("No messages found in inbox");
-                return List.of();
+                return new MessageIdPage(List.of(), nextPageToken);
             }
 
-            return messages.stream()
+            return new MessageIdPage(messages.stream()
                     .map(m -> (String) m.get("id"))
-                    .toList();
+                    .toList(), nextPageToken);
         } catch (HttpClientErrorException e) {
-            log.error("[GMAIL_API_ERROR] operation=fetchLast50InboxMessageIds statusCode={} errorBody={}", 
+            log.error("[GMAIL_API_ERROR] operation=fetchInboxMessageIds statusCode={} errorBody={}", 
                     e.getStatusCode(), e.getResponseBodyAsString());
             String errorMessage = "Failed to fetch inbox messages from Gmail API";
             if (e.getStatusCode().value() == 401) {
@@ -235,55 +305,121 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         } catch (Exception e) {
-            log.error("[GMAIL_API_ERROR] operation=fetchLast50InboxMessageIds error={}", e.getMessage(), e);
+            log.error("[GMAIL_API_ERROR] operation=fetchInboxMessageIds error={}", e.getMessage(), e);
             throw new RuntimeException("Failed to fetch inbox message IDs: " + e.getMessage(), e);
         }
     }
 
-    private String getHeader(List<Map<String, Object>> headers, String name) {
-        return headers.stream()
-                .filter(h -> name.equalsIgnoreCase((String) h.get("name")))
-                .map(h -> (String) h.get("value"))
-                .findFirst()
-                .orElse("");
+    static String getHeader(List<Map<String, Object>> headers, String name) {
+        if (headers == null) {
+            return "";
+        }
+        for (Map<String, Object> header : headers) {
+            if (name.equalsIgnoreCase((String) header.get("name"))) {
+                Object value = header.get("value");
+                return value != null ? (String) value : "";
+            }
+        }
+        return "";
     }
 
-    public InboxEmail parseInboxEmail(Map<String, Object> message) {
-
-        Map<String, Object> payload =
-                (Map<String, Object>) message.get("payload");
+    /**
+     * A From header for display and for replying: encoded words decoded and comments dropped,
+     * or the header unchanged when no mailbox can be parsed from it.
+     */
+    static String displayFrom(String from) {
+        MailAddress address = AddressParser.parse(from);
+        return address != null ? address.toString() : from;
+    }
 
-        List<Map<String, Object>> headers =
-                (List<Map<String, Object>>) payload.get("headers");
+    /**
+     * The parsed message, from the per-user cache when it has been read before. Messages do not
+     * change once delivered, so a cached copy never needs revalidating.
+     */
+    public GmailMessage getMessage(String accessToken, String messageId) {
+        String account = accounts.keyOf(accessToken);
+        GmailMessage cached = cache.message(account, messageId);
+        if (cached != null) {
+            return cached;
+        }
+        GmailMessage message = GmailMessage.parse(self.fetchMessageById(accessToken, messageId), maxBodyBytes);
+        cache.putMessage(account, message);
+        return message;
+    }
 
-        InboxEmail email = new InboxEmail();
-        email.setMessageId((String) message.get("id"));
-        email.setThreadId((String) message.get("threadId"));
+    /**
+     * The parsed message, or just its headers and snippet (empty body) when it is not cached.
+     * Metadata-only results are not cached, so a later {@link #getMessage} still fetches the body.
+     */
+    public GmailMessage getMessageMetadata(String accessToken, String messageId) {
+        String account = accounts.keyOf(accessToken);
+        GmailMessage cached = cache.message(account, messageId);
+        if (cached != null) {
+            return cached;
+        }
+        GmailMessage message = GmailMessage.parse(self.fetchMessageMetadata(accessToken, messageId), maxBodyBytes);
+        return message;
+    }
 
-        email.setFrom(getHeader(headers, "From"));
-        email.setSubject(getHeader(headers, "Subject"));
-        email.setBody(extractBody(message));
+    /** Parsed messages in the order of {@code ids}; only cache misses go to Gmail, concurrently. */
+    public List<GmailMessage> getMessages(String accessToken, List<String> ids) {
+        return fetchAll(ids, id -> getMessage(accessToken, id));
+    }
 
+    public InboxEmail toInboxEmail(GmailMessage message) {
+        InboxEmail email = new InboxEmail();
+        email.setMessageId(message.id());
+        email.setThreadId(message.threadId());
+        email.setFrom(message.from());
+        email.setSubject(message.subject());
+        email.setSnippet(message.snippet());
+        email.setBody(message.body());
         return email;
     }
 
-    public List<InboxEmail> fetchLast50InboxEmails(String accessToken) {
-
-        List<String> ids = fetchLast50InboxMessageIds(accessToken);
-        List<InboxEmail> emails = new ArrayList<>();
-
-        for (String id : ids) {
-            Map<String, Object> message =
-                    fetchMessageById(accessToken, id);
-
-            emails.add(parseInboxEmail(message));
+    /**
+     * One page of the inbox. With {@code metadataOnly} uncached messages are fetched without their
+     * bodies and body is left null, for list views that load a body only when it is opened.
+     */
+    public InboxPage fetchInboxPage(String accessToken, int pageSize, String pageToken, boolean metadataOnly) {
+        MessageIdPage ids = self.fetchInboxMessageIds(accessToken, pageSize, pageToken);
+        List<InboxEmail> emails;
+        if (metadataOnly) {
+            emails = fetchAll(ids.ids(), id -> {
+                InboxEmail email = toInboxEmail(getMessageMetadata(accessToken, id));
+                email.setBody(null);
+                return email;
+            });
+        } else {
+            emails = getMessages(accessToken, ids.ids()).stream()
+                    .map(this::toInboxEmail)
+                    .toList();
         }
+        return new InboxPage(emails, ids.nextPageToken());
+    }
 
-        return emails;
+    // Runs fetch for every id concurrently, preserving the order of ids. The per-call bulkhead
+    // and quota still apply, so this only overlaps latency, it does not exceed Gmail limits.
+    private <T> List<T> fetchAll(List<String> ids, Function<String, T> fetch) {
+        List<CompletableFuture<T>> futures = ids.stream()
+                .map(id -> CompletableFuture.supplyAsync(() -> fetch.apply(id), fetchExecutor))
+                .toList();
+        try {
+            return futures.stream()
+                    .map(CompletableFuture::join)
+                    .toList();
+        } catch (CompletionException e) {
+            futures.forEach(f -> f.cancel(false));
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
     }
 
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "drafts.create.reply", quotaUnits = 10)
     public String createReplyDraft(
             String accessToken,
             String to,
@@ -292,20 +428,7 @@ public class GmailClient {
             String threadId,
             String messageId
     ) {
-        String replySubject = subject.startsWith("Re:") ? subject : "Re: " + subject;
-
-        String email =
-                "To: " + to + "\r\n" +
-                        "Subject: " + replySubject + "\r\n" +
-                        "In-Reply-To: <" + messageId + "@mail.gmail.com>\r\n" +
-                        "References: <" + messageId + "@mail.gmail.com>\r\n" +
-                        "Content-Type: text/plain; charset=\"UTF-8\"\r\n" +
-                        "\r\n" +
-                        body;
-
-        String encodedEmail =
-                Base64.getUrlEncoder()
-                        .encodeToString(email.getBytes());
+        String encodedEmail = replyMessage(to, subject, body, messageId, null).toRaw();
 
         Map<String, Object> message = new java.util.HashMap<>();
         message.put("raw", encodedEmail);
@@ -325,7 +448,7 @@ public class GmailClient {
         try {
             ResponseEntity<Map> response =
                     restTemplate.postForEntity(
-                            "https://gmail.googleapis.com/gmail/v1/users/me/drafts",
+                            gmailApiUrl + "/drafts",
                             entity,
                             Map.class
                     );
@@ -349,32 +472,21 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
     }
 
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "messages.send", quotaUnits = 100)
     public void sendReply(
             String accessToken,
             String to,
             String subject,
             String body,
             String threadId,
-            String messageId
+            String messageId,
+            String clientMessageId
     ) {
-        String replySubject = subject.startsWith("Re:") ? subject : "Re: " + subject;
-
-        String email =
-                "To: " + to + "\r\n" +
-                        "Subject: " + replySubject + "\r\n" +
-                        "In-Reply-To: <" + messageId + "@mail.gmail.com>\r\n" +
-                        "References: <" + messageId + "@mail.gmail.com>\r\n" +
-                        "Content-Type: text/plain; charset=\"UTF-8\"\r\n" +
-                        "\r\n" +
-                        body;
-
-        String encodedEmail =
-                Base64.getUrlEncoder()
-                        .encodeToString(email.getBytes());
+        String encodedEmail = replyMessage(to, subject, body, messageId, clientMessageId).toRaw();
 
         Map<String, Object> message = new java.util.HashMap<>();
         message.put("raw", encodedEmail);
@@ -390,7 +502,7 @@ public class GmailClient {
         try {
             ResponseEntity<Map> response =
                     restTemplate.postForEntity(
-                            "https://gmail.googleapis.com/gmail/v1/users/me/messages/send",
+                            gmailApiUrl + "/messages/send",
                             entity,
                             Map.class
                     );
@@ -407,11 +519,11 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         } catch (HttpServerErrorException e) {
             log.error("[GMAIL_API_ERROR] operation=sendReply threadId={} to={} statusCode={} errorBody={} (retryable)", 
                     threadId, to, e.getStatusCode(), e.getResponseBodyAsString());
-            throw new GmailApiException("Gmail API server error: " + e.getMessage(), e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException("Gmail API server error: " + e.getMessage(), e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         } catch (RestClientException e) {
             log.error("[GMAIL_API_ERROR] operation=sendReply threadId={} to={} error={} (retryable)", 
                     threadId, to, e.getMessage(), e);
@@ -419,13 +531,52 @@ public class GmailClient {
         }
     }
 
+    /**
+     * Id of the message carrying the given RFC 822 {@code Message-ID}, or null if there is none.
+     * Used to tell whether an earlier send attempt reached Gmail before sending again.
+     */
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "messages.list.msgid", idempotent = true, quotaUnits = 5)
+    public String findMessageIdByRfc822Id(String accessToken, String rfc822MessageId) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        try {
+            ResponseEntity<Map> response = restTemplate.exchange(
+                    gmailApiUrl + "/messages?q={q}&maxResults=1",
+                    HttpMethod.GET,
+                    entity,
+                    Map.class,
+                    "rfc822msgid:" + rfc822MessageId
+            );
+
+            List<Map<String, Object>> messages =
+                    (List<Map<String, Object>>) response.getBody().get("messages");
+
+            return messages == null || messages.isEmpty() ? null : (String) messages.get(0).get("id");
+        } catch (HttpClientErrorException e) {
+            log.error("[GMAIL_API_ERROR] operation=findMessageIdByRfc822Id statusCode={} errorBody={}",
+                    e.getStatusCode(), e.getResponseBodyAsString());
+            String errorMessage = "Failed to search messages in Gmail API";
+            if (e.getStatusCode().value() == 401) {
+                errorMessage = "Gmail API authentication failed. Please reconnect your Google account.";
+            } else if (e.getStatusCode().value() == 403) {
+                errorMessage = "Gmail API access forbidden. Please check your permissions.";
+            }
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
+        }
+    }
+
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "threads.get", idempotent = true, quotaUnits = 10,
+            hedgeable = true)
     public Map<String, Object> fetchThreadById(String accessToken, String threadId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
 
         HttpEntity<Void> entity = new HttpEntity<>(headers);
 
-        String url = "https://gmail.googleapis.com/gmail/v1/users/me/threads/" + threadId;
+        String url = gmailApiUrl + "/threads/" + threadId;
 
         try {
             ResponseEntity<Map> response =
@@ -443,10 +594,113 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 404) {
                 errorMessage = "Thread not found with threadId: " + threadId;
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
     }
 
+    /** The mailbox's current historyId, the starting point for {@link #fetchInboxHistory}. */
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "profile.get", idempotent = true, quotaUnits = 1)
+    public long fetchCurrentHistoryId(String accessToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        try {
+            ResponseEntity<Map> response =
+                    restTemplate.exchange(gmailApiUrl + "/profile", HttpMethod.GET, entity, Map.class);
+
+            Object historyId = response.getBody() != null ? response.getBody().get("historyId") : null;
+            if (historyId == null) {
+                throw new GmailApiException("Gmail profile has no historyId", 502, null);
+            }
+            return Long.parseLong(historyId.toString());
+        } catch (HttpClientErrorException e) {
+            log.error("[GMAIL_API_ERROR] operation=fetchCurrentHistoryId statusCode={} errorBody={}",
+                    e.getStatusCode(), e.getResponseBodyAsString());
+            String errorMessage = "Failed to fetch Gmail profile";
+            if (e.getStatusCode().value() == 401) {
+                errorMessage = "Gmail API authentication failed. Please reconnect your Google account.";
+            }
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
+        }
+    }
+
+    /**
+     * Inbox messages added since {@code startHistoryId}, oldest first, and the historyId to resume
+     * from. Each page is a separate history.list call, charged to the user's quota on its own.
+     * Gmail answers 404 when {@code startHistoryId} is too old to resume from; start again from
+     * {@link #fetchCurrentHistoryId}.
+     */
+    public HistoryDelta fetchInboxHistory(String accessToken, long startHistoryId) {
+        List<String> added = new ArrayList<>();
+        long historyId = startHistoryId;
+        String pageToken = null;
+        do {
+            HistoryPage page = self.fetchInboxHistoryPage(accessToken, startHistoryId, pageToken);
+            added.addAll(page.addedMessageIds());
+            historyId = Math.max(historyId, page.historyId());
+            pageToken = page.nextPageToken();
+        } while (pageToken != null);
+        return new HistoryDelta(added, historyId);
+    }
+
+    /** One page of {@link #fetchInboxHistory}; {@code pageToken} is null for the first page. */
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "history.list", idempotent = true, quotaUnits = 2)
+    public HistoryPage fetchInboxHistoryPage(String accessToken, long startHistoryId, String pageToken) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(accessToken);
+
+        HttpEntity<Void> entity = new HttpEntity<>(headers);
+
+        String url = UriComponentsBuilder.fromUriString(gmailApiUrl + "/history")
+                .queryParam("startHistoryId", startHistoryId)
+                .queryParam("historyTypes", "messageAdded")
+                .queryParam("labelId", "INBOX")
+                .queryParamIfPresent("pageToken", Optional.ofNullable(pageToken))
+                .encode()
+                .toUriString();
+        try {
+            ResponseEntity<Map> response =
+                    restTemplate.exchange(url, HttpMethod.GET, entity, Map.class);
+            Map<String, Object> body = response.getBody();
+            if (body == null) {
+                return new HistoryPage(List.of(), startHistoryId, null);
+            }
+            List<String> added = new ArrayList<>();
+            List<Map<String, Object>> records = (List<Map<String, Object>>) body.get("history");
+            for (Map<String, Object> record : records != null ? records : List.<Map<String, Object>>of()) {
+                List<Map<String, Object>> messagesAdded = (List<Map<String, Object>>) record.get("messagesAdded");
+                for (Map<String, Object> entry : messagesAdded != null ? messagesAdded : List.<Map<String, Object>>of()) {
+                    Map<String, Object> message = (Map<String, Object>) entry.get("message");
+                    List<String> labels = (List<String>) message.get("labelIds");
+                    if (labels == null || labels.contains("INBOX")) {
+                        added.add((String) message.get("id"));
+                    }
+                }
+            }
+            long historyId = body.get("historyId") != null
+                    ? Long.parseLong(body.get("historyId").toString())
+                    : startHistoryId;
+            return new HistoryPage(added, historyId, (String) body.get("nextPageToken"));
+        } catch (HttpClientErrorException e) {
+            log.warn("[GMAIL_API_ERROR] operation=fetchInboxHistory startHistoryId={} statusCode={} errorBody={}",
+                    startHistoryId, e.getStatusCode(), e.getResponseBodyAsString());
+            String errorMessage = "Failed to fetch Gmail history";
+            if (e.getStatusCode().value() == 401) {
+                errorMessage = "Gmail API authentication failed. Please reconnect your Google account.";
+            } else if (e.getStatusCode().value() == 404) {
+                errorMessage = "Gmail history expired for startHistoryId: " + startHistoryId;
+            }
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
+        }
+    }
+
+    /**
+     * Replaces the draft's message and returns its id, or null if Gmail no longer has the draft.
+     * The caller creates the replacement, so it is charged as a call of its own.
+     */
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "drafts.update", idempotent = true, quotaUnits = 15)
     public String updateReplyDraft(
             String accessToken,
             String draftId,
@@ -456,20 +710,7 @@ public class GmailClient {
             String threadId,
             String messageId
     ) {
-        String replySubject = subject.startsWith("Re:") ? subject : "Re: " + subject;
-
-        String email =
-                "To: " + to + "\r\n" +
-                        "Subject: " + replySubject + "\r\n" +
-                        "In-Reply-To: <" + messageId + "@mail.gmail.com>\r\n" +
-                        "References: <" + messageId + "@mail.gmail.com>\r\n" +
-                        "Content-Type: text/plain; charset=\"UTF-8\"\r\n" +
-                        "\r\n" +
-                        body;
-
-        String encodedEmail =
-                Base64.getUrlEncoder()
-                        .encodeToString(email.getBytes());
+        String encodedEmail = replyMessage(to, subject, body, messageId, null).toRaw();
 
         Map<String, Object> message = new java.util.HashMap<>();
         message.put("raw", encodedEmail);
@@ -489,7 +730,7 @@ public class GmailClient {
         try {
             ResponseEntity<Map> response =
                     restTemplate.exchange(
-                            "https://gmail.googleapis.com/gmail/v1/users/me/drafts/" + draftId,
+                            gmailApiUrl + "/drafts/" + draftId,
                             HttpMethod.PUT,
                             entity,
                             Map.class
@@ -508,6 +749,10 @@ public class GmailClient {
             return draftId;
 
         } catch (HttpClientErrorException e) {
+            if (e.getStatusCode().value() == 404) {
+                log.warn("[GMAIL_OPERATION] operation=updateReplyDraft draft not found draftId={} threadId={}", draftId, threadId);
+                return null;
+            }
             log.error("[GMAIL_API_ERROR] operation=updateReplyDraft draftId={} threadId={} statusCode={} errorBody={}", 
                     draftId, threadId, e.getStatusCode(), e.getResponseBodyAsString());
             String errorMessage = "Failed to update reply draft in Gmail API";
@@ -515,14 +760,12 @@ public class GmailClient {
                 errorMessage = "Gmail API authentication failed. Please reconnect your Google account.";
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
-            } else if (e.getStatusCode().value() == 404) {
-                log.warn("[GMAIL_OPERATION] Draft not found, creating new draft draftId={} threadId={}", draftId, threadId);
-                return createReplyDraft(accessToken, to, subject, body, threadId, messageId);
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
     }
 
+    @ExternalCall(dependency = ExternalDependency.GMAIL, operation = "drafts.delete", idempotent = true, quotaUnits = 10)
     public void deleteDraft(String accessToken, String draftId) {
         HttpHeaders headers = new HttpHeaders();
         headers.setBearerAuth(accessToken);
@@ -531,7 +774,7 @@ public class GmailClient {
 
         try {
             restTemplate.exchange(
-                    "https://gmail.googleapis.com/gmail/v1/users/me/drafts/" + draftId,
+                    gmailApiUrl + "/drafts/" + draftId,
                     HttpMethod.DELETE,
                     entity,
                     Void.class
@@ -554,8 +797,28 @@ public class GmailClient {
             } else if (e.getStatusCode().value() == 403) {
                 errorMessage = "Gmail API access forbidden. Please check your permissions.";
             }
-            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString());
+            throw new GmailApiException(errorMessage, e.getStatusCode().value(), e.getResponseBodyAsString(), e);
         }
     }
 
+    /** A page of message ids and the token for the next page, null on the last one. */
+    public record MessageIdPage(List<String> ids, String nextPageToken) {
+    }
+
+    public record InboxPage(List<InboxEmail> emails, String nextPageToken) {
+    }
+
+    /** Inbox message ids added since a historyId, oldest first, and the historyId to continue from. */
+    public record HistoryDelta(List<String> addedMessageIds, long historyId) {
+    }
+
+    public record HistoryPage(List<String> addedMessageIds, long historyId, String nextPageToken) {
+    }
+
+    @Override
+    public void destroy() {
+        if (fetchExecutor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
 }
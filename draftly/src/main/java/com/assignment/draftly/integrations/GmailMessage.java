@@ -0,0 +1,50 @@
+package com.assignment.draftly.integrations;
+
+import java.util.List;
+import java.util.Map;
+
+import com.assignment.draftly.mail.EncodedWords;
+import com.assignment.draftly.mail.HtmlText;
+import com.assignment.draftly.mail.MessageBodies;
+
+/**
+ * The parts of a Gmail message resource the app uses, parsed once: display From, decoded Subject,
+ * snippet and text body. A fraction of the size of the JSON map it comes from, so it is what
+ * {@link GmailResponseCache} keeps.
+ */
+public record GmailMessage(
+        String id,
+        String threadId,
+        String from,
+        String subject,
+        String snippet,
+        String body
+) {
+
+    /** Parses a {@code format=full} (or {@code metadata}, leaving body empty) message resource. */
+    @SuppressWarnings("unchecked")
+    static GmailMessage parse(Map<String, Object> message, int maxBodyBytes) {
+        Map<String, Object> payload = (Map<String, Object>) message.get("payload");
+        List<Map<String, Object>> headers =
+                payload != null ? (List<Map<String, Object>>) payload.get("headers") : null;
+        Object snippet = message.get("snippet");
+        return new GmailMessage(
+                (String) message.get("id"),
+                (String) message.get("threadId"),
+                GmailClient.displayFrom(GmailClient.getHeader(headers, "From")),
+                EncodedWords.decode(GmailClient.getHeader(headers, "Subject")),
+                // Gmail escapes the snippet as HTML
+                snippet instanceof String text ? HtmlText.toPlainText(text) : null,
+                MessageBodies.extract(message, maxBodyBytes)
+        );
+    }
+
+    /** Approximate retained size in bytes: strings at two bytes a char plus object overhead. */
+    long weight() {
+        return 96 + 2L * (length(id) + length(threadId) + length(from) + length(subject) + length(snippet) + length(body));
+    }
+
+    private static int length(String value) {
+        return value != null ? value.length() : 0;
+    }
+}
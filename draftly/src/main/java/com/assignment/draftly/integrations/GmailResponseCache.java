@@ -0,0 +1,138 @@
+package com.assignment.draftly.integrations;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Per-user cache of parsed Gmail messages, keyed by {@link GmailAccounts}.
+ *
+ * Each user gets an LRU bounded by the approximate bytes of its entries rather than by count,
+ * so a few huge messages cannot crowd out memory. Messages never change once delivered, so they
+ * are only evicted. Users idle for {@code idleEviction} are dropped entirely.
+ */
+@Component
+public class GmailResponseCache {
+
+    private final long maxBytesPerUser;
+    private final long idleEvictionNanos;
+
+    private final ConcurrentHashMap<String, UserCache> users = new ConcurrentHashMap<>();
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    private final Counter hits;
+    private final Counter misses;
+
+    public GmailResponseCache(
+            MeterRegistry meterRegistry,
+            @Value("${draftly.gmail.cache.max-bytes-per-user:4194304}") long maxBytesPerUser,
+            @Value("${draftly.gmail.cache.idle-eviction-ms:1800000}") long idleEvictionMillis
+    ) {
+        this.maxBytesPerUser = maxBytesPerUser;
+        this.idleEvictionNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMillis);
+
+        this.hits = Counter.builder("draftly.gmail.cache.hits")
+                .description("Gmail message reads served from the cache")
+                .register(meterRegistry);
+        this.misses = Counter.builder("draftly.gmail.cache.misses")
+                .description("Gmail message reads that went to Gmail")
+                .register(meterRegistry);
+        Gauge.builder("draftly.gmail.cache.bytes", totalBytes, AtomicLong::get)
+                .description("Approximate bytes held by the Gmail response cache")
+                .register(meterRegistry);
+    }
+
+    public GmailMessage message(String accountKey, String messageId) {
+        return (GmailMessage) get(accountKey, "m:" + messageId);
+    }
+
+    public void putMessage(String accountKey, GmailMessage message) {
+        put(accountKey, "m:" + message.id(), message, message.weight());
+    }
+
+    private Object get(String accountKey, String key) {
+        UserCache user = users.get(accountKey);
+        Entry entry = null;
+        if (user != null) {
+            user.lock.lock();
+            try {
+                user.lastUsedNanos = System.nanoTime();
+                entry = user.entries.get(key);
+            } finally {
+                user.lock.unlock();
+            }
+        }
+        (entry != null ? hits : misses).increment();
+        return entry != null ? entry.value : null;
+    }
+
+    private void put(String accountKey, String key, Object value, long weight) {
+        if (weight > maxBytesPerUser) {
+            return;
+        }
+        UserCache user = users.computeIfAbsent(accountKey, k -> new UserCache());
+        user.lock.lock();
+        try {
+            user.lastUsedNanos = System.nanoTime();
+            user.remove(key);
+            user.entries.put(key, new Entry(value, weight));
+            user.add(weight);
+            Iterator<Entry> eldest = user.entries.values().iterator();
+            while (user.bytes > maxBytesPerUser && eldest.hasNext()) {
+                Entry evicted = eldest.next();
+                eldest.remove();
+                user.add(-evicted.weight);
+            }
+        } finally {
+            user.lock.unlock();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.gmail.cache.eviction-interval-ms:60000}")
+    void evictIdleUsers() {
+        long now = System.nanoTime();
+        users.entrySet().removeIf(e -> {
+            UserCache user = e.getValue();
+            if (now - user.lastUsedNanos <= idleEvictionNanos) {
+                return false;
+            }
+            totalBytes.addAndGet(-user.bytes);
+            return true;
+        });
+    }
+
+    private record Entry(Object value, long weight) {
+    }
+
+    private final class UserCache {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        // Access order: iteration starts at the least recently used entry
+        private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+        private long bytes;
+        private volatile long lastUsedNanos = System.nanoTime();
+
+        private void remove(String key) {
+            Entry removed = entries.remove(key);
+            if (removed != null) {
+                add(-removed.weight);
+            }
+        }
+
+        private void add(long weight) {
+            bytes += weight;
+            totalBytes.addAndGet(weight);
+        }
+    }
+}
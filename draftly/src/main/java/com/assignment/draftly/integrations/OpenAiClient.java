@@ -1,26 +1,49 @@
 package com.assignment.draftly.integrations;
 
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
 
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
+import org.springframework.util.LinkedMultiValueMap;
+import org.springframework.util.MultiValueMap;
 import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestTemplate;
 
+import com.assignment.draftly.dto.OpenAiChatChunk;
 import com.assignment.draftly.dto.OpenAiChatRequest;
 import com.assignment.draftly.dto.OpenAiChatResponse;
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.llm.BatchRequest;
+import com.assignment.draftly.llm.BatchResult;
+import com.assignment.draftly.llm.LlmProvider;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+import com.assignment.draftly.resilience.ExternalCall;
 
-import lombok.RequiredArgsConstructor;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.json.JsonMapper;
 
 @Slf4j
 @Service
-@RequiredArgsConstructor
-public class OpenAiClient {
+public class OpenAiClient implements LlmProvider {
 
     @Value("${openai.api-key}")
     private String apiKey;
@@ -28,43 +51,72 @@ public class OpenAiClient {
     @Value("${openai.model}")
     private String model;
 
-    private final RestTemplate restTemplate = new RestTemplate();
+    private final RestTemplate restTemplate;
 
-    public String generate(String systemPrompt, String userPrompt) {
+    private final String completionsUrl;
+    private final String filesUrl;
+    private final String batchesUrl;
 
-        OpenAiChatRequest request = new OpenAiChatRequest(
-                model,
-                List.of(
-                        new OpenAiChatRequest.Message("system", systemPrompt),
-                        new OpenAiChatRequest.Message("user", userPrompt)
-                )
-        );
+    private final JsonMapper jsonMapper;
 
-        if (apiKey == null || apiKey.isEmpty()) {
-            log.error("OpenAI API key is null or empty!");
-            throw new IllegalStateException("OpenAI API key is not configured");
-        }
+    private final Counter promptTokens;
+    private final Counter cachedTokens;
+    private final Counter completionTokens;
 
-        if (!apiKey.startsWith("sk-")) {
-            log.warn("OpenAI API key does not start with 'sk-'. This might be incorrect. Key starts with: {}", 
-                    apiKey.length() > 5 ? apiKey.substring(0, 5) : apiKey);
-        }
+    public OpenAiClient(
+            @Qualifier("openAiRestTemplate") RestTemplate restTemplate,
+            @Value("${draftly.openai.base-url:https://api.openai.com}") String baseUrl,
+            JsonMapper jsonMapper,
+            MeterRegistry meterRegistry
+    ) {
+        this.restTemplate = restTemplate;
+        this.completionsUrl = baseUrl + "/v1/chat/completions";
+        this.filesUrl = baseUrl + "/v1/files";
+        this.batchesUrl = baseUrl + "/v1/batches";
+        this.jsonMapper = jsonMapper;
 
-        HttpHeaders headers = new HttpHeaders();
-        headers.setBearerAuth(apiKey);
-        headers.setContentType(MediaType.APPLICATION_JSON);
+        this.promptTokens = tokenCounter(meterRegistry, "prompt", "Prompt tokens sent to OpenAI");
+        this.cachedTokens = tokenCounter(meterRegistry, "cached", "Prompt tokens OpenAI served from its prompt cache");
+        this.completionTokens = tokenCounter(meterRegistry, "completion", "Completion tokens generated by OpenAI");
+    }
+
+    @Override
+    public String name() {
+        return "openai";
+    }
+
+    private static Counter tokenCounter(MeterRegistry meterRegistry, String type, String description) {
+        return Counter.builder("draftly.openai.tokens")
+                .description(description)
+                .tag("type", type)
+                .register(meterRegistry);
+    }
+
+    // Completions have no side effects, so they are safe to retry
+    @ExternalCall(dependency = ExternalDependency.OPENAI, operation = "chat.completions", idempotent = true)
+    public String generate(String systemPrompt, String userPrompt) {
+        return generate(new ChatPrompt(systemPrompt, userPrompt, null));
+    }
+
+    @ExternalCall(dependency = ExternalDependency.OPENAI, operation = "chat.completions", idempotent = true)
+    public String generate(ChatPrompt prompt) {
+        return complete(prompt, model).text();
+    }
+
+    /** Generates with {@code model} instead of the configured {@code openai.model}. */
+    @Override
+    @ExternalCall(dependency = ExternalDependency.OPENAI, operation = "chat.completions", idempotent = true)
+    public Completion complete(ChatPrompt prompt, String model) {
+
+        OpenAiChatRequest request = chatRequest(prompt, model);
+        HttpHeaders headers = authorizedHeaders(MediaType.APPLICATION_JSON);
 
         String authHeader = headers.getFirst("Authorization");
         log.info("OpenAI API Key (first 10 chars): {}", apiKey.substring(0, Math.min(10, apiKey.length())));
         log.info("Authorization header value (first 30 chars): {}", 
                 authHeader != null ? authHeader.substring(0, Math.min(30, authHeader.length())) : "NULL");
-        
-        if (authHeader != null && authHeader.contains("google")) {
-            log.error("ERROR: Authorization header contains 'google'! This should be the OpenAI API key, not Google token!");
-            throw new IllegalStateException("Authorization header incorrectly contains Google token instead of OpenAI API key");
-        }
         log.info("Model: {}", model);
-        log.info("Request URL: https://api.openai.com/v1/chat/completions");
+        log.info("Request URL: {}", completionsUrl);
 
         HttpEntity<OpenAiChatRequest> entity =
                 new HttpEntity<>(request, headers);
@@ -73,7 +125,7 @@ public class OpenAiClient {
             log.info("Making request to OpenAI API...");
             ResponseEntity<OpenAiChatResponse> response =
                     restTemplate.postForEntity(
-                            "https://api.openai.com/v1/chat/completions",
+                            completionsUrl,
                             entity,
                             OpenAiChatResponse.class
                     );
@@ -84,16 +136,249 @@ public class OpenAiClient {
                 log.error("OpenAI API returned empty response");
                 throw new RuntimeException("OpenAI API returned empty response");
             }
-
-            return response
-                    .getBody()
-                    .getChoices()
-                    .get(0)
-                    .getMessage()
-                    .getContent();
+            return completionOf(response.getBody(), model);
         } catch (RestClientException e) {
             log.error("Error calling OpenAI API: {}", e.getMessage(), e);
             throw new RuntimeException("Failed to generate email draft: " + e.getMessage(), e);
         }
     }
+
+    // A retry after text was already passed on would repeat it; only failures before the first byte are retried
+    @Override
+    @ExternalCall(dependency = ExternalDependency.OPENAI, operation = "chat.completions.stream", idempotent = false)
+    public Completion stream(ChatPrompt prompt, String model, Consumer<String> onDelta) {
+        OpenAiChatRequest request = chatRequest(prompt, model);
+        request.setStream(true);
+        request.setStreamOptions(new OpenAiChatRequest.StreamOptions(true));
+        HttpHeaders headers = authorizedHeaders(MediaType.APPLICATION_JSON);
+        headers.setAccept(List.of(MediaType.TEXT_EVENT_STREAM));
+
+        try {
+            return restTemplate.execute(
+                    completionsUrl,
+                    HttpMethod.POST,
+                    httpRequest -> {
+                        httpRequest.getHeaders().putAll(headers);
+                        jsonMapper.writeValue(httpRequest.getBody(), request);
+                    },
+                    response -> readStream(response.getBody(), model, onDelta)
+            );
+        } catch (RestClientException e) {
+            log.error("Error streaming from OpenAI API: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to stream email draft: " + e.getMessage(), e);
+        }
+    }
+
+    private Completion readStream(InputStream body, String model, Consumer<String> onDelta) throws IOException {
+        StringBuilder text = new StringBuilder();
+        OpenAiChatResponse.Usage usage = null;
+        BufferedReader reader = new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8));
+        for (String line = reader.readLine(); line != null; line = reader.readLine()) {
+            if (!line.startsWith("data:")) {
+                continue;
+            }
+            String data = line.substring("data:".length()).strip();
+            if (data.equals("[DONE]")) {
+                break;
+            }
+            OpenAiChatChunk chunk = jsonMapper.readValue(data, OpenAiChatChunk.class);
+            if (chunk.getUsage() != null) {
+                usage = chunk.getUsage();
+            }
+            if (chunk.getChoices() == null) {
+                continue;
+            }
+            for (OpenAiChatChunk.Choice choice : chunk.getChoices()) {
+                String delta = choice.getDelta() != null ? choice.getDelta().getContent() : null;
+                if (delta != null && !delta.isEmpty()) {
+                    text.append(delta);
+                    onDelta.accept(delta);
+                }
+            }
+        }
+        recordUsage(usage);
+        return completion(text.toString(), model, usage);
+    }
+
+    /**
+     * Uploads the requests as a JSONL file and creates a batch over it. Not retried beyond
+     * connect failures: a repeated create would run (and bill) the batch twice.
+     */
+    @Override
+    @ExternalCall(dependency = ExternalDependency.OPENAI, operation = "batches.create", idempotent = false)
+    public String submitBatch(List<BatchRequest> requests, String model) {
+        StringBuilder jsonl = new StringBuilder();
+        for (BatchRequest request : requests) {
+            Map<String, Object> line = new LinkedHashMap<>();
+            line.put("custom_id", request.customId());
+            line.put("method", "POST");
+            line.put("url", "/v1/chat/completions");
+            line.put("body", chatRequest(request.prompt(), model));
+            jsonl.append(jsonMapper.writeValueAsString(line)).append('\n');
+        }
+
+        MultiValueMap<String, Object> upload = new LinkedMultiValueMap<>();
+        upload.add("purpose", "batch");
+        upload.add("file", new ByteArrayResource(jsonl.toString().getBytes(StandardCharsets.UTF_8)) {
+            @Override
+            public String getFilename() {
+                return "draftly-batch.jsonl";
+            }
+        });
+
+        try {
+            JsonNode file = postJson(filesUrl, upload, MediaType.MULTIPART_FORM_DATA);
+            JsonNode batch = postJson(batchesUrl, Map.of(
+                    "input_file_id", file.path("id").asString(),
+                    "endpoint", "/v1/chat/completions",
+                    "completion_window", "24h"
+            ), MediaType.APPLICATION_JSON);
+            String batchId = batch.path("id").asString();
+            log.info("[OPENAI_BATCH] submitted batchId={} requests={} model={}", batchId, requests.size(), model);
+            return batchId;
+        } catch (RestClientException e) {
+            log.error("Error submitting OpenAI batch: {}", e.getMessage(), e);
+            throw new RuntimeException("Failed to submit batch: " + e.getMessage(), e);
+        }
+    }
+
+    @Override
+    @ExternalCall(dependency = ExternalDependency.OPENAI, operation = "batches.retrieve", idempotent = true)
+    public BatchResult pollBatch(String batchId) {
+        try {
+            JsonNode batch = getJson(batchesUrl + "/" + batchId);
+            BatchResult.Status status = switch (batch.path("status").asString()) {
+                case "completed" -> BatchResult.Status.COMPLETED;
+                case "failed", "expired", "cancelled" -> BatchResult.Status.FAILED;
+                default -> BatchResult.Status.IN_PROGRESS;
+            };
+            if (status == BatchResult.Status.IN_PROGRESS) {
+                return BatchResult.inProgress(batchId);
+            }
+
+            Map<String, Completion> completions = new LinkedHashMap<>();
+            Map<String, String> errors = new LinkedHashMap<>();
+            for (String fileField : List.of("output_file_id", "error_file_id")) {
+                String fileId = batch.path(fileField).asString("");
+                if (!fileId.isEmpty()) {
+                    readBatchOutput(fileId, completions, errors);
+                }
+            }
+            log.info("[OPENAI_BATCH] finished batchId={} status={} completions={} errors={}",
+                    batchId, batch.path("status").asString(), completions.size(), errors.size());
+            return new BatchResult(batchId, status, completions, errors);
+        } catch (RestClientException e) {
+            log.error("Error polling OpenAI batch {}: {}", batchId, e.getMessage(), e);
+            throw new RuntimeException("Failed to poll batch: " + e.getMessage(), e);
+        }
+    }
+
+    private void readBatchOutput(String fileId, Map<String, Completion> completions, Map<String, String> errors) {
+        String content = restTemplate.exchange(
+                filesUrl + "/" + fileId + "/content",
+                HttpMethod.GET,
+                new HttpEntity<>(authorizedHeaders(null)),
+                String.class
+        ).getBody();
+        if (content == null) {
+            return;
+        }
+        for (String line : content.split("\n")) {
+            if (line.isBlank()) {
+                continue;
+            }
+            JsonNode result = jsonMapper.readTree(line);
+            String customId = result.path("custom_id").asString();
+            JsonNode response = result.path("response");
+            if (response.path("status_code").asInt() == 200) {
+                OpenAiChatResponse body = jsonMapper.treeToValue(response.path("body"), OpenAiChatResponse.class);
+                completions.put(customId, completionOf(body, body.getModel()));
+            } else {
+                JsonNode error = result.path("error").isObject() ? result.path("error") : response.path("body").path("error");
+                errors.put(customId, error.path("message").asString("status " + response.path("status_code").asInt()));
+            }
+        }
+    }
+
+    private JsonNode postJson(String url, Object body, MediaType contentType) {
+        String response = restTemplate.postForObject(url, new HttpEntity<>(body, authorizedHeaders(contentType)), String.class);
+        return jsonMapper.readTree(response);
+    }
+
+    private JsonNode getJson(String url) {
+        String response = restTemplate.exchange(url, HttpMethod.GET, new HttpEntity<>(authorizedHeaders(null)), String.class)
+                .getBody();
+        return jsonMapper.readTree(response);
+    }
+
+    private static OpenAiChatRequest chatRequest(ChatPrompt prompt, String model) {
+        OpenAiChatRequest request = new OpenAiChatRequest(
+                model,
+                List.of(
+                        new OpenAiChatRequest.Message("system", prompt.system()),
+                        new OpenAiChatRequest.Message("user", prompt.user())
+                )
+        );
+        request.setPromptCacheKey(prompt.cacheKey());
+        return request;
+    }
+
+    private HttpHeaders authorizedHeaders(MediaType contentType) {
+        if (apiKey == null || apiKey.isEmpty()) {
+            log.error("OpenAI API key is null or empty!");
+            throw new IllegalStateException("OpenAI API key is not configured");
+        }
+
+        if (!apiKey.startsWith("sk-")) {
+            log.warn("OpenAI API key does not start with 'sk-'. This might be incorrect. Key starts with: {}", 
+                    apiKey.length() > 5 ? apiKey.substring(0, 5) : apiKey);
+        }
+
+        HttpHeaders headers = new HttpHeaders();
+        headers.setBearerAuth(apiKey);
+        if (contentType != null) {
+            headers.setContentType(contentType);
+        }
+
+        String authHeader = headers.getFirst("Authorization");
+        if (authHeader != null && authHeader.contains("google")) {
+            log.error("ERROR: Authorization header contains 'google'! This should be the OpenAI API key, not Google token!");
+            throw new IllegalStateException("Authorization header incorrectly contains Google token instead of OpenAI API key");
+        }
+        return headers;
+    }
+
+    private Completion completionOf(OpenAiChatResponse response, String model) {
+        OpenAiChatResponse.Usage usage = response.getUsage();
+        recordUsage(usage);
+        String text = response
+                .getChoices()
+                .get(0)
+                .getMessage()
+                .getContent();
+        return completion(text, model, usage);
+    }
+
+    private static Completion completion(String text, String model, OpenAiChatResponse.Usage usage) {
+        if (usage == null) {
+            return new Completion(text, model, 0, 0, 0);
+        }
+        return new Completion(text, model, usage.getPromptTokens(), cachedTokensOf(usage), usage.getCompletionTokens());
+    }
+
+    private void recordUsage(OpenAiChatResponse.Usage usage) {
+        if (usage == null) {
+            return;
+        }
+        long cached = cachedTokensOf(usage);
+        promptTokens.increment(usage.getPromptTokens());
+        cachedTokens.increment(cached);
+        completionTokens.increment(usage.getCompletionTokens());
+        log.debug("OpenAI usage promptTokens={} cachedTokens={} completionTokens={}",
+                usage.getPromptTokens(), cached, usage.getCompletionTokens());
+    }
+
+    private static long cachedTokensOf(OpenAiChatResponse.Usage usage) {
+        return usage.getPromptTokensDetails() != null ? usage.getPromptTokensDetails().getCachedTokens() : 0;
+    }
 }
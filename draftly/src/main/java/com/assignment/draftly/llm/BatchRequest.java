@@ -0,0 +1,7 @@
+package com.assignment.draftly.llm;
+
+import com.assignment.draftly.prompt.ChatPrompt;
+
+/** One prompt of a batch; {@code customId} matches it to its result and must be unique in the batch. */
+public record BatchRequest(String customId, ChatPrompt prompt) {
+}
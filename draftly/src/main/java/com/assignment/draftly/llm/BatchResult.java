@@ -0,0 +1,33 @@
+package com.assignment.draftly.llm;
+
+import java.util.Map;
+
+import com.assignment.draftly.prompt.Completion;
+
+/**
+ * State of a submitted batch. Once it is no longer {@link Status#IN_PROGRESS}, every request
+ * has an entry in either {@code completions} or {@code errors}, keyed by its custom id, except
+ * when the whole batch failed before producing anything.
+ */
+public record BatchResult(
+        String batchId,
+        Status status,
+        Map<String, Completion> completions,
+        Map<String, String> errors
+) {
+
+    public enum Status {
+        IN_PROGRESS,
+        COMPLETED,
+        // Failed, expired or cancelled; requests that finished before that still have results
+        FAILED
+    }
+
+    public static BatchResult inProgress(String batchId) {
+        return new BatchResult(batchId, Status.IN_PROGRESS, Map.of(), Map.of());
+    }
+
+    public boolean isDone() {
+        return status != Status.IN_PROGRESS;
+    }
+}
@@ -0,0 +1,146 @@
+package com.assignment.draftly.llm;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+import com.assignment.draftly.resilience.FailureClassifier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Tries providers in order and moves to the next one when a provider is down: refused locally
+ * ({@link DependencyUnavailableException}, e.g. an open circuit) or failing with 5xx or I/O
+ * errors. Anything else, including a 429, is about the request or its model rather than the
+ * provider, and is thrown to the caller (model routing falls back to another tier on it).
+ *
+ * A stream only fails over before its first piece of text. Batch ids are prefixed with the
+ * provider that accepted the batch, so it is polled where it was submitted.
+ */
+@Slf4j
+public class FailoverLlmProvider implements LlmProvider {
+
+    private final List<LlmProvider> providers;
+    private final Map<String, LlmProvider> byName = new HashMap<>();
+
+    private final Map<String, Counter> succeeded = new HashMap<>();
+    private final Map<String, Counter> failed = new HashMap<>();
+    private final Map<String, Counter> failovers = new HashMap<>();
+
+    public FailoverLlmProvider(List<LlmProvider> providers, MeterRegistry meterRegistry) {
+        if (providers.isEmpty()) {
+            throw new IllegalArgumentException("At least one LLM provider is required");
+        }
+        this.providers = List.copyOf(providers);
+        for (LlmProvider provider : this.providers) {
+            String name = provider.name();
+            byName.put(name, provider);
+            succeeded.put(name, requestCounter(meterRegistry, name, "success"));
+            failed.put(name, requestCounter(meterRegistry, name, "failure"));
+            failovers.put(name, Counter.builder("draftly.llm.failovers")
+                    .description("Generations moved to the next provider because this one was down")
+                    .tag("provider", name)
+                    .register(meterRegistry));
+        }
+    }
+
+    private static Counter requestCounter(MeterRegistry meterRegistry, String provider, String outcome) {
+        return Counter.builder("draftly.llm.requests")
+                .description("Generation requests per provider")
+                .tag("provider", provider)
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Override
+    public String name() {
+        return "failover";
+    }
+
+    @Override
+    public Completion complete(ChatPrompt prompt, String model) {
+        return firstAvailable(provider -> provider.complete(prompt, model));
+    }
+
+    @Override
+    public Completion stream(ChatPrompt prompt, String model, Consumer<String> onDelta) {
+        AtomicBoolean started = new AtomicBoolean();
+        Consumer<String> tracking = delta -> {
+            started.set(true);
+            onDelta.accept(delta);
+        };
+        return firstAvailable(provider -> {
+            try {
+                return provider.stream(prompt, model, tracking);
+            } catch (RuntimeException e) {
+                if (started.get()) {
+                    // Text already went out; another provider would start the reply over
+                    throw new StreamInterruptedException(e);
+                }
+                throw e;
+            }
+        });
+    }
+
+    @Override
+    public String submitBatch(List<BatchRequest> requests, String model) {
+        return firstAvailable(provider -> provider.name() + ":" + provider.submitBatch(requests, model));
+    }
+
+    @Override
+    public BatchResult pollBatch(String batchId) {
+        int separator = batchId.indexOf(':');
+        LlmProvider provider = separator > 0 ? byName.get(batchId.substring(0, separator)) : null;
+        if (provider == null) {
+            throw new IllegalArgumentException("Unknown batch id: " + batchId);
+        }
+        BatchResult result = provider.pollBatch(batchId.substring(separator + 1));
+        return new BatchResult(batchId, result.status(), result.completions(), result.errors());
+    }
+
+    private <T> T firstAvailable(Function<LlmProvider, T> call) {
+        for (int i = 0; ; i++) {
+            LlmProvider provider = providers.get(i);
+            try {
+                T result = call.apply(provider);
+                succeeded.get(provider.name()).increment();
+                return result;
+            } catch (StreamInterruptedException e) {
+                failed.get(provider.name()).increment();
+                throw e.getCause();
+            } catch (RuntimeException e) {
+                failed.get(provider.name()).increment();
+                if (i == providers.size() - 1 || !isProviderDown(e)) {
+                    throw e;
+                }
+                failovers.get(provider.name()).increment();
+                log.warn("[LLM_FAILOVER] provider={} down, trying provider={} error={}",
+                        provider.name(), providers.get(i + 1).name(), e.getMessage());
+            }
+        }
+    }
+
+    private static boolean isProviderDown(RuntimeException e) {
+        return e instanceof DependencyUnavailableException || FailureClassifier.isOutageSignal(e);
+    }
+
+    private static final class StreamInterruptedException extends RuntimeException {
+
+        private StreamInterruptedException(RuntimeException cause) {
+            super(cause);
+        }
+
+        @Override
+        public synchronized RuntimeException getCause() {
+            return (RuntimeException) super.getCause();
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package com.assignment.draftly.llm;
+
+import java.util.List;
+import java.util.function.Consumer;
+
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+
+/**
+ * A backend that turns {@link ChatPrompt}s into text: blocking, streamed, or as an offline batch.
+ *
+ * {@code model} names a model of the primary provider; backends without model choice ignore it.
+ * The injected {@code LlmProvider} is the {@link FailoverLlmProvider} over the configured chain.
+ */
+public interface LlmProvider {
+
+    /** Name used in {@code draftly.llm.providers}, metrics and batch ids. */
+    String name();
+
+    Completion complete(ChatPrompt prompt, String model);
+
+    /**
+     * Like {@link #complete}, passing each piece of text to {@code onDelta} as it is generated.
+     * The returned completion holds the whole text.
+     */
+    Completion stream(ChatPrompt prompt, String model, Consumer<String> onDelta);
+
+    /**
+     * Submits prompts for offline generation and returns the batch id to poll. Batches are
+     * cheaper than interactive calls and do not count against interactive rate limits, but may
+     * take hours.
+     */
+    String submitBatch(List<BatchRequest> requests, String model);
+
+    BatchResult pollBatch(String batchId);
+}
@@ -0,0 +1,136 @@
+package com.assignment.draftly.llm;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.stereotype.Component;
+
+import com.assignment.draftly.mail.AddressParser;
+import com.assignment.draftly.mail.MailAddress;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+
+/**
+ * Deterministic on-box backend: fills a short template from what the prompt says about the
+ * email (sender, subject, recipient, context), the requested tone and the greeting and
+ * sign-off of the user's style profile. No network, no model, the same prompt always gives
+ * the same text.
+ *
+ * Used for offline load tests and as the last link of the failover chain, so a reply draft
+ * can still be produced while every remote provider is down. The user reviews every draft
+ * before it is sent, which makes a plain but correct reply an acceptable degraded answer.
+ */
+@Component
+public class LocalTemplateProvider implements LlmProvider {
+
+    public static final String MODEL = "local-template";
+
+    private static final Pattern FROM = Pattern.compile("(?m)^From: *(.*)$");
+    private static final Pattern SUBJECT = Pattern.compile("(?m)^Subject: *(.*)$");
+    private static final Pattern RECIPIENT = Pattern.compile("(?m)^Recipient: *(.*)$");
+    private static final Pattern CONTEXT = Pattern.compile("(?m)^Context: *(.*)$");
+    private static final Pattern TONE = Pattern.compile("(?m)^Tone:\\s*\\n(.*)$");
+    private static final Pattern GREETING = Pattern.compile("Greeting: \"([^\"]+)\"");
+    private static final Pattern SIGN_OFF = Pattern.compile("Sign-off: \"([^\"]+)\"");
+
+    private final AtomicLong batchIds = new AtomicLong();
+    // Batches are answered on submit and handed out once
+    private final Map<String, BatchResult> batches = new ConcurrentHashMap<>();
+
+    @Override
+    public String name() {
+        return "local";
+    }
+
+    @Override
+    public Completion complete(ChatPrompt prompt, String model) {
+        String text = reply(prompt);
+        return new Completion(text, MODEL, tokens(prompt.system()) + tokens(prompt.user()), 0, tokens(text));
+    }
+
+    @Override
+    public Completion stream(ChatPrompt prompt, String model, Consumer<String> onDelta) {
+        Completion completion = complete(prompt, model);
+        for (String word : completion.text().split("(?<= )")) {
+            onDelta.accept(word);
+        }
+        return completion;
+    }
+
+    @Override
+    public String submitBatch(List<BatchRequest> requests, String model) {
+        Map<String, Completion> completions = new LinkedHashMap<>();
+        for (BatchRequest request : requests) {
+            completions.put(request.customId(), complete(request.prompt(), model));
+        }
+        String batchId = "local-batch-" + batchIds.incrementAndGet();
+        batches.put(batchId, new BatchResult(batchId, BatchResult.Status.COMPLETED, completions, Map.of()));
+        return batchId;
+    }
+
+    @Override
+    public BatchResult pollBatch(String batchId) {
+        BatchResult result = batches.remove(batchId);
+        if (result == null) {
+            // Lost with a restart; the caller resubmits whatever is still pending
+            return new BatchResult(batchId, BatchResult.Status.FAILED, Map.of(), Map.of());
+        }
+        return result;
+    }
+
+    private static String reply(ChatPrompt prompt) {
+        String user = prompt.user() != null ? prompt.user() : "";
+        String tone = find(TONE, user, "").toLowerCase(Locale.ROOT);
+        String greeting = find(GREETING, user, "Hi <name>,");
+        String signOff = find(SIGN_OFF, user, tone.contains("formal") ? "Kind regards," : "Best,");
+
+        String from = find(FROM, user, null);
+        String name = from != null ? firstName(from) : firstName(find(RECIPIENT, user, ""));
+        StringBuilder text = new StringBuilder(greeting.replace("<name>", name).replace(" ,", ",").strip());
+        text.append("\n\n");
+
+        if (from != null) {
+            String subject = find(SUBJECT, user, "").replaceFirst("(?i)^((re|fwd?):\\s*)+", "").strip();
+            String about = subject.isEmpty() ? "your email" : "your email about \"" + subject + "\"";
+            if (tone.contains("concise")) {
+                text.append("Thanks for ").append(about).append(". Noted, I will follow up shortly.");
+            } else if (tone.contains("formal")) {
+                text.append("Thank you for ").append(about).append(". I have received your message and will ")
+                        .append("respond in full as soon as possible.");
+            } else {
+                text.append("Thanks for ").append(about).append("! I have seen it and will get back to you soon.");
+            }
+        } else {
+            String context = find(CONTEXT, user, "").strip();
+            text.append("I wanted to follow up").append(context.isEmpty() ? "." : " regarding " + context
+                    + (context.endsWith(".") ? "" : "."));
+            text.append(" Please let me know if you have any questions.");
+        }
+        return text.append("\n\n").append(signOff).toString();
+    }
+
+    // First word of the display name; a bare address gives none, its local part is rarely a name
+    private static String firstName(String header) {
+        MailAddress address = header.isBlank() ? null : AddressParser.parse(header);
+        if (address == null || address.displayName() == null || address.displayName().isBlank()) {
+            return "";
+        }
+        return address.displayName().strip().split("\\s+")[0];
+    }
+
+    private static String find(Pattern pattern, String text, String fallback) {
+        Matcher matcher = pattern.matcher(text);
+        return matcher.find() ? matcher.group(1).strip() : fallback;
+    }
+
+    private static long tokens(String text) {
+        return text == null ? 0 : Math.max(1, text.length() / 4);
+    }
+}
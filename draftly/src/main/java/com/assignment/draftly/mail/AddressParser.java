@@ -0,0 +1,173 @@
+package com.assignment.draftly.mail;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Single-pass scanner for RFC 5322 address headers (From, To, Cc, Reply-To): {@code Name <addr>},
+ * quoted display names with escapes, comments, groups, comma-separated lists and RFC 2047 encoded
+ * words in names. Lenient like mail clients are: a bare {@code addr@host} with stray words around it
+ * still yields the address, and entries without one are skipped rather than failing the header.
+ */
+public final class AddressParser {
+
+    private AddressParser() {
+    }
+
+    /** First mailbox in the header, or null when it has none. */
+    public static MailAddress parse(String header) {
+        List<MailAddress> found = new ArrayList<>(1);
+        scan(header, found, 1);
+        return found.isEmpty() ? null : found.get(0);
+    }
+
+    /** Every mailbox in the header, in order; group names are dropped and their members kept. */
+    public static List<MailAddress> parseList(String header) {
+        List<MailAddress> found = new ArrayList<>(2);
+        scan(header, found, Integer.MAX_VALUE);
+        return found;
+    }
+
+    private static void scan(String header, List<MailAddress> found, int limit) {
+        if (header == null) {
+            return;
+        }
+        int length = header.length();
+        StringBuilder phrase = new StringBuilder(Math.min(length, 64));
+        String angle = null;
+        String comment = null;
+        int i = 0;
+        while (i < length && found.size() < limit) {
+            char c = header.charAt(i);
+            switch (c) {
+                case '"' -> i = readQuoted(header, i + 1, phrase);
+                case '(' -> {
+                    int end = skipComment(header, i + 1);
+                    if (comment == null) {
+                        comment = header.substring(i + 1, Math.max(i + 1, end - 1)).trim();
+                    }
+                    i = end;
+                }
+                case '<' -> {
+                    int close = header.indexOf('>', i + 1);
+                    int end = close < 0 ? length : close;
+                    angle = header.substring(i + 1, end).trim();
+                    i = end + 1;
+                }
+                case ',', ';' -> {
+                    emit(phrase, angle, comment, found);
+                    phrase.setLength(0);
+                    angle = null;
+                    comment = null;
+                    i++;
+                }
+                case ':' -> {
+                    // "Group name: a@x, b@y;" - the group name is not a mailbox
+                    if (angle == null) {
+                        phrase.setLength(0);
+                        comment = null;
+                    }
+                    i++;
+                }
+                default -> {
+                    appendFolded(phrase, c);
+                    i++;
+                }
+            }
+        }
+        if (found.size() < limit) {
+            emit(phrase, angle, comment, found);
+        }
+    }
+
+    private static void emit(StringBuilder phrase, String angle, String comment, List<MailAddress> found) {
+        String text = phrase.toString().trim();
+        if (angle != null) {
+            String address = stripRoute(angle);
+            if (!address.isEmpty()) {
+                found.add(new MailAddress(nameOf(text, comment), address));
+            }
+            return;
+        }
+        // Bare addr-spec, possibly with words around it: "addr@host" or "Name addr@host"
+        int at = text.indexOf('@');
+        if (at < 0) {
+            return;
+        }
+        int start = text.lastIndexOf(' ', at) + 1;
+        int end = text.indexOf(' ', at);
+        if (end < 0) {
+            end = text.length();
+        }
+        if (start == at || end == at + 1) {
+            return;
+        }
+        String rest = (text.substring(0, start) + text.substring(end)).trim();
+        found.add(new MailAddress(nameOf(rest, comment), text.substring(start, end)));
+    }
+
+    private static String nameOf(String phrase, String comment) {
+        if (!phrase.isEmpty()) {
+            return EncodedWords.decode(phrase);
+        }
+        if (comment != null && !comment.isEmpty()) {
+            return EncodedWords.decode(comment);
+        }
+        return null;
+    }
+
+    /** Drops an obsolete source route: {@code <@relay1,@relay2:user@host>}. */
+    private static String stripRoute(String angle) {
+        if (angle.startsWith("@")) {
+            int colon = angle.indexOf(':');
+            if (colon > 0) {
+                return angle.substring(colon + 1).trim();
+            }
+        }
+        return angle;
+    }
+
+    /** Appends the quoted string starting at {@code i} (after the opening quote); returns the index after it. */
+    private static int readQuoted(String header, int i, StringBuilder phrase) {
+        int length = header.length();
+        while (i < length) {
+            char c = header.charAt(i++);
+            if (c == '"') {
+                return i;
+            }
+            if (c == '\\' && i < length) {
+                c = header.charAt(i++);
+            }
+            appendFolded(phrase, c);
+        }
+        return i;
+    }
+
+    /** Index just after the comment starting at {@code i} (after the opening parenthesis); comments nest. */
+    private static int skipComment(String header, int i) {
+        int length = header.length();
+        int depth = 1;
+        while (i < length && depth > 0) {
+            char c = header.charAt(i++);
+            if (c == '\\') {
+                i++;
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')') {
+                depth--;
+            }
+        }
+        return Math.min(i, length);
+    }
+
+    /** Appends {@code c}, collapsing folding whitespace (CRLF, tabs, runs of spaces) into one space. */
+    private static void appendFolded(StringBuilder phrase, char c) {
+        if (c == ' ' || c == '\t' || c == '\r' || c == '\n') {
+            if (phrase.length() > 0 && phrase.charAt(phrase.length() - 1) != ' ') {
+                phrase.append(' ');
+            }
+        } else {
+            phrase.append(c);
+        }
+    }
+}
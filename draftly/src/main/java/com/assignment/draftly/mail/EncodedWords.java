@@ -0,0 +1,183 @@
+package com.assignment.draftly.mail;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+
+/**
+ * RFC 2047 encoded words ({@code =?charset?B|Q?text?=}) in header text such as subjects and display
+ * names. Adjacent words in the same charset are decoded together, so multi-byte characters split
+ * across words survive; the whitespace between adjacent words is dropped as the RFC requires.
+ */
+public final class EncodedWords {
+
+    /** UTF-8 bytes of Base64 text that fit one 75-character {@code =?UTF-8?B?...?=} word. */
+    private static final int MAX_WORD_BYTES = 45;
+
+    private EncodedWords() {
+    }
+
+    /**
+     * {@code text} as header text: unchanged when it is printable ASCII, otherwise UTF-8 B-encoded
+     * words of at most 75 characters, folded onto continuation lines. Characters are never split
+     * across words.
+     */
+    public static String encode(String text) {
+        if (text == null || isPrintableAscii(text)) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length() * 2);
+        byte[] word = new byte[MAX_WORD_BYTES];
+        int used = 0;
+        for (int i = 0; i < text.length(); ) {
+            int codePoint = text.codePointAt(i);
+            int charCount = Character.charCount(codePoint);
+            byte[] bytes = text.substring(i, i + charCount).getBytes(StandardCharsets.UTF_8);
+            if (used + bytes.length > MAX_WORD_BYTES) {
+                appendWord(out, word, used);
+                used = 0;
+            }
+            System.arraycopy(bytes, 0, word, used, bytes.length);
+            used += bytes.length;
+            i += charCount;
+        }
+        appendWord(out, word, used);
+        return out.toString();
+    }
+
+    static boolean isPrintableAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            char c = text.charAt(i);
+            if (c < 0x20 || c > 0x7e) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void appendWord(StringBuilder out, byte[] word, int length) {
+        if (out.length() > 0) {
+            out.append("\r\n ");
+        }
+        out.append("=?UTF-8?B?")
+                .append(Base64.getEncoder().encodeToString(Arrays.copyOf(word, length)))
+                .append("?=");
+    }
+
+    /** {@code text} with its encoded words decoded; malformed words or unknown charsets are left as they are. */
+    public static String decode(String text) {
+        if (text == null || !text.contains("=?")) {
+            return text;
+        }
+        StringBuilder out = new StringBuilder(text.length());
+        ByteArrayOutputStream pending = new ByteArrayOutputStream();
+        Charset pendingCharset = null;
+        boolean afterWord = false;
+        int i = 0;
+        while (i < text.length()) {
+            int start = text.indexOf("=?", i);
+            Word word = start < 0 ? null : parseWord(text, start);
+            if (word == null) {
+                int end = start < 0 ? text.length() : start + 2;
+                pendingCharset = flush(out, pending, pendingCharset);
+                out.append(text, i, end);
+                afterWord = false;
+                i = end;
+                continue;
+            }
+            if (!afterWord || !text.substring(i, start).isBlank()) {
+                pendingCharset = flush(out, pending, pendingCharset);
+                out.append(text, i, start);
+            }
+            if (pendingCharset != null && !pendingCharset.equals(word.charset())) {
+                pendingCharset = flush(out, pending, pendingCharset);
+            }
+            pending.writeBytes(word.bytes());
+            pendingCharset = word.charset();
+            afterWord = true;
+            i = word.end();
+        }
+        flush(out, pending, pendingCharset);
+        return out.toString();
+    }
+
+    private static Charset flush(StringBuilder out, ByteArrayOutputStream pending, Charset charset) {
+        if (charset != null) {
+            out.append(new String(pending.toByteArray(), charset));
+            pending.reset();
+        }
+        return null;
+    }
+
+    private static Word parseWord(String text, int start) {
+        int charsetEnd = text.indexOf('?', start + 2);
+        if (charsetEnd < 0 || charsetEnd + 2 >= text.length() || text.charAt(charsetEnd + 2) != '?') {
+            return null;
+        }
+        int end = text.indexOf("?=", charsetEnd + 3);
+        if (end < 0) {
+            return null;
+        }
+        String encoded = text.substring(charsetEnd + 3, end);
+        if (encoded.indexOf(' ') >= 0 || encoded.indexOf('\t') >= 0) {
+            return null;
+        }
+        Charset charset = charsetOf(text.substring(start + 2, charsetEnd));
+        if (charset == null) {
+            return null;
+        }
+        byte[] bytes = switch (text.charAt(charsetEnd + 1)) {
+            case 'B', 'b' -> base64(encoded);
+            case 'Q', 'q' -> quotedPrintable(encoded);
+            default -> null;
+        };
+        return bytes == null ? null : new Word(charset, bytes, end + 2);
+    }
+
+    private static Charset charsetOf(String name) {
+        // RFC 2231 allows a language suffix: utf-8*en
+        int star = name.indexOf('*');
+        try {
+            return Charset.forName(star < 0 ? name : name.substring(0, star));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] base64(String encoded) {
+        try {
+            return Base64.getMimeDecoder().decode(encoded);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    private static byte[] quotedPrintable(String encoded) {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(encoded.length());
+        for (int i = 0; i < encoded.length(); i++) {
+            char c = encoded.charAt(i);
+            if (c == '_') {
+                bytes.write(' ');
+            } else if (c == '=') {
+                if (i + 2 >= encoded.length()) {
+                    return null;
+                }
+                int high = Character.digit(encoded.charAt(i + 1), 16);
+                int low = Character.digit(encoded.charAt(i + 2), 16);
+                if (high < 0 || low < 0) {
+                    return null;
+                }
+                bytes.write(high << 4 | low);
+                i += 2;
+            } else {
+                bytes.write(c);
+            }
+        }
+        return bytes.toByteArray();
+    }
+
+    private record Word(Charset charset, byte[] bytes, int end) {
+    }
+}
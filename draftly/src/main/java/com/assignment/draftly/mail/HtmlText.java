@@ -0,0 +1,159 @@
+package com.assignment.draftly.mail;
+
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Single-pass HTML to plain text for mail bodies that only come as HTML: tags dropped, script,
+ * style and head content skipped, block elements turned into line breaks, common entities decoded
+ * and whitespace collapsed. Not a full HTML parser, but enough to give a model readable text.
+ */
+public final class HtmlText {
+
+    private static final Set<String> SKIPPED = Set.of("script", "style", "head", "title");
+    private static final Set<String> PARAGRAPHS = Set.of(
+            "p", "div", "table", "ul", "ol", "blockquote", "pre", "hr", "h1", "h2", "h3", "h4", "h5", "h6");
+    private static final Set<String> LINES = Set.of("br", "li", "tr", "dt", "dd");
+
+    private HtmlText() {
+    }
+
+    public static String toPlainText(String html) {
+        StringBuilder out = new StringBuilder(html.length() / 2);
+        boolean space = false;
+        int i = 0;
+        while (i < html.length()) {
+            char c = html.charAt(i);
+            if (c == '<') {
+                if (html.startsWith("<!--", i)) {
+                    int end = html.indexOf("-->", i + 4);
+                    i = end < 0 ? html.length() : end + 3;
+                    continue;
+                }
+                int close = html.indexOf('>', i);
+                if (close < 0) {
+                    break;
+                }
+                boolean closing = i + 1 < close && html.charAt(i + 1) == '/';
+                String name = tagName(html, closing ? i + 2 : i + 1, close);
+                i = close + 1;
+                if (!closing && SKIPPED.contains(name)) {
+                    int end = indexOfIgnoreCase(html, "</" + name, i);
+                    int endClose = end < 0 ? -1 : html.indexOf('>', end);
+                    i = endClose < 0 ? html.length() : endClose + 1;
+                } else if (PARAGRAPHS.contains(name)) {
+                    breakLines(out, 2);
+                    space = false;
+                } else if (LINES.contains(name) && !(closing && "li".equals(name))) {
+                    breakLines(out, 1);
+                    space = false;
+                }
+                continue;
+            }
+            if (Character.isWhitespace(c)) {
+                space = true;
+                i++;
+                continue;
+            }
+            if (space && out.length() > 0 && out.charAt(out.length() - 1) != '\n') {
+                out.append(' ');
+            }
+            space = false;
+            if (c == '&') {
+                i = appendEntity(html, i, out);
+            } else {
+                out.append(c);
+                i++;
+            }
+        }
+        int end = out.length();
+        while (end > 0 && Character.isWhitespace(out.charAt(end - 1))) {
+            end--;
+        }
+        return out.substring(0, end);
+    }
+
+    private static String tagName(String html, int start, int close) {
+        int end = start;
+        while (end < close && Character.isLetterOrDigit(html.charAt(end))) {
+            end++;
+        }
+        return html.substring(start, end).toLowerCase(Locale.ROOT);
+    }
+
+    /** Ends the current line with up to {@code count} line breaks in total; none at the start. */
+    private static void breakLines(StringBuilder out, int count) {
+        int end = out.length();
+        while (end > 0 && out.charAt(end - 1) == ' ') {
+            end--;
+        }
+        out.setLength(end);
+        if (end == 0) {
+            return;
+        }
+        int existing = 0;
+        while (existing < end && out.charAt(end - 1 - existing) == '\n') {
+            existing++;
+        }
+        for (; existing < count; existing++) {
+            out.append('\n');
+        }
+    }
+
+    /** Appends the entity at {@code start} (or a literal {@code &}) and returns the index after it. */
+    private static int appendEntity(String html, int start, StringBuilder out) {
+        int semicolon = html.indexOf(';', start);
+        if (semicolon < 0 || semicolon - start > 10) {
+            out.append('&');
+            return start + 1;
+        }
+        String entity = html.substring(start + 1, semicolon);
+        int codePoint;
+        if (entity.startsWith("#x") || entity.startsWith("#X")) {
+            codePoint = parse(entity.substring(2), 16);
+        } else if (entity.startsWith("#")) {
+            codePoint = parse(entity.substring(1), 10);
+        } else {
+            codePoint = switch (entity) {
+                case "amp" -> '&';
+                case "lt" -> '<';
+                case "gt" -> '>';
+                case "quot" -> '"';
+                case "apos" -> '\'';
+                case "nbsp" -> ' ';
+                case "ndash" -> '–';
+                case "mdash" -> '—';
+                case "hellip" -> '…';
+                case "rsquo" -> '’';
+                case "lsquo" -> '‘';
+                case "rdquo" -> '”';
+                case "ldquo" -> '“';
+                case "copy" -> '©';
+                default -> -1;
+            };
+        }
+        if (codePoint < 0 || !Character.isValidCodePoint(codePoint)) {
+            out.append('&');
+            return start + 1;
+        }
+        out.appendCodePoint(codePoint);
+        return semicolon + 1;
+    }
+
+    private static int parse(String digits, int radix) {
+        try {
+            return Integer.parseInt(digits, radix);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int indexOfIgnoreCase(String text, String needle, int from) {
+        for (int i = from; i <= text.length() - needle.length(); i++) {
+            if (text.regionMatches(true, i, needle, 0, needle.length())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -0,0 +1,30 @@
+package com.assignment.draftly.mail;
+
+/**
+ * One mailbox from an address header. {@code displayName} is decoded (no quotes, no encoded words)
+ * and null when the header had none.
+ */
+public record MailAddress(String displayName, String address) {
+
+    /** The mailbox as a header value: {@code Name <addr>}, quoting the name when needed, or just {@code addr}. */
+    @Override
+    public String toString() {
+        if (displayName == null || displayName.isEmpty()) {
+            return address;
+        }
+        return (needsQuoting(displayName) ? quote(displayName) : displayName) + " <" + address + ">";
+    }
+
+    private static boolean needsQuoting(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if ("()<>[]:;@\\,.\"".indexOf(name.charAt(i)) >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String quote(String name) {
+        return "\"" + name.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+    }
+}
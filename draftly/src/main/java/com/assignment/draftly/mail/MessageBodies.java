@@ -0,0 +1,182 @@
+package com.assignment.draftly.mail;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The readable body of a Gmail API message resource ({@code format=full}). Walks the whole MIME
+ * tree iteratively, preferring the first inline text/plain part and falling back to the first
+ * text/html part converted to text. Attachments and parts nested deeper than {@link #MAX_DEPTH}
+ * are skipped; at most {@code maxBytes} of a part are decoded, so huge messages stay bounded.
+ */
+public final class MessageBodies {
+
+    /** Nesting beyond this is ignored; real mail rarely goes past four levels. */
+    public static final int MAX_DEPTH = 16;
+
+    /** Parts visited per message before giving up. */
+    private static final int MAX_PARTS = 512;
+
+    private MessageBodies() {
+    }
+
+    /** The text body of {@code message}, or an empty string when it has none. */
+    public static String extract(Map<String, Object> message, int maxBytes) {
+        if (message == null || !(message.get("payload") instanceof Map<?, ?> payload)) {
+            return "";
+        }
+        Map<?, ?> html = null;
+        Deque<Frame> pending = new ArrayDeque<>();
+        pending.push(new Frame(payload, 0));
+        int visited = 0;
+        while (!pending.isEmpty() && visited++ < MAX_PARTS) {
+            Frame frame = pending.pop();
+            Map<?, ?> part = frame.part();
+            String mimeType = mimeType(part);
+            if (mimeType.startsWith("multipart/") || part.get("parts") instanceof List<?>) {
+                if (frame.depth() < MAX_DEPTH && part.get("parts") instanceof List<?> children) {
+                    // pushed in reverse so parts are visited in document order
+                    for (int i = children.size() - 1; i >= 0; i--) {
+                        if (children.get(i) instanceof Map<?, ?> child) {
+                            pending.push(new Frame(child, frame.depth() + 1));
+                        }
+                    }
+                }
+                continue;
+            }
+            if (isAttachment(part)) {
+                continue;
+            }
+            if ("text/plain".equals(mimeType)) {
+                String text = decode(part, maxBytes);
+                if (text != null) {
+                    return text;
+                }
+            } else if ("text/html".equals(mimeType) && html == null && data(part) != null) {
+                html = part;
+            }
+        }
+        if (html == null) {
+            return "";
+        }
+        String decoded = decode(html, maxBytes);
+        return decoded != null ? HtmlText.toPlainText(decoded) : "";
+    }
+
+    private static String mimeType(Map<?, ?> part) {
+        return part.get("mimeType") instanceof String type ? type.toLowerCase(Locale.ROOT) : "";
+    }
+
+    // Gmail sets filename for anything sent as a file, inline images included
+    private static boolean isAttachment(Map<?, ?> part) {
+        if (part.get("filename") instanceof String filename && !filename.isEmpty()) {
+            return true;
+        }
+        String disposition = header(part, "Content-Disposition");
+        return disposition != null && disposition.trim().toLowerCase(Locale.ROOT).startsWith("attachment");
+    }
+
+    private static String data(Map<?, ?> part) {
+        return part.get("body") instanceof Map<?, ?> body && body.get("data") instanceof String data ? data : null;
+    }
+
+    private static String decode(Map<?, ?> part, int maxBytes) {
+        String data = data(part);
+        if (data == null) {
+            return null;
+        }
+        byte[] bytes = new byte[(int) Math.min(maxBytes, (long) data.length() * 3 / 4)];
+        int length = decodeBase64Url(data, bytes);
+        String text = new String(bytes, 0, length, charsetOf(part));
+        if (length == maxBytes) {
+            // possibly cut mid-character: drop the replacement made of the partial sequence
+            int end = text.length();
+            while (end > 0 && text.charAt(end - 1) == '\uFFFD') {
+                end--;
+            }
+            text = text.substring(0, end);
+        }
+        return text;
+    }
+
+    /**
+     * Decodes Base64url (or standard Base64) {@code data} into {@code out}, stopping when it is
+     * full; padding and characters outside the alphabet are skipped. Returns the bytes written.
+     */
+    private static int decodeBase64Url(String data, byte[] out) {
+        int written = 0;
+        int bits = 0;
+        int bitCount = 0;
+        for (int i = 0; i < data.length() && written < out.length; i++) {
+            int value = base64Value(data.charAt(i));
+            if (value < 0) {
+                continue;
+            }
+            bits = bits << 6 | value;
+            bitCount += 6;
+            if (bitCount >= 8) {
+                bitCount -= 8;
+                out[written++] = (byte) (bits >> bitCount);
+            }
+        }
+        return written;
+    }
+
+    private static int base64Value(char c) {
+        if (c >= 'A' && c <= 'Z') {
+            return c - 'A';
+        }
+        if (c >= 'a' && c <= 'z') {
+            return c - 'a' + 26;
+        }
+        if (c >= '0' && c <= '9') {
+            return c - '0' + 52;
+        }
+        return c == '-' || c == '+' ? 62 : c == '_' || c == '/' ? 63 : -1;
+    }
+
+    /** The charset named in the part's Content-Type, or UTF-8 when it is missing or unknown. */
+    private static Charset charsetOf(Map<?, ?> part) {
+        String contentType = header(part, "Content-Type");
+        if (contentType == null) {
+            return StandardCharsets.UTF_8;
+        }
+        int at = contentType.toLowerCase(Locale.ROOT).indexOf("charset=");
+        if (at < 0) {
+            return StandardCharsets.UTF_8;
+        }
+        int start = at + 8;
+        int end = start;
+        while (end < contentType.length() && contentType.charAt(end) != ';'
+                && !Character.isWhitespace(contentType.charAt(end))) {
+            end++;
+        }
+        String name = contentType.substring(start, end).replace("\"", "").replace("'", "");
+        try {
+            // us-ascii is often declared for 8bit mail that is really UTF-8 or Latin-1; UTF-8 is a superset
+            return "us-ascii".equalsIgnoreCase(name) ? StandardCharsets.UTF_8 : Charset.forName(name);
+        } catch (IllegalArgumentException e) {
+            return StandardCharsets.UTF_8;
+        }
+    }
+
+    private static String header(Map<?, ?> part, String name) {
+        if (part.get("headers") instanceof List<?> headers) {
+            for (Object header : headers) {
+                if (header instanceof Map<?, ?> h && name.equalsIgnoreCase(String.valueOf(h.get("name")))
+                        && h.get("value") instanceof String value) {
+                    return value;
+                }
+            }
+        }
+        return null;
+    }
+
+    private record Frame(Map<?, ?> part, int depth) {
+    }
+}
@@ -0,0 +1,480 @@
+package com.assignment.draftly.mail;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Builds an RFC 2822 message and streams it straight into the Base64url form Gmail takes as
+ * {@code raw}, in a pooled buffer, without materialising the message text or its bytes first.
+ *
+ * <p>Subjects, other header values and display names are RFC 2047 encoded when they are not ASCII.
+ * Text parts are UTF-8, sent 8bit unless a line is too long for SMTP (then quoted-printable). A text
+ * and an HTML body become multipart/alternative; attachments wrap that in multipart/mixed.
+ */
+public final class MimeMessageBuilder {
+
+    private static final byte[] BASE64URL =
+            "ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789-_".getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] HEX = "0123456789ABCDEF".getBytes(StandardCharsets.US_ASCII);
+    private static final int MAX_LINE_BYTES = 998;
+    private static final int QP_LINE_LIMIT = 76;
+
+    // Output buffers are reused across messages; very large ones are left to the GC
+    private static final BlockingQueue<byte[]> POOL = new ArrayBlockingQueue<>(16);
+    private static final int MAX_POOLED_BYTES = 1 << 20;
+
+    private final List<String[]> headers = new ArrayList<>();
+    private final List<Attachment> attachments = new ArrayList<>();
+    private String text;
+    private String html;
+
+    /** Recipients as a header value (one or more mailboxes); display names are encoded as needed. */
+    public MimeMessageBuilder to(String addresses) {
+        if (addresses != null) {
+            headers.add(new String[]{"To", formatAddresses(addresses)});
+        }
+        return this;
+    }
+
+    public MimeMessageBuilder subject(String subject) {
+        return header("Subject", subject);
+    }
+
+    /** Sets {@code Message-ID}; {@code id} is given without angle brackets. */
+    public MimeMessageBuilder messageId(String id) {
+        return header("Message-ID", "<" + id + ">");
+    }
+
+    /** Threads the message under {@code id} (without angle brackets) via In-Reply-To and References. */
+    public MimeMessageBuilder inReplyTo(String id) {
+        header("In-Reply-To", "<" + id + ">");
+        return header("References", "<" + id + ">");
+    }
+
+    /** Adds a header; a null value is skipped, a non-ASCII one is RFC 2047 encoded. */
+    public MimeMessageBuilder header(String name, String value) {
+        if (value != null) {
+            headers.add(new String[]{name, EncodedWords.encode(value)});
+        }
+        return this;
+    }
+
+    public MimeMessageBuilder text(String text) {
+        this.text = text;
+        return this;
+    }
+
+    public MimeMessageBuilder html(String html) {
+        this.html = html;
+        return this;
+    }
+
+    public MimeMessageBuilder attachment(String filename, String contentType, byte[] content) {
+        attachments.add(new Attachment(filename, contentType, content));
+        return this;
+    }
+
+    /** The message Base64url encoded, as the Gmail API {@code raw} field takes it. */
+    public String toRaw() {
+        Base64UrlBuffer buffer = new Base64UrlBuffer(estimatedSize() / 3 * 4 + 4);
+        try {
+            writeTo(buffer);
+            return buffer.finish();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            buffer.release();
+        }
+    }
+
+    /** Writes the message as RFC 2822 bytes; {@code target} is not closed. */
+    public void writeTo(OutputStream target) throws IOException {
+        Sink out = new Sink(target);
+        for (String[] header : headers) {
+            out.ascii(header[0]).ascii(": ").ascii(header[1]).crlf();
+        }
+        out.ascii("MIME-Version: 1.0").crlf();
+        if (attachments.isEmpty()) {
+            writeContent(out);
+        } else {
+            String boundary = boundary();
+            out.ascii("Content-Type: multipart/mixed; boundary=\"").ascii(boundary).ascii("\"").crlf().crlf();
+            out.ascii("--").ascii(boundary).crlf();
+            writeContent(out);
+            for (Attachment attachment : attachments) {
+                out.crlf().ascii("--").ascii(boundary).crlf();
+                writeAttachment(out, attachment);
+            }
+            out.crlf().ascii("--").ascii(boundary).ascii("--").crlf();
+        }
+        out.flush();
+    }
+
+    private void writeContent(Sink out) throws IOException {
+        if (text != null && html != null) {
+            String boundary = boundary();
+            out.ascii("Content-Type: multipart/alternative; boundary=\"").ascii(boundary).ascii("\"").crlf().crlf();
+            out.ascii("--").ascii(boundary).crlf();
+            writeText(out, "plain", text);
+            out.crlf().ascii("--").ascii(boundary).crlf();
+            writeText(out, "html", html);
+            out.crlf().ascii("--").ascii(boundary).ascii("--").crlf();
+        } else if (html != null) {
+            writeText(out, "html", html);
+        } else {
+            writeText(out, "plain", text != null ? text : "");
+        }
+    }
+
+    private static void writeText(Sink out, String subtype, String content) throws IOException {
+        out.ascii("Content-Type: text/").ascii(subtype).ascii("; charset=\"UTF-8\"").crlf();
+        if (fitsLineLimit(content)) {
+            out.ascii("Content-Transfer-Encoding: 8bit").crlf().crlf();
+            out.utf8(content);
+            return;
+        }
+        out.ascii("Content-Transfer-Encoding: quoted-printable").crlf().crlf();
+        out.quotedPrintable(content);
+    }
+
+    private static void writeAttachment(Sink out, Attachment attachment) throws IOException {
+        String filename = attachment.filename();
+        out.ascii("Content-Type: ").ascii(attachment.contentType())
+                .ascii("; name=\"").ascii(quotable(EncodedWords.encode(filename))).ascii("\"").crlf();
+        if (EncodedWords.isPrintableAscii(filename)) {
+            out.ascii("Content-Disposition: attachment; filename=\"").ascii(quotable(filename)).ascii("\"").crlf();
+        } else {
+            out.ascii("Content-Disposition: attachment; filename*=UTF-8''").ascii(percentEncode(filename)).crlf();
+        }
+        out.ascii("Content-Transfer-Encoding: base64").crlf().crlf();
+        try (OutputStream base64 = Base64.getMimeEncoder().wrap(out.unclosable())) {
+            base64.write(attachment.content());
+        }
+    }
+
+    /** Whether every line of {@code content} is within SMTP's 998-byte limit once UTF-8 encoded. */
+    private static boolean fitsLineLimit(String content) {
+        int lineBytes = 0;
+        for (int i = 0; i < content.length(); i++) {
+            char c = content.charAt(i);
+            if (c == '\n') {
+                lineBytes = 0;
+                continue;
+            }
+            lineBytes += c < 0x80 ? 1 : c < 0x800 ? 2 : Character.isSurrogate(c) ? 2 : 3;
+            if (lineBytes > MAX_LINE_BYTES) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String formatAddresses(String header) {
+        List<MailAddress> addresses = AddressParser.parseList(header);
+        if (addresses.isEmpty()) {
+            return EncodedWords.encode(header);
+        }
+        StringBuilder value = new StringBuilder(header.length() + 16);
+        for (MailAddress address : addresses) {
+            if (value.length() > 0) {
+                value.append(", ");
+            }
+            String name = address.displayName();
+            if (name == null || EncodedWords.isPrintableAscii(name)) {
+                value.append(address);
+            } else {
+                value.append(EncodedWords.encode(name)).append(" <").append(address.address()).append('>');
+            }
+        }
+        return value.toString();
+    }
+
+    private static String quotable(String value) {
+        return value.replace("\\", "\\\\").replace("\"", "\\\"");
+    }
+
+    /** RFC 2231 / RFC 5987 value: UTF-8 bytes, percent-encoding all but unreserved characters. */
+    private static String percentEncode(String value) {
+        StringBuilder out = new StringBuilder(value.length() * 3);
+        for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+            int c = b & 0xff;
+            if ((c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9') || "-._~".indexOf(c) >= 0) {
+                out.append((char) c);
+            } else {
+                out.append('%').append(Character.toUpperCase(Character.forDigit(c >> 4, 16)))
+                        .append(Character.toUpperCase(Character.forDigit(c & 0xf, 16)));
+            }
+        }
+        return out.toString();
+    }
+
+    // "=_" never occurs in Base64 content; the random suffix keeps 8bit text from colliding
+    private static String boundary() {
+        return "=_draftly_" + Long.toHexString(ThreadLocalRandom.current().nextLong());
+    }
+
+    // ASCII text plus room for quoted-printable soft breaks (3 bytes per 75) and line-wrapped Base64
+    private int estimatedSize() {
+        long textChars = (text != null ? text.length() : 0) + (html != null ? html.length() : 0);
+        long size = 512 + textChars + textChars / 24;
+        for (Attachment attachment : attachments) {
+            size += attachment.content().length / 57 * 78 + 256;
+        }
+        return (int) Math.min(size, Integer.MAX_VALUE / 2);
+    }
+
+    private record Attachment(String filename, String contentType, byte[] content) {
+    }
+
+    /**
+     * Writes the UTF-8 form of the character at {@code i} (a surrogate pair counts as one; a lone
+     * surrogate becomes {@code ?}) into {@code out}, returning the byte count.
+     */
+    private static int encodeUtf8(String value, int i, byte[] out) {
+        char c = value.charAt(i);
+        if (c < 0x80) {
+            out[0] = (byte) c;
+            return 1;
+        }
+        if (c < 0x800) {
+            out[0] = (byte) (0xc0 | c >> 6);
+            out[1] = (byte) (0x80 | c & 0x3f);
+            return 2;
+        }
+        if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+            int codePoint = Character.toCodePoint(c, value.charAt(i + 1));
+            out[0] = (byte) (0xf0 | codePoint >> 18);
+            out[1] = (byte) (0x80 | codePoint >> 12 & 0x3f);
+            out[2] = (byte) (0x80 | codePoint >> 6 & 0x3f);
+            out[3] = (byte) (0x80 | codePoint & 0x3f);
+            return 4;
+        }
+        if (Character.isSurrogate(c)) {
+            out[0] = '?';
+            return 1;
+        }
+        out[0] = (byte) (0xe0 | c >> 12);
+        out[1] = (byte) (0x80 | c >> 6 & 0x3f);
+        out[2] = (byte) (0x80 | c & 0x3f);
+        return 3;
+    }
+
+    /**
+     * Buffered byte sink that writes ASCII header text and UTF-8 body text (bare LF normalised to
+     * CRLF) without creating intermediate strings or byte arrays.
+     */
+    private static final class Sink {
+
+        private final OutputStream target;
+        private final byte[] buffer = new byte[1024];
+        private final byte[] scratch = new byte[4];
+        private int count;
+
+        Sink(OutputStream target) {
+            this.target = target;
+        }
+
+        Sink ascii(String value) throws IOException {
+            for (int i = 0; i < value.length(); i++) {
+                put((byte) value.charAt(i));
+            }
+            return this;
+        }
+
+        Sink crlf() throws IOException {
+            put((byte) '\r');
+            put((byte) '\n');
+            return this;
+        }
+
+        void utf8(String value) throws IOException {
+            char previous = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\n' && previous != '\r') {
+                    put((byte) '\r');
+                }
+                previous = c;
+                if (c < 0x80) {
+                    put((byte) c);
+                } else {
+                    int length = encodeUtf8(value, i, scratch);
+                    for (int b = 0; b < length; b++) {
+                        put(scratch[b]);
+                    }
+                    i += Character.isHighSurrogate(c) && length == 4 ? 1 : 0;
+                }
+            }
+        }
+
+        /**
+         * RFC 2045 quoted-printable: UTF-8 bytes, soft breaks keeping lines within 76 characters,
+         * line breaks as CRLF and whitespace before a break encoded.
+         */
+        void quotedPrintable(String value) throws IOException {
+            int column = 0;
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '\r' && i + 1 < value.length() && value.charAt(i + 1) == '\n') {
+                    continue;
+                }
+                if (c == '\n') {
+                    crlf();
+                    column = 0;
+                    continue;
+                }
+                boolean lineEnd = i + 1 == value.length() || value.charAt(i + 1) == '\n' || value.charAt(i + 1) == '\r';
+                boolean literal = (c >= 33 && c <= 126 && c != '=') || ((c == ' ' || c == '\t') && !lineEnd);
+                int length = literal ? 1 : c < 0x80 ? 1 : encodeUtf8(value, i, scratch);
+                if (!literal && c < 0x80) {
+                    scratch[0] = (byte) c;
+                }
+                int width = literal ? 1 : length * 3;
+                // keep room for the "=" of a soft break
+                if (column + width > QP_LINE_LIMIT - 1) {
+                    put((byte) '=');
+                    crlf();
+                    column = 0;
+                }
+                if (literal) {
+                    put((byte) c);
+                } else {
+                    for (int b = 0; b < length; b++) {
+                        put((byte) '=');
+                        put(HEX[(scratch[b] & 0xff) >> 4]);
+                        put(HEX[scratch[b] & 0xf]);
+                    }
+                    i += Character.isHighSurrogate(c) && length == 4 ? 1 : 0;
+                }
+                column += width;
+            }
+        }
+
+        /** A view for nested encoders; closing it only flushes what was written through it. */
+        OutputStream unclosable() throws IOException {
+            flush();
+            return new OutputStream() {
+                @Override
+                public void write(int b) throws IOException {
+                    target.write(b);
+                }
+
+                @Override
+                public void write(byte[] bytes, int offset, int length) throws IOException {
+                    target.write(bytes, offset, length);
+                }
+            };
+        }
+
+        void flush() throws IOException {
+            if (count > 0) {
+                target.write(buffer, 0, count);
+                count = 0;
+            }
+        }
+
+        private void put(byte b) throws IOException {
+            if (count == buffer.length) {
+                flush();
+            }
+            buffer[count++] = b;
+        }
+    }
+
+    /**
+     * Output stream that Base64url encodes (with padding, as {@link Base64#getUrlEncoder()}) straight
+     * into a growable buffer borrowed from {@link #POOL} and returned by {@link #release()}.
+     */
+    private static final class Base64UrlBuffer extends OutputStream {
+
+        private byte[] bytes;
+        private int count;
+        private int pending;
+        private int pendingBytes;
+
+        Base64UrlBuffer(int expected) {
+            byte[] pooled = expected <= MAX_POOLED_BYTES ? POOL.poll() : null;
+            if (pooled != null && pooled.length < expected) {
+                POOL.offer(pooled);
+                pooled = null;
+            }
+            bytes = pooled != null ? pooled : new byte[Math.max(expected, 1024)];
+        }
+
+        @Override
+        public void write(int b) {
+            pending = pending << 8 | b & 0xff;
+            if (++pendingBytes == 3) {
+                ensure(4);
+                emit(4);
+                pending = 0;
+                pendingBytes = 0;
+            }
+        }
+
+        @Override
+        public void write(byte[] source, int offset, int length) {
+            ensure(length / 3 * 4 + 4);
+            int end = offset + length;
+            int i = offset;
+            while (pendingBytes != 0 && i < end) {
+                write(source[i++]);
+            }
+            byte[] out = bytes;
+            int position = count;
+            for (; i + 2 < end; i += 3) {
+                int group = (source[i] & 0xff) << 16 | (source[i + 1] & 0xff) << 8 | source[i + 2] & 0xff;
+                out[position++] = BASE64URL[group >>> 18];
+                out[position++] = BASE64URL[group >>> 12 & 0x3f];
+                out[position++] = BASE64URL[group >>> 6 & 0x3f];
+                out[position++] = BASE64URL[group & 0x3f];
+            }
+            count = position;
+            while (i < end) {
+                write(source[i++]);
+            }
+        }
+
+        /** Encodes the last partial group with padding and returns the text. */
+        String finish() {
+            if (pendingBytes > 0) {
+                ensure(4);
+                pending <<= 8 * (3 - pendingBytes);
+                emit(pendingBytes + 1);
+                for (int i = pendingBytes; i < 3; i++) {
+                    bytes[count++] = '=';
+                }
+                pendingBytes = 0;
+            }
+            return new String(bytes, 0, count, StandardCharsets.ISO_8859_1);
+        }
+
+        void release() {
+            if (bytes.length <= MAX_POOLED_BYTES) {
+                POOL.offer(bytes);
+            }
+            bytes = null;
+        }
+
+        private void emit(int chars) {
+            for (int shift = 18, i = 0; i < chars; i++, shift -= 6) {
+                bytes[count++] = BASE64URL[pending >> shift & 0x3f];
+            }
+        }
+
+        private void ensure(int extra) {
+            if (count + extra > bytes.length) {
+                bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, count + extra));
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package com.assignment.draftly.prompt;
+
+/**
+ * A rendered system and user message pair. {@code cacheKey} identifies the stable prefix (static
+ * instructions and user-level sections) so requests sharing it can be routed to the same
+ * provider-side prompt cache.
+ */
+public record ChatPrompt(String system, String user, String cacheKey) {
+}
@@ -0,0 +1,9 @@
+package com.assignment.draftly.prompt;
+
+/**
+ * Text generated for a {@link ChatPrompt}, with the model that produced it and the token usage
+ * reported for the call. {@code cachedTokens} is the part of {@code promptTokens} served from the
+ * provider's prompt cache.
+ */
+public record Completion(String text, String model, long promptTokens, long cachedTokens, long completionTokens) {
+}
@@ -0,0 +1,89 @@
+package com.assignment.draftly.prompt;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * Assembles chat prompts so that content shared between requests comes first.
+ *
+ * Providers cache prompts by exact prefix (OpenAI from 1024 tokens, then in 128-token steps), so
+ * only what precedes the first differing character can be reused. Sections are therefore emitted
+ * by {@link Stability}, whatever order they were added in: static instructions make up the system
+ * message, and the user message holds the user's sections, then per-request settings such as the
+ * tone, then the request content. Rendering is fixed, so equal content gives an identical prefix.
+ */
+public final class PromptTemplate {
+
+    /** How widely a section is shared, from every request to this request only. */
+    public enum Stability {
+        STATIC,
+        USER,
+        SETTING,
+        REQUEST
+    }
+
+    private final List<Section> sections = new ArrayList<>();
+
+    public static PromptTemplate create() {
+        return new PromptTemplate();
+    }
+
+    /** Instructions shared by every request; rendered into the system message. */
+    public PromptTemplate instructions(String text) {
+        return section(Stability.STATIC, null, text);
+    }
+
+    public PromptTemplate section(Stability stability, String heading, String text) {
+        sections.add(new Section(stability, heading, text == null ? "" : text.strip()));
+        return this;
+    }
+
+    public ChatPrompt render() {
+        List<Section> ordered = sections.stream()
+                .sorted(Comparator.comparing(Section::stability))
+                .toList();
+        StringBuilder system = new StringBuilder();
+        StringBuilder user = new StringBuilder();
+        int stableUserChars = 0;
+        for (Section section : ordered) {
+            if (section.stability() == Stability.STATIC) {
+                appendBlock(system, section);
+                continue;
+            }
+            appendBlock(user, section);
+            if (section.stability() == Stability.USER) {
+                stableUserChars = user.length();
+            }
+        }
+        return new ChatPrompt(
+                system.toString().stripTrailing(),
+                user.toString().stripTrailing(),
+                cacheKey(system + "\u0000" + user.substring(0, stableUserChars))
+        );
+    }
+
+    private static void appendBlock(StringBuilder out, Section section) {
+        if (section.heading() != null) {
+            out.append(section.heading()).append(":\n");
+        }
+        out.append(section.text()).append("\n\n");
+    }
+
+    private static String cacheKey(String stablePrefix) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256")
+                    .digest(stablePrefix.getBytes(StandardCharsets.UTF_8));
+            return "draftly-" + HexFormat.of().formatHex(digest, 0, 8);
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Section(Stability stability, String heading, String text) {
+    }
+}
@@ -0,0 +1,26 @@
+package com.assignment.draftly.queue;
+
+import java.util.Map;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemType;
+
+/**
+ * Executes one {@link WorkItemType} taken from the {@link WorkQueue}. Handlers must
+ * tolerate running more than once for the same item: an instance can die after the work
+ * was done but before the item was marked done.
+ */
+public interface WorkHandler {
+
+    WorkItemType type();
+
+    /**
+     * Runs the item. Throwing reschedules it with backoff (or dead-letters it when the
+     * failure is permanent or attempts are used up).
+     */
+    void handle(WorkItem item, Map<String, String> payload) throws Exception;
+
+    /** Called once when the item is moved to the dead-letter state. */
+    default void onDeadLetter(WorkItem item, Map<String, String> payload, String error) {
+    }
+}
@@ -0,0 +1,76 @@
+package com.assignment.draftly.queue;
+
+import java.time.Instant;
+import java.util.Map;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import com.assignment.draftly.repository.WorkItemRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.core.type.TypeReference;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Producer side of the durable work queue backed by the {@code work_items} table.
+ * Items are picked up by {@link WorkQueueDispatcher}. Enqueueing inside a caller's
+ * transaction makes the item visible only if that transaction commits.
+ */
+@Slf4j
+@Service
+public class WorkQueue {
+
+    private static final TypeReference<Map<String, String>> PAYLOAD_TYPE = new TypeReference<>() {
+    };
+
+    private final WorkItemRepository workItemRepository;
+    private final JsonMapper jsonMapper;
+    private final int maxAttempts;
+
+    public WorkQueue(
+            WorkItemRepository workItemRepository,
+            JsonMapper jsonMapper,
+            @Value("${draftly.queue.max-attempts:5}") int maxAttempts
+    ) {
+        this.workItemRepository = workItemRepository;
+        this.jsonMapper = jsonMapper;
+        this.maxAttempts = maxAttempts;
+    }
+
+    public WorkItem enqueue(WorkItemType type, WorkPriority priority, Long userId, Map<String, String> payload) {
+        return enqueue(type, priority, userId, payload, Instant.now());
+    }
+
+    /** Enqueues an item that is not claimed before {@code visibleAt}. */
+    public WorkItem enqueue(WorkItemType type, WorkPriority priority, Long userId, Map<String, String> payload,
+                            Instant visibleAt) {
+        Instant now = Instant.now();
+        WorkItem item = new WorkItem();
+        item.setType(type);
+        item.setPriority(priority);
+        item.setUserId(userId);
+        item.setPayload(jsonMapper.writeValueAsString(payload));
+        item.setStatus(WorkItemStatus.READY);
+        item.setMaxAttempts(maxAttempts);
+        item.setVisibleAt(visibleAt);
+        item.setCreatedAt(now);
+        item.setUpdatedAt(now);
+        WorkItem saved = workItemRepository.save(item);
+        log.info("[WORK_QUEUE] enqueued id={} type={} priority={} userId={}", saved.getId(), type, priority, userId);
+        return saved;
+    }
+
+    /** Items of this type waiting to be claimed. */
+    public long depth(WorkItemType type) {
+        return workItemRepository.countByTypeAndStatus(type, WorkItemStatus.READY);
+    }
+
+    Map<String, String> payloadOf(WorkItem item) {
+        return item.getPayload() == null ? Map.of() : jsonMapper.readValue(item.getPayload(), PAYLOAD_TYPE);
+    }
+}
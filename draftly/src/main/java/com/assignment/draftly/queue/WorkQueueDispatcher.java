@@ -0,0 +1,288 @@
+package com.assignment.draftly.queue;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.exceptionHandler.LoadSheddingException;
+import com.assignment.draftly.exceptionHandler.ResourceNotFoundException;
+import com.assignment.draftly.repository.WorkItemRepository;
+import com.assignment.draftly.resilience.FailureClassifier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Consumer side of the work queue.
+ *
+ * Each poll claims at most as many items as there are free worker slots, in one short
+ * transaction using {@code SELECT ... FOR UPDATE SKIP LOCKED}, so several instances can
+ * poll the same table without handing out an item twice. Claimed items are leased for
+ * {@code lease-ms} and the lease is renewed while the item runs, so only an item whose worker
+ * died is picked up again, once its lease expires.
+ * Ordering is by priority, then by how few items the user already has running, and no
+ * user holds more than {@code max-leased-per-user} leases at once, so one user's bulk
+ * work cannot starve everyone else's interactive requests.
+ */
+@Slf4j
+@Component
+public class WorkQueueDispatcher implements DisposableBean {
+
+    private static final int CLAIM_OVERFETCH = 4;
+
+    private final WorkItemRepository workItemRepository;
+    private final WorkQueue workQueue;
+    private final TransactionTemplate transactionTemplate;
+    private final MeterRegistry meterRegistry;
+    private final Map<WorkItemType, WorkHandler> handlers = new EnumMap<>(WorkItemType.class);
+    private final ExecutorService workers;
+    private final Semaphore slots;
+    // Items this instance is running, by id, for lease renewal
+    private final Map<Long, WorkItem> running = new ConcurrentHashMap<>();
+    private final int maxLeasedPerUser;
+    private final Duration lease;
+    private final Duration retryBase;
+    private final Duration retryMax;
+    private final Duration retention;
+
+    public WorkQueueDispatcher(
+            WorkItemRepository workItemRepository,
+            WorkQueue workQueue,
+            PlatformTransactionManager transactionManager,
+            MeterRegistry meterRegistry,
+            List<WorkHandler> handlers,
+            @Value("${draftly.queue.workers:8}") int workerCount,
+            @Value("${draftly.queue.max-leased-per-user:2}") int maxLeasedPerUser,
+            @Value("${draftly.queue.lease-ms:300000}") long leaseMillis,
+            @Value("${draftly.queue.retry-base-ms:2000}") long retryBaseMillis,
+            @Value("${draftly.queue.retry-max-ms:300000}") long retryMaxMillis,
+            @Value("${draftly.queue.retention-ms:86400000}") long retentionMillis
+    ) {
+        this.workItemRepository = workItemRepository;
+        this.workQueue = workQueue;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.meterRegistry = meterRegistry;
+        for (WorkHandler handler : handlers) {
+            this.handlers.put(handler.type(), handler);
+        }
+        // Kept out of the context on purpose: an Executor bean would replace Boot's
+        // applicationTaskExecutor
+        this.workers = Executors.newFixedThreadPool(workerCount, new CustomizableThreadFactory("work-queue-"));
+        this.slots = new Semaphore(workerCount);
+        this.maxLeasedPerUser = maxLeasedPerUser;
+        this.lease = Duration.ofMillis(leaseMillis);
+        this.retryBase = Duration.ofMillis(retryBaseMillis);
+        this.retryMax = Duration.ofMillis(retryMaxMillis);
+        this.retention = Duration.ofMillis(retentionMillis);
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.queue.poll-interval-ms:250}")
+    void poll() {
+        // Only this method takes slots, so the count can only grow until we acquire them
+        int free = slots.availablePermits();
+        if (free == 0) {
+            return;
+        }
+        Claim claim = transactionTemplate.execute(status -> claim(free));
+        if (claim == null) {
+            return;
+        }
+        for (WorkItem item : claim.expired()) {
+            deadLetter(item, item.getLastError());
+        }
+        for (WorkItem item : claim.leased()) {
+            slots.acquireUninterruptibly();
+            workers.execute(() -> {
+                try {
+                    run(item);
+                } finally {
+                    slots.release();
+                }
+            });
+        }
+    }
+
+    private Claim claim(int free) {
+        Instant now = Instant.now();
+        List<WorkItem> candidates = workItemRepository.lockClaimable(now, free * CLAIM_OVERFETCH);
+        if (candidates.isEmpty()) {
+            return new Claim(List.of(), List.of());
+        }
+        Map<Long, Long> activeByUser = new HashMap<>();
+        for (Object[] row : workItemRepository.countActiveBackgroundLeasesByUser(now)) {
+            activeByUser.put((Long) row[0], (Long) row[1]);
+        }
+
+        List<WorkItem> leased = new ArrayList<>();
+        List<WorkItem> expired = new ArrayList<>();
+        for (WorkItem item : candidates) {
+            if (leased.size() >= free) {
+                break;
+            }
+            if (item.getStatus() == WorkItemStatus.LEASED && item.getAttempts() >= item.getMaxAttempts()) {
+                // The worker died (or hung) on the final attempt
+                item.setStatus(WorkItemStatus.DEAD);
+                item.setLeaseToken(null);
+                item.setLastError("Lease expired on final attempt");
+                item.setUpdatedAt(now);
+                expired.add(workItemRepository.save(item));
+                continue;
+            }
+            // The cap keeps one user's background work from filling the pool; it never holds back
+            // a request the user is waiting on
+            if (item.getUserId() != null && item.getPriority() != WorkPriority.INTERACTIVE) {
+                if (activeByUser.getOrDefault(item.getUserId(), 0L) >= maxLeasedPerUser) {
+                    continue;
+                }
+                activeByUser.merge(item.getUserId(), 1L, Long::sum);
+            }
+            item.setStatus(WorkItemStatus.LEASED);
+            item.setLeaseToken(UUID.randomUUID().toString());
+            item.setLeaseExpiresAt(now.plus(lease));
+            item.setAttempts(item.getAttempts() + 1);
+            item.setUpdatedAt(now);
+            leased.add(workItemRepository.save(item));
+        }
+        return new Claim(leased, expired);
+    }
+
+    private void run(WorkItem item) {
+        WorkHandler handler = handlers.get(item.getType());
+        if (handler == null) {
+            finishDead(item, "No handler for " + item.getType());
+            return;
+        }
+        running.put(item.getId(), item);
+        try {
+            handler.handle(item, workQueue.payloadOf(item));
+            if (workItemRepository.markDone(item.getId(), item.getLeaseToken(), Instant.now()) == 0) {
+                log.warn("[WORK_QUEUE] lease lost before completion id={} type={}", item.getId(), item.getType());
+            }
+            counter("draftly.queue.completed", item).increment();
+        } catch (Exception e) {
+            String error = e.getClass().getSimpleName() + ": " + e.getMessage();
+            if (!isRetryable(e) || item.getAttempts() >= item.getMaxAttempts()) {
+                log.error("[WORK_QUEUE] giving up id={} type={} attempts={} error={}",
+                        item.getId(), item.getType(), item.getAttempts(), error, e);
+                finishDead(item, error);
+                return;
+            }
+            Duration delay = retryDelay(e, item.getAttempts());
+            log.warn("[WORK_QUEUE] retrying id={} type={} attempts={} delayMs={} error={}",
+                    item.getId(), item.getType(), item.getAttempts(), delay.toMillis(), error);
+            Instant now = Instant.now();
+            workItemRepository.reschedule(item.getId(), item.getLeaseToken(), now.plus(delay), error, now);
+            counter("draftly.queue.retried", item).increment();
+        } finally {
+            running.remove(item.getId());
+        }
+    }
+
+    /** Extends the lease of every item still running here, so a slow attempt is not handed out again. */
+    @Scheduled(fixedDelayString = "${draftly.queue.lease-renewal-interval-ms:60000}")
+    void renewLeases() {
+        Instant now = Instant.now();
+        running.values().forEach(item -> {
+            if (workItemRepository.renewLease(item.getId(), item.getLeaseToken(), now.plus(lease), now) == 0) {
+                log.warn("[WORK_QUEUE] lease lost while running id={} type={}", item.getId(), item.getType());
+            }
+        });
+    }
+
+    private void finishDead(WorkItem item, String error) {
+        if (workItemRepository.markDead(item.getId(), item.getLeaseToken(), error, Instant.now()) > 0) {
+            deadLetter(item, error);
+        }
+    }
+
+    private void deadLetter(WorkItem item, String error) {
+        counter("draftly.queue.dead_lettered", item).increment();
+        WorkHandler handler = handlers.get(item.getType());
+        if (handler == null) {
+            return;
+        }
+        try {
+            handler.onDeadLetter(item, workQueue.payloadOf(item), error);
+        } catch (RuntimeException e) {
+            log.error("[WORK_QUEUE] dead-letter hook failed id={} type={} error={}",
+                    item.getId(), item.getType(), e.getMessage(), e);
+        }
+    }
+
+    /**
+     * Failures that will not go away by trying again: bad input, missing data, or a 4xx
+     * other than 429 from a dependency.
+     */
+    private static boolean isRetryable(Exception e) {
+        if (e instanceof IllegalArgumentException || e instanceof IllegalStateException
+                || e instanceof ResourceNotFoundException) {
+            return false;
+        }
+        Integer status = FailureClassifier.statusCodeOf(e);
+        return status == null || status == 429 || status >= 500;
+    }
+
+    private Duration retryDelay(Exception e, int attempts) {
+        Duration hinted;
+        if (e instanceof DependencyUnavailableException unavailable) {
+            hinted = Duration.ofSeconds(unavailable.getRetryAfterSeconds());
+        } else if (e instanceof LoadSheddingException shed) {
+            hinted = Duration.ofSeconds(shed.getRetryAfterSeconds());
+        } else {
+            hinted = FailureClassifier.retryAfterOf(e);
+        }
+        if (hinted != null && hinted.compareTo(retryBase) > 0) {
+            return hinted.compareTo(retryMax) > 0 ? retryMax : hinted;
+        }
+        long exponential = retryBase.toMillis() << Math.min(attempts - 1, 20);
+        long capped = Math.min(retryMax.toMillis(), exponential);
+        // Equal jitter: spread retries out without ever retrying immediately
+        return Duration.ofMillis(capped / 2 + ThreadLocalRandom.current().nextLong(capped / 2 + 1));
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.queue.cleanup-interval-ms:3600000}")
+    void purgeDoneItems() {
+        int deleted = workItemRepository.deleteDoneBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("[WORK_QUEUE] purged done items count={}", deleted);
+        }
+    }
+
+    private Counter counter(String name, WorkItem item) {
+        return meterRegistry.counter(name, "type", item.getType().name());
+    }
+
+    private record Claim(List<WorkItem> leased, List<WorkItem> expired) {
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        workers.shutdown();
+        workers.awaitTermination(30, TimeUnit.SECONDS);
+    }
+}
@@ -0,0 +1,47 @@
+package com.assignment.draftly.repository;
+
+import com.assignment.draftly.entity.DraftGenerationJob;
+import com.assignment.draftly.enums.DraftJobStatus;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+public interface DraftGenerationJobRepository
+        extends JpaRepository<DraftGenerationJob, String> {
+
+    Optional<DraftGenerationJob> findByIdAndUserId(String id, Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM DraftGenerationJob j WHERE j.status IN :statuses AND j.updatedAt < :before")
+    int deleteFinishedBefore(@Param("statuses") Collection<DraftJobStatus> statuses, @Param("before") Instant before);
+
+    List<DraftGenerationJob> findByBatchedTrueAndStatusOrderByCreatedAt(DraftJobStatus status, Pageable pageable);
+
+    List<DraftGenerationJob> findByBatchId(String batchId);
+
+    /**
+     * Takes QUEUED bulk jobs for a batch being submitted, marking them RUNNING under
+     * {@code claim}. Jobs another instance claimed first are left out.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE DraftGenerationJob j SET j.status = com.assignment.draftly.enums.DraftJobStatus.RUNNING, j.batchId = :claim, j.updatedAt = :now "
+            + "WHERE j.id IN :ids AND j.batched = true AND j.status = com.assignment.draftly.enums.DraftJobStatus.QUEUED")
+    int claimForBatch(@Param("ids") Collection<String> ids, @Param("claim") String claim, @Param("now") Instant now);
+
+    /** Puts claimed jobs left by an instance that stopped while submitting back in the queue. */
+    @Transactional
+    @Modifying
+    @Query("UPDATE DraftGenerationJob j SET j.status = com.assignment.draftly.enums.DraftJobStatus.QUEUED, j.batchId = null, j.updatedAt = :now "
+            + "WHERE j.batchId LIKE :claimPattern AND j.status = com.assignment.draftly.enums.DraftJobStatus.RUNNING AND j.updatedAt < :before")
+    int releaseClaims(@Param("claimPattern") String claimPattern, @Param("before") Instant before, @Param("now") Instant now);
+}
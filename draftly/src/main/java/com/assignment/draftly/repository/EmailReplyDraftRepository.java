@@ -2,9 +2,14 @@ package com.assignment.draftly.repository;
 
 import com.assignment.draftly.entity.EmailReplyDraft;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,5 +23,32 @@ public interface EmailReplyDraftRepository
 
     @Query("SELECT e FROM EmailReplyDraft e WHERE e.threadId = :threadId AND e.deleted = false AND e.status = :status ORDER BY e.createdAt DESC")
     List<EmailReplyDraft> findByThreadIdAndDeletedFalseAndStatusOrderByCreatedAtDesc(@Param("threadId") String threadId, @Param("status") com.assignment.draftly.enums.ReplyDraftStatus status);
-}
 
+    /**
+     * Status and a reply preview of the live drafts of every thread in {@code threadIds}, newest
+     * first, in one query; the reply text is cut to its first 200 characters in the database.
+     */
+    @Query("SELECT e.threadId AS threadId, e.status AS status, SUBSTRING(e.replyMessage, 1, 200) AS preview, "
+            + "e.createdAt AS createdAt FROM EmailReplyDraft e "
+            + "WHERE e.threadId IN :threadIds AND e.deleted = false ORDER BY e.createdAt DESC")
+    List<DraftOverlay> findOverlaysByThreadIdIn(@Param("threadIds") Collection<String> threadIds);
+
+    interface DraftOverlay {
+        String getThreadId();
+
+        com.assignment.draftly.enums.ReplyDraftStatus getStatus();
+
+        String getPreview();
+
+        Instant getCreatedAt();
+    }
+
+    /**
+     * Records a send attempt in its own transaction, so the marker survives a rollback or crash
+     * of the approving transaction.
+     */
+    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    @Modifying
+    @Query("UPDATE EmailReplyDraft e SET e.sendAttemptedAt = :now WHERE e.id = :id")
+    int markSendAttempted(@Param("id") Long id, @Param("now") Instant now);
+}
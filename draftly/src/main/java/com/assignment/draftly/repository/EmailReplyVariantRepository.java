@@ -0,0 +1,25 @@
+package com.assignment.draftly.repository;
+
+import com.assignment.draftly.entity.EmailReplyVariant;
+import com.assignment.draftly.enums.Tone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Optional;
+
+public interface EmailReplyVariantRepository
+        extends JpaRepository<EmailReplyVariant, Long> {
+
+    List<EmailReplyVariant> findByDraftId(Long draftId);
+
+    Optional<EmailReplyVariant> findByDraftIdAndTone(Long draftId, Tone tone);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM EmailReplyVariant v WHERE v.draftId = :draftId")
+    int deleteByDraftId(@Param("draftId") Long draftId);
+}
@@ -0,0 +1,41 @@
+package com.assignment.draftly.repository;
+
+import com.assignment.draftly.entity.GenerationBatch;
+import com.assignment.draftly.enums.GenerationBatchStatus;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+
+public interface GenerationBatchRepository
+        extends JpaRepository<GenerationBatch, String> {
+
+    List<GenerationBatch> findByStatusInOrderByCreatedAt(Collection<GenerationBatchStatus> statuses);
+
+    /**
+     * Claims an open (SUBMITTED or RECEIVED) batch for {@code claim} unless another instance
+     * holds it, or held it since before {@code staleBefore}. Returns 0 when not claimed.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE GenerationBatch b SET b.claim = :claim, b.claimedAt = :now WHERE b.id = :id "
+            + "AND b.status IN (com.assignment.draftly.enums.GenerationBatchStatus.SUBMITTED, com.assignment.draftly.enums.GenerationBatchStatus.RECEIVED) "
+            + "AND (b.claim IS NULL OR b.claimedAt < :staleBefore)")
+    int claim(@Param("id") String id, @Param("claim") String claim, @Param("now") Instant now,
+              @Param("staleBefore") Instant staleBefore);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE GenerationBatch b SET b.claim = null, b.claimedAt = null WHERE b.id = :id AND b.claim = :claim")
+    int release(@Param("id") String id, @Param("claim") String claim);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM GenerationBatch b WHERE b.status = com.assignment.draftly.enums.GenerationBatchStatus.COMPLETED AND b.updatedAt < :before")
+    int deleteCompletedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,32 @@
+package com.assignment.draftly.repository;
+
+import com.assignment.draftly.entity.IdempotencyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.Optional;
+
+public interface IdempotencyRecordRepository
+        extends JpaRepository<IdempotencyRecord, Long> {
+
+    Optional<IdempotencyRecord> findByUserIdAndIdempotencyKey(Long userId, String idempotencyKey);
+
+    /**
+     * Takes over an IN_PROGRESS record whose owner stopped updating it before {@code staleBefore}.
+     * Returns 0 when another request got there first.
+     */
+    @Transactional
+    @Modifying
+    @Query("UPDATE IdempotencyRecord r SET r.updatedAt = :now WHERE r.id = :id "
+            + "AND r.status = com.assignment.draftly.enums.IdempotencyStatus.IN_PROGRESS AND r.updatedAt < :staleBefore")
+    int claimStale(@Param("id") Long id, @Param("staleBefore") Instant staleBefore, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM IdempotencyRecord r WHERE r.createdAt < :before")
+    int deleteCreatedBefore(@Param("before") Instant before);
+}
@@ -0,0 +1,30 @@
+package com.assignment.draftly.repository;
+
+import com.assignment.draftly.entity.UserStyleProfile;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+public interface UserStyleProfileRepository
+        extends JpaRepository<UserStyleProfile, Long> {
+
+    Optional<UserStyleProfile> findByUserId(Long userId);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserStyleProfile p SET p.stale = true WHERE p.userId = :userId")
+    int markStale(@Param("userId") Long userId);
+
+    // Set expressions read the old row, so the first sample replaces the initial 0
+    @Transactional
+    @Modifying
+    @Query("UPDATE UserStyleProfile p SET p.stale = true, "
+            + "p.editRatio = CASE WHEN p.editSamples = 0 THEN :ratio ELSE p.editRatio * 0.8 + :ratio * 0.2 END, "
+            + "p.editSamples = p.editSamples + 1 "
+            + "WHERE p.userId = :userId")
+    int markStaleWithEdit(@Param("userId") Long userId, @Param("ratio") double ratio);
+}
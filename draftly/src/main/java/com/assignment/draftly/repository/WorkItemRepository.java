@@ -0,0 +1,77 @@
+package com.assignment.draftly.repository;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface WorkItemRepository
+        extends JpaRepository<WorkItem, Long> {
+
+    /**
+     * Locks up to {@code limit} claimable items: READY and visible, or LEASED with an expired
+     * lease. Rows locked by other pollers are skipped rather than waited on. Within a
+     * priority, users with fewer items currently leased come first. Must run in a transaction.
+     */
+    @Query(value = """
+            SELECT w.* FROM work_items w
+            LEFT JOIN (
+                SELECT user_id, COUNT(*) AS leased FROM work_items
+                WHERE status = 'LEASED' AND lease_expires_at > :now
+                GROUP BY user_id
+            ) u ON u.user_id = w.user_id
+            WHERE (w.status = 'READY' AND w.visible_at <= :now)
+               OR (w.status = 'LEASED' AND w.lease_expires_at <= :now)
+            ORDER BY w.priority, COALESCE(u.leased, 0), w.id
+            LIMIT :limit
+            FOR UPDATE OF w SKIP LOCKED
+            """, nativeQuery = true)
+    List<WorkItem> lockClaimable(@Param("now") Instant now, @Param("limit") int limit);
+
+    /**
+     * Live leases per user on background (non-INTERACTIVE) items, the ones the per-user cap applies to.
+     */
+    @Query("SELECT w.userId, COUNT(w) FROM WorkItem w WHERE w.status = com.assignment.draftly.enums.WorkItemStatus.LEASED AND w.leaseExpiresAt > :now"
+            + " AND w.priority <> com.assignment.draftly.enums.WorkPriority.INTERACTIVE GROUP BY w.userId")
+    List<Object[]> countActiveBackgroundLeasesByUser(@Param("now") Instant now);
+
+    long countByTypeAndStatus(WorkItemType type, WorkItemStatus status);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkItem w SET w.leaseExpiresAt = :expiresAt, w.updatedAt = :now "
+            + "WHERE w.id = :id AND w.leaseToken = :leaseToken AND w.status = com.assignment.draftly.enums.WorkItemStatus.LEASED")
+    int renewLease(@Param("id") Long id, @Param("leaseToken") String leaseToken, @Param("expiresAt") Instant expiresAt,
+                   @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkItem w SET w.status = com.assignment.draftly.enums.WorkItemStatus.DONE, w.leaseToken = null, w.updatedAt = :now WHERE w.id = :id AND w.leaseToken = :leaseToken")
+    int markDone(@Param("id") Long id, @Param("leaseToken") String leaseToken, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkItem w SET w.status = com.assignment.draftly.enums.WorkItemStatus.READY, w.leaseToken = null, w.visibleAt = :visibleAt, w.lastError = :error, w.updatedAt = :now "
+            + "WHERE w.id = :id AND w.leaseToken = :leaseToken")
+    int reschedule(@Param("id") Long id, @Param("leaseToken") String leaseToken, @Param("visibleAt") Instant visibleAt,
+                   @Param("error") String error, @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("UPDATE WorkItem w SET w.status = com.assignment.draftly.enums.WorkItemStatus.DEAD, w.leaseToken = null, w.lastError = :error, w.updatedAt = :now "
+            + "WHERE w.id = :id AND w.leaseToken = :leaseToken")
+    int markDead(@Param("id") Long id, @Param("leaseToken") String leaseToken, @Param("error") String error,
+                 @Param("now") Instant now);
+
+    @Transactional
+    @Modifying
+    @Query("DELETE FROM WorkItem w WHERE w.status = com.assignment.draftly.enums.WorkItemStatus.DONE AND w.updatedAt < :before")
+    int deleteDoneBefore(@Param("before") Instant before);
+}
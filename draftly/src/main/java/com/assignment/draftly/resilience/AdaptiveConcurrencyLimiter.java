@@ -0,0 +1,217 @@
+package com.assignment.draftly.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * AIMD concurrency limiter for calls to one external dependency.
+ *
+ * The limit grows by roughly one permit per "window" of successful calls while the
+ * limiter is actually being used, and shrinks multiplicatively whenever a call is
+ * slower than the latency threshold or fails with an overload signal (429, 5xx,
+ * timeout). Callers that find the limiter full wait in a bounded queue for at most
+ * {@code maxWait}; anything beyond that is rejected immediately with a retry-after hint
+ * so request threads are never parked indefinitely behind a slow dependency.
+ */
+@Slf4j
+public class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+
+    private final ExternalDependency dependency;
+    private final int minLimit;
+    private final int maxLimit;
+    private final int maxQueue;
+    private final long maxWaitNanos;
+    private final long latencyThresholdNanos;
+    private final double backoffRatio;
+
+    private final ReentrantLock lock = new ReentrantLock(true);
+    private final Condition permitReleased = lock.newCondition();
+
+    private double limit;
+    private int inFlight;
+    private int queued;
+    private long smoothedLatencyNanos;
+
+    private final AtomicLong rejected = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    public AdaptiveConcurrencyLimiter(
+            ExternalDependency dependency,
+            int initialLimit,
+            int minLimit,
+            int maxLimit,
+            int maxQueue,
+            long maxWaitMillis,
+            long latencyThresholdMillis,
+            double backoffRatio
+    ) {
+        if (minLimit < 1 || maxLimit < minLimit) {
+            throw new IllegalArgumentException("Invalid limiter bounds for " + dependency + ": min=" + minLimit + " max=" + maxLimit);
+        }
+        this.dependency = dependency;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.maxQueue = Math.max(0, maxQueue);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.backoffRatio = backoffRatio;
+        this.limit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+    }
+
+    public Permit acquire() {
+        lock.lock();
+        try {
+            if (inFlight < currentLimit()) {
+                inFlight++;
+                return new Permit(System.nanoTime());
+            }
+            if (queued >= maxQueue) {
+                throw reject("queue full");
+            }
+
+            queued++;
+            try {
+                long remaining = maxWaitNanos;
+                while (inFlight >= currentLimit()) {
+                    if (remaining <= 0) {
+                        throw reject("timed out waiting for a permit");
+                    }
+                    remaining = permitReleased.awaitNanos(remaining);
+                }
+                inFlight++;
+                return new Permit(System.nanoTime());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw reject("interrupted while waiting for a permit");
+            } finally {
+                queued--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void release(long startNanos, Outcome outcome) {
+        long latency = System.nanoTime() - startNanos;
+        lock.lock();
+        try {
+            int inFlightAtCompletion = inFlight--;
+            if (outcome != Outcome.IGNORED) {
+                smoothedLatencyNanos = smoothedLatencyNanos == 0
+                        ? latency
+                        : (long) (SMOOTHING * latency + (1 - SMOOTHING) * smoothedLatencyNanos);
+            }
+
+            if (outcome == Outcome.DROPPED || (outcome == Outcome.SUCCESS && latency > latencyThresholdNanos)) {
+                dropped.incrementAndGet();
+                limit = Math.max(minLimit, limit * backoffRatio);
+            } else if (outcome == Outcome.SUCCESS && inFlightAtCompletion * 2 >= limit) {
+                // Only probe upwards while the current limit is actually being used
+                limit = Math.min(maxLimit, limit + 1.0 / limit);
+            }
+            permitReleased.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private DependencyUnavailableException reject(String reason) {
+        rejected.incrementAndGet();
+        long retryAfter = retryAfterSeconds();
+        log.warn("[CONCURRENCY_LIMIT] dependency={} rejected reason=\"{}\" limit={} inFlight={} queued={} retryAfterSeconds={}",
+                dependency, reason, currentLimit(), inFlight, queued, retryAfter);
+        return new DependencyUnavailableException(
+                dependency + " is at capacity, please retry shortly",
+                dependency,
+                retryAfter
+        );
+    }
+
+    /**
+     * Rough time until a queued caller would get through: one smoothed call latency per
+     * "round" of the current limit that is ahead of it. Never less than one second.
+     */
+    private long retryAfterSeconds() {
+        double rounds = (double) (queued + 1) / Math.max(1, currentLimit());
+        long nanos = (long) (Math.max(1, smoothedLatencyNanos) * Math.max(1.0, rounds));
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(nanos) + 1);
+    }
+
+    private int currentLimit() {
+        return (int) limit;
+    }
+
+    public ExternalDependency getDependency() {
+        return dependency;
+    }
+
+    public int getLimit() {
+        lock.lock();
+        try {
+            return currentLimit();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getInFlight() {
+        lock.lock();
+        try {
+            return inFlight;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getQueued() {
+        lock.lock();
+        try {
+            return queued;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getRejectedCount() {
+        return rejected.get();
+    }
+
+    public long getDroppedCount() {
+        return dropped.get();
+    }
+
+    public enum Outcome {
+        /** Call completed normally; latency is used to grow or shrink the limit. */
+        SUCCESS,
+        /** Dependency signalled overload (429, 5xx, timeout); the limit backs off. */
+        DROPPED,
+        /** Call failed for a reason unrelated to capacity (e.g. 4xx); limit unchanged. */
+        IGNORED
+    }
+
+    public final class Permit {
+
+        private final long startNanos;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(long startNanos) {
+            this.startNanos = startNanos;
+        }
+
+        public void release(Outcome outcome) {
+            if (released.compareAndSet(false, true)) {
+                AdaptiveConcurrencyLimiter.this.release(startNanos, outcome);
+            }
+        }
+    }
+}
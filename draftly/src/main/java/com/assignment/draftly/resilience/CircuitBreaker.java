@@ -0,0 +1,207 @@
+package com.assignment.draftly.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Count-based circuit breaker for one external dependency.
+ *
+ * CLOSED: calls flow, outcomes are recorded in a ring of the last {@code windowSize} calls.
+ * Once at least {@code minimumCalls} are recorded and the failure rate reaches the
+ * threshold the breaker OPENs and rejects every call for {@code openDuration}. After that
+ * a few trial calls are let through (HALF_OPEN); if they all succeed the breaker closes,
+ * any failure re-opens it.
+ */
+@Slf4j
+public class CircuitBreaker {
+
+    public enum State {
+        CLOSED,
+        OPEN,
+        HALF_OPEN
+    }
+
+    private final ExternalDependency dependency;
+    private final int windowSize;
+    private final int minimumCalls;
+    private final double failureRateThreshold;
+    private final long openDurationNanos;
+    private final int halfOpenTrialCalls;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final boolean[] window;
+    private int windowIndex;
+    private int recordedCalls;
+    private int failuresInWindow;
+
+    private State state = State.CLOSED;
+    private long openedAtNanos;
+    private int trialCallsStarted;
+    private int trialCallsSucceeded;
+
+    private final AtomicLong notPermitted = new AtomicLong();
+
+    public CircuitBreaker(
+            ExternalDependency dependency,
+            int windowSize,
+            int minimumCalls,
+            double failureRateThreshold,
+            long openDurationMillis,
+            int halfOpenTrialCalls
+    ) {
+        this.dependency = dependency;
+        this.windowSize = Math.max(1, windowSize);
+        this.minimumCalls = Math.max(1, Math.min(minimumCalls, this.windowSize));
+        this.failureRateThreshold = failureRateThreshold;
+        this.openDurationNanos = TimeUnit.MILLISECONDS.toNanos(openDurationMillis);
+        this.halfOpenTrialCalls = Math.max(1, halfOpenTrialCalls);
+        this.window = new boolean[this.windowSize];
+    }
+
+    /**
+     * Throws {@link DependencyUnavailableException} when the call must not be attempted.
+     */
+    public void acquirePermission() {
+        lock.lock();
+        try {
+            if (state == State.OPEN) {
+                long elapsed = System.nanoTime() - openedAtNanos;
+                if (elapsed < openDurationNanos) {
+                    notPermitted.incrementAndGet();
+                    long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(openDurationNanos - elapsed) + 1);
+                    throw new DependencyUnavailableException(
+                            dependency + " is temporarily unavailable, please retry shortly",
+                            dependency,
+                            retryAfter
+                    );
+                }
+                transitionTo(State.HALF_OPEN);
+            }
+            if (state == State.HALF_OPEN) {
+                if (trialCallsStarted >= halfOpenTrialCalls) {
+                    notPermitted.incrementAndGet();
+                    throw new DependencyUnavailableException(
+                            dependency + " is recovering, please retry shortly",
+                            dependency,
+                            1
+                    );
+                }
+                trialCallsStarted++;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void onSuccess() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                trialCallsSucceeded++;
+                if (trialCallsSucceeded >= halfOpenTrialCalls) {
+                    transitionTo(State.CLOSED);
+                }
+                return;
+            }
+            record(false);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Gives back a permission whose call never reached the dependency (e.g. rejected by
+     * the bulkhead), so it neither counts as a result nor uses up a half-open trial.
+     */
+    public void onNotAttempted() {
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN && trialCallsStarted > 0) {
+                trialCallsStarted--;
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Records a failed call. Only outage signals count against the dependency; request
+     * errors (4xx) are treated as successful round trips.
+     */
+    public void onError(Throwable failure) {
+        if (!FailureClassifier.isOutageSignal(failure)) {
+            onSuccess();
+            return;
+        }
+        lock.lock();
+        try {
+            if (state == State.HALF_OPEN) {
+                transitionTo(State.OPEN);
+                return;
+            }
+            record(true);
+            if (state == State.CLOSED
+                    && recordedCalls >= minimumCalls
+                    && (double) failuresInWindow / recordedCalls >= failureRateThreshold) {
+                transitionTo(State.OPEN);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void record(boolean failure) {
+        if (recordedCalls == windowSize) {
+            if (window[windowIndex]) {
+                failuresInWindow--;
+            }
+        } else {
+            recordedCalls++;
+        }
+        window[windowIndex] = failure;
+        if (failure) {
+            failuresInWindow++;
+        }
+        windowIndex = (windowIndex + 1) % windowSize;
+    }
+
+    private void transitionTo(State next) {
+        log.warn("[CIRCUIT_BREAKER] dependency={} transition={}->{} failures={} calls={}",
+                dependency, state, next, failuresInWindow, recordedCalls);
+        state = next;
+        trialCallsStarted = 0;
+        trialCallsSucceeded = 0;
+        if (next == State.OPEN) {
+            openedAtNanos = System.nanoTime();
+        }
+        if (next == State.CLOSED) {
+            java.util.Arrays.fill(window, false);
+            windowIndex = 0;
+            recordedCalls = 0;
+            failuresInWindow = 0;
+        }
+    }
+
+    public ExternalDependency getDependency() {
+        return dependency;
+    }
+
+    public State getState() {
+        lock.lock();
+        try {
+            return state;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public long getNotPermittedCount() {
+        return notPermitted.get();
+    }
+}
@@ -0,0 +1,61 @@
+package com.assignment.draftly.resilience;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.assignment.draftly.enums.ExternalDependency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * One independent limiter (bulkhead) per external dependency, so a burst of slow
+ * OpenAI calls can never consume the permits needed for Gmail reads.
+ */
+public class ConcurrencyLimiterRegistry {
+
+    private final Map<ExternalDependency, AdaptiveConcurrencyLimiter> limiters =
+            new EnumMap<>(ExternalDependency.class);
+
+    public ConcurrencyLimiterRegistry(Collection<AdaptiveConcurrencyLimiter> limiters, MeterRegistry meterRegistry) {
+        for (AdaptiveConcurrencyLimiter limiter : limiters) {
+            this.limiters.put(limiter.getDependency(), limiter);
+            bindMetrics(limiter, meterRegistry);
+        }
+    }
+
+    public AdaptiveConcurrencyLimiter forDependency(ExternalDependency dependency) {
+        AdaptiveConcurrencyLimiter limiter = limiters.get(dependency);
+        if (limiter == null) {
+            throw new IllegalStateException("No concurrency limiter configured for " + dependency);
+        }
+        return limiter;
+    }
+
+    private void bindMetrics(AdaptiveConcurrencyLimiter limiter, MeterRegistry meterRegistry) {
+        String dependency = limiter.getDependency().name().toLowerCase();
+
+        Gauge.builder("draftly.dependency.concurrency.limit", limiter, AdaptiveConcurrencyLimiter::getLimit)
+                .tag("dependency", dependency)
+                .description("Current adaptive concurrency limit")
+                .register(meterRegistry);
+        Gauge.builder("draftly.dependency.concurrency.in_flight", limiter, AdaptiveConcurrencyLimiter::getInFlight)
+                .tag("dependency", dependency)
+                .description("Calls currently holding a permit")
+                .register(meterRegistry);
+        Gauge.builder("draftly.dependency.concurrency.queued", limiter, AdaptiveConcurrencyLimiter::getQueued)
+                .tag("dependency", dependency)
+                .description("Callers waiting for a permit")
+                .register(meterRegistry);
+        FunctionCounter.builder("draftly.dependency.concurrency.rejected", limiter, AdaptiveConcurrencyLimiter::getRejectedCount)
+                .tag("dependency", dependency)
+                .description("Calls rejected because the limiter and its queue were full")
+                .register(meterRegistry);
+        FunctionCounter.builder("draftly.dependency.concurrency.dropped", limiter, AdaptiveConcurrencyLimiter::getDroppedCount)
+                .tag("dependency", dependency)
+                .description("Calls that made the limit back off (slow, 429, 5xx, timeout)")
+                .register(meterRegistry);
+    }
+}
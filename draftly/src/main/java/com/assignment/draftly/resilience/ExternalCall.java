@@ -0,0 +1,42 @@
+package com.assignment.draftly.resilience;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+import com.assignment.draftly.enums.ExternalDependency;
+
+/**
+ * Marks a client method as one remote call to an external dependency. Calls through the
+ * Spring proxy get that dependency's circuit breaker, bulkhead and retry policy applied
+ * by {@link ExternalCallAspect}.
+ */
+@Target(ElementType.METHOD)
+@Retention(RetentionPolicy.RUNTIME)
+public @interface ExternalCall {
+
+    ExternalDependency dependency();
+
+    /** Operation name used in logs and metrics. */
+    String operation();
+
+    /**
+     * Whether repeating the call is harmless. Non-idempotent calls are only retried when
+     * the request provably did not take effect (429 or connect failure).
+     */
+    boolean idempotent() default false;
+
+    /**
+     * Gmail quota units charged per attempt to the calling user's bucket (see
+     * {@link GmailQuotaLimiter}). The user is identified by the method's
+     * {@code accessToken} parameter. 0 = not metered.
+     */
+    int quotaUnits() default 0;
+
+    /**
+     * Whether a slow call may be duplicated after the operation's observed p95 (see
+     * {@link HedgingPolicy}). Only allowed on idempotent reads.
+     */
+    boolean hedgeable() default false;
+}
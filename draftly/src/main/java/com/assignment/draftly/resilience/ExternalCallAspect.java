@@ -0,0 +1,134 @@
+package com.assignment.draftly.resilience;
+
+import java.time.Duration;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.stereotype.Component;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.integrations.GmailAccounts;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies the dependency's resilience policy to every {@link ExternalCall} method:
+ * per-user quota, circuit breaker, then bulkhead permit, then the call itself, retried
+ * with jittered backoff while the failure is retryable and the retry budget allows it.
+ * Hedgeable reads may additionally be duplicated within an attempt by {@link HedgingPolicy}.
+ */
+@Slf4j
+@Aspect
+@Component
+@RequiredArgsConstructor
+public class ExternalCallAspect {
+
+    private final ResiliencePolicyRegistry policyRegistry;
+    private final ConcurrencyLimiterRegistry concurrencyLimiterRegistry;
+    private final GmailQuotaLimiter gmailQuotaLimiter;
+    private final GmailAccounts gmailAccounts;
+    private final HedgingPolicy hedgingPolicy;
+    private final MeterRegistry meterRegistry;
+
+    @Around("@annotation(externalCall)")
+    public Object around(ProceedingJoinPoint joinPoint, ExternalCall externalCall) throws Throwable {
+        ExternalDependency dependency = externalCall.dependency();
+        ResiliencePolicyRegistry.DependencyPolicy policy = policyRegistry.forDependency(dependency);
+        RetryPolicy retryPolicy = policy.retryPolicy();
+        if (externalCall.hedgeable() && !externalCall.idempotent()) {
+            throw new IllegalStateException("Only idempotent calls may be hedged: "
+                    + joinPoint.getSignature().toShortString());
+        }
+
+        policy.retryBudget().onAttempt();
+        String quotaUser = externalCall.quotaUnits() > 0 ? quotaUserOf(joinPoint) : null;
+
+        for (int attempt = 1; ; attempt++) {
+            if (quotaUser != null) {
+                // Every attempt costs quota at Gmail, including retries
+                gmailQuotaLimiter.acquire(quotaUser, externalCall.quotaUnits());
+            }
+            policy.circuitBreaker().acquirePermission();
+            try {
+                Object result = externalCall.hedgeable()
+                        ? hedgingPolicy.execute(
+                                dependency.name().toLowerCase() + "." + externalCall.operation(),
+                                () -> quotaUser == null
+                                        || gmailQuotaLimiter.tryAcquire(quotaUser, externalCall.quotaUnits()),
+                                () -> invoke(joinPoint, dependency))
+                        : invoke(joinPoint, dependency);
+                policy.circuitBreaker().onSuccess();
+                return result;
+            } catch (DependencyUnavailableException e) {
+                // Rejected locally by the bulkhead; the dependency itself was not contacted
+                policy.circuitBreaker().onNotAttempted();
+                throw e;
+            } catch (Throwable e) {
+                policy.circuitBreaker().onError(e);
+
+                if (attempt >= retryPolicy.getMaxAttempts()
+                        || !retryPolicy.isRetryable(e, externalCall.idempotent())) {
+                    throw e;
+                }
+
+                Duration retryAfter = FailureClassifier.retryAfterOf(e);
+                if (retryAfter != null && retryAfter.compareTo(retryPolicy.getMaxRetryAfter()) > 0) {
+                    // Server wants us gone for longer than is reasonable to hold a request thread
+                    throw new DependencyUnavailableException(
+                            dependency + " asked to retry later",
+                            dependency,
+                            Math.max(1, retryAfter.toSeconds())
+                    );
+                }
+                if (!policy.retryBudget().tryAcquireRetry()) {
+                    meterRegistry.counter("draftly.dependency.retry.budget_exhausted",
+                            "dependency", dependency.name().toLowerCase()).increment();
+                    log.warn("[RETRY] dependency={} operation={} attempt={} retry budget exhausted, failing fast",
+                            dependency, externalCall.operation(), attempt);
+                    throw e;
+                }
+
+                long delayMillis = retryPolicy.delayMillis(attempt, retryAfter);
+                meterRegistry.counter("draftly.dependency.retry.attempts",
+                        "dependency", dependency.name().toLowerCase(),
+                        "operation", externalCall.operation()).increment();
+                log.warn("[RETRY] dependency={} operation={} attempt={}/{} delayMs={} error={}",
+                        dependency, externalCall.operation(), attempt, retryPolicy.getMaxAttempts(),
+                        delayMillis, e.getMessage());
+                Thread.sleep(delayMillis);
+            }
+        }
+    }
+
+    private String quotaUserOf(ProceedingJoinPoint joinPoint) {
+        String[] names = ((MethodSignature) joinPoint.getSignature()).getParameterNames();
+        Object[] args = joinPoint.getArgs();
+        for (int i = 0; i < names.length; i++) {
+            if ("accessToken".equals(names[i]) && args[i] instanceof String token) {
+                return gmailAccounts.keyOf(token);
+            }
+        }
+        throw new IllegalStateException("@ExternalCall with quotaUnits requires an accessToken parameter: "
+                + joinPoint.getSignature().toShortString());
+    }
+
+    private Object invoke(ProceedingJoinPoint joinPoint, ExternalDependency dependency) throws Throwable {
+        AdaptiveConcurrencyLimiter limiter = concurrencyLimiterRegistry.forDependency(dependency);
+        AdaptiveConcurrencyLimiter.Permit permit = limiter.acquire();
+        try {
+            Object result = joinPoint.proceed();
+            permit.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+            return result;
+        } catch (Throwable e) {
+            permit.release(FailureClassifier.isOverloadSignal(e)
+                    ? AdaptiveConcurrencyLimiter.Outcome.DROPPED
+                    : AdaptiveConcurrencyLimiter.Outcome.IGNORED);
+            throw e;
+        }
+    }
+}
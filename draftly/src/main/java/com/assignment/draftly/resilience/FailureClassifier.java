@@ -0,0 +1,117 @@
+package com.assignment.draftly.resilience;
+
+import java.net.ConnectException;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.ResourceAccessException;
+
+import com.assignment.draftly.exceptionHandler.GmailApiException;
+
+/**
+ * Decides whether a failed external call says something about the health of the
+ * dependency (overload, outage, timeout) or only about the request itself (4xx).
+ */
+public final class FailureClassifier {
+
+    private FailureClassifier() {
+    }
+
+    /**
+     * True for 429, 5xx and I/O failures (timeouts, refused connections).
+     * The exception and its causes are inspected because the clients wrap
+     * RestTemplate exceptions in their own types.
+     */
+    public static boolean isOverloadSignal(Throwable failure) {
+        Integer status = statusCodeOf(failure);
+        if (status != null) {
+            return status == 429 || status >= 500;
+        }
+        return isIoFailure(failure);
+    }
+
+    /**
+     * True for 5xx and I/O failures only. A 429 means "slow down" (usually per user),
+     * not "the dependency is down", so it must not trip a shared circuit breaker.
+     */
+    public static boolean isOutageSignal(Throwable failure) {
+        Integer status = statusCodeOf(failure);
+        if (status != null) {
+            return status >= 500;
+        }
+        return isIoFailure(failure);
+    }
+
+    /**
+     * True when the request provably never reached the server (DNS or connect failure),
+     * so even a non-idempotent call can be retried.
+     */
+    public static boolean isConnectFailure(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof ConnectException || t instanceof UnknownHostException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean isIoFailure(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof ResourceAccessException || t instanceof java.io.IOException) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * HTTP status of the first exception in the cause chain that carries one, or null.
+     */
+    public static Integer statusCodeOf(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof GmailApiException gmail && gmail.getStatusCode() > 0) {
+                return gmail.getStatusCode();
+            }
+            if (t instanceof HttpStatusCodeException http) {
+                return http.getStatusCode().value();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Server-requested delay from a {@code Retry-After} header (delta-seconds or HTTP date),
+     * or null when the failure carries none.
+     */
+    public static Duration retryAfterOf(Throwable failure) {
+        for (Throwable t = failure; t != null; t = t.getCause()) {
+            if (t instanceof HttpStatusCodeException http && http.getResponseHeaders() != null) {
+                String value = http.getResponseHeaders().getFirst(HttpHeaders.RETRY_AFTER);
+                if (value != null) {
+                    return parseRetryAfter(value.trim());
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Duration parseRetryAfter(String value) {
+        try {
+            return Duration.ofSeconds(Math.max(0, Long.parseLong(value)));
+        } catch (NumberFormatException ignored) {
+            // not delta-seconds, try HTTP-date
+        }
+        try {
+            ZonedDateTime at = ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME);
+            Duration delta = Duration.between(ZonedDateTime.now(at.getZone()), at);
+            return delta.isNegative() ? Duration.ZERO : delta;
+        } catch (DateTimeParseException ignored) {
+            return null;
+        }
+    }
+}
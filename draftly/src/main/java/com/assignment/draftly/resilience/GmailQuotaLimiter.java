@@ -0,0 +1,158 @@
+package com.assignment.draftly.resilience;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Per-user token buckets that mirror Gmail's per-user quota (quota units per second).
+ *
+ * Each call reserves its quota cost up front. If the bucket is short, the caller sleeps
+ * until its reservation is covered, as long as that wait is within {@code maxWait};
+ * longer waits are rejected with a retry-after hint instead of being sent to Gmail
+ * only to come back as 429. Buckets idle for {@code idleEviction} are dropped.
+ */
+@Slf4j
+@Component
+public class GmailQuotaLimiter {
+
+    private final double unitsPerSecond;
+    private final double burstUnits;
+    private final long maxWaitNanos;
+    private final long idleEvictionNanos;
+
+    private final ConcurrentHashMap<String, Bucket> buckets = new ConcurrentHashMap<>();
+
+    private final Counter throttled;
+    private final Counter rejected;
+
+    public GmailQuotaLimiter(
+            MeterRegistry meterRegistry,
+            @Value("${draftly.gmail.quota.units-per-second:250}") double unitsPerSecond,
+            @Value("${draftly.gmail.quota.burst-units:250}") double burstUnits,
+            @Value("${draftly.gmail.quota.max-wait-ms:2000}") long maxWaitMillis,
+            @Value("${draftly.gmail.quota.idle-eviction-ms:600000}") long idleEvictionMillis
+    ) {
+        this.unitsPerSecond = unitsPerSecond;
+        this.burstUnits = burstUnits;
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.idleEvictionNanos = TimeUnit.MILLISECONDS.toNanos(idleEvictionMillis);
+
+        this.throttled = Counter.builder("draftly.gmail.quota.throttled")
+                .description("Gmail calls that waited for per-user quota")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("draftly.gmail.quota.rejected")
+                .description("Gmail calls rejected because the per-user quota wait was too long")
+                .register(meterRegistry);
+        Gauge.builder("draftly.gmail.quota.buckets", buckets, ConcurrentHashMap::size)
+                .description("Active per-user quota buckets")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Charges {@code units} to the user's bucket, blocking briefly if needed.
+     */
+    public void acquire(String userKey, int units) throws InterruptedException {
+        Bucket bucket = buckets.computeIfAbsent(userKey, k -> new Bucket(burstUnits));
+        long waitNanos = bucket.reserve(units);
+        if (waitNanos < 0) {
+            rejected.increment();
+            long retryAfter = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(-waitNanos) + 1);
+            log.warn("[GMAIL_QUOTA] user={} rejected units={} retryAfterSeconds={}", userKey, units, retryAfter);
+            throw new DependencyUnavailableException(
+                    "Gmail quota for this account is exhausted, please retry shortly",
+                    ExternalDependency.GMAIL,
+                    retryAfter
+            );
+        }
+        if (waitNanos > 0) {
+            throttled.increment();
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    /**
+     * Charges {@code units} only if the bucket covers them right now. Used for optional
+     * extra calls (hedges) that should never wait on or eat into a throttled user's quota.
+     */
+    public boolean tryAcquire(String userKey, int units) {
+        Bucket bucket = buckets.computeIfAbsent(userKey, k -> new Bucket(burstUnits));
+        return bucket.tryReserve(units);
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.gmail.quota.eviction-interval-ms:60000}")
+    void evictIdleBuckets() {
+        long now = System.nanoTime();
+        buckets.entrySet().removeIf(e -> now - e.getValue().lastUsedNanos() > idleEvictionNanos);
+    }
+
+    private final class Bucket {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private double tokens;
+        private long refilledAtNanos = System.nanoTime();
+        private volatile long lastUsedNanos = refilledAtNanos;
+
+        private Bucket(double initialTokens) {
+            this.tokens = initialTokens;
+        }
+
+        /**
+         * Returns how long the caller must wait before its reservation is covered
+         * (0 = go now), or a negative value (minus the required wait) when the wait would
+         * exceed the limit and nothing was reserved.
+         */
+        private long reserve(int units) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                lastUsedNanos = now;
+                tokens = Math.min(burstUnits, tokens + (now - refilledAtNanos) * unitsPerSecond / 1e9);
+                refilledAtNanos = now;
+
+                double remaining = tokens - units;
+                long waitNanos = remaining >= 0 ? 0 : (long) (-remaining / unitsPerSecond * 1e9);
+                if (waitNanos > maxWaitNanos) {
+                    return -waitNanos;
+                }
+                tokens = remaining;
+                return waitNanos;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private boolean tryReserve(int units) {
+            lock.lock();
+            try {
+                long now = System.nanoTime();
+                lastUsedNanos = now;
+                tokens = Math.min(burstUnits, tokens + (now - refilledAtNanos) * unitsPerSecond / 1e9);
+                refilledAtNanos = now;
+                if (tokens < units) {
+                    return false;
+                }
+                tokens -= units;
+                return true;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        private long lastUsedNanos() {
+            return lastUsedNanos;
+        }
+    }
+}
@@ -0,0 +1,183 @@
+package com.assignment.draftly.resilience;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.thread.Threading;
+import org.springframework.core.env.Environment;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hedged requests for idempotent reads (opt-in per method via {@link ExternalCall#hedgeable()}).
+ *
+ * The call is started normally; if it has not finished after the operation's observed p95
+ * latency, one duplicate is sent and whichever succeeds first wins. Hedges are limited by a
+ * global budget (a fraction of hedgeable traffic) so that a slow dependency does not see
+ * its load doubled, and are skipped when the executor or the user's quota has no room.
+ * Hedging is off unless {@code draftly.hedging.enabled=true}; latencies are tracked either way.
+ */
+@Slf4j
+@Component
+public class HedgingPolicy implements DisposableBean {
+
+    private final boolean enabled;
+    private final int windowSize;
+    private final double percentile;
+    private final int minSamples;
+    private final long minDelayNanos;
+    private final RetryBudget budget;
+    private final Executor executor;
+
+    private final ConcurrentHashMap<String, LatencyTracker> trackers = new ConcurrentHashMap<>();
+
+    private final Counter hedgesSent;
+    private final Counter hedgesWon;
+    private final Counter hedgesSkipped;
+
+    public HedgingPolicy(
+            MeterRegistry meterRegistry,
+            Environment environment,
+            @Value("${draftly.hedging.enabled:false}") boolean enabled,
+            @Value("${draftly.hedging.percentile:0.95}") double percentile,
+            @Value("${draftly.hedging.window-size:512}") int windowSize,
+            @Value("${draftly.hedging.min-samples:100}") int minSamples,
+            @Value("${draftly.hedging.min-delay-ms:20}") long minDelayMillis,
+            @Value("${draftly.hedging.budget-ratio:0.05}") double budgetRatio,
+            @Value("${draftly.hedging.max-threads:64}") int maxThreads
+    ) {
+        this.enabled = enabled;
+        this.percentile = percentile;
+        this.windowSize = windowSize;
+        this.minSamples = minSamples;
+        this.minDelayNanos = TimeUnit.MILLISECONDS.toNanos(minDelayMillis);
+        // No per-second floor: hedges are an optimisation, never needed for correctness
+        this.budget = new RetryBudget(budgetRatio, 0, Math.max(1, budgetRatio * 100));
+        // Virtual threads are cheap enough that only the budget needs to bound hedges
+        this.executor = Threading.VIRTUAL.isActive(environment)
+                ? new VirtualThreadTaskExecutor("hedge-")
+                : new ThreadPoolExecutor(0, maxThreads, 60, TimeUnit.SECONDS,
+                        new SynchronousQueue<>(), new CustomizableThreadFactory("hedge-"));
+
+        this.hedgesSent = Counter.builder("draftly.dependency.hedge.sent")
+                .description("Duplicate requests sent after the primary exceeded the latency percentile")
+                .register(meterRegistry);
+        this.hedgesWon = Counter.builder("draftly.dependency.hedge.won")
+                .description("Hedged calls where the duplicate finished first")
+                .register(meterRegistry);
+        this.hedgesSkipped = Counter.builder("draftly.dependency.hedge.skipped")
+                .description("Hedges not sent because the budget, executor or quota had no room")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Runs {@code call}, hedging it once if it is slower than the operation's percentile.
+     * {@code hedgePermit} is consulted right before the duplicate is sent (e.g. for quota).
+     */
+    public Object execute(String operation, BooleanSupplier hedgePermit, Attempt call) throws Throwable {
+        LatencyTracker tracker = trackers.computeIfAbsent(operation, k -> new LatencyTracker(windowSize, percentile));
+        long hedgeDelayNanos = tracker.getSampleCount() >= minSamples ? tracker.getPercentileNanos() : -1;
+        if (!enabled || hedgeDelayNanos < 0) {
+            return timed(tracker, call);
+        }
+        budget.onAttempt();
+
+        CompletableFuture<Completion> result = new CompletableFuture<>();
+        AtomicInteger pending = new AtomicInteger(1);
+        if (!submit(tracker, call, result, pending, false)) {
+            return timed(tracker, call);
+        }
+
+        try {
+            return result.get(Math.max(minDelayNanos, hedgeDelayNanos), TimeUnit.NANOSECONDS).value();
+        } catch (TimeoutException slow) {
+            if (budget.tryAcquireRetry() && hedgePermit.getAsBoolean()) {
+                pending.incrementAndGet();
+                if (submit(tracker, call, result, pending, true)) {
+                    hedgesSent.increment();
+                    log.debug("[HEDGE] operation={} delayMs={}", operation,
+                            TimeUnit.NANOSECONDS.toMillis(hedgeDelayNanos));
+                } else {
+                    pending.decrementAndGet();
+                    hedgesSkipped.increment();
+                }
+            } else {
+                hedgesSkipped.increment();
+            }
+            Completion completion = await(result);
+            if (completion.hedge()) {
+                hedgesWon.increment();
+            }
+            return completion.value();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private boolean submit(LatencyTracker tracker, Attempt call, CompletableFuture<Completion> result,
+                           AtomicInteger pending, boolean hedge) {
+        try {
+            executor.execute(() -> {
+                try {
+                    result.complete(new Completion(timed(tracker, call), hedge));
+                } catch (Throwable e) {
+                    // Only fail the call once every copy has failed
+                    if (pending.decrementAndGet() == 0) {
+                        result.completeExceptionally(e);
+                    }
+                }
+            });
+            return true;
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+    }
+
+    private static Completion await(CompletableFuture<Completion> result) throws Throwable {
+        try {
+            return result.get();
+        } catch (ExecutionException e) {
+            throw e.getCause();
+        }
+    }
+
+    private static Object timed(LatencyTracker tracker, Attempt call) throws Throwable {
+        long start = System.nanoTime();
+        Object value = call.call();
+        tracker.record(System.nanoTime() - start);
+        return value;
+    }
+
+    private record Completion(Object value, boolean hedge) {
+    }
+
+    /** One invocation of the underlying call. */
+    @FunctionalInterface
+    public interface Attempt {
+        Object call() throws Throwable;
+    }
+
+    @Override
+    public void destroy() {
+        if (executor instanceof ExecutorService executorService) {
+            executorService.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.assignment.draftly.resilience;
+
+import java.util.Arrays;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Sliding window of the most recent call latencies for one operation.
+ *
+ * Percentiles are recomputed from a sorted copy of the window every
+ * {@code RECOMPUTE_EVERY} samples and cached in between, so reading them on the hot path
+ * is a volatile read.
+ */
+public class LatencyTracker {
+
+    private static final int RECOMPUTE_EVERY = 32;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final long[] samples;
+    private final double percentile;
+    private int next;
+    private int count;
+    private int sinceRecompute;
+
+    private volatile long cachedPercentileNanos = -1;
+
+    public LatencyTracker(int windowSize, double percentile) {
+        this.samples = new long[Math.max(RECOMPUTE_EVERY, windowSize)];
+        this.percentile = percentile;
+    }
+
+    public void record(long latencyNanos) {
+        lock.lock();
+        try {
+            samples[next] = latencyNanos;
+            next = (next + 1) % samples.length;
+            if (count < samples.length) {
+                count++;
+            }
+            if (++sinceRecompute >= RECOMPUTE_EVERY) {
+                sinceRecompute = 0;
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                cachedPercentileNanos = sorted[(int) Math.min(count - 1, Math.ceil(percentile * count) - 1)];
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int getSampleCount() {
+        lock.lock();
+        try {
+            return count;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * The configured percentile over the window, or -1 before it was first computed.
+     */
+    public long getPercentileNanos() {
+        return cachedPercentileNanos;
+    }
+}
@@ -0,0 +1,51 @@
+package com.assignment.draftly.resilience;
+
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.Map;
+
+import com.assignment.draftly.enums.ExternalDependency;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Circuit breaker, retry policy and retry budget for each external dependency.
+ */
+public class ResiliencePolicyRegistry {
+
+    public record DependencyPolicy(
+            CircuitBreaker circuitBreaker,
+            RetryPolicy retryPolicy,
+            RetryBudget retryBudget
+    ) {
+    }
+
+    private final Map<ExternalDependency, DependencyPolicy> policies = new EnumMap<>(ExternalDependency.class);
+
+    public ResiliencePolicyRegistry(Collection<DependencyPolicy> policies, MeterRegistry meterRegistry) {
+        for (DependencyPolicy policy : policies) {
+            CircuitBreaker breaker = policy.circuitBreaker();
+            this.policies.put(breaker.getDependency(), policy);
+
+            String dependency = breaker.getDependency().name().toLowerCase();
+            Gauge.builder("draftly.dependency.circuit.state", breaker, b -> b.getState().ordinal())
+                    .tag("dependency", dependency)
+                    .description("Circuit breaker state: 0=closed, 1=open, 2=half-open")
+                    .register(meterRegistry);
+            FunctionCounter.builder("draftly.dependency.circuit.not_permitted", breaker, CircuitBreaker::getNotPermittedCount)
+                    .tag("dependency", dependency)
+                    .description("Calls rejected by an open circuit")
+                    .register(meterRegistry);
+        }
+    }
+
+    public DependencyPolicy forDependency(ExternalDependency dependency) {
+        DependencyPolicy policy = policies.get(dependency);
+        if (policy == null) {
+            throw new IllegalStateException("No resilience policy configured for " + dependency);
+        }
+        return policy;
+    }
+}
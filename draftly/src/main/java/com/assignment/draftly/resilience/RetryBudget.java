@@ -0,0 +1,61 @@
+package com.assignment.draftly.resilience;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Caps retries to a fraction of recent traffic so that retries cannot multiply load on a
+ * dependency that is already struggling.
+ *
+ * Every first attempt deposits {@code ratio} tokens (capped), every retry withdraws one.
+ * A small floor of {@code minRetriesPerSecond} is always available so low-traffic
+ * periods can still retry the occasional transient error.
+ */
+public class RetryBudget {
+
+    private final double ratio;
+    private final double maxBalance;
+    private final int minRetriesPerSecond;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private double balance;
+    private long floorWindowStartNanos = System.nanoTime();
+    private int floorRetriesUsed;
+
+    public RetryBudget(double ratio, int minRetriesPerSecond, double maxBalance) {
+        this.ratio = ratio;
+        this.minRetriesPerSecond = minRetriesPerSecond;
+        this.maxBalance = maxBalance;
+    }
+
+    public void onAttempt() {
+        lock.lock();
+        try {
+            balance = Math.min(maxBalance, balance + ratio);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public boolean tryAcquireRetry() {
+        lock.lock();
+        try {
+            if (balance >= 1.0) {
+                balance -= 1.0;
+                return true;
+            }
+            long now = System.nanoTime();
+            if (now - floorWindowStartNanos >= TimeUnit.SECONDS.toNanos(1)) {
+                floorWindowStartNanos = now;
+                floorRetriesUsed = 0;
+            }
+            if (floorRetriesUsed < minRetriesPerSecond) {
+                floorRetriesUsed++;
+                return true;
+            }
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
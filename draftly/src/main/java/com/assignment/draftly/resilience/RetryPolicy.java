@@ -0,0 +1,55 @@
+package com.assignment.draftly.resilience;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Exponential backoff with full jitter: attempt n waits a random time in
+ * [0, min(maxDelay, baseDelay * 2^(n-1))], but never less than a server-supplied
+ * {@code Retry-After}. Retry-After values above {@code maxRetryAfter} are not waited
+ * out at all; the caller is told to come back later instead.
+ */
+public class RetryPolicy {
+
+    private final int maxAttempts;
+    private final long baseDelayMillis;
+    private final long maxDelayMillis;
+    private final Duration maxRetryAfter;
+
+    public RetryPolicy(int maxAttempts, long baseDelayMillis, long maxDelayMillis, Duration maxRetryAfter) {
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.baseDelayMillis = baseDelayMillis;
+        this.maxDelayMillis = maxDelayMillis;
+        this.maxRetryAfter = maxRetryAfter;
+    }
+
+    public int getMaxAttempts() {
+        return maxAttempts;
+    }
+
+    public Duration getMaxRetryAfter() {
+        return maxRetryAfter;
+    }
+
+    /**
+     * Whether the failure may be retried at all. Idempotent calls retry on any overload
+     * signal; other calls only when the server explicitly refused them (429) or the
+     * request never left this process, so a retry cannot duplicate a side effect.
+     */
+    public boolean isRetryable(Throwable failure, boolean idempotent) {
+        if (idempotent) {
+            return FailureClassifier.isOverloadSignal(failure);
+        }
+        Integer status = FailureClassifier.statusCodeOf(failure);
+        return (status != null && status == 429) || FailureClassifier.isConnectFailure(failure);
+    }
+
+    public long delayMillis(int attempt, Duration retryAfter) {
+        long cap = Math.min(maxDelayMillis, baseDelayMillis * (1L << Math.min(20, attempt - 1)));
+        long jittered = ThreadLocalRandom.current().nextLong(cap + 1);
+        if (retryAfter != null) {
+            return Math.max(jittered, retryAfter.toMillis());
+        }
+        return jittered;
+    }
+}
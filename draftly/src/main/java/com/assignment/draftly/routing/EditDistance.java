@@ -0,0 +1,60 @@
+package com.assignment.draftly.routing;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Word-level edit distance between a generated reply and the text the user approved.
+ */
+public final class EditDistance {
+
+    // Longer texts are compared on their first words only; the distance is quadratic in length
+    private static final int MAX_WORDS = 1_000;
+
+    private EditDistance() {
+    }
+
+    /**
+     * Word insertions, deletions and substitutions needed to turn {@code generated} into
+     * {@code approved}, divided by the longer word count: 0 when sent as generated, 1 when
+     * rewritten entirely. Case and whitespace are ignored.
+     */
+    public static double ratio(String generated, String approved) {
+        List<String> from = words(generated);
+        List<String> to = words(approved);
+        int longer = Math.max(from.size(), to.size());
+        if (longer == 0) {
+            return 0;
+        }
+        int[] previous = new int[to.size() + 1];
+        int[] current = new int[to.size() + 1];
+        for (int j = 0; j <= to.size(); j++) {
+            previous[j] = j;
+        }
+        for (int i = 1; i <= from.size(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= to.size(); j++) {
+                int substitution = previous[j - 1] + (from.get(i - 1).equals(to.get(j - 1)) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j], current[j - 1]) + 1);
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        return (double) previous[to.size()] / longer;
+    }
+
+    private static List<String> words(String text) {
+        List<String> words = new ArrayList<>();
+        if (text == null) {
+            return words;
+        }
+        for (String word : text.toLowerCase(Locale.ROOT).split("\\s+")) {
+            if (!word.isEmpty() && words.size() < MAX_WORDS) {
+                words.add(word);
+            }
+        }
+        return words;
+    }
+}
@@ -0,0 +1,190 @@
+package com.assignment.draftly.routing;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.assignment.draftly.enums.Tone;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.llm.LlmProvider;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Picks the model tier a reply is generated with, from {@link RoutingFeatures} alone.
+ *
+ * Every reply starts on the first (fastest) tier and earns points for what tends to need a more
+ * capable model: a long inbound email, a deep thread, a formal tone, or a user who usually
+ * rewrites what was generated. A concise tone takes a point off. Each point beyond the first
+ * moves the reply one tier up, so a short reply in a short thread stays on the fastest tier.
+ *
+ * When a tier fails after its own retries the reply falls back to the next tier up, then down,
+ * for up to {@code maxAttempts} tiers. OpenAI rate limits are per model, so another tier often
+ * still has headroom. A provider that is down is handled by the provider chain, and when the
+ * whole chain refuses ({@link DependencyUnavailableException}) no tier would fare better.
+ */
+@Slf4j
+public class ModelRouter {
+
+    private final LlmProvider llmProvider;
+    private final List<ModelTier> tiers;
+    private final int longInboundChars;
+    private final int deepThread;
+    private final double highEditRatio;
+    private final int maxAttempts;
+
+    private final Map<String, Counter> routed = new HashMap<>();
+    private final Map<String, Counter> fallbacks = new HashMap<>();
+    private final Map<String, Counter> cost = new HashMap<>();
+    private final Map<String, Timer> succeeded = new HashMap<>();
+    private final Map<String, Timer> failed = new HashMap<>();
+
+    public ModelRouter(
+            LlmProvider llmProvider,
+            List<ModelTier> tiers,
+            int longInboundChars,
+            int deepThread,
+            double highEditRatio,
+            int maxAttempts,
+            MeterRegistry meterRegistry
+    ) {
+        if (tiers.isEmpty()) {
+            throw new IllegalArgumentException("At least one model tier is required");
+        }
+        this.llmProvider = llmProvider;
+        this.tiers = List.copyOf(tiers);
+        this.longInboundChars = longInboundChars;
+        this.deepThread = deepThread;
+        this.highEditRatio = highEditRatio;
+        this.maxAttempts = Math.max(1, maxAttempts);
+
+        for (ModelTier tier : this.tiers) {
+            String name = tier.name();
+            routed.put(name, Counter.builder("draftly.routing.requests")
+                    .description("Replies routed to the model tier")
+                    .tag("tier", name)
+                    .register(meterRegistry));
+            fallbacks.put(name, Counter.builder("draftly.routing.fallbacks")
+                    .description("Replies moved to another tier after the tier failed")
+                    .tag("tier", name)
+                    .register(meterRegistry));
+            cost.put(name, Counter.builder("draftly.routing.cost")
+                    .description("Estimated spend on the model tier")
+                    .baseUnit("usd")
+                    .tag("tier", name)
+                    .register(meterRegistry));
+            succeeded.put(name, latencyTimer(meterRegistry, name, "success"));
+            failed.put(name, latencyTimer(meterRegistry, name, "failure"));
+        }
+    }
+
+    private static Timer latencyTimer(MeterRegistry meterRegistry, String tier, String outcome) {
+        return Timer.builder("draftly.routing.latency")
+                .description("Completion latency per model tier, retries included")
+                .tag("tier", tier)
+                .tag("outcome", outcome)
+                .publishPercentiles(0.5, 0.95, 0.99)
+                .register(meterRegistry);
+    }
+
+    public List<ModelTier> getTiers() {
+        return tiers;
+    }
+
+    public ModelTier select(RoutingFeatures features) {
+        return tiers.get(tierIndex(features));
+    }
+
+    /** Generates with the tier selected for {@code features}, falling back to other tiers on failure. */
+    public String generate(RoutingFeatures features, ChatPrompt prompt) {
+        int selected = tierIndex(features);
+        routed.get(tiers.get(selected).name()).increment();
+
+        List<Integer> order = fallbackOrder(selected);
+        RuntimeException failure = null;
+        for (int attempt = 0; attempt < order.size() && attempt < maxAttempts; attempt++) {
+            ModelTier tier = tiers.get(order.get(attempt));
+            if (failure != null) {
+                log.warn("[MODEL_ROUTING] falling back to tier={} model={} error={}",
+                        tier.name(), tier.model(), failure.getMessage());
+            }
+            long start = System.nanoTime();
+            try {
+                Completion completion = llmProvider.complete(prompt, tier.model());
+                succeeded.get(tier.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                charge(tier, completion, 1.0);
+                log.debug("[MODEL_ROUTING] tier={} model={} inboundChars={} threadDepth={} tone={} editRatio={}",
+                        tier.name(), tier.model(), features.inboundChars(), features.threadDepth(),
+                        features.tone(), features.editRatio());
+                return completion.text();
+            } catch (DependencyUnavailableException | IllegalStateException e) {
+                // Refused locally or misconfigured; another tier would fail the same way
+                failed.get(tier.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                throw e;
+            } catch (RuntimeException e) {
+                failed.get(tier.name()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+                fallbacks.get(tier.name()).increment();
+                failure = e;
+            }
+        }
+        throw failure;
+    }
+
+    /**
+     * Accounts a completion generated outside {@link #generate}, e.g. in a provider batch, whose
+     * prices are {@code priceFactor} times the tier's.
+     */
+    public void record(ModelTier tier, Completion completion, double priceFactor) {
+        routed.get(tier.name()).increment();
+        charge(tier, completion, priceFactor);
+    }
+
+    private void charge(ModelTier tier, Completion completion, double priceFactor) {
+        if (tier.model().equals(completion.model())) {
+            // Not when a fallback provider (e.g. the local template) answered instead
+            cost.get(tier.name()).increment(priceFactor * tier.costOf(
+                    completion.promptTokens(), completion.cachedTokens(), completion.completionTokens()));
+        }
+    }
+
+    private int tierIndex(RoutingFeatures features) {
+        int points = 0;
+        if (features.inboundChars() >= 4 * longInboundChars) {
+            points += 2;
+        } else if (features.inboundChars() >= longInboundChars) {
+            points++;
+        }
+        if (features.threadDepth() >= deepThread) {
+            points++;
+        }
+        if (features.editRatio() >= highEditRatio) {
+            // The fast tier's replies keep being rewritten; reason enough on its own
+            points += 2;
+        }
+        if (features.tone() == Tone.FORMAL) {
+            points++;
+        } else if (features.tone() == Tone.CONCISE) {
+            points--;
+        }
+        return Math.max(0, Math.min(tiers.size() - 1, points - 1));
+    }
+
+    // The selected tier, then more capable ones, then faster ones
+    private List<Integer> fallbackOrder(int selected) {
+        List<Integer> order = new ArrayList<>();
+        for (int i = selected; i < tiers.size(); i++) {
+            order.add(i);
+        }
+        for (int i = selected - 1; i >= 0; i--) {
+            order.add(i);
+        }
+        return order;
+    }
+}
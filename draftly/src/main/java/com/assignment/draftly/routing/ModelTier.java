@@ -0,0 +1,21 @@
+package com.assignment.draftly.routing;
+
+/**
+ * A model the router can send a reply to, with its price in USD per million tokens. Tiers are
+ * ordered from fastest and cheapest to most capable.
+ */
+public record ModelTier(
+        String name,
+        String model,
+        double promptCostPerMillion,
+        double cachedPromptCostPerMillion,
+        double completionCostPerMillion
+) {
+
+    public double costOf(long promptTokens, long cachedTokens, long completionTokens) {
+        long uncached = Math.max(0, promptTokens - cachedTokens);
+        return (uncached * promptCostPerMillion
+                + cachedTokens * cachedPromptCostPerMillion
+                + completionTokens * completionCostPerMillion) / 1_000_000;
+    }
+}
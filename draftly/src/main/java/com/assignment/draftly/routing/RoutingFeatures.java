@@ -0,0 +1,51 @@
+package com.assignment.draftly.routing;
+
+import java.util.regex.Pattern;
+
+import com.assignment.draftly.enums.Tone;
+
+/**
+ * What the router knows about a reply before generating it. All of it is computed locally from
+ * the inbound email and the user's history, so routing never costs a call.
+ *
+ * @param inboundChars length of the new part of the inbound email, quoted history excluded
+ * @param threadDepth  messages in the thread as far as the email shows (quote headers, quote
+ *                     nesting, {@code Re:} prefixes); 1 for a fresh email
+ * @param tone         requested tone
+ * @param editRatio    how much the user usually rewrites generated replies before sending them,
+ *                     0 (sent as is) to 1 (rewritten entirely)
+ */
+public record RoutingFeatures(int inboundChars, int threadDepth, Tone tone, double editRatio) {
+
+    private static final Pattern QUOTE_HEADER = Pattern.compile(
+            "^(On .{0,200}wrote:\\s*$|-{2,}\\s*Original Message\\s*-{2,}|From: )");
+    private static final Pattern REPLY_PREFIX = Pattern.compile("(?i)\\b(re|fwd?|aw|sv):\\s*");
+
+    public static RoutingFeatures of(Tone tone, String subject, String body, double editRatio) {
+        int inboundChars = 0;
+        int quoteHeaders = 0;
+        int quoteNesting = 0;
+        boolean inQuote = false;
+        if (body != null) {
+            for (String line : body.replace("\r\n", "\n").split("\n")) {
+                String trimmed = line.strip();
+                if (QUOTE_HEADER.matcher(trimmed).find()) {
+                    quoteHeaders++;
+                    inQuote = true;
+                    continue;
+                }
+                int nesting = 0;
+                for (int i = 0; i < trimmed.length() && (trimmed.charAt(i) == '>' || trimmed.charAt(i) == ' '); i++) {
+                    nesting += trimmed.charAt(i) == '>' ? 1 : 0;
+                }
+                quoteNesting = Math.max(quoteNesting, nesting);
+                if (!inQuote && nesting == 0) {
+                    inboundChars += trimmed.length();
+                }
+            }
+        }
+        int replyPrefixes = subject == null ? 0 : (int) REPLY_PREFIX.matcher(subject).results().count();
+        int depth = 1 + Math.max(quoteHeaders, Math.max(quoteNesting, replyPrefixes));
+        return new RoutingFeatures(inboundChars, depth, tone, editRatio);
+    }
+}
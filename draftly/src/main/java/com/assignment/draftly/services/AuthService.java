@@ -11,6 +11,7 @@ import org.springframework.stereotype.Service;
 import com.assignment.draftly.dto.LoginDto;
 import com.assignment.draftly.dto.LoginResponseDto;
 import com.assignment.draftly.entity.User;
+import com.assignment.draftly.integrations.GmailAccounts;
 import com.assignment.draftly.repository.UserRepository;
 
 import lombok.RequiredArgsConstructor;
@@ -25,6 +26,7 @@ public class AuthService {
     private final JwtService jwtService;
     private final UserService userService;
     private final OAuth2AuthorizedClientService clientService;
+    private final GmailAccounts gmailAccounts;
 
     public LoginResponseDto login(LoginDto loginDto) {
         Authentication authentication = authenticationManager.authenticate(
@@ -71,6 +73,7 @@ public class AuthService {
                     User oauthUser = userService.findOrCreateOAuthUser(email);
                     oauthUser.setOauthtoken(googleAccessToken);
                     userRepository.save(oauthUser);
+                    gmailAccounts.register(googleAccessToken, oauthUser.getId());
                     
                     return googleAccessToken;
                 }
@@ -89,9 +92,36 @@ public class AuthService {
         if (googleAccessToken == null) {
             throw new IllegalStateException("User has not connected Google account. Please log in via OAuth first.");
         }
+        gmailAccounts.register(googleAccessToken, user.getId());
         
         return googleAccessToken;
     }
 
+    /**
+     * Id of the local user behind a request, for JWT and OAuth logins alike, or null when
+     * the principal is neither.
+     */
+    public Long userIdOf(Authentication authentication) {
+        if (authentication == null) {
+            return null;
+        }
+        Object principal = authentication.getPrincipal();
+        if (principal instanceof User user) {
+            return user.getId();
+        }
+        if (principal instanceof org.springframework.security.oauth2.core.user.OAuth2User oauth2User) {
+            String email = oauth2User.getAttribute("email");
+            return email == null ? null : userService.findOrCreateOAuthUser(email).getId();
+        }
+        return null;
+    }
 
+    /**
+     * Authentication for running work on a user's behalf outside a request (queued tasks).
+     * Gmail calls made with it use the token stored on the user.
+     */
+    public Authentication authenticationFor(Long userId) {
+        User user = userService.getUserById(userId);
+        return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+    }
 }
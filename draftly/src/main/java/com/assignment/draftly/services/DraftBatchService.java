@@ -0,0 +1,300 @@
+package com.assignment.draftly.services;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import com.assignment.draftly.dto.ReplyDraftRequest;
+import com.assignment.draftly.dto.ReplyDraftResponse;
+import com.assignment.draftly.entity.DraftGenerationJob;
+import com.assignment.draftly.entity.GenerationBatch;
+import com.assignment.draftly.enums.DraftJobStatus;
+import com.assignment.draftly.enums.DraftStatus;
+import com.assignment.draftly.enums.GenerationBatchStatus;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.llm.BatchRequest;
+import com.assignment.draftly.llm.BatchResult;
+import com.assignment.draftly.llm.LlmProvider;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+import com.assignment.draftly.repository.DraftGenerationJobRepository;
+import com.assignment.draftly.repository.GenerationBatchRepository;
+import com.assignment.draftly.routing.ModelRouter;
+import com.assignment.draftly.routing.ModelTier;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Generates bulk reply jobs ({@link DraftGenerationJobService#submitBatch}) through provider
+ * batches, which are cheaper and do not draw on the rate limits interactive generation uses.
+ *
+ * Queued bulk jobs are collected until {@code max-jobs} are waiting or the oldest has waited
+ * {@code max-wait-ms}, then routed to a model tier like interactive replies and submitted as
+ * one batch per model. Submitted batches are polled; their results are first copied onto the
+ * jobs, then turned into reply drafts and Gmail drafts, so a Gmail outage during the fan-out
+ * only delays it. A batch is claimed before it is polled or fanned out, so two instances never
+ * create the same drafts. Jobs a batch returned nothing for are queued again, up to
+ * {@code max-attempts} batches.
+ */
+@Slf4j
+@Service
+public class DraftBatchService {
+
+    private static final String CLAIM_PREFIX = "claim-";
+
+    private final DraftGenerationJobRepository jobRepository;
+    private final GenerationBatchRepository batchRepository;
+    private final DraftGenerationJobService jobService;
+    private final EmailDraftService emailDraftService;
+    private final AuthService authService;
+    private final LlmProvider llmProvider;
+    private final ModelRouter modelRouter;
+    private final int maxJobs;
+    private final Duration maxWait;
+    private final int maxAttempts;
+    private final double priceFactor;
+    private final Duration claimTimeout;
+    private final Duration retention;
+
+    private final Counter submitted;
+    private final Counter succeeded;
+    private final Counter failed;
+    private final Counter requeued;
+
+    public DraftBatchService(
+            DraftGenerationJobRepository jobRepository,
+            GenerationBatchRepository batchRepository,
+            DraftGenerationJobService jobService,
+            EmailDraftService emailDraftService,
+            AuthService authService,
+            LlmProvider llmProvider,
+            ModelRouter modelRouter,
+            MeterRegistry meterRegistry,
+            @Value("${draftly.batch.max-jobs:1000}") int maxJobs,
+            @Value("${draftly.batch.max-wait-ms:300000}") long maxWaitMillis,
+            @Value("${draftly.batch.max-attempts:3}") int maxAttempts,
+            @Value("${draftly.batch.price-factor:0.5}") double priceFactor,
+            @Value("${draftly.batch.claim-timeout-ms:600000}") long claimTimeoutMillis,
+            @Value("${draftly.jobs.retention-ms:86400000}") long retentionMillis
+    ) {
+        this.jobRepository = jobRepository;
+        this.batchRepository = batchRepository;
+        this.jobService = jobService;
+        this.emailDraftService = emailDraftService;
+        this.authService = authService;
+        this.llmProvider = llmProvider;
+        this.modelRouter = modelRouter;
+        this.maxJobs = maxJobs;
+        this.maxWait = Duration.ofMillis(maxWaitMillis);
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.priceFactor = priceFactor;
+        this.claimTimeout = Duration.ofMillis(claimTimeoutMillis);
+        this.retention = Duration.ofMillis(retentionMillis);
+
+        this.submitted = jobCounter(meterRegistry, "submitted");
+        this.succeeded = jobCounter(meterRegistry, "succeeded");
+        this.failed = jobCounter(meterRegistry, "failed");
+        this.requeued = jobCounter(meterRegistry, "requeued");
+    }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("draftly.batch.jobs")
+                .description("Bulk reply jobs by batch outcome")
+                .tag("outcome", outcome)
+                .register(meterRegistry);
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.batch.submit-interval-ms:30000}")
+    void submitPending() {
+        List<DraftGenerationJob> pending = jobRepository.findByBatchedTrueAndStatusOrderByCreatedAt(
+                DraftJobStatus.QUEUED, PageRequest.of(0, maxJobs));
+        if (pending.isEmpty()
+                || (pending.size() < maxJobs && pending.get(0).getCreatedAt().isAfter(Instant.now().minus(maxWait)))) {
+            // A fuller batch is still worth waiting for
+            return;
+        }
+        String claim = CLAIM_PREFIX + UUID.randomUUID();
+        jobRepository.claimForBatch(pending.stream().map(DraftGenerationJob::getId).toList(), claim, Instant.now());
+
+        Map<ModelTier, List<DraftGenerationJob>> jobsByTier = new LinkedHashMap<>();
+        Map<ModelTier, List<BatchRequest>> requestsByTier = new LinkedHashMap<>();
+        for (DraftGenerationJob job : jobRepository.findByBatchId(claim)) {
+            try {
+                Authentication auth = authService.authenticationFor(job.getUserId());
+                ReplyDraftRequest request = DraftGenerationJobService.toRequest(job);
+                if (EmailDraftService.isNoReply(request.getFrom())) {
+                    jobService.finish(job, DraftJobStatus.SUCCEEDED, null, null,
+                            ReplyDraftResponse.noReply(job.getThreadId()).getMessage());
+                    continue;
+                }
+                ChatPrompt prompt = emailDraftService.replyPrompt(auth, job.getUserId(), request);
+                ModelTier tier = modelRouter.select(emailDraftService.replyFeatures(job.getUserId(), request));
+                requestsByTier.computeIfAbsent(tier, t -> new ArrayList<>())
+                        .add(new BatchRequest(job.getId(), prompt));
+                jobsByTier.computeIfAbsent(tier, t -> new ArrayList<>()).add(job);
+            } catch (DependencyUnavailableException e) {
+                // The style profile could not be read right now; the next batch will try again
+                release(job);
+            } catch (Exception e) {
+                log.error("[DRAFT_BATCH] failed to prepare jobId={} error={}", job.getId(), e.getMessage(), e);
+                failed.increment();
+                jobService.finish(job, DraftJobStatus.FAILED, null, null, e.getMessage());
+            }
+        }
+
+        requestsByTier.forEach((tier, requests) -> {
+            List<DraftGenerationJob> jobs = jobsByTier.get(tier);
+            try {
+                String batchId = llmProvider.submitBatch(requests, tier.model());
+                batchRepository.save(newBatch(batchId, tier, jobs.size()));
+                jobs.forEach(job -> {
+                    job.setBatchId(batchId);
+                    job.setUpdatedAt(Instant.now());
+                });
+                jobRepository.saveAll(jobs);
+                submitted.increment(jobs.size());
+                log.info("[DRAFT_BATCH] submitted batchId={} tier={} model={} jobs={}",
+                        batchId, tier.name(), tier.model(), jobs.size());
+            } catch (RuntimeException e) {
+                log.warn("[DRAFT_BATCH] submit failed tier={} jobs={} error={}", tier.name(), jobs.size(), e.getMessage());
+                jobs.forEach(this::release);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.batch.poll-interval-ms:60000}")
+    void pollSubmitted() {
+        List<GenerationBatch> open = batchRepository.findByStatusInOrderByCreatedAt(
+                List.of(GenerationBatchStatus.SUBMITTED, GenerationBatchStatus.RECEIVED));
+        for (GenerationBatch listed : open) {
+            String claim = CLAIM_PREFIX + UUID.randomUUID();
+            Instant now = Instant.now();
+            if (batchRepository.claim(listed.getId(), claim, now, now.minus(claimTimeout)) == 0) {
+                // Another instance is polling or fanning it out, or already finished it
+                continue;
+            }
+            try {
+                GenerationBatch batch = batchRepository.findById(listed.getId()).orElseThrow();
+                if (batch.getStatus() == GenerationBatchStatus.SUBMITTED && !receive(batch)) {
+                    continue;
+                }
+                fanOut(batch);
+            } catch (DependencyUnavailableException e) {
+                // The provider or Gmail refused for now; the batch is picked up again on the next poll
+                log.warn("[DRAFT_BATCH] deferred batchId={} error={}", listed.getId(), e.getMessage());
+            } catch (RuntimeException e) {
+                log.error("[DRAFT_BATCH] poll failed batchId={} error={}", listed.getId(), e.getMessage(), e);
+            } finally {
+                batchRepository.release(listed.getId(), claim);
+            }
+        }
+    }
+
+    // Copies the batch's results onto its jobs; false while the provider is still working on it
+    private boolean receive(GenerationBatch batch) {
+        BatchResult result = llmProvider.pollBatch(batch.getId());
+        if (!result.isDone()) {
+            return false;
+        }
+        ModelTier tier = modelRouter.getTiers().stream()
+                .filter(t -> t.name().equals(batch.getTier()))
+                .findFirst()
+                .orElse(null);
+        for (DraftGenerationJob job : jobRepository.findByBatchId(batch.getId())) {
+            if (job.getStatus() != DraftJobStatus.RUNNING || job.getReplyMessage() != null) {
+                continue;
+            }
+            Completion completion = result.completions().get(job.getId());
+            String error = result.errors().get(job.getId());
+            if (completion != null) {
+                if (tier != null) {
+                    modelRouter.record(tier, completion, priceFactor);
+                }
+                job.setReplyMessage(completion.text());
+                job.setUpdatedAt(Instant.now());
+                jobRepository.save(job);
+            } else if (error != null) {
+                failed.increment();
+                jobService.finish(job, DraftJobStatus.FAILED, null, null, error);
+            } else if (job.getBatchAttempts() + 1 >= maxAttempts) {
+                failed.increment();
+                jobService.finish(job, DraftJobStatus.FAILED, null, null,
+                        "No result after " + maxAttempts + " batches");
+            } else {
+                // The batch failed or expired before reaching this job
+                job.setBatchAttempts(job.getBatchAttempts() + 1);
+                release(job);
+            }
+        }
+        batch.setStatus(GenerationBatchStatus.RECEIVED);
+        batch.setUpdatedAt(Instant.now());
+        batchRepository.save(batch);
+        log.info("[DRAFT_BATCH] received batchId={} status={} completions={} errors={}",
+                batch.getId(), result.status(), result.completions().size(), result.errors().size());
+        return true;
+    }
+
+    private void fanOut(GenerationBatch batch) {
+        for (DraftGenerationJob job : jobRepository.findByBatchId(batch.getId())) {
+            if (job.getStatus() != DraftJobStatus.RUNNING || job.getReplyMessage() == null) {
+                continue;
+            }
+            Authentication auth = authService.authenticationFor(job.getUserId());
+            ReplyDraftResponse response = emailDraftService.saveGeneratedReplyDraft(
+                    auth, DraftGenerationJobService.toRequest(job), job.getReplyMessage());
+            if (response.getStatus() == DraftStatus.FAILED) {
+                failed.increment();
+                jobService.finish(job, DraftJobStatus.FAILED, null, null, response.getMessage());
+            } else {
+                succeeded.increment();
+                jobService.finish(job, DraftJobStatus.SUCCEEDED, response.getDraftId(), response.getReplyMessage(),
+                        response.getMessage());
+            }
+        }
+        batch.setStatus(GenerationBatchStatus.COMPLETED);
+        batch.setUpdatedAt(Instant.now());
+        batchRepository.save(batch);
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.jobs.cleanup-interval-ms:3600000}")
+    void cleanUp() {
+        Instant now = Instant.now();
+        int released = jobRepository.releaseClaims(CLAIM_PREFIX + "%", now.minus(claimTimeout), now);
+        int deleted = batchRepository.deleteCompletedBefore(now.minus(retention));
+        if (released > 0 || deleted > 0) {
+            log.info("[DRAFT_BATCH] cleanup releasedJobs={} purgedBatches={}", released, deleted);
+        }
+    }
+
+    private void release(DraftGenerationJob job) {
+        requeued.increment();
+        job.setStatus(DraftJobStatus.QUEUED);
+        job.setBatchId(null);
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+    }
+
+    private static GenerationBatch newBatch(String batchId, ModelTier tier, int jobCount) {
+        GenerationBatch batch = new GenerationBatch();
+        batch.setId(batchId);
+        batch.setTier(tier.name());
+        batch.setModel(tier.model());
+        batch.setJobCount(jobCount);
+        batch.setStatus(GenerationBatchStatus.SUBMITTED);
+        batch.setCreatedAt(Instant.now());
+        batch.setUpdatedAt(Instant.now());
+        return batch;
+    }
+}
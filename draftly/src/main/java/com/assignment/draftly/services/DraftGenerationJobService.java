@@ -0,0 +1,313 @@
+package com.assignment.draftly.services;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.web.client.RestClientException;
+import org.springframework.web.client.RestTemplate;
+
+import com.assignment.draftly.dto.DraftJobResponse;
+import com.assignment.draftly.dto.ReplyDraftRequest;
+import com.assignment.draftly.dto.ReplyDraftResponse;
+import com.assignment.draftly.entity.DraftGenerationJob;
+import com.assignment.draftly.entity.EmailReplyDraft;
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.DraftJobStatus;
+import com.assignment.draftly.enums.DraftStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.exceptionHandler.LoadSheddingException;
+import com.assignment.draftly.exceptionHandler.ResourceNotFoundException;
+import com.assignment.draftly.queue.WorkHandler;
+import com.assignment.draftly.queue.WorkQueue;
+import com.assignment.draftly.repository.DraftGenerationJobRepository;
+import com.assignment.draftly.repository.EmailReplyDraftRepository;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs reply draft generation as background jobs.
+ *
+ * Submitting stores the request as a QUEUED job and puts an interactive-priority item on
+ * the {@link WorkQueue}; the worker runs the regular {@link EmailDraftService#generateReplyDraft}
+ * pipeline on behalf of the job's user. Clients poll the job or receive its final state at
+ * their callback URL. New jobs are refused with 503 once {@code max-queue-depth} jobs are
+ * waiting, so overload shows up as a fast rejection instead of HTTP requests timing out.
+ *
+ * Bulk submissions ({@link #submitBatch}) are stored as batched jobs and left to
+ * {@link DraftBatchService}, which generates them through a provider batch instead of the
+ * interactive queue and its rate limits.
+ */
+@Slf4j
+@Service
+public class DraftGenerationJobService implements WorkHandler {
+
+    private static final String JOB_ID = "jobId";
+
+    private final DraftGenerationJobRepository jobRepository;
+    private final EmailReplyDraftRepository emailReplyDraftRepository;
+    private final AuthService authService;
+    private final EmailDraftService emailDraftService;
+    private final WorkQueue workQueue;
+    private final RestTemplate callbackRestTemplate;
+    private final int maxQueueDepth;
+    private final int maxBatchRequestJobs;
+    private final List<URI> callbackAllowedPrefixes;
+    private final Duration retention;
+
+    public DraftGenerationJobService(
+            DraftGenerationJobRepository jobRepository,
+            EmailReplyDraftRepository emailReplyDraftRepository,
+            AuthService authService,
+            EmailDraftService emailDraftService,
+            WorkQueue workQueue,
+            @Qualifier("jobCallbackRestTemplate") RestTemplate callbackRestTemplate,
+            @Value("${draftly.jobs.max-queue-depth:200}") int maxQueueDepth,
+            @Value("${draftly.batch.max-jobs-per-request:500}") int maxBatchRequestJobs,
+            @Value("${draftly.jobs.callback-allowed-prefixes:}") List<String> callbackAllowedPrefixes,
+            @Value("${draftly.jobs.retention-ms:86400000}") long retentionMillis
+    ) {
+        this.jobRepository = jobRepository;
+        this.emailReplyDraftRepository = emailReplyDraftRepository;
+        this.authService = authService;
+        this.emailDraftService = emailDraftService;
+        this.workQueue = workQueue;
+        this.callbackRestTemplate = callbackRestTemplate;
+        this.maxQueueDepth = maxQueueDepth;
+        this.maxBatchRequestJobs = maxBatchRequestJobs;
+        this.callbackAllowedPrefixes = callbackAllowedPrefixes.stream()
+                .filter(p -> !p.isBlank())
+                .map(p -> URI.create(p.trim()))
+                .toList();
+        this.retention = Duration.ofMillis(retentionMillis);
+    }
+
+    @Transactional
+    public DraftJobResponse submit(Authentication auth, ReplyDraftRequest request) {
+        Long userId = userIdOf(auth);
+        if (request.getCallbackUrl() != null && !isAllowedCallback(request.getCallbackUrl())) {
+            throw new IllegalArgumentException("Callback URL is not allowed: " + request.getCallbackUrl());
+        }
+        if (workQueue.depth(WorkItemType.GENERATE_REPLY) >= maxQueueDepth) {
+            log.warn("[DRAFT_JOB] rejected threadId={} reason=\"queue full\" maxQueueDepth={}",
+                    request.getThreadId(), maxQueueDepth);
+            throw new LoadSheddingException("Too many draft jobs are queued, please retry shortly", 5);
+        }
+
+        DraftGenerationJob job = jobRepository.save(newJob(userId, request));
+
+        workQueue.enqueue(WorkItemType.GENERATE_REPLY, WorkPriority.INTERACTIVE, userId, Map.of(JOB_ID, job.getId()));
+        log.info("[DRAFT_JOB] queued jobId={} threadId={} userId={}", job.getId(), job.getThreadId(), userId);
+        return DraftJobResponse.of(job);
+    }
+
+    /**
+     * Queues replies that are not waited on interactively (pre-generation, bulk drafting). They
+     * are generated in the next provider batch and can be polled like any other job.
+     */
+    @Transactional
+    public List<DraftJobResponse> submitBatch(Authentication auth, List<ReplyDraftRequest> requests) {
+        Long userId = userIdOf(auth);
+        if (requests.isEmpty() || requests.size() > maxBatchRequestJobs) {
+            throw new IllegalArgumentException("A batch takes 1 to " + maxBatchRequestJobs + " replies, got " + requests.size());
+        }
+        for (ReplyDraftRequest request : requests) {
+            if (request.getCallbackUrl() != null && !isAllowedCallback(request.getCallbackUrl())) {
+                throw new IllegalArgumentException("Callback URL is not allowed: " + request.getCallbackUrl());
+            }
+        }
+
+        List<DraftGenerationJob> jobs = requests.stream()
+                .map(request -> {
+                    DraftGenerationJob job = newJob(userId, request);
+                    job.setBatched(true);
+                    return job;
+                })
+                .toList();
+        jobRepository.saveAll(jobs);
+        log.info("[DRAFT_JOB] queued for batch count={} userId={}", jobs.size(), userId);
+        return jobs.stream().map(DraftJobResponse::of).toList();
+    }
+
+    public DraftJobResponse getJob(Authentication auth, String jobId) {
+        return jobRepository.findByIdAndUserId(jobId, userIdOf(auth))
+                .map(DraftJobResponse::of)
+                .orElseThrow(() -> new ResourceNotFoundException("Draft job not found: " + jobId));
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.jobs.cleanup-interval-ms:3600000}")
+    void purgeFinishedJobs() {
+        int deleted = jobRepository.deleteFinishedBefore(
+                List.of(DraftJobStatus.SUCCEEDED, DraftJobStatus.FAILED),
+                Instant.now().minus(retention)
+        );
+        if (deleted > 0) {
+            log.info("[DRAFT_JOB] purged finished jobs count={}", deleted);
+        }
+    }
+
+    @Override
+    public WorkItemType type() {
+        return WorkItemType.GENERATE_REPLY;
+    }
+
+    @Override
+    public void handle(WorkItem item, Map<String, String> payload) {
+        String jobId = payload.get(JOB_ID);
+        DraftGenerationJob job = jobRepository.findById(jobId).orElse(null);
+        if (job == null || job.getStatus() == DraftJobStatus.SUCCEEDED || job.getStatus() == DraftJobStatus.FAILED) {
+            return;
+        }
+        // A RUNNING job here means the previous attempt's worker died mid-run; if it got as far
+        // as creating the draft, report that one instead of creating a second Gmail draft
+        if (job.getStatus() == DraftJobStatus.RUNNING) {
+            EmailReplyDraft existing = draftCreatedFor(job);
+            if (existing != null) {
+                finish(job, DraftJobStatus.SUCCEEDED, existing.getGmailDraftId(), existing.getReplyMessage(),
+                        "Reply draft created by an earlier attempt");
+                return;
+            }
+        }
+        job.setStatus(DraftJobStatus.RUNNING);
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+
+        try {
+            Authentication auth = authService.authenticationFor(job.getUserId());
+            ReplyDraftResponse response = emailDraftService.generateReplyDraft(auth, toRequest(job));
+            if (response.getStatus() == DraftStatus.FAILED) {
+                finish(job, DraftJobStatus.FAILED, null, null, response.getMessage());
+            } else {
+                finish(job, DraftJobStatus.SUCCEEDED, response.getDraftId(), response.getReplyMessage(), response.getMessage());
+            }
+        } catch (DependencyUnavailableException e) {
+            // Refused locally before anything was generated; the queue retries after the hint
+            job.setStatus(DraftJobStatus.QUEUED);
+            job.setUpdatedAt(Instant.now());
+            jobRepository.save(job);
+            throw e;
+        } catch (Exception e) {
+            log.error("[DRAFT_JOB] failed jobId={} error={}", jobId, e.getMessage(), e);
+            finish(job, DraftJobStatus.FAILED, null, null, e.getMessage());
+        }
+    }
+
+    @Override
+    public void onDeadLetter(WorkItem item, Map<String, String> payload, String error) {
+        jobRepository.findById(payload.get(JOB_ID))
+                .filter(job -> job.getStatus() == DraftJobStatus.QUEUED || job.getStatus() == DraftJobStatus.RUNNING)
+                .ifPresent(job -> finish(job, DraftJobStatus.FAILED, null, null, "Gave up after retries: " + error));
+    }
+
+    void finish(DraftGenerationJob job, DraftJobStatus status, String draftId, String replyMessage, String message) {
+        job.setStatus(status);
+        job.setDraftId(draftId);
+        job.setReplyMessage(replyMessage);
+        job.setErrorMessage(status == DraftJobStatus.FAILED ? message : null);
+        job.setUpdatedAt(Instant.now());
+        jobRepository.save(job);
+        log.info("[DRAFT_JOB] finished jobId={} threadId={} status={}", job.getId(), job.getThreadId(), status);
+
+        if (job.getCallbackUrl() != null) {
+            try {
+                callbackRestTemplate.postForEntity(job.getCallbackUrl(), DraftJobResponse.of(job), Void.class);
+            } catch (RestClientException e) {
+                // Callbacks are best-effort; the job can always be polled
+                log.warn("[DRAFT_JOB] callback failed jobId={} error={}", job.getId(), e.getMessage());
+            }
+        }
+    }
+
+    /** The newest reply draft of the job's thread created since the job was submitted, if any. */
+    private EmailReplyDraft draftCreatedFor(DraftGenerationJob job) {
+        return emailReplyDraftRepository.findByThreadIdAndDeletedFalseOrderByCreatedAtDesc(job.getThreadId()).stream()
+                .filter(draft -> !draft.getCreatedAt().isBefore(job.getCreatedAt()))
+                .findFirst()
+                .orElse(null);
+    }
+
+    // Compared parsed, not as strings: https://hooks.example.com must not let through
+    // https://hooks.example.com.attacker.net or https://hooks.example.com@attacker.net
+    private boolean isAllowedCallback(String callbackUrl) {
+        URI callback;
+        try {
+            callback = new URI(callbackUrl).normalize();
+        } catch (URISyntaxException e) {
+            return false;
+        }
+        if (callback.getHost() == null || callback.getRawUserInfo() != null) {
+            return false;
+        }
+        return callbackAllowedPrefixes.stream().anyMatch(prefix -> isUnder(callback, prefix));
+    }
+
+    private static boolean isUnder(URI callback, URI prefix) {
+        if (!callback.getScheme().equalsIgnoreCase(prefix.getScheme())
+                || !callback.getHost().equalsIgnoreCase(prefix.getHost())
+                || portOf(callback) != portOf(prefix)) {
+            return false;
+        }
+        String prefixPath = prefix.getRawPath() == null ? "" : prefix.getRawPath();
+        String path = callback.getRawPath() == null ? "" : callback.getRawPath();
+        if (prefixPath.isEmpty() || prefixPath.equals("/") || path.equals(prefixPath)) {
+            return true;
+        }
+        // A whole path segment: /hooks allows /hooks/x but not /hooks-evil
+        return path.startsWith(prefixPath.endsWith("/") ? prefixPath : prefixPath + "/");
+    }
+
+    private static int portOf(URI uri) {
+        if (uri.getPort() != -1) {
+            return uri.getPort();
+        }
+        return "http".equalsIgnoreCase(uri.getScheme()) ? 80 : 443;
+    }
+
+    private static DraftGenerationJob newJob(Long userId, ReplyDraftRequest request) {
+        DraftGenerationJob job = new DraftGenerationJob();
+        job.setId(UUID.randomUUID().toString());
+        job.setUserId(userId);
+        job.setThreadId(request.getThreadId());
+        job.setMessageId(request.getMessageId());
+        job.setFromEmail(request.getFrom());
+        job.setSubject(request.getSubject());
+        job.setBody(request.getBody());
+        job.setTone(request.getTone());
+        job.setCallbackUrl(request.getCallbackUrl());
+        job.setStatus(DraftJobStatus.QUEUED);
+        job.setCreatedAt(Instant.now());
+        job.setUpdatedAt(Instant.now());
+        return job;
+    }
+
+    static ReplyDraftRequest toRequest(DraftGenerationJob job) {
+        ReplyDraftRequest request = new ReplyDraftRequest();
+        request.setThreadId(job.getThreadId());
+        request.setMessageId(job.getMessageId());
+        request.setFrom(job.getFromEmail());
+        request.setSubject(job.getSubject());
+        request.setBody(job.getBody());
+        request.setTone(job.getTone());
+        return request;
+    }
+
+    private Long userIdOf(Authentication auth) {
+        Long userId = authService.userIdOf(auth);
+        if (userId == null) {
+            throw new IllegalStateException("Invalid authentication principal");
+        }
+        return userId;
+    }
+}
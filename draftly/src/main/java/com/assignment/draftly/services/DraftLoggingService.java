@@ -182,7 +182,7 @@ public class DraftLoggingService {
         return null;
     }
 
-    private String buildLogMessage(Map<String, Object> context) {
+    static String buildLogMessage(Map<String, Object> context) {
         StringBuilder sb = new StringBuilder();
         sb.append("[DRAFT_ACTION] ");
         
@@ -1,15 +1,23 @@
 package com.assignment.draftly.services;
 
 import java.time.Instant;
-import java.util.Base64;
+import java.time.temporal.ChronoUnit;
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
 
 import com.assignment.draftly.dto.EmailBodyResponse;
+import com.assignment.draftly.dto.InboxEmail;
+import com.assignment.draftly.dto.InboxEvent;
 import com.assignment.draftly.dto.RejectReplyResponse;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
 import org.springframework.security.core.Authentication;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
@@ -18,13 +26,27 @@ import com.assignment.draftly.dto.ApproveReplyResponse;
 import com.assignment.draftly.dto.ReplyDraftRequest;
 import com.assignment.draftly.dto.ReplyDraftResponse;
 import com.assignment.draftly.entity.EmailReplyDraft;
+import com.assignment.draftly.entity.EmailReplyVariant;
+import com.assignment.draftly.enums.DraftStatus;
 import com.assignment.draftly.enums.DraftActionType;
 import com.assignment.draftly.enums.ReplyDraftStatus;
 import com.assignment.draftly.enums.Tone;
-import com.assignment.draftly.exceptionHandler.GmailApiException;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
 import com.assignment.draftly.integrations.GmailClient;
-import com.assignment.draftly.integrations.OpenAiClient;
+import com.assignment.draftly.integrations.GmailMessage;
+import com.assignment.draftly.mail.AddressParser;
+import com.assignment.draftly.mail.MailAddress;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.PromptTemplate;
+import com.assignment.draftly.queue.WorkQueue;
 import com.assignment.draftly.repository.EmailReplyDraftRepository;
+import com.assignment.draftly.repository.EmailReplyVariantRepository;
+import com.assignment.draftly.resilience.FailureClassifier;
+import com.assignment.draftly.routing.EditDistance;
+import com.assignment.draftly.routing.ModelRouter;
+import com.assignment.draftly.routing.RoutingFeatures;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -34,12 +56,22 @@ import lombok.extern.slf4j.Slf4j;
 @RequiredArgsConstructor
 public class EmailDraftService {
 
-    private final OpenAiClient openAiClient;
-    private final EmailService emailService; // your Gmail fetch service
+    private final ModelRouter modelRouter;
+    private final StyleProfileService styleProfileService;
     private final AuthService authService;
     private final GmailClient gmailClient;
     private final EmailReplyDraftRepository emailReplyDraftRepository;
+    private final EmailReplyVariantRepository emailReplyVariantRepository;
     private final DraftLoggingService draftLoggingService;
+    private final WorkQueue workQueue;
+    private final InboxEventService inboxEventService;
+    @Qualifier("applicationTaskExecutor")
+    private final AsyncTaskExecutor taskExecutor;
+    @Value("${draftly.mail.message-id-domain:draftly.local}")
+    private final String messageIdDomain;
+    // Quiet period after a tone switch before the Gmail draft is updated
+    @Value("${draftly.drafts.tone-settle-ms:5000}")
+    private final long toneSettleMillis;
 
     public String generateDraft(
             Authentication auth,
@@ -47,33 +79,19 @@ public class EmailDraftService {
             String context
     ) {
 
-        List<String> sentEmails =
-                emailService.getLast10SentEmailBodies(auth);
+        Long userId = authService.userIdOf(auth);
+        String styleProfile = styleProfileService.describe(auth, userId);
 
-        String styleExamples = String.join(
-                "\n\n---\n\n",
-                sentEmails.subList(0, Math.min(5, sentEmails.size()))
-        );
-
-        String systemPrompt = """
-You are an AI email writing assistant.
-You must mimic the user's writing tone, structure, and style
-based on the examples provided.
-Do NOT copy content.
-""";
-
-        String userPrompt = """
-Here are examples of my past sent emails:
-
-%s
+        ChatPrompt prompt = PromptTemplate.create()
+                .instructions(NEW_EMAIL_INSTRUCTIONS)
+                .section(PromptTemplate.Stability.USER, "My writing style", styleProfile)
+                .section(PromptTemplate.Stability.REQUEST, "New email",
+                        "Recipient: %s\nContext: %s".formatted(recipient, context))
+                .render();
 
-Now write a new email.
-
-Recipient: %s
-Context: %s
-""".formatted(styleExamples, recipient, context);
-
-        String aiDraft = openAiClient.generate(systemPrompt, userPrompt);
+        String aiDraft = modelRouter.generate(
+                RoutingFeatures.of(null, null, context, styleProfileService.editRatio(userId)),
+                prompt);
 
         String accessToken = authService.getAccessToken(auth);
 
@@ -91,7 +109,6 @@ Context: %s
             Authentication auth,
             ReplyDraftRequest request
     ) {
-        String draftId = null;
         try {
             draftLoggingService.logAction(
                     DraftActionType.AI_GENERATION_STARTED,
@@ -102,10 +119,8 @@ Context: %s
                     "Starting AI reply generation"
             );
 
-            String from = request.getFrom().toLowerCase();
-
             // 1. Hard no-reply guard (cheap + fast)
-            if (from.contains("no-reply") || from.contains("noreply") || from.contains("do-not-reply")) {
+            if (isNoReply(request.getFrom())) {
                 draftLoggingService.logAction(
                         DraftActionType.DRAFT_CREATED,
                         null,
@@ -120,40 +135,16 @@ Context: %s
             // 2. Extract email address from "From" field
             String recipientEmail = extractEmailFromField(request.getFrom());
 
-            // 3. Get user's writing style from past sent emails
-            List<String> sentEmails = emailService.getLast10SentEmailBodies(auth);
-            String styleExamples = String.join(
-                    "\n\n---\n\n",
-                    sentEmails.subList(0, Math.min(5, sentEmails.size()))
-            );
-            Tone tone = request.getTone();
+            // 3. Get user's style profile, distilled from their sent emails
+            Long userId = authService.userIdOf(auth);
+            String styleProfile = styleProfileService.describe(auth, userId);
 
-            // 4. Generate AI reply based on subject and body with selected tone
-            String toneInstruction = getToneInstruction(tone);
-            
-            String systemPrompt = """
-                    You are an AI email writing assistant.
-                    You must mimic the user's writing structure and style from the examples provided.
-                    Maintain the same vocabulary patterns, sentence structure, and formatting style.
-                    However, adjust the tone to be %s as requested.
-                    Write a professional and appropriate reply to the email.
-                    Do NOT copy content from the original email.
-                    Keep the reply concise and relevant.
-                    """.formatted(toneInstruction);
-
-            String userPrompt = """
-                    Here are examples of my past sent emails (use these to match writing style):
-                    
-                    %s
-                    
-                    Now write a reply to this email with a %s tone:
-                    
-                    From: %s
-                    Subject: %s
-                    Body: %s
-                    """.formatted(styleExamples, toneInstruction.toLowerCase(), request.getFrom(), request.getSubject(), request.getBody());
-
-            String aiReply = openAiClient.generate(systemPrompt, userPrompt);
+            // 4. Generate AI reply based on subject and body with selected tone, on the model tier it needs
+            Map<Tone, String> variants = request.isAllTones()
+                    ? generateAllTones(userId, styleProfile, request.getFrom(), request.getSubject(), request.getBody())
+                    : null;
+            String aiReply = variants != null ? variants.get(request.getTone()) : generateReply(
+                    userId, styleProfile, request.getTone(), request.getFrom(), request.getSubject(), request.getBody());
             draftLoggingService.logAction(
                     DraftActionType.AI_GENERATION_COMPLETED,
                     null,
@@ -163,47 +154,24 @@ Context: %s
                     "AI reply generation completed successfully"
             );
 
-            // 5. Get access token and create Gmail reply draft
-            String accessToken = authService.getAccessToken(auth);
-            draftId = gmailClient.createReplyDraft(
-                    accessToken,
-                    recipientEmail,
-                    request.getSubject(),
-                    aiReply,
-                    request.getThreadId(),
-                    request.getMessageId()
-            );
-
-            // 6. Save reply draft to database
-            EmailReplyDraft entity = new EmailReplyDraft();
-            entity.setThreadId(request.getThreadId());
-            entity.setMessageId(request.getMessageId());
-            entity.setFromEmail(request.getFrom());
-            entity.setToEmail(recipientEmail);
-            entity.setReplyMessage(aiReply);
-            entity.setStatus(ReplyDraftStatus.GENERATED);
-            entity.setGmailDraftId(draftId);
-            entity.setCreatedAt(Instant.now());
-            entity.setUpdatedAt(Instant.now());
-
-            emailReplyDraftRepository.save(entity);
-            
-            draftLoggingService.logAction(
+            // 5. Create the Gmail reply draft and save it to the database
+            return storeReplyDraft(auth, userId, request, recipientEmail, aiReply, variants);
+
+        } catch (DependencyUnavailableException ex) {
+            // Shed load: surface as 503 + Retry-After rather than a generic failed draft
+            draftLoggingService.logError(
                     DraftActionType.DRAFT_CREATED,
-                    draftId,
+                    null,
                     request.getThreadId(),
                     auth,
-                    true,
-                    "Reply draft created and saved to database"
+                    "Reply draft generation rejected: " + ex.getMessage(),
+                    ex
             );
-
-            // 7. Return success response with reply message
-            return ReplyDraftResponse.success(draftId, request.getThreadId(), aiReply);
-
+            throw ex;
         } catch (Exception ex) {
             draftLoggingService.logError(
                     DraftActionType.DRAFT_CREATED,
-                    draftId,
+                    null,
                     request.getThreadId(),
                     auth,
                     "Failed to generate reply draft: " + ex.getMessage(),
@@ -217,6 +185,118 @@ Context: %s
         }
     }
 
+    /**
+     * Turns a reply generated outside the interactive path (a provider batch) into a Gmail
+     * draft and a reply draft row, like the end of {@link #generateReplyDraft}. Refusals
+     * ({@link DependencyUnavailableException}) are thrown so the caller can try again later.
+     */
+    public ReplyDraftResponse saveGeneratedReplyDraft(
+            Authentication auth,
+            ReplyDraftRequest request,
+            String aiReply
+    ) {
+        try {
+            draftLoggingService.logAction(
+                    DraftActionType.AI_GENERATION_COMPLETED,
+                    null,
+                    request.getThreadId(),
+                    auth,
+                    true,
+                    "AI reply generated in a batch"
+            );
+            return storeReplyDraft(auth, authService.userIdOf(auth), request, extractEmailFromField(request.getFrom()),
+                    aiReply, null);
+        } catch (DependencyUnavailableException ex) {
+            throw ex;
+        } catch (Exception ex) {
+            draftLoggingService.logError(
+                    DraftActionType.DRAFT_CREATED,
+                    null,
+                    request.getThreadId(),
+                    auth,
+                    "Failed to save batch reply draft: " + ex.getMessage(),
+                    ex
+            );
+            return ReplyDraftResponse.failed("Unable to save reply draft: " + ex.getMessage(), request.getThreadId());
+        }
+    }
+
+    private ReplyDraftResponse storeReplyDraft(
+            Authentication auth,
+            Long userId,
+            ReplyDraftRequest request,
+            String recipientEmail,
+            String aiReply,
+            Map<Tone, String> variants
+    ) {
+        String accessToken = authService.getAccessToken(auth);
+        String draftId = gmailClient.createReplyDraft(
+                accessToken,
+                recipientEmail,
+                request.getSubject(),
+                aiReply,
+                request.getThreadId(),
+                request.getMessageId()
+        );
+
+        try {
+            EmailReplyDraft saved = emailReplyDraftRepository.save(newReplyDraft(request, recipientEmail, aiReply, draftId));
+            if (variants != null) {
+                saveVariants(saved.getId(), variants);
+            }
+        } catch (RuntimeException ex) {
+            discardGmailDraft(auth, userId, request.getThreadId(), draftId);
+            throw ex;
+        }
+
+        draftLoggingService.logAction(
+                DraftActionType.DRAFT_CREATED,
+                draftId,
+                request.getThreadId(),
+                auth,
+                true,
+                "Reply draft created and saved to database"
+        );
+
+        inboxEventService.publish(userId, InboxEvent.draftReady(request.getThreadId(), draftId));
+
+        ReplyDraftResponse response = ReplyDraftResponse.success(draftId, request.getThreadId(), aiReply);
+        response.setVariants(variants);
+        return response;
+    }
+
+    /**
+     * Removes a Gmail draft whose row could not be stored, so the inbox does not keep a draft
+     * Draftly no longer knows about. The queue retries the delete if Gmail is having trouble.
+     */
+    private void discardGmailDraft(Authentication auth, Long userId, String threadId, String gmailDraftId) {
+        if (gmailDraftId == null || gmailDraftId.isEmpty()) {
+            return;
+        }
+        try {
+            if (userId != null) {
+                workQueue.enqueue(WorkItemType.DELETE_GMAIL_DRAFT, WorkPriority.BULK, userId,
+                        Map.of("gmailDraftId", gmailDraftId, "threadId", threadId));
+            } else {
+                gmailClient.deleteDraft(authService.getAccessToken(auth), gmailDraftId);
+            }
+        } catch (Exception e) {
+            draftLoggingService.logAction(
+                    DraftActionType.GMAIL_DRAFT_DELETED,
+                    gmailDraftId,
+                    threadId,
+                    auth,
+                    false,
+                    "Failed to delete orphaned Gmail draft: " + e.getMessage()
+            );
+        }
+    }
+
+    static boolean isNoReply(String fromField) {
+        String from = fromField.toLowerCase();
+        return from.contains("no-reply") || from.contains("noreply") || from.contains("do-not-reply");
+    }
+
     private String getToneInstruction(Tone tone) {
         switch (tone) {
             case FORMAL:
@@ -230,26 +310,149 @@ Context: %s
         }
     }
 
-    private String extractEmailFromField(String fromField) {
-        if (fromField == null || fromField.trim().isEmpty()) {
-            throw new IllegalArgumentException("From field cannot be empty");
+    /**
+     * A reply in every tone, generated concurrently from the same inputs, so a later tone switch
+     * is served from {@link EmailReplyVariant}s instead of another completion.
+     */
+    private Map<Tone, String> generateAllTones(
+            Long userId,
+            String styleProfile,
+            String from,
+            String subject,
+            String body
+    ) {
+        try {
+            return generateAllTonesAsync(userId, styleProfile, from, subject, body).join();
+        } catch (CompletionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
         }
+    }
 
-        Pattern emailPattern = Pattern.compile("<([^>]+)>");
-        Matcher matcher = emailPattern.matcher(fromField);
-
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    // Completes once every tone is generated; nothing waits on the task executor in the meantime
+    private CompletableFuture<Map<Tone, String>> generateAllTonesAsync(
+            Long userId,
+            String styleProfile,
+            String from,
+            String subject,
+            String body
+    ) {
+        Map<Tone, CompletableFuture<String>> pending = new EnumMap<>(Tone.class);
+        for (Tone tone : Tone.values()) {
+            pending.put(tone, CompletableFuture.supplyAsync(
+                    () -> generateReply(userId, styleProfile, tone, from, subject, body),
+                    taskExecutor));
         }
+        return CompletableFuture.allOf(pending.values().toArray(CompletableFuture[]::new))
+                .thenApply(done -> {
+                    Map<Tone, String> replies = new EnumMap<>(Tone.class);
+                    pending.forEach((tone, reply) -> replies.put(tone, reply.join()));
+                    return replies;
+                });
+    }
+
+    private void saveVariants(Long draftId, Map<Tone, String> replies) {
+        replies.forEach((tone, reply) -> saveVariant(draftId, tone, reply));
+    }
+
+    private void saveVariant(Long draftId, Tone tone, String reply) {
+        EmailReplyVariant variant = emailReplyVariantRepository.findByDraftIdAndTone(draftId, tone)
+                .orElseGet(EmailReplyVariant::new);
+        variant.setDraftId(draftId);
+        variant.setTone(tone);
+        variant.setReplyMessage(reply);
+        variant.setCreatedAt(Instant.now());
+        emailReplyVariantRepository.save(variant);
+    }
 
-        Pattern simpleEmailPattern = Pattern.compile("([a-zA-Z0-9._%+-]+@[a-zA-Z0-9.-]+\\.[a-zA-Z]{2,})");
-        matcher = simpleEmailPattern.matcher(fromField);
+    private static final String REPLY_INSTRUCTIONS = """
+            You are an AI email writing assistant.
+            Write a reply to the email at the end of the user's message.
+            You must mimic the user's writing structure and style as described in their style profile.
+            Use the greeting, sign-off, sentence length, register and phrasing it describes.
+            Adjust the tone to the one requested after the style profile.
+            Write a professional and appropriate reply to the email.
+            Do NOT copy content from the original email.
+            Keep the reply concise and relevant.
+            """;
+
+    private static final String NEW_EMAIL_INSTRUCTIONS = """
+            You are an AI email writing assistant.
+            Write a new email to the recipient about the context at the end of the user's message.
+            You must mimic the user's writing tone, structure, and style
+            as described in the style profile provided.
+            """;
+
+    private String generateReply(
+            Long userId,
+            String styleProfile,
+            Tone tone,
+            String from,
+            String subject,
+            String body
+    ) {
+        RoutingFeatures features = RoutingFeatures.of(
+                tone, subject, body, styleProfileService.editRatio(userId));
+        return modelRouter.generate(features, replyPrompt(styleProfile, getToneInstruction(tone), from, subject, body));
+    }
 
-        if (matcher.find()) {
-            return matcher.group(1).trim();
+    /**
+     * Routing inputs of a reply, for callers that pick the model tier themselves (batches). Call
+     * after {@link #replyPrompt}, which reads the style profile the edit ratio comes from.
+     */
+    RoutingFeatures replyFeatures(Long userId, ReplyDraftRequest request) {
+        return RoutingFeatures.of(request.getTone(), request.getSubject(), request.getBody(),
+                styleProfileService.editRatio(userId));
+    }
+
+    ChatPrompt replyPrompt(Authentication auth, Long userId, ReplyDraftRequest request) {
+        return replyPrompt(styleProfileService.describe(auth, userId), getToneInstruction(request.getTone()),
+                request.getFrom(), request.getSubject(), request.getBody());
+    }
+
+    // Most stable first, so requests of the same user share the longest cacheable prefix
+    private static ChatPrompt replyPrompt(
+            String styleProfile,
+            String toneInstruction,
+            String from,
+            String subject,
+            String body
+    ) {
+        return PromptTemplate.create()
+                .instructions(REPLY_INSTRUCTIONS)
+                .section(PromptTemplate.Stability.USER, "My writing style", styleProfile)
+                .section(PromptTemplate.Stability.SETTING, "Tone", toneInstruction)
+                .section(PromptTemplate.Stability.REQUEST, "Email to reply to",
+                        "From: %s\nSubject: %s\nBody: %s".formatted(from, subject, body))
+                .render();
+    }
+
+    private static EmailReplyDraft newReplyDraft(
+            ReplyDraftRequest request,
+            String recipientEmail,
+            String aiReply,
+            String gmailDraftId
+    ) {
+        EmailReplyDraft entity = new EmailReplyDraft();
+        entity.setThreadId(request.getThreadId());
+        entity.setMessageId(request.getMessageId());
+        entity.setFromEmail(request.getFrom());
+        entity.setToEmail(recipientEmail);
+        entity.setReplyMessage(aiReply);
+        entity.setTone(request.getTone());
+        entity.setStatus(ReplyDraftStatus.GENERATED);
+        entity.setGmailDraftId(gmailDraftId);
+        entity.setCreatedAt(Instant.now());
+        entity.setUpdatedAt(Instant.now());
+        return entity;
+    }
+
+    static String extractEmailFromField(String fromField) {
+        if (fromField == null || fromField.trim().isEmpty()) {
+            throw new IllegalArgumentException("From field cannot be empty");
         }
 
-        return fromField.trim();
+        MailAddress address = AddressParser.parse(fromField);
+        return address != null ? address.address() : fromField.trim();
     }
 
     public ReplyDraftResponse regenerateReplyDraft(
@@ -295,46 +498,19 @@ Context: %s
             String accessToken = authService.getAccessToken(auth);
 
             // 4. Fetch original message to get subject and body
-            Map<String, Object> originalMessage = gmailClient.fetchMessageById(accessToken, draft.getMessageId());
-            String subject = extractSubjectFromMessage(originalMessage);
-            String originalBody = extractBodyFromOriginalMessage(originalMessage);
+            GmailMessage originalMessage = gmailClient.getMessage(accessToken, draft.getMessageId());
+            String subject = subjectOf(originalMessage);
+            String originalBody = originalMessage.body();
 
             // 5. Use provided tone or default to FRIENDLY if not provided
             Tone selectedTone = tone != null ? tone : Tone.FRIENDLY;
 
-            // 6. Get user's writing style from past sent emails
-            List<String> sentEmails = emailService.getLast10SentEmailBodies(auth);
-            String styleExamples = String.join(
-                    "\n\n---\n\n",
-                    sentEmails.subList(0, Math.min(5, sentEmails.size()))
-            );
+            // 6. Get user's style profile, distilled from their sent emails
+            Long userId = authService.userIdOf(auth);
+            String styleProfile = styleProfileService.describe(auth, userId);
 
-            // 7. Generate AI reply based on subject and body with selected tone
-            String toneInstruction = getToneInstruction(selectedTone);
-            
-            String systemPrompt = """
-                    You are an AI email writing assistant.
-                    You must mimic the user's writing structure and style from the examples provided.
-                    Maintain the same vocabulary patterns, sentence structure, and formatting style.
-                    However, adjust the tone to be %s as requested.
-                    Write a professional and appropriate reply to the email.
-                    Do NOT copy content from the original email.
-                    Keep the reply concise and relevant.
-                    """.formatted(toneInstruction);
-
-            String userPrompt = """
-                    Here are examples of my past sent emails (use these to match writing style):
-                    
-                    %s
-                    
-                    Now write a reply to this email with a %s tone:
-                    
-                    From: %s
-                    Subject: %s
-                    Body: %s
-                    """.formatted(styleExamples, toneInstruction.toLowerCase(), draft.getFromEmail(), subject, originalBody);
-
-            String aiReply = openAiClient.generate(systemPrompt, userPrompt);
+            // 7. Generate AI reply based on subject and body with selected tone, on the model tier it needs
+            String aiReply = generateReply(userId, styleProfile, selectedTone, draft.getFromEmail(), subject, originalBody);
             draftLoggingService.logAction(
                     DraftActionType.AI_GENERATION_COMPLETED,
                     draftId,
@@ -345,55 +521,18 @@ Context: %s
             );
 
             // 8. Update or create Gmail draft
-            String updatedDraftId;
-            if (draft.getGmailDraftId() != null && !draft.getGmailDraftId().isEmpty()) {
-                try {
-                    updatedDraftId = gmailClient.updateReplyDraft(
-                            accessToken,
-                            draft.getGmailDraftId(),
-                            draft.getToEmail(),
-                            subject,
-                            aiReply,
-                            draft.getThreadId(),
-                            draft.getMessageId()
-                    );
-                } catch (Exception e) {
-                    draftLoggingService.logAction(
-                            DraftActionType.GMAIL_DRAFT_UPDATED,
-                            draft.getGmailDraftId(),
-                            threadId,
-                            auth,
-                            false,
-                            "Failed to update Gmail draft, creating new one: " + e.getMessage()
-                    );
-                    // If update fails, create a new draft
-                    updatedDraftId = gmailClient.createReplyDraft(
-                            accessToken,
-                            draft.getToEmail(),
-                            subject,
-                            aiReply,
-                            draft.getThreadId(),
-                            draft.getMessageId()
-                    );
-                }
-            } else {
-                updatedDraftId = gmailClient.createReplyDraft(
-                        accessToken,
-                        draft.getToEmail(),
-                        subject,
-                        aiReply,
-                        draft.getThreadId(),
-                        draft.getMessageId()
-                );
-            }
+            String updatedDraftId = upsertGmailDraft(auth, accessToken, draft, subject, aiReply);
 
             // 9. Update database record
             draft.setReplyMessage(aiReply);
             draft.setGmailDraftId(updatedDraftId);
             draft.setStatus(ReplyDraftStatus.GENERATED); // Keep as GENERATED since it's still a draft ready for approval
+            draft.setTone(selectedTone);
+            draft.setGmailDraftStale(false);
             draft.setUpdatedAt(Instant.now());
 
             emailReplyDraftRepository.save(draft);
+            refreshVariant(draft.getId(), selectedTone, aiReply);
             
             draftLoggingService.logAction(
                     DraftActionType.DRAFT_REGENERATED,
@@ -404,10 +543,22 @@ Context: %s
                     "Reply draft regenerated and updated in database"
             );
 
+            inboxEventService.publish(userId, InboxEvent.draftReady(threadId, updatedDraftId));
+
             // 10. Return success response with reply message
             ReplyDraftResponse response = ReplyDraftResponse.success(updatedDraftId, threadId, aiReply);
             return response;
 
+        } catch (DependencyUnavailableException ex) {
+            draftLoggingService.logError(
+                    DraftActionType.DRAFT_REGENERATED,
+                    draftId,
+                    threadId,
+                    auth,
+                    "Reply draft regeneration rejected: " + ex.getMessage(),
+                    ex
+            );
+            throw ex;
         } catch (Exception ex) {
             draftLoggingService.logError(
                     DraftActionType.DRAFT_REGENERATED,
@@ -424,53 +575,149 @@ Context: %s
         }
     }
 
-    private String extractBodyFromOriginalMessage(Map<String, Object> message) {
-        try {
-            Map<String, Object> payload = (Map<String, Object>) message.get("payload");
-            if (payload == null) {
-                return "";
+    /** Keeps a stored variant of the tone in line with a regenerated reply. */
+    private void refreshVariant(Long draftId, Tone tone, String reply) {
+        emailReplyVariantRepository.findByDraftIdAndTone(draftId, tone).ifPresent(variant -> {
+            variant.setReplyMessage(reply);
+            emailReplyVariantRepository.save(variant);
+        });
+    }
+
+    /**
+     * Switches the thread's draft to {@code tone}. A stored variant is applied locally and the
+     * Gmail draft only follows once no other switch has happened for {@code tone-settle-ms}.
+     * Without a variant this is a {@link #regenerateReplyDraft}, whose result is stored as the
+     * tone's variant (along with the text it replaces) so switching back is local.
+     */
+    public ReplyDraftResponse switchTone(Authentication auth, String threadId, Tone tone) {
+        if (tone == null) {
+            throw new IllegalArgumentException("tone is required");
+        }
+        List<EmailReplyDraft> drafts = emailReplyDraftRepository
+                .findByThreadIdAndDeletedFalseAndStatusOrderByCreatedAtDesc(threadId, ReplyDraftStatus.GENERATED);
+        if (drafts.isEmpty()) {
+            return ReplyDraftResponse.failed("Reply draft not found for threadId: " + threadId, threadId);
+        }
+        EmailReplyDraft draft = drafts.get(0);
+        if (tone == draft.getTone() && !draft.isGmailDraftStale()) {
+            return ReplyDraftResponse.success(draft.getGmailDraftId(), threadId, draft.getReplyMessage());
+        }
+
+        EmailReplyVariant variant = emailReplyVariantRepository.findByDraftIdAndTone(draft.getId(), tone).orElse(null);
+        if (variant == null) {
+            if (draft.getTone() != null) {
+                saveVariant(draft.getId(), draft.getTone(), draft.getReplyMessage());
             }
+            ReplyDraftResponse response = regenerateReplyDraft(auth, threadId, tone);
+            if (response.getStatus() == DraftStatus.DRAFT_CREATED) {
+                saveVariant(draft.getId(), tone, response.getReplyMessage());
+            }
+            return response;
+        }
 
-            // Check if message has parts (multipart)
-            List<Map<String, Object>> parts = (List<Map<String, Object>>) payload.get("parts");
-            if (parts != null && !parts.isEmpty()) {
-                // Look for text/plain part
-                for (Map<String, Object> part : parts) {
-                    String mimeType = (String) part.get("mimeType");
-                    if ("text/plain".equals(mimeType)) {
-                        Map<String, Object> body = (Map<String, Object>) part.get("body");
-                        if (body != null) {
-                            String data = (String) body.get("data");
-                            if (data != null) {
-                                return new String(Base64.getUrlDecoder().decode(data));
-                            }
-                        }
-                    }
-                }
-            } else {
-                // Single part message
-                String mimeType = (String) payload.get("mimeType");
-                if ("text/plain".equals(mimeType)) {
-                    Map<String, Object> body = (Map<String, Object>) payload.get("body");
-                    if (body != null) {
-                        String data = (String) body.get("data");
-                        if (data != null) {
-                            return new String(Base64.getUrlDecoder().decode(data));
-                        }
-                    }
+        // Enqueued first: if saving the switch fails, the item finds a different selection and does nothing
+        Instant selectedAt = Instant.now().truncatedTo(ChronoUnit.MILLIS);
+        workQueue.enqueue(WorkItemType.SYNC_GMAIL_DRAFT, WorkPriority.BULK, authService.userIdOf(auth),
+                Map.of("draftRowId", String.valueOf(draft.getId()), "selectedAt", String.valueOf(selectedAt.toEpochMilli())),
+                selectedAt.plusMillis(toneSettleMillis));
+
+        draft.setReplyMessage(variant.getReplyMessage());
+        draft.setTone(tone);
+        draft.setToneSelectedAt(selectedAt);
+        draft.setGmailDraftStale(true);
+        draft.setUpdatedAt(selectedAt);
+        emailReplyDraftRepository.save(draft);
+
+        draftLoggingService.logAction(
+                DraftActionType.DRAFT_EDITED,
+                draft.getGmailDraftId(),
+                threadId,
+                auth,
+                true,
+                "Switched reply to " + tone + " tone from a stored variant"
+        );
+        return ReplyDraftResponse.success(draft.getGmailDraftId(), threadId, draft.getReplyMessage());
+    }
+
+    /**
+     * Writes a draft's locally switched text to Gmail, unless the draft was switched again after
+     * {@code selectedAtMillis}, already synced, or is no longer awaiting approval.
+     */
+    public void syncSettledGmailDraft(Authentication auth, Long draftRowId, long selectedAtMillis) {
+        EmailReplyDraft draft = emailReplyDraftRepository.findById(draftRowId).orElse(null);
+        if (draft == null || draft.isDeleted() || draft.getStatus() != ReplyDraftStatus.GENERATED
+                || !draft.isGmailDraftStale() || draft.getToneSelectedAt() == null
+                || draft.getToneSelectedAt().toEpochMilli() != selectedAtMillis) {
+            return;
+        }
+        String accessToken = authService.getAccessToken(auth);
+        GmailMessage originalMessage = gmailClient.getMessage(accessToken, draft.getMessageId());
+        String gmailDraftId = upsertGmailDraft(auth, accessToken, draft, subjectOf(originalMessage), draft.getReplyMessage());
+
+        draft.setGmailDraftId(gmailDraftId);
+        draft.setGmailDraftStale(false);
+        emailReplyDraftRepository.save(draft);
+
+        draftLoggingService.logAction(
+                DraftActionType.GMAIL_DRAFT_UPDATED,
+                gmailDraftId,
+                draft.getThreadId(),
+                auth,
+                true,
+                "Gmail draft updated to the settled " + draft.getTone() + " reply"
+        );
+        inboxEventService.publish(authService.userIdOf(auth), InboxEvent.draftReady(draft.getThreadId(), gmailDraftId));
+    }
+
+    private String upsertGmailDraft(
+            Authentication auth,
+            String accessToken,
+            EmailReplyDraft draft,
+            String subject,
+            String aiReply
+    ) {
+        if (draft.getGmailDraftId() != null && !draft.getGmailDraftId().isEmpty()) {
+            try {
+                String updatedDraftId = gmailClient.updateReplyDraft(
+                        accessToken,
+                        draft.getGmailDraftId(),
+                        draft.getToEmail(),
+                        subject,
+                        aiReply,
+                        draft.getThreadId(),
+                        draft.getMessageId()
+                );
+                if (updatedDraftId != null) {
+                    return updatedDraftId;
                 }
+                // Gmail no longer has the draft (the user deleted it there), so create a new one
+            } catch (DependencyUnavailableException e) {
+                throw e;
+            } catch (Exception e) {
+                draftLoggingService.logAction(
+                        DraftActionType.GMAIL_DRAFT_UPDATED,
+                        draft.getGmailDraftId(),
+                        draft.getThreadId(),
+                        auth,
+                        false,
+                        "Failed to update Gmail draft, creating new one: " + e.getMessage()
+                );
+                // If update fails, create a new draft
             }
-
-            return "";
-        } catch (Exception e) {
-            log.warn("Failed to extract body from original message", e);
-            return "";
         }
+        return gmailClient.createReplyDraft(
+                accessToken,
+                draft.getToEmail(),
+                subject,
+                aiReply,
+                draft.getThreadId(),
+                draft.getMessageId()
+        );
     }
 
     @Transactional
     public ApproveReplyResponse approveReplyDraft(Authentication auth, String threadId, String replyMessage) {
-        String draftId = null;
+        EmailReplyDraft draft = null;
         try {
             draftLoggingService.logAction(
                     DraftActionType.DRAFT_APPROVED,
@@ -481,95 +728,130 @@ Context: %s
                     "Starting draft approval process"
             );
 
-            // 1. Find the most recent GENERATED draft in database (ordered by createdAt DESC)
-            List<EmailReplyDraft> drafts = emailReplyDraftRepository
-                    .findByThreadIdAndDeletedFalseAndStatusOrderByCreatedAtDesc(threadId, ReplyDraftStatus.GENERATED);
+            // 1-3. Find the most recent GENERATED draft and validate the reply
+            draft = findApprovableDraft(auth, threadId, replyMessage);
 
-            if (drafts.isEmpty()) {
-                // Check if there are any drafts at all (in any status)
-                List<EmailReplyDraft> allDrafts = emailReplyDraftRepository
-                        .findByThreadIdAndDeletedFalseOrderByCreatedAtDesc(threadId);
-                
-                if (allDrafts.isEmpty()) {
-                    draftLoggingService.logAction(
-                            DraftActionType.DRAFT_APPROVED,
-                            null,
-                            threadId,
-                            auth,
-                            false,
-                            "Reply draft not found for approval"
-                    );
-                    throw new RuntimeException("Reply draft not found for threadId: " + threadId);
-                } else {
-                    draftLoggingService.logAction(
-                            DraftActionType.DRAFT_APPROVED,
-                            allDrafts.get(0).getGmailDraftId(),
-                            threadId,
-                            auth,
-                            false,
-                            "Draft is not in GENERATED state. Current status: " + allDrafts.get(0).getStatus()
-                    );
-                    throw new IllegalStateException("Draft is not in GENERATED state. Current status: " + allDrafts.get(0).getStatus());
-                }
-            }
+            // 4. Get access token
+            String accessToken = authService.getAccessToken(auth);
 
-            // Get the most recent GENERATED draft
-            EmailReplyDraft draft = drafts.get(0);
-            draftId = draft.getGmailDraftId();
+            // 5. Fetch original message to get subject
+            GmailMessage originalMessage = gmailClient.getMessage(accessToken, draft.getMessageId());
+            String subject = subjectOf(originalMessage);
 
-            // 2. Validate draft status (should already be GENERATED from query, but double-check)
-            if (draft.getStatus() != ReplyDraftStatus.GENERATED) {
-                throw new IllegalStateException("Draft is not in GENERATED state. Current status: " + draft.getStatus());
-            }
+            // 6. Send the reply via Gmail API using the provided replyMessage
+            sendApprovedReply(auth, accessToken, draft, subject, replyMessage);
+
+            // 7-8. Update database status and return success response
+            return markSent(auth, draft, replyMessage);
+
+        } catch (Exception e) {
+            return approveFailure(auth, threadId, draft, replyMessage, e);
+        }
+    }
+
+    private EmailReplyDraft findApprovableDraft(Authentication auth, String threadId, String replyMessage) {
+        // 1. Find the most recent GENERATED draft in database (ordered by createdAt DESC)
+        List<EmailReplyDraft> drafts = emailReplyDraftRepository
+                .findByThreadIdAndDeletedFalseAndStatusOrderByCreatedAtDesc(threadId, ReplyDraftStatus.GENERATED);
 
-            // 3. Validate reply message
-            if (replyMessage == null || replyMessage.trim().isEmpty()) {
-                throw new IllegalArgumentException("Reply message cannot be empty");
+        if (drafts.isEmpty()) {
+            // Check if there are any drafts at all (in any status)
+            List<EmailReplyDraft> allDrafts = emailReplyDraftRepository
+                    .findByThreadIdAndDeletedFalseOrderByCreatedAtDesc(threadId);
+
+            if (allDrafts.isEmpty()) {
+                draftLoggingService.logAction(
+                        DraftActionType.DRAFT_APPROVED,
+                        null,
+                        threadId,
+                        auth,
+                        false,
+                        "Reply draft not found for approval"
+                );
+                throw new RuntimeException("Reply draft not found for threadId: " + threadId);
+            } else {
+                draftLoggingService.logAction(
+                        DraftActionType.DRAFT_APPROVED,
+                        allDrafts.get(0).getGmailDraftId(),
+                        threadId,
+                        auth,
+                        false,
+                        "Draft is not in GENERATED state. Current status: " + allDrafts.get(0).getStatus()
+                );
+                throw new IllegalStateException("Draft is not in GENERATED state. Current status: " + allDrafts.get(0).getStatus());
             }
+        }
 
-            // 4. Get access token
-            String accessToken = authService.getAccessToken(auth);
+        // Get the most recent GENERATED draft
+        EmailReplyDraft draft = drafts.get(0);
 
-            // 5. Fetch original message to get subject
-            Map<String, Object> originalMessage = gmailClient.fetchMessageById(accessToken, draft.getMessageId());
-            String subject = extractSubjectFromMessage(originalMessage);
+        // 2. Validate draft status (should already be GENERATED from query, but double-check)
+        if (draft.getStatus() != ReplyDraftStatus.GENERATED) {
+            throw new IllegalStateException("Draft is not in GENERATED state. Current status: " + draft.getStatus());
+        }
 
-            // 6. Send the reply via Gmail API using the provided replyMessage with retry logic
-            sendReplyWithRetry(
-                    auth,
-                    accessToken,
-                    draft.getToEmail(),
-                    subject,
-                    replyMessage,
-                    draft.getThreadId(),
-                    draft.getMessageId(),
-                    draftId
-            );
+        // 3. Validate reply message
+        if (replyMessage == null || replyMessage.trim().isEmpty()) {
+            throw new IllegalArgumentException("Reply message cannot be empty");
+        }
+        return draft;
+    }
 
-            // 7. Update database status and save the new reply message
-            draft.setStatus(ReplyDraftStatus.SENT);
-            draft.setReplyMessage(replyMessage);
-            draft.setUpdatedAt(Instant.now());
-            emailReplyDraftRepository.save(draft);
+    private ApproveReplyResponse markSent(Authentication auth, EmailReplyDraft draft, String replyMessage) {
+        // Only a GENERATED draft still holds the generated text; a queued send already holds the approved one
+        Double editRatio = draft.getStatus() == ReplyDraftStatus.GENERATED
+                ? EditDistance.ratio(draft.getReplyMessage(), replyMessage)
+                : null;
+        draft.setStatus(ReplyDraftStatus.SENT);
+        draft.setReplyMessage(replyMessage);
+        draft.setUpdatedAt(Instant.now());
+        emailReplyDraftRepository.save(draft);
+        Long userId = authService.userIdOf(auth);
+        styleProfileService.onMailSent(userId, editRatio);
+
+        draftLoggingService.logAction(
+                DraftActionType.EMAIL_SENT,
+                draft.getGmailDraftId(),
+                draft.getThreadId(),
+                auth,
+                true,
+                "Reply sent successfully to " + draft.getToEmail()
+        );
+        inboxEventService.publish(userId, InboxEvent.sendComplete(draft.getThreadId(), draft.getGmailDraftId()));
 
-            draftLoggingService.logAction(
-                    DraftActionType.EMAIL_SENT,
+        return new ApproveReplyResponse(
+                "SUCCESS",
+                "Reply sent successfully to " + draft.getToEmail(),
+                draft.getThreadId(),
+                200
+        );
+    }
+
+    private ApproveReplyResponse approveFailure(
+            Authentication auth,
+            String threadId,
+            EmailReplyDraft draft,
+            String replyMessage,
+            Exception e
+    ) {
+        String draftId = draft != null ? draft.getGmailDraftId() : null;
+        if (e instanceof DependencyUnavailableException unavailable) {
+            // Gmail was never called, so the send can safely be handed to the queue
+            Long userId = draft != null ? authService.userIdOf(auth) : null;
+            if (userId != null) {
+                return queueSend(auth, draft, replyMessage, userId, unavailable);
+            }
+            draftLoggingService.logError(
+                    DraftActionType.DRAFT_APPROVED,
                     draftId,
                     threadId,
                     auth,
-                    true,
-                    "Reply sent successfully to " + draft.getToEmail()
-            );
-
-            // 8. Return success response
-            return new ApproveReplyResponse(
-                    "SUCCESS",
-                    "Reply sent successfully to " + draft.getToEmail(),
-                    threadId,
-                    200
+                    "Reply approval rejected, Gmail unavailable: " + e.getMessage(),
+                    e
             );
-
-        } catch (IllegalArgumentException | IllegalStateException e) {
+            throw unavailable;
+        }
+        if (e instanceof IllegalArgumentException || e instanceof IllegalStateException) {
             draftLoggingService.logError(
                     DraftActionType.DRAFT_APPROVED,
                     draftId,
@@ -584,7 +866,8 @@ Context: %s
                     threadId,
                     400
             );
-        } catch (RuntimeException e) {
+        }
+        if (e instanceof RuntimeException) {
             draftLoggingService.logError(
                     DraftActionType.DRAFT_APPROVED,
                     draftId,
@@ -599,45 +882,98 @@ Context: %s
                     threadId,
                     500
             );
-        } catch (Exception e) {
-            draftLoggingService.logError(
-                    DraftActionType.DRAFT_APPROVED,
-                    draftId,
-                    threadId,
-                    auth,
-                    "Unexpected error while approving reply draft: " + e.getMessage(),
-                    e
-            );
-            return new ApproveReplyResponse(
-                    "ERROR",
-                    "An unexpected error occurred: " + e.getMessage(),
-                    threadId,
-                    500
-            );
         }
+        draftLoggingService.logError(
+                DraftActionType.DRAFT_APPROVED,
+                draftId,
+                threadId,
+                auth,
+                "Unexpected error while approving reply draft: " + e.getMessage(),
+                e
+        );
+        return new ApproveReplyResponse(
+                "ERROR",
+                "An unexpected error occurred: " + e.getMessage(),
+                threadId,
+                500
+        );
     }
 
-    private String extractSubjectFromMessage(Map<String, Object> message) {
-        try {
-            Map<String, Object> payload = (Map<String, Object>) message.get("payload");
-            if (payload == null) {
-                return "Re: Email";
-            }
-
-            List<Map<String, Object>> headers = (List<Map<String, Object>>) payload.get("headers");
-            if (headers == null) {
-                return "Re: Email";
-            }
+    /**
+     * Marks the draft APPROVED and leaves the send to the work queue, which retries it once
+     * Gmail accepts calls again. The reply text is kept on the draft until then.
+     */
+    private ApproveReplyResponse queueSend(
+            Authentication auth,
+            EmailReplyDraft draft,
+            String replyMessage,
+            Long userId,
+            DependencyUnavailableException unavailable
+    ) {
+        draft.setStatus(ReplyDraftStatus.APPROVED);
+        draft.setReplyMessage(replyMessage);
+        draft.setUpdatedAt(Instant.now());
+        emailReplyDraftRepository.save(draft);
+        workQueue.enqueue(WorkItemType.SEND_REPLY, WorkPriority.INTERACTIVE, userId,
+                Map.of("draftRowId", String.valueOf(draft.getId())));
+
+        draftLoggingService.logAction(
+                DraftActionType.DRAFT_APPROVED,
+                draft.getGmailDraftId(),
+                draft.getThreadId(),
+                auth,
+                true,
+                "Gmail unavailable, reply queued for sending: " + unavailable.getMessage()
+        );
+        return new ApproveReplyResponse(
+                "QUEUED",
+                "Reply to " + draft.getToEmail() + " will be sent shortly",
+                draft.getThreadId(),
+                202
+        );
+    }
 
-            return headers.stream()
-                    .filter(h -> "Subject".equalsIgnoreCase((String) h.get("name")))
-                    .map(h -> (String) h.get("value"))
-                    .findFirst()
-                    .orElse("Re: Email");
-        } catch (Exception e) {
-            log.warn("Failed to extract subject from message, using default", e);
-            return "Re: Email";
+    /**
+     * Sends a reply that was approved while Gmail was unavailable. Does nothing unless the
+     * draft is still APPROVED, so a repeated queue delivery after a completed send is a no-op.
+     */
+    @Transactional
+    public void sendQueuedReply(Authentication auth, Long draftRowId) {
+        EmailReplyDraft draft = emailReplyDraftRepository.findById(draftRowId).orElse(null);
+        if (draft == null || draft.isDeleted() || draft.getStatus() != ReplyDraftStatus.APPROVED) {
+            return;
         }
+        String accessToken = authService.getAccessToken(auth);
+        GmailMessage originalMessage = gmailClient.getMessage(accessToken, draft.getMessageId());
+        sendApprovedReply(auth, accessToken, draft, subjectOf(originalMessage), draft.getReplyMessage());
+        markSent(auth, draft, draft.getReplyMessage());
+    }
+
+    /**
+     * Returns a queued reply that could not be sent to GENERATED so the user can approve it again.
+     */
+    @Transactional
+    public void onQueuedSendDeadLettered(Authentication auth, Long draftRowId, String error) {
+        emailReplyDraftRepository.findById(draftRowId)
+                .filter(draft -> draft.getStatus() == ReplyDraftStatus.APPROVED)
+                .ifPresent(draft -> {
+                    draft.setStatus(ReplyDraftStatus.GENERATED);
+                    draft.setUpdatedAt(Instant.now());
+                    emailReplyDraftRepository.save(draft);
+                    draftLoggingService.logAction(
+                            DraftActionType.EMAIL_SENT,
+                            draft.getGmailDraftId(),
+                            draft.getThreadId(),
+                            auth,
+                            false,
+                            "Queued reply could not be sent, draft returned for approval: " + error
+                    );
+                });
+    }
+
+    private static String subjectOf(GmailMessage message) {
+        String subject = message.subject();
+        return subject == null || subject.isEmpty() ? "Re: Email" : subject;
     }
 
     @Transactional
@@ -694,9 +1030,13 @@ Context: %s
                 throw new IllegalStateException("Only GENERATED drafts can be rejected. Current status: " + draft.getStatus());
             }
 
-            // 3. Delete Gmail draft if it exists
+            // 3. Delete Gmail draft if it exists; the queue retries it if Gmail is having trouble
             String gmailDraftId = draft.getGmailDraftId();
-            if (gmailDraftId != null && !gmailDraftId.isEmpty()) {
+            Long userId = authService.userIdOf(auth);
+            if (gmailDraftId != null && !gmailDraftId.isEmpty() && userId != null) {
+                workQueue.enqueue(WorkItemType.DELETE_GMAIL_DRAFT, WorkPriority.BULK, userId,
+                        Map.of("gmailDraftId", gmailDraftId, "threadId", threadId));
+            } else if (gmailDraftId != null && !gmailDraftId.isEmpty()) {
                 try {
                     String accessToken = authService.getAccessToken(auth);
                     gmailClient.deleteDraft(accessToken, gmailDraftId);
@@ -713,7 +1053,8 @@ Context: %s
                 }
             }
 
-            // 4. Actually delete the record from database
+            // 4. Actually delete the record, and its tone variants, from database
+            emailReplyVariantRepository.deleteByDraftId(draft.getId());
             emailReplyDraftRepository.delete(draft);
             
             draftLoggingService.logAction(
@@ -781,6 +1122,35 @@ Context: %s
         }
     }
 
+    /**
+     * Sets each email's draft status and preview from its thread's latest live draft, loaded for
+     * the whole page with one {@code thread_id IN (...)} query, so the client needs no per-thread
+     * lookup to know whether a reply is waiting.
+     */
+    public List<InboxEmail> withDraftOverlay(List<InboxEmail> emails) {
+        List<String> threadIds = emails.stream()
+                .map(InboxEmail::getThreadId)
+                .filter(Objects::nonNull)
+                .distinct()
+                .toList();
+        if (threadIds.isEmpty()) {
+            return emails;
+        }
+        // Rows come newest first, so the first one seen per thread is the one getEmailBodyByThreadId returns
+        Map<String, EmailReplyDraftRepository.DraftOverlay> latest = new HashMap<>();
+        for (EmailReplyDraftRepository.DraftOverlay overlay : emailReplyDraftRepository.findOverlaysByThreadIdIn(threadIds)) {
+            latest.putIfAbsent(overlay.getThreadId(), overlay);
+        }
+        for (InboxEmail email : emails) {
+            EmailReplyDraftRepository.DraftOverlay overlay = latest.get(email.getThreadId());
+            if (overlay != null) {
+                email.setDraftStatus(overlay.getStatus());
+                email.setDraftPreview(overlay.getPreview());
+            }
+        }
+        return emails;
+    }
+
     public EmailBodyResponse getEmailBodyByThreadId(
             Authentication auth,
             String threadId
@@ -819,168 +1189,364 @@ Context: %s
     }
 
     /**
-     * Sends email reply with automatic retry logic (3 attempts).
-     * Only retries on transient errors (5xx, network errors, timeouts).
-     * Does not retry on client errors (4xx) like authentication failures.
+     * Non-blocking variant of {@link #generateReplyDraft}. The style profile and the access
+     * token are fetched concurrently, and once the reply is generated the Gmail draft is
+     * created while the row is persisted, so the critical path is the longest chain rather
+     * than the sum of every step. If either side fails the other is undone: the row is removed
+     * when Gmail rejects the draft, and the Gmail draft is deleted when the row cannot be saved.
      */
-    private void sendReplyWithRetry(
+    public CompletableFuture<ReplyDraftResponse> generateReplyDraftAsync(
             Authentication auth,
-            String accessToken,
-            String to,
-            String subject,
-            String body,
-            String threadId,
-            String messageId,
-            String draftId
+            ReplyDraftRequest request
     ) {
-        final int MAX_RETRIES = 3;
-        Exception lastException = null;
+        String threadId = request.getThreadId();
+        String recipientEmail;
+        try {
+            draftLoggingService.logAction(
+                    DraftActionType.AI_GENERATION_STARTED,
+                    null,
+                    threadId,
+                    auth,
+                    true,
+                    "Starting AI reply generation"
+            );
 
-        for (int attempt = 1; attempt <= MAX_RETRIES; attempt++) {
-            try {
-                gmailClient.sendReply(
-                        accessToken,
-                        to,
-                        subject,
-                        body,
+            if (isNoReply(request.getFrom())) {
+                draftLoggingService.logAction(
+                        DraftActionType.DRAFT_CREATED,
+                        null,
                         threadId,
-                        messageId
+                        auth,
+                        false,
+                        "No-reply email detected, skipping draft creation"
                 );
+                return CompletableFuture.completedFuture(ReplyDraftResponse.noReply(threadId));
+            }
+            recipientEmail = extractEmailFromField(request.getFrom());
+        } catch (Exception ex) {
+            return CompletableFuture.completedFuture(
+                    replyDraftFailure(auth, DraftActionType.DRAFT_CREATED, null, threadId, ex, "generate"));
+        }
 
-                // Success - log if it was a retry
-                if (attempt > 1) {
-                    Map<String, Object> context = new HashMap<>();
-                    context.put("retryAttempt", attempt);
-                    context.put("totalAttempts", attempt);
+        CompletableFuture<String> accessToken = CompletableFuture.supplyAsync(
+                () -> authService.getAccessToken(auth), taskExecutor);
+
+        return CompletableFuture.supplyAsync(() -> authService.userIdOf(auth), taskExecutor)
+                .thenCompose(userId -> generateAsync(auth, userId, request, recipientEmail, accessToken))
+                .exceptionally(ex -> replyDraftFailure(auth, DraftActionType.DRAFT_CREATED, null, threadId, ex, "generate"));
+    }
+
+    private CompletableFuture<ReplyDraftResponse> generateAsync(
+            Authentication auth,
+            Long userId,
+            ReplyDraftRequest request,
+            String recipientEmail,
+            CompletableFuture<String> accessToken
+    ) {
+        String threadId = request.getThreadId();
+        return CompletableFuture
+                .supplyAsync(() -> styleProfileService.describe(auth, userId), taskExecutor)
+                .thenCompose(profile -> request.isAllTones()
+                        ? generateAllTonesAsync(userId, profile, request.getFrom(), request.getSubject(), request.getBody())
+                        : CompletableFuture.supplyAsync(() -> Map.of(request.getTone(), generateReply(
+                                userId, profile, request.getTone(), request.getFrom(), request.getSubject(), request.getBody())),
+                                taskExecutor))
+                .thenCompose(replies -> {
                     draftLoggingService.logAction(
-                            DraftActionType.EMAIL_SENT,
-                            draftId,
+                            DraftActionType.AI_GENERATION_COMPLETED,
+                            null,
                             threadId,
                             auth,
                             true,
-                            "Reply sent successfully after " + attempt + " attempt(s)",
-                            context
+                            "AI reply generation completed successfully"
                     );
-                }
-                return; // Success, exit retry loop
-
-            } catch (GmailApiException e) {
-                lastException = e;
-                int statusCode = e.getStatusCode();
-
-                // Don't retry on client errors (4xx) - these are permanent failures
-                if (statusCode >= 400 && statusCode < 500) {
-                    Map<String, Object> context = new HashMap<>();
-                    context.put("statusCode", statusCode);
-                    context.put("attempt", attempt);
-                    context.put("retryable", false);
-                    draftLoggingService.logError(
-                            DraftActionType.EMAIL_SENT,
-                            draftId,
+                    String aiReply = replies.get(request.getTone());
+                    CompletableFuture<String> draftId = accessToken.thenApplyAsync(token -> gmailClient.createReplyDraft(
+                            token,
+                            recipientEmail,
+                            request.getSubject(),
+                            aiReply,
                             threadId,
-                            auth,
-                            "Failed to send email (non-retryable error): " + e.getMessage(),
-                            e,
-                            context
-                    );
-                    throw e; // Don't retry client errors
-                }
+                            request.getMessageId()
+                    ), taskExecutor);
+                    CompletableFuture<EmailReplyDraft> saved = CompletableFuture.supplyAsync(
+                            () -> emailReplyDraftRepository.save(newReplyDraft(request, recipientEmail, aiReply, null)),
+                            taskExecutor);
+
+                    return draftId.thenCombineAsync(saved, (id, entity) -> {
+                        entity.setGmailDraftId(id);
+                        emailReplyDraftRepository.save(entity);
+                        if (request.isAllTones()) {
+                            saveVariants(entity.getId(), replies);
+                        }
+                        draftLoggingService.logAction(
+                                DraftActionType.DRAFT_CREATED,
+                                id,
+                                threadId,
+                                auth,
+                                true,
+                                "Reply draft created and saved to database"
+                        );
+                        inboxEventService.publish(userId, InboxEvent.draftReady(threadId, id));
+                        ReplyDraftResponse response = ReplyDraftResponse.success(id, threadId, aiReply);
+                        response.setVariants(request.isAllTones() ? replies : null);
+                        return response;
+                    }, taskExecutor).whenComplete((response, ex) -> {
+                        if (ex != null) {
+                            saved.thenAccept(emailReplyDraftRepository::delete);
+                            draftId.thenAccept(id -> discardGmailDraft(auth, userId, threadId, id));
+                        }
+                    });
+                });
+    }
 
-                // Retry on server errors (5xx) and other exceptions
-                Map<String, Object> context = new HashMap<>();
-                context.put("statusCode", statusCode);
-                context.put("attempt", attempt);
-                context.put("maxRetries", MAX_RETRIES);
-                context.put("retryable", true);
+    /**
+     * Non-blocking variant of {@link #regenerateReplyDraft}. The original message and the
+     * style profile are fetched concurrently; the new text is only persisted once Gmail has
+     * accepted it, so a failed update leaves the stored draft matching the one in Gmail.
+     */
+    public CompletableFuture<ReplyDraftResponse> regenerateReplyDraftAsync(
+            Authentication auth,
+            String threadId,
+            Tone tone
+    ) {
+        draftLoggingService.logAction(
+                DraftActionType.DRAFT_EDITED,
+                null,
+                threadId,
+                auth,
+                true,
+                "Starting draft regeneration"
+        );
 
-                if (attempt < MAX_RETRIES) {
-                    long delayMs = calculateBackoffDelay(attempt);
-                    draftLoggingService.logAction(
-                            DraftActionType.EMAIL_SENT,
-                            draftId,
-                            threadId,
-                            auth,
-                            false,
-                            "Failed to send email (attempt " + attempt + "/" + MAX_RETRIES + "), retrying in " + delayMs + "ms: " + e.getMessage(),
-                            context
-                    );
-                    try {
-                        Thread.sleep(delayMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Retry interrupted", ie);
+        return CompletableFuture
+                .supplyAsync(() -> emailReplyDraftRepository.findByThreadIdAndDeletedFalseOrderByCreatedAtDesc(threadId),
+                        taskExecutor)
+                .handle((drafts, lookupFailure) -> {
+                    if (lookupFailure != null) {
+                        return CompletableFuture.completedFuture(replyDraftFailure(
+                                auth, DraftActionType.DRAFT_REGENERATED, null, threadId, lookupFailure, "regenerate"));
                     }
-                } else {
-                    // Last attempt failed
-                    draftLoggingService.logError(
-                            DraftActionType.EMAIL_SENT,
-                            draftId,
-                            threadId,
-                            auth,
-                            "Failed to send email after " + MAX_RETRIES + " attempts: " + e.getMessage(),
-                            e,
-                            context
-                    );
-                }
-
-            } catch (Exception e) {
-                lastException = e;
-                // Retry on other exceptions (network errors, timeouts, etc.)
-                Map<String, Object> context = new HashMap<>();
-                context.put("attempt", attempt);
-                context.put("maxRetries", MAX_RETRIES);
-                context.put("retryable", true);
-                context.put("exceptionType", e.getClass().getName());
-
-                if (attempt < MAX_RETRIES) {
-                    long delayMs = calculateBackoffDelay(attempt);
-                    draftLoggingService.logAction(
-                            DraftActionType.EMAIL_SENT,
-                            draftId,
-                            threadId,
-                            auth,
-                            false,
-                            "Failed to send email (attempt " + attempt + "/" + MAX_RETRIES + "), retrying in " + delayMs + "ms: " + e.getMessage(),
-                            context
-                    );
-                    try {
-                        Thread.sleep(delayMs);
-                    } catch (InterruptedException ie) {
-                        Thread.currentThread().interrupt();
-                        throw new RuntimeException("Retry interrupted", ie);
+                    if (drafts.isEmpty()) {
+                        draftLoggingService.logAction(
+                                DraftActionType.DRAFT_EDITED,
+                                null,
+                                threadId,
+                                auth,
+                                false,
+                                "No reply draft found for regeneration"
+                        );
+                        return CompletableFuture.completedFuture(ReplyDraftResponse.failed(
+                                "Reply draft not found for threadId: " + threadId,
+                                threadId
+                        ));
                     }
-                } else {
-                    // Last attempt failed
-                    draftLoggingService.logError(
-                            DraftActionType.EMAIL_SENT,
-                            draftId,
-                            threadId,
-                            auth,
-                            "Failed to send email after " + MAX_RETRIES + " attempts: " + e.getMessage(),
-                            e,
-                            context
-                    );
-                }
-            }
+                    EmailReplyDraft draft = drafts.get(0);
+                    return regenerateAsync(auth, draft, tone != null ? tone : Tone.FRIENDLY)
+                            .exceptionally(ex -> replyDraftFailure(
+                                    auth, DraftActionType.DRAFT_REGENERATED, draft.getGmailDraftId(), threadId, ex, "regenerate"));
+                })
+                .thenCompose(Function.identity());
+    }
+
+    private CompletableFuture<ReplyDraftResponse> regenerateAsync(Authentication auth, EmailReplyDraft draft, Tone tone) {
+        String threadId = draft.getThreadId();
+        String previousDraftId = draft.getGmailDraftId();
+
+        CompletableFuture<String> accessToken = CompletableFuture.supplyAsync(
+                () -> authService.getAccessToken(auth), taskExecutor);
+        CompletableFuture<GmailMessage> originalMessage = accessToken.thenApplyAsync(
+                token -> gmailClient.getMessage(token, draft.getMessageId()), taskExecutor);
+
+        return CompletableFuture.supplyAsync(() -> authService.userIdOf(auth), taskExecutor)
+                .thenCompose(userId -> CompletableFuture
+                        .supplyAsync(() -> styleProfileService.describe(auth, userId), taskExecutor)
+                        .thenCombineAsync(originalMessage, (profile, message) -> {
+                            String subject = subjectOf(message);
+                            String aiReply = generateReply(userId, profile, tone, draft.getFromEmail(), subject, message.body());
+                            draftLoggingService.logAction(
+                                    DraftActionType.AI_GENERATION_COMPLETED,
+                                    previousDraftId,
+                                    threadId,
+                                    auth,
+                                    true,
+                                    "AI reply regeneration completed successfully"
+                            );
+                            return new GeneratedReply(subject, aiReply);
+                        }, taskExecutor)
+                        .thenCombineAsync(accessToken, (reply, token) -> {
+                            String id = upsertGmailDraft(auth, token, draft, reply.subject(), reply.body());
+
+                            draft.setReplyMessage(reply.body());
+                            draft.setGmailDraftId(id);
+                            draft.setStatus(ReplyDraftStatus.GENERATED);
+                            draft.setTone(tone);
+                            draft.setGmailDraftStale(false);
+                            draft.setUpdatedAt(Instant.now());
+                            emailReplyDraftRepository.save(draft);
+                            refreshVariant(draft.getId(), tone, reply.body());
+
+                            draftLoggingService.logAction(
+                                    DraftActionType.DRAFT_REGENERATED,
+                                    id,
+                                    threadId,
+                                    auth,
+                                    true,
+                                    "Reply draft regenerated and updated in database"
+                            );
+                            inboxEventService.publish(userId, InboxEvent.draftReady(threadId, id));
+                            return ReplyDraftResponse.success(id, threadId, reply.body());
+                        }, taskExecutor));
+    }
+
+    /**
+     * Non-blocking variant of {@link #approveReplyDraft}. The draft lookup and the access
+     * token are resolved concurrently; sending stays strictly before the status update so a
+     * row is never marked SENT for a reply Gmail did not accept.
+     */
+    public CompletableFuture<ApproveReplyResponse> approveReplyDraftAsync(
+            Authentication auth,
+            String threadId,
+            String replyMessage
+    ) {
+        draftLoggingService.logAction(
+                DraftActionType.DRAFT_APPROVED,
+                null,
+                threadId,
+                auth,
+                true,
+                "Starting draft approval process"
+        );
+
+        CompletableFuture<EmailReplyDraft> draft = CompletableFuture.supplyAsync(
+                () -> findApprovableDraft(auth, threadId, replyMessage), taskExecutor);
+        CompletableFuture<String> accessToken = CompletableFuture.supplyAsync(
+                () -> authService.getAccessToken(auth), taskExecutor);
+
+        return draft
+                .thenCombineAsync(accessToken, (approvable, token) -> {
+                    GmailMessage originalMessage = gmailClient.getMessage(token, approvable.getMessageId());
+                    sendApprovedReply(auth, token, approvable, subjectOf(originalMessage), replyMessage);
+                    return markSent(auth, approvable, replyMessage);
+                }, taskExecutor)
+                .exceptionally(ex -> {
+                    EmailReplyDraft approvable = draft.isDone() && !draft.isCompletedExceptionally()
+                            ? draft.join()
+                            : null;
+                    return approveFailure(auth, threadId, approvable, replyMessage, asException(unwrap(ex)));
+                });
+    }
+
+    private ReplyDraftResponse replyDraftFailure(
+            Authentication auth,
+            DraftActionType action,
+            String draftId,
+            String threadId,
+            Throwable failure,
+            String verb
+    ) {
+        Throwable cause = unwrap(failure);
+        if (cause instanceof DependencyUnavailableException unavailable) {
+            draftLoggingService.logError(
+                    action,
+                    draftId,
+                    threadId,
+                    auth,
+                    "Rejected attempt to " + verb + " reply draft: " + cause.getMessage(),
+                    unavailable
+            );
+            throw unavailable;
         }
+        draftLoggingService.logError(
+                action,
+                draftId,
+                threadId,
+                auth,
+                "Failed to " + verb + " reply draft: " + cause.getMessage(),
+                cause
+        );
+        return ReplyDraftResponse.failed(
+                "Unable to " + verb + " reply draft: " + cause.getMessage(),
+                threadId
+        );
+    }
 
-        // All retries exhausted, throw the last exception
-        if (lastException != null) {
-            throw new RuntimeException("Failed to send email after " + MAX_RETRIES + " attempts", lastException);
+    private static Throwable unwrap(Throwable failure) {
+        return failure instanceof CompletionException && failure.getCause() != null
+                ? failure.getCause()
+                : failure;
+    }
+
+    private static Exception asException(Throwable failure) {
+        if (failure instanceof Exception e) {
+            return e;
         }
+        if (failure instanceof Error error) {
+            throw error;
+        }
+        return new RuntimeException(failure);
+    }
+
+    private record GeneratedReply(String subject, String body) {
     }
 
     /**
-     * Calculates exponential backoff delay in milliseconds.
-     * Formula: baseDelay * (2 ^ (attempt - 1))
-     * Attempt 1: 1 second
-     * Attempt 2: 2 seconds
-     * Attempt 3: 4 seconds
+     * Sends the approved reply. Transient failures are retried by the Gmail resilience
+     * policy around {@link GmailClient#sendReply}; sends are only retried when Gmail
+     * provably did not accept them (429 or connect failure).
+     *
+     * Every send of a draft carries the same client Message-ID. The first attempt is recorded
+     * on the draft before Gmail is called; any later attempt (client resubmit after a timeout,
+     * queued retry, crash recovery) first searches for that Message-ID and skips the send if
+     * an earlier attempt already went through.
      */
-    private long calculateBackoffDelay(int attempt) {
-        long baseDelayMs = 1000; // 1 second base delay
-        return baseDelayMs * (long) Math.pow(2, attempt - 1);
+    private void sendApprovedReply(
+            Authentication auth,
+            String accessToken,
+            EmailReplyDraft draft,
+            String subject,
+            String body
+    ) {
+        String clientMessageId = clientMessageIdOf(draft);
+        try {
+            if (draft.getSendAttemptedAt() != null
+                    && gmailClient.findMessageIdByRfc822Id(accessToken, clientMessageId) != null) {
+                log.info("[EMAIL_SEND] already sent by an earlier attempt threadId={} clientMessageId={}",
+                        draft.getThreadId(), clientMessageId);
+                return;
+            }
+            Instant attemptedAt = Instant.now();
+            draft.setSendAttemptedAt(attemptedAt);
+            emailReplyDraftRepository.markSendAttempted(draft.getId(), attemptedAt);
+
+            gmailClient.sendReply(
+                    accessToken,
+                    draft.getToEmail(),
+                    subject,
+                    body,
+                    draft.getThreadId(),
+                    draft.getMessageId(),
+                    clientMessageId
+            );
+        } catch (RuntimeException e) {
+            Map<String, Object> context = new HashMap<>();
+            context.put("statusCode", FailureClassifier.statusCodeOf(e));
+            context.put("exceptionType", e.getClass().getName());
+            draftLoggingService.logError(
+                    DraftActionType.EMAIL_SENT,
+                    draft.getGmailDraftId(),
+                    draft.getThreadId(),
+                    auth,
+                    "Failed to send email: " + e.getMessage(),
+                    e,
+                    context
+            );
+            throw e;
+        }
     }
 
-}
+    private String clientMessageIdOf(EmailReplyDraft draft) {
+        return "draftly-reply-" + draft.getId() + "@" + messageIdDomain;
+    }
 
+}
@@ -1,23 +1,35 @@
 package com.assignment.draftly.services;
 
+import com.assignment.draftly.dto.EmailBodyResponse;
+import com.assignment.draftly.dto.InboxEmail;
 import com.assignment.draftly.entity.User;
 import com.assignment.draftly.integrations.GmailClient;
 import com.assignment.draftly.repository.UserRepository;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClient;
 import org.springframework.security.oauth2.client.OAuth2AuthorizedClientService;
 import org.springframework.stereotype.Service;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
 import java.util.List;
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
 
+    // Inbox cursors are the Gmail page token, versioned and Base64url encoded so clients treat them as opaque
+    private static final String CURSOR_PREFIX = "v1:";
+
     private final GmailClient gmailClient;
+    @Value("${draftly.inbox.page-size:10}")
+    private final int defaultPageSize;
+    @Value("${draftly.inbox.max-page-size:100}")
+    private final int maxPageSize;
 
     public List<String> getLast10SentEmailBodies(Authentication auth) {
 
@@ -33,4 +45,45 @@ public class EmailService {
 
         return gmailClient.fetchLast10SentEmailBodies(googleAccessToken);
     }
+
+    /**
+     * A page of the inbox starting at {@code cursor} (null for the newest messages). The page size
+     * defaults to {@code draftly.inbox.page-size} and is capped at {@code draftly.inbox.max-page-size}.
+     */
+    public GmailClient.InboxPage getInboxPage(String accessToken, String cursor, Integer pageSize, boolean metadataOnly) {
+        int size = pageSize == null ? defaultPageSize : Math.max(1, Math.min(pageSize, maxPageSize));
+        return gmailClient.fetchInboxPage(accessToken, size, decodeCursor(cursor), metadataOnly);
+    }
+
+    /** The body of one message, for inbox pages listed without bodies. */
+    public EmailBodyResponse getMessageBody(String accessToken, String messageId) {
+        InboxEmail email = gmailClient.toInboxEmail(gmailClient.getMessage(accessToken, messageId));
+        return new EmailBodyResponse(email.getThreadId(), email.getFrom(), email.getSubject(), email.getBody(),
+                email.getMessageId());
+    }
+
+    /** The opaque cursor for Gmail {@code pageToken}, or null when there is no next page. */
+    public static String encodeCursor(String pageToken) {
+        if (pageToken == null) {
+            return null;
+        }
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString((CURSOR_PREFIX + pageToken).getBytes(StandardCharsets.UTF_8));
+    }
+
+    static String decodeCursor(String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String decoded;
+        try {
+            decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid inbox cursor");
+        }
+        if (!decoded.startsWith(CURSOR_PREFIX) || decoded.length() == CURSOR_PREFIX.length()) {
+            throw new IllegalArgumentException("Invalid inbox cursor");
+        }
+        return decoded.substring(CURSOR_PREFIX.length());
+    }
 }
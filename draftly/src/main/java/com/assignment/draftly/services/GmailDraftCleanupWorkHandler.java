@@ -0,0 +1,49 @@
+package com.assignment.draftly.services;
+
+import java.util.Map;
+
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Component;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.DraftActionType;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.integrations.GmailClient;
+import com.assignment.draftly.queue.WorkHandler;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Deletes the Gmail drafts of rejected replies in the background.
+ */
+@Component
+@RequiredArgsConstructor
+public class GmailDraftCleanupWorkHandler implements WorkHandler {
+
+    private final AuthService authService;
+    private final GmailClient gmailClient;
+    private final DraftLoggingService draftLoggingService;
+
+    @Override
+    public WorkItemType type() {
+        return WorkItemType.DELETE_GMAIL_DRAFT;
+    }
+
+    @Override
+    public void handle(WorkItem item, Map<String, String> payload) {
+        Authentication auth = authService.authenticationFor(item.getUserId());
+        gmailClient.deleteDraft(authService.getAccessToken(auth), payload.get("gmailDraftId"));
+    }
+
+    @Override
+    public void onDeadLetter(WorkItem item, Map<String, String> payload, String error) {
+        draftLoggingService.logAction(
+                DraftActionType.GMAIL_DRAFT_DELETED,
+                payload.get("gmailDraftId"),
+                payload.get("threadId"),
+                authService.authenticationFor(item.getUserId()),
+                false,
+                "Failed to delete Gmail draft of rejected reply: " + error
+        );
+    }
+}
@@ -0,0 +1,37 @@
+package com.assignment.draftly.services;
+
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.queue.WorkHandler;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Copies a settled tone switch to the Gmail draft. Items of earlier switches find the draft
+ * selected again since and do nothing.
+ */
+@Component
+@RequiredArgsConstructor
+public class GmailDraftSyncWorkHandler implements WorkHandler {
+
+    private final AuthService authService;
+    private final EmailDraftService emailDraftService;
+
+    @Override
+    public WorkItemType type() {
+        return WorkItemType.SYNC_GMAIL_DRAFT;
+    }
+
+    @Override
+    public void handle(WorkItem item, Map<String, String> payload) {
+        emailDraftService.syncSettledGmailDraft(
+                authService.authenticationFor(item.getUserId()),
+                Long.valueOf(payload.get("draftRowId")),
+                Long.parseLong(payload.get("selectedAt"))
+        );
+    }
+}
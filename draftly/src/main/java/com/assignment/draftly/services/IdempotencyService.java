@@ -0,0 +1,225 @@
+package com.assignment.draftly.services;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import com.assignment.draftly.entity.IdempotencyRecord;
+import com.assignment.draftly.enums.IdempotencyStatus;
+import com.assignment.draftly.exceptionHandler.IdempotencyConflictException;
+import com.assignment.draftly.repository.IdempotencyRecordRepository;
+
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Runs a request at most once per {@code Idempotency-Key}.
+ *
+ * The first request with a key inserts an IN_PROGRESS record (the unique key makes
+ * concurrent duplicates lose), runs, and stores its response; later requests with the same
+ * key get the stored response without running anything. A request that throws, or whose
+ * response is not final (a transient failure such as a 5xx), releases the key so it can be
+ * retried. If the first request died mid-way, the key can be taken over
+ * once the record has been IN_PROGRESS for {@code in-progress-timeout-ms}.
+ */
+@Slf4j
+@Service
+public class IdempotencyService {
+
+    private static final int MAX_KEY_LENGTH = 255;
+
+    private final IdempotencyRecordRepository recordRepository;
+    private final AuthService authService;
+    private final JsonMapper jsonMapper;
+    private final Duration inProgressTimeout;
+    private final Duration retention;
+
+    public IdempotencyService(
+            IdempotencyRecordRepository recordRepository,
+            AuthService authService,
+            JsonMapper jsonMapper,
+            @Value("${draftly.idempotency.in-progress-timeout-ms:120000}") long inProgressTimeoutMillis,
+            @Value("${draftly.idempotency.retention-ms:86400000}") long retentionMillis
+    ) {
+        this.recordRepository = recordRepository;
+        this.authService = authService;
+        this.jsonMapper = jsonMapper;
+        this.inProgressTimeout = Duration.ofMillis(inProgressTimeoutMillis);
+        this.retention = Duration.ofMillis(retentionMillis);
+    }
+
+    /**
+     * Runs {@code action} unless a response for this key is already stored. Without a key the
+     * action simply runs. {@code requestParts} identify the request the key was issued for.
+     * Only responses {@code isFinal} accepts are stored; for any other the key is released.
+     */
+    public <T> T execute(
+            Authentication auth,
+            String key,
+            String operation,
+            List<String> requestParts,
+            Class<T> responseType,
+            Predicate<T> isFinal,
+            Supplier<T> action
+    ) {
+        if (key == null) {
+            return action.get();
+        }
+        Claim<T> claim = claim(auth, key, operation, requestParts, responseType);
+        if (claim.replay() != null) {
+            return claim.replay();
+        }
+        T response;
+        try {
+            response = action.get();
+        } catch (RuntimeException e) {
+            release(claim.record());
+            throw e;
+        }
+        finish(claim.record(), response, isFinal);
+        return response;
+    }
+
+    public <T> CompletableFuture<T> executeAsync(
+            Authentication auth,
+            String key,
+            String operation,
+            List<String> requestParts,
+            Class<T> responseType,
+            Predicate<T> isFinal,
+            Supplier<CompletableFuture<T>> action
+    ) {
+        if (key == null) {
+            return action.get();
+        }
+        Claim<T> claim = claim(auth, key, operation, requestParts, responseType);
+        if (claim.replay() != null) {
+            return CompletableFuture.completedFuture(claim.replay());
+        }
+        CompletableFuture<T> result;
+        try {
+            result = action.get();
+        } catch (RuntimeException e) {
+            release(claim.record());
+            throw e;
+        }
+        return result.whenComplete((response, failure) -> {
+            if (failure != null) {
+                release(claim.record());
+            } else {
+                finish(claim.record(), response, isFinal);
+            }
+        });
+    }
+
+    private <T> Claim<T> claim(
+            Authentication auth,
+            String key,
+            String operation,
+            List<String> requestParts,
+            Class<T> responseType
+    ) {
+        if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+            throw new IllegalArgumentException("Idempotency-Key must be 1-" + MAX_KEY_LENGTH + " characters");
+        }
+        Long userId = authService.userIdOf(auth);
+        if (userId == null) {
+            throw new IllegalStateException("Invalid authentication principal");
+        }
+        String requestHash = hash(operation, requestParts);
+
+        Instant now = Instant.now();
+        IdempotencyRecord record = new IdempotencyRecord();
+        record.setUserId(userId);
+        record.setIdempotencyKey(key);
+        record.setOperation(operation);
+        record.setRequestHash(requestHash);
+        record.setStatus(IdempotencyStatus.IN_PROGRESS);
+        record.setCreatedAt(now);
+        record.setUpdatedAt(now);
+        try {
+            return new Claim<>(recordRepository.saveAndFlush(record), null);
+        } catch (DataIntegrityViolationException duplicate) {
+            // Another request already holds this key
+        }
+
+        IdempotencyRecord existing = recordRepository.findByUserIdAndIdempotencyKey(userId, key)
+                .orElseThrow(() -> new IdempotencyConflictException("Request with this Idempotency-Key is still in progress"));
+        if (!existing.getRequestHash().equals(requestHash)) {
+            throw new IllegalArgumentException("Idempotency-Key was already used for a different request");
+        }
+        if (existing.getStatus() == IdempotencyStatus.COMPLETED) {
+            log.info("[IDEMPOTENCY] replay operation={} userId={} key={}", operation, userId, key);
+            return new Claim<>(existing, jsonMapper.readValue(existing.getResponseBody(), responseType));
+        }
+        if (recordRepository.claimStale(existing.getId(), now.minus(inProgressTimeout), now) == 1) {
+            log.warn("[IDEMPOTENCY] taking over stale request operation={} userId={} key={}", operation, userId, key);
+            return new Claim<>(existing, null);
+        }
+        throw new IdempotencyConflictException("Request with this Idempotency-Key is still in progress");
+    }
+
+    private <T> void finish(IdempotencyRecord record, T response, Predicate<T> isFinal) {
+        if (isFinal.test(response)) {
+            complete(record, response);
+        } else {
+            // A retry may well succeed; replaying this failure would keep it from being tried
+            release(record);
+        }
+    }
+
+    private void complete(IdempotencyRecord record, Object response) {
+        record.setStatus(IdempotencyStatus.COMPLETED);
+        record.setResponseBody(jsonMapper.writeValueAsString(response));
+        record.setUpdatedAt(Instant.now());
+        recordRepository.save(record);
+    }
+
+    private void release(IdempotencyRecord record) {
+        try {
+            recordRepository.deleteById(record.getId());
+        } catch (RuntimeException e) {
+            // The key stays blocked until the in-progress timeout; nothing else to do
+            log.warn("[IDEMPOTENCY] failed to release key id={} error={}", record.getId(), e.getMessage());
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.idempotency.cleanup-interval-ms:3600000}")
+    void purgeExpiredRecords() {
+        int deleted = recordRepository.deleteCreatedBefore(Instant.now().minus(retention));
+        if (deleted > 0) {
+            log.info("[IDEMPOTENCY] purged records count={}", deleted);
+        }
+    }
+
+    private static String hash(String operation, List<String> requestParts) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(operation.getBytes(StandardCharsets.UTF_8));
+            for (String part : requestParts) {
+                // Length-prefix each part so ("ab", "c") and ("a", "bc") differ
+                String value = part == null ? "" : part;
+                digest.update((value.length() + ":" + value).getBytes(StandardCharsets.UTF_8));
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 not available", e);
+        }
+    }
+
+    private record Claim<T>(IdempotencyRecord record, T replay) {
+    }
+}
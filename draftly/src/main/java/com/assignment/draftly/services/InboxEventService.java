@@ -0,0 +1,243 @@
+package com.assignment.draftly.services;
+
+import java.io.IOException;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import com.assignment.draftly.dto.InboxEvent;
+import com.assignment.draftly.enums.InboxEventType;
+import com.assignment.draftly.exceptionHandler.GmailApiException;
+import com.assignment.draftly.integrations.GmailClient;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Pushes inbox events to a user's open {@code /emails/events} streams.
+ *
+ * Each tab holds its own SSE connection, but a user has a single Gmail poller: on every tick
+ * one history delta is read from the user's last historyId, and new inbox messages fan out to
+ * all of that user's connections. Draft and send events are published directly by the services
+ * that complete them. The poller and its historyId go away with the user's last connection.
+ */
+@Slf4j
+@Service
+public class InboxEventService implements DisposableBean {
+
+    private final GmailClient gmailClient;
+    private final AuthService authService;
+    private final AsyncTaskExecutor taskExecutor;
+    private final long emitterTimeoutMillis;
+    private final int maxConnectionsPerUser;
+
+    private final ConcurrentHashMap<Long, Subscription> subscriptions = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+
+    private final Counter polls;
+    private final Map<InboxEventType, Counter> published = new EnumMap<>(InboxEventType.class);
+
+    public InboxEventService(
+            GmailClient gmailClient,
+            AuthService authService,
+            @Qualifier("applicationTaskExecutor") AsyncTaskExecutor taskExecutor,
+            MeterRegistry meterRegistry,
+            @Value("${draftly.events.emitter-timeout-ms:1800000}") long emitterTimeoutMillis,
+            @Value("${draftly.events.max-connections-per-user:8}") int maxConnectionsPerUser
+    ) {
+        this.gmailClient = gmailClient;
+        this.authService = authService;
+        this.taskExecutor = taskExecutor;
+        this.emitterTimeoutMillis = emitterTimeoutMillis;
+        this.maxConnectionsPerUser = maxConnectionsPerUser;
+
+        this.polls = Counter.builder("draftly.events.polls")
+                .description("Gmail history delta checks made for users with open event streams")
+                .register(meterRegistry);
+        for (InboxEventType type : InboxEventType.values()) {
+            published.put(type, Counter.builder("draftly.events.published")
+                    .description("Inbox events sent to open event streams")
+                    .tag("type", type.name())
+                    .register(meterRegistry));
+        }
+        Gauge.builder("draftly.events.users", subscriptions, ConcurrentHashMap::size)
+                .description("Users with at least one open event stream")
+                .register(meterRegistry);
+        Gauge.builder("draftly.events.connections", subscriptions,
+                        s -> s.values().stream().mapToInt(sub -> sub.emitters.size()).sum())
+                .description("Open event streams")
+                .register(meterRegistry);
+    }
+
+    /**
+     * Opens an event stream for the user. Beyond {@code max-connections-per-user} the oldest
+     * stream is closed; its tab reconnects if it is still open.
+     */
+    public SseEmitter subscribe(Long userId) {
+        if (userId == null) {
+            throw new IllegalArgumentException("Unknown user");
+        }
+        SseEmitter emitter = new SseEmitter(emitterTimeoutMillis);
+        emitter.onCompletion(() -> unsubscribe(userId, emitter));
+        emitter.onTimeout(() -> unsubscribe(userId, emitter));
+        emitter.onError(e -> unsubscribe(userId, emitter));
+
+        AtomicBoolean created = new AtomicBoolean();
+        Subscription subscription = subscriptions.compute(userId, (id, existing) -> {
+            Subscription s = existing;
+            if (s == null) {
+                s = new Subscription();
+                created.set(true);
+            }
+            s.emitters.add(emitter);
+            return s;
+        });
+        if (subscription.emitters.size() > maxConnectionsPerUser) {
+            SseEmitter oldest = subscription.emitters.get(0);
+            subscription.emitters.remove(oldest);
+            oldest.complete();
+        }
+
+        if (!send(emitter, SseEmitter.event().comment("connected"))) {
+            unsubscribe(userId, emitter);
+        }
+        if (created.get()) {
+            // Take the historyId baseline now so mail arriving before the first tick is not missed
+            schedulePoll(userId, subscription);
+        }
+        return emitter;
+    }
+
+    /** Sends {@code event} to every open stream of the user; a no-op when none is open. */
+    public void publish(Long userId, InboxEvent event) {
+        Subscription subscription = userId != null ? subscriptions.get(userId) : null;
+        if (subscription == null) {
+            return;
+        }
+        publish(userId, subscription, event);
+    }
+
+    @Scheduled(fixedDelayString = "${draftly.events.poll-interval-ms:15000}")
+    void pollMailboxes() {
+        subscriptions.forEach((userId, subscription) -> {
+            // Doubles as a heartbeat, so streams of closed tabs are noticed and dropped
+            for (SseEmitter emitter : subscription.emitters) {
+                if (!send(emitter, SseEmitter.event().comment("ping"))) {
+                    unsubscribe(userId, emitter);
+                }
+            }
+            schedulePoll(userId, subscription);
+        });
+    }
+
+    private void schedulePoll(Long userId, Subscription subscription) {
+        // One poll per user at a time, however many tabs are open
+        if (!subscription.polling.compareAndSet(false, true)) {
+            return;
+        }
+        try {
+            taskExecutor.execute(() -> {
+                try {
+                    poll(userId, subscription);
+                } finally {
+                    subscription.polling.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            subscription.polling.set(false);
+            log.warn("[INBOX_EVENTS] poll not scheduled userId={} error={}", userId, e.getMessage());
+        }
+    }
+
+    private void poll(Long userId, Subscription subscription) {
+        try {
+            String accessToken = authService.getAccessToken(authService.authenticationFor(userId));
+            polls.increment();
+            if (subscription.historyId == 0) {
+                subscription.historyId = gmailClient.fetchCurrentHistoryId(accessToken);
+                return;
+            }
+            GmailClient.HistoryDelta delta;
+            try {
+                delta = gmailClient.fetchInboxHistory(accessToken, subscription.historyId);
+            } catch (GmailApiException e) {
+                if (e.getStatusCode() != 404) {
+                    throw e;
+                }
+                // History expired; resume from now, clients reload the inbox on their next visit
+                subscription.historyId = gmailClient.fetchCurrentHistoryId(accessToken);
+                return;
+            }
+            for (String messageId : delta.addedMessageIds()) {
+                try {
+                    publish(userId, subscription, InboxEvent.newMessage(gmailClient.getMessageMetadata(accessToken, messageId)));
+                } catch (GmailApiException e) {
+                    // Deleted again before we saw it
+                    log.debug("[INBOX_EVENTS] new message skipped userId={} messageId={} statusCode={}",
+                            userId, messageId, e.getStatusCode());
+                }
+            }
+            subscription.historyId = delta.historyId();
+        } catch (Exception e) {
+            log.warn("[INBOX_EVENTS] poll failed userId={} error={}", userId, e.getMessage());
+        }
+    }
+
+    private void publish(Long userId, Subscription subscription, InboxEvent event) {
+        SseEmitter.SseEventBuilder builder = SseEmitter.event()
+                .id(String.valueOf(eventIds.incrementAndGet()))
+                .name(event.getType().name())
+                .data(event, MediaType.APPLICATION_JSON);
+        for (SseEmitter emitter : subscription.emitters) {
+            if (!send(emitter, builder)) {
+                unsubscribe(userId, emitter);
+            }
+        }
+        published.get(event.getType()).increment();
+    }
+
+    private static boolean send(SseEmitter emitter, SseEmitter.SseEventBuilder event) {
+        try {
+            emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            return false;
+        }
+    }
+
+    private void unsubscribe(Long userId, SseEmitter emitter) {
+        subscriptions.computeIfPresent(userId, (id, subscription) -> {
+            subscription.emitters.remove(emitter);
+            return subscription.emitters.isEmpty() ? null : subscription;
+        });
+    }
+
+    @Override
+    public void destroy() {
+        subscriptions.values().forEach(subscription -> subscription.emitters.forEach(SseEmitter::complete));
+        subscriptions.clear();
+    }
+
+    private static final class Subscription {
+
+        private final List<SseEmitter> emitters = new CopyOnWriteArrayList<>();
+        private final AtomicBoolean polling = new AtomicBoolean();
+        // Gmail historyId the next delta starts from; 0 until the baseline is taken
+        private volatile long historyId;
+    }
+}
@@ -0,0 +1,44 @@
+package com.assignment.draftly.services;
+
+import java.util.Map;
+
+import org.springframework.stereotype.Component;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.queue.WorkHandler;
+
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Sends replies that were approved while Gmail was refusing calls.
+ */
+@Component
+@RequiredArgsConstructor
+public class ReplySendWorkHandler implements WorkHandler {
+
+    private final AuthService authService;
+    private final EmailDraftService emailDraftService;
+
+    @Override
+    public WorkItemType type() {
+        return WorkItemType.SEND_REPLY;
+    }
+
+    @Override
+    public void handle(WorkItem item, Map<String, String> payload) {
+        emailDraftService.sendQueuedReply(
+                authService.authenticationFor(item.getUserId()),
+                Long.valueOf(payload.get("draftRowId"))
+        );
+    }
+
+    @Override
+    public void onDeadLetter(WorkItem item, Map<String, String> payload, String error) {
+        emailDraftService.onQueuedSendDeadLettered(
+                authService.authenticationFor(item.getUserId()),
+                Long.valueOf(payload.get("draftRowId")),
+                error
+        );
+    }
+}
@@ -0,0 +1,132 @@
+package com.assignment.draftly.services;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.security.core.Authentication;
+import org.springframework.stereotype.Service;
+
+import com.assignment.draftly.entity.UserStyleProfile;
+import com.assignment.draftly.integrations.GmailClient;
+import com.assignment.draftly.integrations.GmailMessage;
+import com.assignment.draftly.repository.UserStyleProfileRepository;
+import com.assignment.draftly.style.StyleStats;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Keeps each user's {@link StyleStats} profile and hands out its descriptor for prompts.
+ *
+ * A profile is refreshed when the user has sent mail since ({@link #onMailSent}) or after
+ * {@code draftly.style.refresh-ms}. A refresh lists the latest sent ids and reads only the
+ * messages it has not folded in yet, so it usually costs one list call.
+ *
+ * The profile also tracks how much the user edits generated replies before sending them, which
+ * model routing reads through {@link #editRatio} without another query.
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class StyleProfileService {
+
+    private static final int MAX_SEEN_IDS = 50;
+
+    private final AuthService authService;
+    private final GmailClient gmailClient;
+    private final UserStyleProfileRepository userStyleProfileRepository;
+    private final JsonMapper jsonMapper;
+    @Value("${draftly.style.refresh-ms:21600000}")
+    private final long refreshMillis;
+
+    // Last edit ratio seen on each user's profile
+    private final Map<Long, Double> editRatios = new ConcurrentHashMap<>();
+
+    /**
+     * The style descriptor of {@code userId} (from {@link AuthService#userIdOf}, resolved once by the
+     * caller), refreshed from Gmail first when it is missing or out of date.
+     */
+    public String describe(Authentication auth, Long userId) {
+        UserStyleProfile profile = userId != null ? userStyleProfileRepository.findByUserId(userId).orElse(null) : null;
+        if (profile != null) {
+            editRatios.put(userId, profile.getEditRatio());
+        }
+        if (profile != null && profile.getVersion() == StyleStats.VERSION && !profile.isStale()
+                && profile.getUpdatedAt().isAfter(Instant.now().minusMillis(refreshMillis))) {
+            return profile.getDescriptor();
+        }
+        return refresh(auth, userId, profile);
+    }
+
+    /**
+     * The user sent mail; the profile folds it in the next time it is used. {@code editRatio} is
+     * how much of the generated reply was rewritten, or null when that is not known.
+     */
+    public void onMailSent(Long userId, Double editRatio) {
+        if (userId == null) {
+            return;
+        }
+        if (editRatio == null) {
+            userStyleProfileRepository.markStale(userId);
+        } else {
+            userStyleProfileRepository.markStaleWithEdit(userId, editRatio);
+        }
+    }
+
+    /** The user's usual edit ratio as of the last {@link #describe}; 0 when unknown. */
+    public double editRatio(Long userId) {
+        return userId != null ? editRatios.getOrDefault(userId, 0.0) : 0;
+    }
+
+    private String refresh(Authentication auth, Long userId, UserStyleProfile profile) {
+        boolean rebuild = profile == null || profile.getVersion() != StyleStats.VERSION;
+        StyleStats stats = rebuild ? new StyleStats() : jsonMapper.readValue(profile.getStats(), StyleStats.class);
+        LinkedHashSet<String> seen = new LinkedHashSet<>();
+        if (!rebuild && profile.getSeenMessageIds() != null && !profile.getSeenMessageIds().isEmpty()) {
+            seen.addAll(Arrays.asList(profile.getSeenMessageIds().split(",")));
+        }
+
+        String accessToken = authService.getAccessToken(auth);
+        List<String> newIds = gmailClient.fetchLast10SentMessageIds(accessToken).stream()
+                .filter(id -> !seen.contains(id))
+                .toList();
+        List<GmailMessage> messages = gmailClient.getMessages(accessToken, newIds);
+        // Listed newest first; fold oldest first so the seen list ends with the newest
+        for (int i = messages.size() - 1; i >= 0; i--) {
+            stats.add(messages.get(i).body());
+            seen.add(messages.get(i).id());
+        }
+        String descriptor = stats.describe();
+        if (userId == null) {
+            return descriptor;
+        }
+
+        List<String> kept = new ArrayList<>(seen);
+        UserStyleProfile updated = profile != null ? profile : new UserStyleProfile();
+        updated.setUserId(userId);
+        updated.setVersion(StyleStats.VERSION);
+        updated.setStats(jsonMapper.writeValueAsString(stats));
+        updated.setDescriptor(descriptor);
+        updated.setSeenMessageIds(String.join(",", kept.subList(Math.max(0, kept.size() - MAX_SEEN_IDS), kept.size())));
+        updated.setStale(false);
+        updated.setUpdatedAt(Instant.now());
+        try {
+            userStyleProfileRepository.save(updated);
+            log.info("[STYLE_PROFILE] userId={} rebuild={} newMessages={} samples={}",
+                    userId, rebuild, messages.size(), stats.getSamples());
+        } catch (OptimisticLockingFailureException | DataIntegrityViolationException e) {
+            // Another request refreshed the same profile first; its result is just as current
+            log.debug("[STYLE_PROFILE] concurrent refresh userId={} error={}", userId, e.getMessage());
+        }
+        return descriptor;
+    }
+}
@@ -0,0 +1,245 @@
+package com.assignment.draftly.style;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running statistics of a user's sent mail, rendered by {@link #describe()} into a short style
+ * descriptor for prompts.
+ *
+ * Adding an email costs time linear in its length and the state stays bounded (phrase counts are
+ * pruned), so a profile is updated as mail is sent rather than rebuilt from the whole corpus.
+ * Stored as JSON; bump {@link #VERSION} when fields or their meaning change so stored profiles
+ * are rebuilt instead of misread.
+ */
+@Data
+@NoArgsConstructor
+public class StyleStats {
+
+    public static final int VERSION = 1;
+
+    private static final int MAX_PHRASES = 256;
+    private static final int MAX_FORMS = 16;
+    private static final String NONE = "none";
+
+    private static final Pattern QUOTE_START = Pattern.compile(
+            "^(>|On .{0,200}wrote:\\s*$|-{2,}\\s*Original Message\\s*-{2,}|From: )");
+    private static final Pattern GREETING = Pattern.compile(
+            "^(hi|hello|hey|dear|good morning|good afternoon|good evening|greetings)\\b\\s*([^,!:]{0,30}?)\\s*([,!:]?)\\s*$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SIGN_OFF = Pattern.compile(
+            "^(thanks|thank you|many thanks|thanks again|best|best regards|kind regards|regards|warm regards|cheers"
+                    + "|sincerely|all the best|talk soon|thx)\\b\\s*([,!.]?)\\s*$",
+            Pattern.CASE_INSENSITIVE);
+    private static final Pattern SENTENCE_END = Pattern.compile("[.!?]+(?=\\s|$)");
+    private static final Pattern WORD = Pattern.compile("[\\p{L}][\\p{L}'’]*");
+    private static final Pattern CONTRACTION = Pattern.compile("\\b\\p{L}+['’](s|re|ve|ll|d|m|t)\\b", Pattern.CASE_INSENSITIVE);
+    private static final List<String> FORMAL_MARKERS = List.of(
+            "please find", "kindly", "sincerely", "dear ", "further to", "i would like to", "do not hesitate", "regards");
+    private static final List<String> CASUAL_MARKERS = List.of(
+            "hey", "cheers", "btw", "no worries", "sounds good", "gonna", ":)", "thx", "awesome");
+    private static final Set<String> STOP_WORDS = Set.of(
+            "a", "an", "the", "and", "or", "but", "to", "of", "in", "on", "at", "for", "with", "is", "are", "was",
+            "be", "it", "this", "that", "i", "you", "we", "me", "my", "your", "our", "as", "if", "so", "by", "from");
+
+    private int samples;
+    private long sentences;
+    private long words;
+    private long paragraphs;
+    private long contractions;
+    private long exclamations;
+    private long formalMarkers;
+    private long casualMarkers;
+    private Map<String, Integer> greetings = new TreeMap<>();
+    private Map<String, Integer> signOffs = new TreeMap<>();
+    // Word trigrams, counted once per email so only recurring phrases stand out
+    private Map<String, Integer> phrases = new TreeMap<>();
+
+    /** Folds one sent email into the statistics; quoted replies below it are ignored. */
+    public void add(String body) {
+        if (body == null) {
+            return;
+        }
+        List<String> lines = new ArrayList<>();
+        for (String line : body.replace("\r\n", "\n").split("\n", -1)) {
+            String trimmed = line.strip();
+            if (QUOTE_START.matcher(trimmed).find()) {
+                break;
+            }
+            lines.add(trimmed);
+        }
+        int first = 0;
+        while (first < lines.size() && lines.get(first).isEmpty()) {
+            first++;
+        }
+        if (first == lines.size()) {
+            return;
+        }
+        samples++;
+
+        Matcher greeting = GREETING.matcher(lines.get(first));
+        if (greeting.matches()) {
+            String form = capitalize(greeting.group(1).toLowerCase(Locale.ROOT))
+                    + (greeting.group(2).isBlank() ? "" : " <name>") + greeting.group(3);
+            increment(greetings, form);
+            first++;
+        } else {
+            increment(greetings, NONE);
+        }
+
+        // A sign-off is one of the last few lines, followed by at most a name or signature
+        int end = lines.size();
+        String signOff = NONE;
+        int nonEmptySeen = 0;
+        for (int i = lines.size() - 1; i >= first && nonEmptySeen < 4; i--) {
+            if (lines.get(i).isEmpty()) {
+                continue;
+            }
+            nonEmptySeen++;
+            Matcher matcher = SIGN_OFF.matcher(lines.get(i));
+            if (matcher.matches()) {
+                signOff = capitalize(matcher.group(1).toLowerCase(Locale.ROOT)) + matcher.group(2);
+                end = i;
+                break;
+            }
+        }
+        increment(signOffs, signOff);
+
+        StringBuilder text = new StringBuilder();
+        boolean inParagraph = false;
+        for (int i = first; i < end; i++) {
+            String line = lines.get(i);
+            if (line.isEmpty()) {
+                inParagraph = false;
+                continue;
+            }
+            if (!inParagraph) {
+                paragraphs++;
+                inParagraph = true;
+            }
+            text.append(line).append(' ');
+        }
+        String content = text.toString();
+        String lower = content.toLowerCase(Locale.ROOT);
+
+        long sentenceCount = SENTENCE_END.matcher(content).results().count();
+        sentences += Math.max(sentenceCount, content.isBlank() ? 0 : 1);
+        contractions += CONTRACTION.matcher(content).results().count();
+        exclamations += content.chars().filter(c -> c == '!').count();
+        formalMarkers += FORMAL_MARKERS.stream().filter(lower::contains).count();
+        casualMarkers += CASUAL_MARKERS.stream().filter(lower::contains).count();
+
+        List<String> tokens = new ArrayList<>();
+        Matcher word = WORD.matcher(lower);
+        while (word.find()) {
+            tokens.add(word.group().replace('’', '\''));
+        }
+        words += tokens.size();
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i + 2 < tokens.size(); i++) {
+            List<String> trigram = tokens.subList(i, i + 3);
+            if (STOP_WORDS.containsAll(trigram)) {
+                continue;
+            }
+            String phrase = String.join(" ", trigram);
+            if (seen.add(phrase)) {
+                increment(phrases, phrase);
+            }
+        }
+        prune(phrases, MAX_PHRASES);
+        prune(greetings, MAX_FORMS);
+        prune(signOffs, MAX_FORMS);
+    }
+
+    /**
+     * A few lines describing greeting, sign-off, sentence length, formality and recurring
+     * phrases. Deterministic for the same statistics, so prompts built from it stay stable.
+     */
+    public String describe() {
+        if (samples == 0) {
+            return "No sent emails to learn from; write plainly and professionally.";
+        }
+        StringBuilder out = new StringBuilder("Writing style, from ").append(samples).append(" sent emails:\n");
+        out.append("- Greeting: ").append(forms(greetings)).append('\n');
+        out.append("- Sign-off: ").append(forms(signOffs)).append('\n');
+        long averageWords = Math.round((double) words / Math.max(1, sentences));
+        long averageParagraphs = Math.max(1, Math.round((double) paragraphs / samples));
+        out.append("- Sentences average ").append(averageWords).append(" words; ")
+                .append(averageParagraphs).append(averageParagraphs == 1 ? " paragraph" : " paragraphs")
+                .append(" per email\n");
+
+        double contractionRate = (double) contractions / Math.max(1, sentences);
+        String register = formalMarkers > casualMarkers && contractionRate < 0.1 ? "formal"
+                : casualMarkers > formalMarkers || contractionRate > 0.25 ? "casual" : "neutral";
+        out.append("- Register: ").append(register);
+        if (contractionRate > 0.15) {
+            out.append(", uses contractions");
+        } else if (contractionRate < 0.03) {
+            out.append(", avoids contractions");
+        }
+        double exclamationRate = (double) exclamations / samples;
+        if (exclamationRate >= 1) {
+            out.append(", frequent exclamation marks");
+        } else if (exclamationRate >= 0.3) {
+            out.append(", occasional exclamation marks");
+        }
+        out.append('\n');
+
+        List<String> recurring = top(phrases, 5).stream()
+                .filter(phrase -> phrases.get(phrase) >= 2)
+                .map(phrase -> "\"" + phrase + "\"")
+                .toList();
+        if (!recurring.isEmpty()) {
+            out.append("- Recurring phrases: ").append(String.join(", ", recurring)).append('\n');
+        }
+        return out.toString().stripTrailing();
+    }
+
+    private String forms(Map<String, Integer> counts) {
+        List<String> top = top(counts, 2);
+        if (top.isEmpty() || top.get(0).equals(NONE)) {
+            return "usually none";
+        }
+        return top.stream()
+                .filter(form -> !form.equals(NONE))
+                .map(form -> "\"" + form + "\"")
+                .collect(Collectors.joining(" or "));
+    }
+
+    private static List<String> top(Map<String, Integer> counts, int limit) {
+        return counts.entrySet().stream()
+                .sorted(Map.Entry.<String, Integer>comparingByValue(Comparator.reverseOrder())
+                        .thenComparing(Map.Entry.comparingByKey()))
+                .limit(limit)
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private static void prune(Map<String, Integer> counts, int max) {
+        if (counts.size() <= max) {
+            return;
+        }
+        Set<String> keep = new HashSet<>(top(counts, max));
+        counts.keySet().retainAll(keep);
+    }
+
+    private static void increment(Map<String, Integer> counts, String key) {
+        counts.merge(key, 1, Integer::sum);
+    }
+
+    private static String capitalize(String value) {
+        return value.isEmpty() ? value : Character.toUpperCase(value.charAt(0)) + value.substring(1);
+    }
+}
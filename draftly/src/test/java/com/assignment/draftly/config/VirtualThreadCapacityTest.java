@@ -0,0 +1,101 @@
+package com.assignment.draftly.config;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledForJreRange;
+import org.junit.jupiter.api.condition.JRE;
+import org.springframework.core.task.VirtualThreadTaskExecutor;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.web.client.RestTemplate;
+
+import com.sun.net.httpserver.HttpServer;
+
+/**
+ * Compares how many slow upstream calls (stand-ins for OpenAI completions) can be in
+ * flight at once when requests run on a Tomcat-sized platform pool versus virtual threads,
+ * using the same RestTemplate the app builds in {@link HttpClientConfig}.
+ */
+@EnabledForJreRange(min = JRE.JAVA_21)
+class VirtualThreadCapacityTest {
+
+	private static final int REQUESTS = 1_000;
+	private static final int TOMCAT_DEFAULT_MAX_THREADS = 200;
+	private static final long UPSTREAM_LATENCY_MS = 1_000;
+
+	private final AtomicInteger inFlight = new AtomicInteger();
+	private final AtomicInteger peakInFlight = new AtomicInteger();
+	private HttpServer upstream;
+	private RestTemplate restTemplate;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		upstream = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), REQUESTS);
+		upstream.setExecutor(new VirtualThreadTaskExecutor("upstream-"));
+		upstream.createContext("/v1/chat/completions", exchange -> {
+			peakInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+			try {
+				Thread.sleep(UPSTREAM_LATENCY_MS);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			} finally {
+				inFlight.decrementAndGet();
+			}
+			byte[] body = "{\"choices\":[]}".getBytes(StandardCharsets.UTF_8);
+			exchange.sendResponseHeaders(200, body.length);
+			exchange.getResponseBody().write(body);
+			exchange.close();
+		});
+		upstream.start();
+
+		MockEnvironment environment = new MockEnvironment().withProperty("spring.threads.virtual.enabled", "true");
+		HttpClientConfig config = new HttpClientConfig();
+		restTemplate = config.openAiRestTemplate(config.httpClient(environment, 5_000), 30_000);
+	}
+
+	@AfterEach
+	void tearDown() {
+		upstream.stop(0);
+	}
+
+	@Test
+	void virtualThreadsKeepFarMoreSlowCallsInFlightThanPlatformPool() {
+		ExecutorService platformPool = Executors.newFixedThreadPool(TOMCAT_DEFAULT_MAX_THREADS);
+		int platformPeak;
+		try {
+			platformPeak = runAll(platformPool);
+		} finally {
+			platformPool.shutdownNow();
+		}
+		peakInFlight.set(0);
+		int virtualPeak = runAll(new VirtualThreadTaskExecutor("request-"));
+
+		System.out.printf("[VT_CAPACITY] requests=%d upstreamLatencyMs=%d platformPeakInFlight=%d virtualPeakInFlight=%d%n",
+				REQUESTS, UPSTREAM_LATENCY_MS, platformPeak, virtualPeak);
+		assertThat(platformPeak).isLessThanOrEqualTo(TOMCAT_DEFAULT_MAX_THREADS);
+		assertThat(virtualPeak).isGreaterThan(TOMCAT_DEFAULT_MAX_THREADS * 3);
+	}
+
+	private int runAll(Executor executor) {
+		String url = "http://127.0.0.1:" + upstream.getAddress().getPort() + "/v1/chat/completions";
+		List<CompletableFuture<String>> results = new ArrayList<>();
+		for (int i = 0; i < REQUESTS; i++) {
+			results.add(CompletableFuture.supplyAsync(() -> restTemplate.postForObject(url, "{}", String.class), executor));
+		}
+		results.forEach(CompletableFuture::join);
+		return peakInFlight.get();
+	}
+}
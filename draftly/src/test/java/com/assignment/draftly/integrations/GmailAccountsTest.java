@@ -0,0 +1,31 @@
+package com.assignment.draftly.integrations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class GmailAccountsTest {
+
+	@Test
+	void keepsTheSameKeyAcrossATokenRefresh() {
+		GmailAccounts accounts = new GmailAccounts(100);
+		accounts.register("ya29.first", 7L);
+		accounts.register("ya29.refreshed", 7L);
+		accounts.register("ya29.other", 8L);
+
+		assertThat(accounts.keyOf("ya29.refreshed")).isEqualTo(accounts.keyOf("ya29.first"));
+		assertThat(accounts.keyOf("ya29.other")).isNotEqualTo(accounts.keyOf("ya29.first"));
+	}
+
+	@Test
+	void fallsBackToATokenHashForUnknownTokens() {
+		GmailAccounts accounts = new GmailAccounts(1);
+		accounts.register("ya29.first", 7L);
+		accounts.register("ya29.second", 7L);
+
+		assertThat(accounts.keyOf("ya29.first"))
+				.isNotEqualTo(accounts.keyOf("ya29.second"))
+				.doesNotContain("ya29");
+		assertThat(accounts.keyOf("ya29.first")).isEqualTo(accounts.keyOf("ya29.first"));
+	}
+}
@@ -0,0 +1,101 @@
+package com.assignment.draftly.integrations;
+
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.assignment.draftly.mail.MessageBodies;
+import com.assignment.draftly.stub.GmailFixtures;
+
+/**
+ * Message building and parsing in {@link GmailClient}: the MIME message and Base64url encoding
+ * behind createReplyDraft/updateReplyDraft and sendReply, body extraction, and header lookups.
+ * Run with {@code mvn -Pjmh test}; the GC profiler reports {@code gc.alloc.rate.norm} per call.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GmailClientBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Message {
+
+		/** Decoded text size; the largest is a 5 MB multipart message. */
+		@Param({"2048", "65536", "5242880"})
+		int bytes;
+
+		Map<String, Object> message;
+		String replyBody;
+
+		@Setup
+		public void setUp() {
+			SplittableRandom random = new SplittableRandom(7);
+			message = GmailFixtures.deliveredMessage(random, bytes);
+			replyBody = GmailFixtures.prose(random, bytes);
+		}
+	}
+
+	@State(Scope.Benchmark)
+	public static class Headers {
+
+		List<Map<String, Object>> headers;
+
+		@Setup
+		@SuppressWarnings("unchecked")
+		public void setUp() {
+			Map<String, Object> message = GmailFixtures.deliveredMessage(new SplittableRandom(7), 1024);
+			headers = (List<Map<String, Object>>) ((Map<String, Object>) message.get("payload")).get("headers");
+		}
+	}
+
+	@Benchmark
+	public String replyDraftRaw(Message state) {
+		return GmailClient.replyMessage("Priya Raman <priya.raman@acme.test>",
+				"Quarterly planning follow-up", state.replyBody, "18d0000000000001", null).toRaw();
+	}
+
+	@Benchmark
+	public String sendReplyRaw(Message state) {
+		return GmailClient.replyMessage("Priya Raman <priya.raman@acme.test>",
+				"Quarterly planning follow-up", state.replyBody, "18d0000000000001",
+				"draftly-reply-42@draftly.local").toRaw();
+	}
+
+	@Benchmark
+	public String extractBody(Message state) {
+		return MessageBodies.extract(state.message, Integer.MAX_VALUE);
+	}
+
+	/** With the default {@code draftly.mail.max-body-bytes}, which bounds the 5 MB case. */
+	@Benchmark
+	public String extractBodyCapped(Message state) {
+		return MessageBodies.extract(state.message, 262_144);
+	}
+
+	/** From sits after the transport headers, as in real Gmail responses. */
+	@Benchmark
+	public String getHeaderFrom(Headers state) {
+		return GmailClient.getHeader(state.headers, "From");
+	}
+
+	/** A header that is not there scans the whole list. */
+	@Benchmark
+	public String getHeaderMissing(Headers state) {
+		return GmailClient.getHeader(state.headers, "Reply-To");
+	}
+}
@@ -0,0 +1,70 @@
+package com.assignment.draftly.integrations;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GmailResponseCacheTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void evictsTheLeastRecentlyUsedMessagesOnceTheUserIsOverItsBytes() {
+		GmailMessage a = message("a", 400);
+		GmailMessage b = message("b", 400);
+		GmailMessage c = message("c", 400);
+		// Room for two of the messages, not three
+		GmailResponseCache cache = new GmailResponseCache(meterRegistry, a.weight() * 2 + 10, 60_000);
+
+		cache.putMessage("user-1", a);
+		cache.putMessage("user-1", b);
+		assertThat(cache.message("user-1", "a")).isEqualTo(a);
+		cache.putMessage("user-1", c);
+
+		assertThat(cache.message("user-1", "b")).isNull();
+		assertThat(cache.message("user-1", "a")).isEqualTo(a);
+		assertThat(cache.message("user-1", "c")).isEqualTo(c);
+		assertThat(bytes()).isEqualTo(a.weight() + c.weight());
+
+		// Another user's entries do not count against this one
+		cache.putMessage("user-2", b);
+		assertThat(cache.message("user-1", "a")).isEqualTo(a);
+		assertThat(cache.message("user-2", "b")).isEqualTo(b);
+	}
+
+	@Test
+	void skipsMessagesLargerThanAUsersWholeBudget() {
+		GmailResponseCache cache = new GmailResponseCache(meterRegistry, 1_000, 60_000);
+
+		cache.putMessage("user-1", message("huge", 1_000));
+
+		assertThat(cache.message("user-1", "huge")).isNull();
+		assertThat(bytes()).isZero();
+	}
+
+	@Test
+	void dropsUsersThatHaveBeenIdle() throws InterruptedException {
+		GmailResponseCache cache = new GmailResponseCache(meterRegistry, 4_194_304, 50);
+		cache.putMessage("idle", message("a", 100));
+		cache.putMessage("active", message("b", 100));
+
+		Thread.sleep(100);
+		assertThat(cache.message("active", "b")).isNotNull();
+		cache.evictIdleUsers();
+
+		assertThat(cache.message("idle", "a")).isNull();
+		assertThat(cache.message("active", "b")).isNotNull();
+		assertThat(bytes()).isEqualTo(message("b", 100).weight());
+	}
+
+	private double bytes() {
+		return meterRegistry.get("draftly.gmail.cache.bytes").gauge().value();
+	}
+
+	private static GmailMessage message(String id, int bodyChars) {
+		return new GmailMessage(id, "thread-" + id, "Sam Lee <sam@acme.test>", "Invoice", "Can you send it?",
+				"x".repeat(bodyChars));
+	}
+}
@@ -0,0 +1,131 @@
+package com.assignment.draftly.llm;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.HttpServerErrorException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+import com.assignment.draftly.prompt.PromptTemplate;
+
+class FailoverLlmProviderTest {
+
+	private static final ChatPrompt PROMPT = PromptTemplate.create()
+			.instructions("Write a reply.")
+			.section(PromptTemplate.Stability.USER, "My writing style", "Greeting: \"Hey <name>,\"\nSign-off: \"Cheers,\"")
+			.section(PromptTemplate.Stability.SETTING, "Tone", "Concise")
+			.section(PromptTemplate.Stability.REQUEST, "Email to reply to",
+					"From: Sam Lee <sam@acme.test>\nSubject: Re: Invoice\nBody: Can you send it today?")
+			.render();
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void failsOverToTheLocalBackendWhenTheRemoteProviderIsDown() {
+		FailingProvider remote = new FailingProvider(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+		FailoverLlmProvider chain = new FailoverLlmProvider(List.of(remote, new LocalTemplateProvider()), meterRegistry);
+
+		Completion completion = chain.complete(PROMPT, "gpt-4.1-mini");
+
+		assertThat(completion.model()).isEqualTo(LocalTemplateProvider.MODEL);
+		assertThat(completion.text()).startsWith("Hey Sam,").contains("\"Invoice\"").endsWith("Cheers,");
+		assertThat(chain.complete(PROMPT, "gpt-4.1-mini").text()).isEqualTo(completion.text());
+
+		remote.failure = new DependencyUnavailableException("circuit open", ExternalDependency.OPENAI, 30);
+		assertThat(chain.complete(PROMPT, "gpt-4.1-mini").model()).isEqualTo(LocalTemplateProvider.MODEL);
+		assertThat(meterRegistry.get("draftly.llm.failovers").tag("provider", "remote").counter().count()).isEqualTo(3);
+		assertThat(meterRegistry.get("draftly.llm.requests").tags("provider", "local", "outcome", "success").counter().count())
+				.isEqualTo(3);
+	}
+
+	@Test
+	void leavesRateLimitsToTheCaller() {
+		FailingProvider remote = new FailingProvider(new HttpClientErrorException(HttpStatus.TOO_MANY_REQUESTS));
+		FailoverLlmProvider chain = new FailoverLlmProvider(List.of(remote, new LocalTemplateProvider()), meterRegistry);
+
+		assertThatThrownBy(() -> chain.complete(PROMPT, "gpt-4.1-mini")).isInstanceOf(HttpClientErrorException.class);
+		assertThat(meterRegistry.get("draftly.llm.failovers").tag("provider", "remote").counter().count()).isZero();
+	}
+
+	@Test
+	void doesNotRestartAStreamThatAlreadySentText() {
+		FailingProvider remote = new FailingProvider(new HttpServerErrorException(HttpStatus.BAD_GATEWAY));
+		remote.deltasBeforeFailure = 1;
+		FailoverLlmProvider chain = new FailoverLlmProvider(List.of(remote, new LocalTemplateProvider()), meterRegistry);
+		List<String> deltas = new ArrayList<>();
+
+		assertThatThrownBy(() -> chain.stream(PROMPT, "gpt-4.1-mini", deltas::add))
+				.isInstanceOf(HttpServerErrorException.class);
+		assertThat(deltas).containsExactly("partial ");
+
+		remote.deltasBeforeFailure = 0;
+		deltas.clear();
+		Completion completion = chain.stream(PROMPT, "gpt-4.1-mini", deltas::add);
+		assertThat(String.join("", deltas)).isEqualTo(completion.text());
+	}
+
+	@Test
+	void pollsABatchWithTheProviderThatAcceptedIt() {
+		FailingProvider remote = new FailingProvider(new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE));
+		FailoverLlmProvider chain = new FailoverLlmProvider(List.of(remote, new LocalTemplateProvider()), meterRegistry);
+
+		String batchId = chain.submitBatch(List.of(new BatchRequest("draft-7", PROMPT)), "gpt-4.1-mini");
+		BatchResult result = chain.pollBatch(batchId);
+
+		assertThat(batchId).startsWith("local:");
+		assertThat(result.batchId()).isEqualTo(batchId);
+		assertThat(result.isDone()).isTrue();
+		assertThat(result.completions()).containsOnlyKeys("draft-7");
+		assertThat(chain.pollBatch(batchId).status()).isEqualTo(BatchResult.Status.FAILED);
+	}
+
+	private static final class FailingProvider implements LlmProvider {
+
+		private RuntimeException failure;
+		private int deltasBeforeFailure;
+
+		private FailingProvider(RuntimeException failure) {
+			this.failure = failure;
+		}
+
+		@Override
+		public String name() {
+			return "remote";
+		}
+
+		@Override
+		public Completion complete(ChatPrompt prompt, String model) {
+			throw failure;
+		}
+
+		@Override
+		public Completion stream(ChatPrompt prompt, String model, Consumer<String> onDelta) {
+			for (int i = 0; i < deltasBeforeFailure; i++) {
+				onDelta.accept("partial ");
+			}
+			throw failure;
+		}
+
+		@Override
+		public String submitBatch(List<BatchRequest> requests, String model) {
+			throw failure;
+		}
+
+		@Override
+		public BatchResult pollBatch(String batchId) {
+			throw failure;
+		}
+	}
+}
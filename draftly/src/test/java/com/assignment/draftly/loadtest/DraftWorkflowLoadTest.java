@@ -0,0 +1,319 @@
+package com.assignment.draftly.loadtest;
+
+import com.assignment.draftly.entity.User;
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.repository.UserRepository;
+import com.assignment.draftly.services.JwtService;
+import com.assignment.draftly.stub.FaultProfile;
+import com.assignment.draftly.stub.GmailFixtures;
+import com.assignment.draftly.stub.LatencyModel;
+import com.assignment.draftly.stub.ProviderStubServer;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.server.LocalServerPort;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Drives a weighted inbox/generate/regenerate/approve/reject mix through the real HTTP stack, with
+ * Gmail and OpenAI served by {@link ProviderStubServer} at realistic latencies, and fails when
+ * latency, throughput or error rate regress beyond {@code loadtest.tolerance} against
+ * {@code src/test/resources/loadtest/baseline.json}.
+ *
+ * <p>Run with {@code mvn -Pload-test test}; tune with {@code -Dloadtest.users},
+ * {@code -Dloadtest.duration-seconds}, {@code -Dloadtest.warmup-seconds} and
+ * {@code -Dloadtest.tolerance}. {@code -Dloadtest.updateBaseline=true} records the run as the new
+ * baseline instead of comparing.
+ */
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@ActiveProfiles("loadtest")
+class DraftWorkflowLoadTest {
+
+	private static final int USERS = Integer.getInteger("loadtest.users", 16);
+	private static final int DURATION_SECONDS = Integer.getInteger("loadtest.duration-seconds", 30);
+	private static final int WARMUP_SECONDS = Integer.getInteger("loadtest.warmup-seconds", 5);
+	private static final double TOLERANCE = Double.parseDouble(System.getProperty("loadtest.tolerance", "0.25"));
+	private static final boolean UPDATE_BASELINE = Boolean.getBoolean("loadtest.updateBaseline");
+	private static final int THREADS_PER_USER = 40;
+	private static final String[] TONES = {"FORMAL", "CONCISE", "FRIENDLY"};
+
+	private static final Path BASELINE = Path.of("src/test/resources/loadtest/baseline.json");
+	private static final Path REPORT = Path.of("target/load-test/report.json");
+
+	private static final ProviderStubServer STUB = startStub();
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@Autowired
+	private JwtService jwtService;
+
+	@Autowired
+	private JsonMapper jsonMapper;
+
+	@LocalServerPort
+	private int port;
+
+	private final HttpClient http = HttpClient.newBuilder()
+			.connectTimeout(Duration.ofSeconds(5))
+			.executor(Executors.newCachedThreadPool())
+			.build();
+
+	@DynamicPropertySource
+	static void providerUrls(DynamicPropertyRegistry registry) {
+		registry.add("draftly.gmail.base-url", STUB::baseUrl);
+		registry.add("draftly.openai.base-url", STUB::baseUrl);
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Test
+	void draftWorkflowMixStaysWithinBaseline() throws Exception {
+		List<VirtualUser> users = createUsers();
+
+		run(users, WARMUP_SECONDS, new LoadReport());
+		LoadReport report = new LoadReport();
+		long started = System.nanoTime();
+		run(users, DURATION_SECONDS, report);
+		double seconds = (System.nanoTime() - started) / 1e9;
+
+		Map<String, LoadReport.Stats> summary = report.summarize(seconds);
+		System.out.printf("%nDraft workflow load test: %d users, %.1fs%n%s%n", USERS, seconds, LoadReport.format(summary));
+		LoadReport.write(REPORT, summary, jsonMapper);
+
+		if (UPDATE_BASELINE || !Files.exists(BASELINE)) {
+			LoadReport.write(BASELINE, summary, jsonMapper);
+			System.out.println("Baseline written to " + BASELINE.toAbsolutePath());
+			return;
+		}
+		List<String> regressions = LoadReport.regressions(LoadReport.read(BASELINE, jsonMapper), summary, TOLERANCE);
+		assertThat(regressions)
+				.as("regressions against %s (tolerance %.0f%%)", BASELINE, TOLERANCE * 100)
+				.isEmpty();
+	}
+
+	private static ProviderStubServer startStub() {
+		try {
+			return new ProviderStubServer(42)
+					.seedMailbox(USERS * THREADS_PER_USER, 20, 2_000)
+					.faults(ExternalDependency.GMAIL, FaultProfile.healthy()
+							.withLatency(LatencyModel.logNormal(30, 200)))
+					.faults(ExternalDependency.OPENAI, FaultProfile.healthy()
+							.withLatency(LatencyModel.logNormal(300, 1_200)))
+					.start();
+		} catch (Exception e) {
+			throw new IllegalStateException("Could not start provider stub", e);
+		}
+	}
+
+	/**
+	 * One user per virtual client, each owning its own threads (latest message per thread) so that
+	 * drafts, which are keyed by thread, never collide between clients.
+	 */
+	private List<VirtualUser> createUsers() {
+		Map<Object, Map<String, Object>> latestByThread = new LinkedHashMap<>();
+		for (Map<String, Object> message : STUB.inboxMessages()) {
+			latestByThread.putIfAbsent(message.get("threadId"), message);
+		}
+		List<Map<String, Object>> inbox = new ArrayList<>(latestByThread.values());
+		List<VirtualUser> users = new ArrayList<>();
+		for (int i = 0; i < USERS; i++) {
+			User user = new User();
+			user.setEmail("load-" + i + "-" + UUID.randomUUID() + "@draftly.test");
+			user.setOauthtoken("ya29.stub-access-token-for-load-user-" + i);
+			user.setCreatedAt(Instant.now());
+			user = userRepository.save(user);
+
+			VirtualUser virtualUser = new VirtualUser(jwtService.generateAccessToken(user), new SplittableRandom(i));
+			for (int t = i; t < inbox.size(); t += USERS) {
+				virtualUser.fresh.add(inbox.get(t));
+			}
+			users.add(virtualUser);
+		}
+		return users;
+	}
+
+	/** Runs every virtual user in a closed loop for {@code seconds}, recording into {@code report}. */
+	private void run(List<VirtualUser> users, int seconds, LoadReport report) throws Exception {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(seconds);
+		ExecutorService pool = Executors.newFixedThreadPool(users.size());
+		try {
+			List<Future<?>> running = new ArrayList<>();
+			for (VirtualUser user : users) {
+				running.add(pool.submit(() -> {
+					while (System.nanoTime() < deadline) {
+						step(user, report);
+					}
+					return null;
+				}));
+			}
+			for (Future<?> future : running) {
+				future.get();
+			}
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+
+	/** Picks the next operation by weight; operations that need a draft fall back to generating one. */
+	private void step(VirtualUser user, LoadReport report) {
+		int roll = user.random.nextInt(100);
+		if (roll < 40) {
+			call(report, "inbox", user, get("/emails/inbox", user), false);
+			return;
+		}
+		if (roll < 65 || user.drafted.isEmpty()) {
+			generate(user, report);
+			return;
+		}
+		Drafted thread = user.drafted.peekFirst();
+		String threadQuery = "?threadId="
+				+ URLEncoder.encode((String) thread.message().get("threadId"), StandardCharsets.UTF_8);
+		if (roll < 74) {
+			Map<?, ?> response = call(report, "regenerate", user,
+					post("/emails/draft/reply/regenerate" + threadQuery, user, "{}"), true);
+			if (response != null && response.get("replyMessage") != null) {
+				user.drafted.removeFirst();
+				user.drafted.addFirst(new Drafted(thread.message(), (String) response.get("replyMessage")));
+			}
+		} else if (roll < 80) {
+			// Local for drafts generated with allTones, a regeneration otherwise
+			Map<?, ?> response = call(report, "tone", user, post("/emails/draft/reply/tone" + threadQuery
+					+ "&tone=" + TONES[user.random.nextInt(TONES.length)], user, ""), true);
+			if (response != null && response.get("replyMessage") != null) {
+				user.drafted.removeFirst();
+				user.drafted.addFirst(new Drafted(thread.message(), (String) response.get("replyMessage")));
+			}
+		} else if (roll < 90) {
+			HttpRequest approve = HttpRequest.newBuilder(uri("/emails/draft/reply/approve" + threadQuery))
+					.header("Authorization", "Bearer " + user.token)
+					.header("Content-Type", "application/json")
+					.header("Idempotency-Key", UUID.randomUUID().toString())
+					.POST(HttpRequest.BodyPublishers.ofString(
+							jsonMapper.writeValueAsString(Map.of("replyMessage", thread.replyMessage()))))
+					.build();
+			call(report, "approve", user, approve, false);
+			user.drafted.removeFirst();
+			user.fresh.addLast(thread.message());
+		} else {
+			call(report, "reject", user, post("/emails/draft/reply/reject" + threadQuery, user, ""), false);
+			user.drafted.removeFirst();
+			user.fresh.addLast(thread.message());
+		}
+	}
+
+	private void generate(VirtualUser user, LoadReport report) {
+		Map<String, Object> message = user.fresh.pollFirst();
+		if (message == null) {
+			call(report, "inbox", user, get("/emails/inbox", user), false);
+			return;
+		}
+		String body = jsonMapper.writeValueAsString(Map.of(
+				"threadId", message.get("threadId"),
+				"messageId", message.get("id"),
+				"from", GmailFixtures.headerValue(message, "From"),
+				"subject", GmailFixtures.headerValue(message, "Subject"),
+				"body", String.valueOf(message.get("snippet")),
+				"tone", TONES[user.random.nextInt(TONES.length)],
+				"allTones", user.random.nextInt(4) == 0));
+		Map<?, ?> response = call(report, "generate", user, post("/emails/draft/reply", user, body), true);
+		if (response != null && "DRAFT_CREATED".equals(response.get("status"))) {
+			user.drafted.addLast(new Drafted(message, (String) response.get("replyMessage")));
+		} else {
+			user.fresh.addLast(message);
+		}
+	}
+
+	/**
+	 * Sends {@code request} and records its latency; HTTP errors, transport failures and a
+	 * {@code FAILED} draft status count as errors. Returns the parsed JSON body when {@code parse}
+	 * is set and the call succeeded.
+	 */
+	private Map<?, ?> call(LoadReport report, String endpoint, VirtualUser user, HttpRequest request, boolean parse) {
+		long start = System.nanoTime();
+		Map<?, ?> value = null;
+		boolean error;
+		try {
+			HttpResponse<String> response = http.send(request, HttpResponse.BodyHandlers.ofString());
+			error = response.statusCode() >= 400;
+			if (!error && parse) {
+				value = jsonMapper.readValue(response.body(), Map.class);
+				error = "FAILED".equals(value.get("status"));
+			}
+		} catch (Exception e) {
+			if (e instanceof InterruptedException) {
+				Thread.currentThread().interrupt();
+			}
+			error = true;
+		}
+		report.record(endpoint, System.nanoTime() - start, error);
+		return value;
+	}
+
+	private HttpRequest get(String path, VirtualUser user) {
+		return HttpRequest.newBuilder(uri(path))
+				.header("Authorization", "Bearer " + user.token)
+				.GET()
+				.build();
+	}
+
+	private HttpRequest post(String path, VirtualUser user, String json) {
+		return HttpRequest.newBuilder(uri(path))
+				.header("Authorization", "Bearer " + user.token)
+				.header("Content-Type", "application/json")
+				.POST(HttpRequest.BodyPublishers.ofString(json))
+				.build();
+	}
+
+	private URI uri(String path) {
+		return URI.create("http://localhost:" + port + path);
+	}
+
+	private static final class VirtualUser {
+
+		private final String token;
+		private final SplittableRandom random;
+		private final Deque<Map<String, Object>> fresh = new ArrayDeque<>();
+		private final Deque<Drafted> drafted = new ArrayDeque<>();
+
+		private VirtualUser(String token, SplittableRandom random) {
+			this.token = token;
+			this.random = random;
+		}
+	}
+
+	private record Drafted(Map<String, Object> message, String replyMessage) {
+	}
+}
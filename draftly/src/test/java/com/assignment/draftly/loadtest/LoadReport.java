@@ -0,0 +1,155 @@
+package com.assignment.draftly.loadtest;
+
+import tools.jackson.databind.json.JsonMapper;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Per-endpoint latency and error samples from a load run, summarised as throughput, p50/p95/p99
+ * and error rate, and compared against a stored baseline.
+ */
+final class LoadReport {
+
+    /** Latencies below this many milliseconds never count as a regression, however large the ratio. */
+    private static final double LATENCY_SLACK_MS = 25;
+
+    /** A percentile is only compared when at least this many samples lie beyond it; fewer is noise. */
+    private static final int TAIL_SAMPLES = 5;
+
+    private final Map<String, Samples> samples = new ConcurrentHashMap<>();
+
+    void record(String endpoint, long latencyNanos, boolean error) {
+        samples.computeIfAbsent(endpoint, e -> new Samples()).add(latencyNanos, error);
+    }
+
+    /** Summary per endpoint (sorted by name) plus an {@code "all"} entry across endpoints. */
+    Map<String, Stats> summarize(double seconds) {
+        Map<String, Stats> summary = new LinkedHashMap<>();
+        Samples all = new Samples();
+        samples.keySet().stream().sorted().forEach(endpoint -> {
+            Samples s = samples.get(endpoint);
+            summary.put(endpoint, s.stats(seconds));
+            all.addAll(s);
+        });
+        summary.put("all", all.stats(seconds));
+        return summary;
+    }
+
+    static void write(Path file, Map<String, Stats> summary, JsonMapper jsonMapper) throws Exception {
+        Files.createDirectories(file.getParent());
+        Files.writeString(file, jsonMapper.writerWithDefaultPrettyPrinter().writeValueAsString(summary));
+    }
+
+    static Map<String, Stats> read(Path file, JsonMapper jsonMapper) throws Exception {
+        Map<String, Stats> result = new LinkedHashMap<>();
+        Map<?, ?> raw = jsonMapper.readValue(Files.readString(file), Map.class);
+        raw.forEach((endpoint, stats) ->
+                result.put((String) endpoint, jsonMapper.convertValue(stats, Stats.class)));
+        return result;
+    }
+
+    /**
+     * Regressions of {@code current} against {@code baseline}: p95/p99 more than {@code tolerance}
+     * slower (beyond {@link #LATENCY_SLACK_MS}, and only with {@link #TAIL_SAMPLES} samples in the
+     * tail on both sides), throughput more than {@code tolerance} lower, or an error rate more than
+     * one percentage point higher. An endpoint present on only one side is reported too, so a
+     * changed load mix fails until the baseline is re-recorded instead of going unchecked.
+     */
+    static List<String> regressions(Map<String, Stats> baseline, Map<String, Stats> current, double tolerance) {
+        List<String> found = new ArrayList<>();
+        current.keySet().stream()
+                .filter(endpoint -> !baseline.containsKey(endpoint))
+                .forEach(endpoint -> found.add(endpoint + " has no baseline entry; re-record the baseline"));
+        baseline.forEach((endpoint, base) -> {
+            Stats now = current.get(endpoint);
+            if (now == null) {
+                found.add(endpoint + " is in the baseline but was not exercised");
+                return;
+            }
+            long samples = Math.min(base.requests(), now.requests());
+            if (samples * 0.05 >= TAIL_SAMPLES) {
+                latency(found, endpoint, "p95", base.p95Ms(), now.p95Ms(), tolerance);
+            }
+            if (samples * 0.01 >= TAIL_SAMPLES) {
+                latency(found, endpoint, "p99", base.p99Ms(), now.p99Ms(), tolerance);
+            }
+            if (now.throughputPerSec() < base.throughputPerSec() * (1 - tolerance)) {
+                found.add(String.format("%s throughput %.1f/s < baseline %.1f/s", endpoint,
+                        now.throughputPerSec(), base.throughputPerSec()));
+            }
+            if (now.errorRate() > base.errorRate() + 0.01) {
+                found.add(String.format("%s error rate %.2f%% > baseline %.2f%%", endpoint,
+                        now.errorRate() * 100, base.errorRate() * 100));
+            }
+        });
+        return found;
+    }
+
+    private static void latency(List<String> found, String endpoint, String name,
+                                double base, double now, double tolerance) {
+        if (now > base * (1 + tolerance) && now - base > LATENCY_SLACK_MS) {
+            found.add(String.format("%s %s %.1fms > baseline %.1fms", endpoint, name, now, base));
+        }
+    }
+
+    static String format(Map<String, Stats> summary) {
+        StringBuilder out = new StringBuilder(String.format("%-12s %8s %10s %9s %9s %9s %8s%n",
+                "endpoint", "requests", "req/s", "p50 ms", "p95 ms", "p99 ms", "errors"));
+        summary.forEach((endpoint, s) -> out.append(String.format("%-12s %8d %10.1f %9.1f %9.1f %9.1f %7.2f%%%n",
+                endpoint, s.requests(), s.throughputPerSec(), s.p50Ms(), s.p95Ms(), s.p99Ms(), s.errorRate() * 100)));
+        return out.toString();
+    }
+
+    record Stats(long requests, double throughputPerSec, double p50Ms, double p95Ms, double p99Ms,
+                 double errorRate) {
+    }
+
+    private static final class Samples {
+
+        private long[] latencies = new long[1024];
+        private int count;
+        private long errors;
+
+        synchronized void add(long latencyNanos, boolean error) {
+            if (count == latencies.length) {
+                latencies = Arrays.copyOf(latencies, count * 2);
+            }
+            latencies[count++] = latencyNanos;
+            if (error) {
+                errors++;
+            }
+        }
+
+        synchronized void addAll(Samples other) {
+            synchronized (other) {
+                for (int i = 0; i < other.count; i++) {
+                    add(other.latencies[i], false);
+                }
+                errors += other.errors;
+            }
+        }
+
+        synchronized Stats stats(double seconds) {
+            long[] sorted = Arrays.copyOf(latencies, count);
+            Arrays.sort(sorted);
+            return new Stats(count, count / seconds,
+                    percentileMs(sorted, 0.50), percentileMs(sorted, 0.95), percentileMs(sorted, 0.99),
+                    count == 0 ? 0 : (double) errors / count);
+        }
+
+        private static double percentileMs(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            int index = (int) Math.ceil(p * sorted.length) - 1;
+            return sorted[Math.max(0, index)] / 1_000_000.0;
+        }
+    }
+}
@@ -0,0 +1,51 @@
+package com.assignment.draftly.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class AddressParserTest {
+
+	@Test
+	void parsesCommonFromForms() {
+		assertThat(AddressParser.parse("Priya Raman <priya.raman@acme.test>"))
+				.isEqualTo(new MailAddress("Priya Raman", "priya.raman@acme.test"));
+		assertThat(AddressParser.parse("\"Lee, Jordan\" <jordan.lee@globex.test>"))
+				.isEqualTo(new MailAddress("Lee, Jordan", "jordan.lee@globex.test"));
+		assertThat(AddressParser.parse("sam@initech.test"))
+				.isEqualTo(new MailAddress(null, "sam@initech.test"));
+		assertThat(AddressParser.parse("sam@initech.test (Sam Smith)"))
+				.isEqualTo(new MailAddress("Sam Smith", "sam@initech.test"));
+		assertThat(AddressParser.parse("<@relay.test:ops@acme.test>"))
+				.isEqualTo(new MailAddress(null, "ops@acme.test"));
+		assertThat(AddressParser.parse("no address here")).isNull();
+	}
+
+	@Test
+	void parsesListsGroupsAndFoldedHeaders() {
+		assertThat(AddressParser.parseList(
+				"\"Lee, Jordan\" <jordan@globex.test>,\r\n\tTeam: a@acme.test, B <b@acme.test>;, c@acme.test"))
+				.containsExactly(
+						new MailAddress("Lee, Jordan", "jordan@globex.test"),
+						new MailAddress(null, "a@acme.test"),
+						new MailAddress("B", "b@acme.test"),
+						new MailAddress(null, "c@acme.test"));
+	}
+
+	@Test
+	void decodesEncodedWordsInDisplayNames() {
+		// "José Müller", split across two B words in the middle of a multi-byte character
+		assertThat(AddressParser.parse("=?UTF-8?B?Sm9zw6kgTcM=?= =?UTF-8?B?vGxsZXI=?= <jose@acme.test>"))
+				.isEqualTo(new MailAddress("José Müller", "jose@acme.test"));
+		assertThat(EncodedWords.decode("Re: =?iso-8859-1?Q?Caf=E9_menu?= for Friday"))
+				.isEqualTo("Re: Café menu for Friday");
+		assertThat(EncodedWords.decode("=?x-unknown?Q?abc?= stays")).isEqualTo("=?x-unknown?Q?abc?= stays");
+	}
+
+	@Test
+	void formatsAddressesForHeaders() {
+		assertThat(new MailAddress("Lee, Jordan", "jordan@globex.test")).hasToString("\"Lee, Jordan\" <jordan@globex.test>");
+		assertThat(new MailAddress("Priya Raman", "priya@acme.test")).hasToString("Priya Raman <priya@acme.test>");
+		assertThat(new MailAddress(null, "sam@initech.test")).hasToString("sam@initech.test");
+	}
+}
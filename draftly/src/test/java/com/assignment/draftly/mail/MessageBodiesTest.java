@@ -0,0 +1,82 @@
+package com.assignment.draftly.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.Test;
+
+class MessageBodiesTest {
+
+	@Test
+	void prefersNestedPlainTextOverHtmlAndAttachments() {
+		Map<String, Object> message = message(multipart("multipart/mixed",
+				multipart("multipart/related",
+						multipart("multipart/alternative",
+								text("text/html", "<p>html</p>", StandardCharsets.UTF_8),
+								text("text/plain", "plain body", StandardCharsets.UTF_8))),
+				Map.of("mimeType", "text/plain", "filename", "notes.txt",
+						"body", Map.of("data", encode("attached", StandardCharsets.UTF_8)))));
+
+		assertThat(MessageBodies.extract(message, 1 << 20)).isEqualTo("plain body");
+	}
+
+	@Test
+	void convertsHtmlOnlyMailToText() {
+		String html = "<html><head><style>p{color:red}</style></head><body>"
+				+ "<p>Hi&nbsp;Sam,</p><p>Rates are &lt;5% &amp; falling.<br>Thanks</p>"
+				+ "<ul><li>one</li><li>two</li></ul><script>alert(1)</script></body></html>";
+		Map<String, Object> message = message(multipart("multipart/alternative",
+				text("text/html", html, StandardCharsets.UTF_8)));
+
+		assertThat(MessageBodies.extract(message, 1 << 20))
+				.isEqualTo("Hi Sam,\n\nRates are <5% & falling.\nThanks\n\none\ntwo");
+	}
+
+	@Test
+	void decodesDeclaredCharsetAndStopsAtByteCap() {
+		Charset latin1 = StandardCharsets.ISO_8859_1;
+		assertThat(MessageBodies.extract(message(text("text/plain", "Café crème", latin1)), 1 << 20))
+				.isEqualTo("Café crème");
+
+		// "é" is two UTF-8 bytes; a cap inside it drops the partial character
+		Map<String, Object> utf8 = message(text("text/plain", "Caféx", StandardCharsets.UTF_8));
+		assertThat(MessageBodies.extract(utf8, 4)).isEqualTo("Caf");
+		assertThat(MessageBodies.extract(utf8, 5)).isEqualTo("Café");
+	}
+
+	@Test
+	void ignoresPartsNestedBeyondMaxDepth() {
+		Map<String, Object> part = text("text/plain", "too deep", StandardCharsets.UTF_8);
+		for (int i = 0; i <= MessageBodies.MAX_DEPTH; i++) {
+			part = multipart("multipart/mixed", part);
+		}
+		assertThat(MessageBodies.extract(message(part), 1 << 20)).isEmpty();
+		assertThat(MessageBodies.extract(Map.of(), 1 << 20)).isEmpty();
+	}
+
+	private static Map<String, Object> message(Map<String, Object> payload) {
+		return Map.of("id", "m1", "payload", payload);
+	}
+
+	@SafeVarargs
+	private static Map<String, Object> multipart(String mimeType, Map<String, Object>... parts) {
+		return Map.of("mimeType", mimeType, "filename", "", "parts", List.of(parts));
+	}
+
+	private static Map<String, Object> text(String mimeType, String content, Charset charset) {
+		return Map.of(
+				"mimeType", mimeType,
+				"filename", "",
+				"headers", List.of(Map.of("name", "Content-Type", "value", mimeType + "; charset=\"" + charset.name() + "\"")),
+				"body", Map.of("data", encode(content, charset)));
+	}
+
+	private static String encode(String content, Charset charset) {
+		return Base64.getUrlEncoder().encodeToString(content.getBytes(charset));
+	}
+}
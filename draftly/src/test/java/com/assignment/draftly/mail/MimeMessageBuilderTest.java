@@ -0,0 +1,96 @@
+package com.assignment.draftly.mail;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+import org.junit.jupiter.api.Test;
+
+class MimeMessageBuilderTest {
+
+	@Test
+	void buildsPlainReplyWithEncodedHeaders() {
+		String raw = new MimeMessageBuilder()
+				.to("José Müller <jose@acme.test>")
+				.messageId("draftly-reply-1@draftly.local")
+				.subject("Re: Café menu")
+				.inReplyTo("18d01@mail.gmail.com")
+				.text("Hi José,\nSounds good.\n")
+				.toRaw();
+
+		String message = decode(raw);
+		assertThat(message).startsWith(
+				"To: =?UTF-8?B?Sm9zw6kgTcO8bGxlcg==?= <jose@acme.test>\r\n"
+						+ "Message-ID: <draftly-reply-1@draftly.local>\r\n"
+						+ "Subject: =?UTF-8?B?UmU6IENhZsOpIG1lbnU=?=\r\n"
+						+ "In-Reply-To: <18d01@mail.gmail.com>\r\n"
+						+ "References: <18d01@mail.gmail.com>\r\n"
+						+ "MIME-Version: 1.0\r\n"
+						+ "Content-Type: text/plain; charset=\"UTF-8\"\r\n"
+						+ "Content-Transfer-Encoding: 8bit\r\n\r\n");
+		assertThat(message).endsWith("\r\n\r\nHi José,\r\nSounds good.\r\n");
+		assertThat(EncodedWords.decode("=?UTF-8?B?UmU6IENhZsOpIG1lbnU=?=")).isEqualTo("Re: Café menu");
+	}
+
+	@Test
+	void buildsAlternativeBodiesAndAttachments() {
+		byte[] pdf = new byte[5000];
+		for (int i = 0; i < pdf.length; i++) {
+			pdf[i] = (byte) i;
+		}
+		String message = decode(new MimeMessageBuilder()
+				.to("a@acme.test, \"Lee, Jordan\" <jordan@globex.test>")
+				.subject("Notes")
+				.text("plain")
+				.html("<p>html</p>")
+				.attachment("résumé.pdf", "application/pdf", pdf)
+				.toRaw());
+
+		assertThat(message).contains("To: a@acme.test, \"Lee, Jordan\" <jordan@globex.test>\r\n");
+		assertThat(message).contains("Content-Type: multipart/mixed; boundary=\"=_draftly_");
+		assertThat(message).contains("Content-Type: multipart/alternative; boundary=\"=_draftly_");
+		assertThat(message).contains("Content-Disposition: attachment; filename*=UTF-8''r%C3%A9sum%C3%A9.pdf\r\n");
+
+		int plain = message.indexOf("Content-Type: text/plain");
+		int html = message.indexOf("Content-Type: text/html");
+		int attachment = message.indexOf("Content-Type: application/pdf");
+		assertThat(plain).isPositive().isLessThan(html);
+		assertThat(html).isLessThan(attachment);
+
+		String mixedBoundary = boundaryAfter(message, "multipart/mixed");
+		int start = message.indexOf("\r\n\r\n", attachment) + 4;
+		int end = message.indexOf("\r\n--" + mixedBoundary + "--", start);
+		assertThat(Base64.getMimeDecoder().decode(message.substring(start, end))).isEqualTo(pdf);
+	}
+
+	@Test
+	void quotedPrintableEncodesTextWithOverlongLines() {
+		String longLine = "x".repeat(2000);
+		String message = decode(new MimeMessageBuilder().to("a@acme.test").subject("Long")
+				.text(longLine + " \nCafé = 2€").toRaw());
+
+		assertThat(message).contains("Content-Transfer-Encoding: quoted-printable\r\n\r\n");
+		String body = message.substring(message.indexOf("\r\n\r\n") + 4);
+		assertThat(body.split("\r\n")).allMatch(line -> line.length() <= 76);
+		assertThat(body.replace("=\r\n", "")).isEqualTo(longLine + "=20\r\nCaf=C3=A9 =3D 2=E2=82=AC");
+	}
+
+	@Test
+	void reusedBuffersDoNotLeakEarlierMessages() {
+		String large = decode(new MimeMessageBuilder().to("a@acme.test").text(("a".repeat(98) + "\n").repeat(500)).toRaw());
+		String small = decode(new MimeMessageBuilder().to("b@acme.test").text("b").toRaw());
+
+		assertThat(large).endsWith("a".repeat(98) + "\r\n");
+		assertThat(small).endsWith("\r\n\r\nb").doesNotContain("aaaa");
+	}
+
+	private static String decode(String raw) {
+		return new String(Base64.getUrlDecoder().decode(raw), StandardCharsets.UTF_8);
+	}
+
+	private static String boundaryAfter(String message, String type) {
+		int start = message.indexOf(type + "; boundary=\"") + type.length() + 12;
+		return message.substring(start, message.indexOf('"', start));
+	}
+}
@@ -0,0 +1,39 @@
+package com.assignment.draftly.prompt;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+class PromptTemplateTest {
+
+	@Test
+	void ordersSectionsFromMostToLeastStable() {
+		ChatPrompt prompt = PromptTemplate.create()
+				.section(PromptTemplate.Stability.REQUEST, "Email", "Can we meet?")
+				.section(PromptTemplate.Stability.SETTING, "Tone", "Friendly")
+				.section(PromptTemplate.Stability.USER, "Style", "Short sentences")
+				.instructions("Write a reply.")
+				.render();
+
+		assertThat(prompt.system()).isEqualTo("Write a reply.");
+		assertThat(prompt.user()).isEqualTo("Style:\nShort sentences\n\nTone:\nFriendly\n\nEmail:\nCan we meet?");
+	}
+
+	@Test
+	void cacheKeyOnlyDependsOnTheStablePrefix() {
+		ChatPrompt first = reply("Short sentences", "Friendly", "Can we meet?");
+
+		assertThat(reply("Short sentences", "Formal", "Send the invoice")).extracting(ChatPrompt::cacheKey)
+				.isEqualTo(first.cacheKey());
+		assertThat(reply("Long sentences", "Friendly", "Can we meet?").cacheKey()).isNotEqualTo(first.cacheKey());
+	}
+
+	private static ChatPrompt reply(String style, String tone, String email) {
+		return PromptTemplate.create()
+				.instructions("Write a reply.")
+				.section(PromptTemplate.Stability.USER, "Style", style)
+				.section(PromptTemplate.Stability.SETTING, "Tone", tone)
+				.section(PromptTemplate.Stability.REQUEST, "Email", email)
+				.render();
+	}
+}
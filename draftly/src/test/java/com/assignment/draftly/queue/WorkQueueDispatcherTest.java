@@ -0,0 +1,227 @@
+package com.assignment.draftly.queue;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.WorkItemStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import com.assignment.draftly.repository.WorkItemRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class WorkQueueDispatcherTest {
+
+	private static final long USER_A = 1001;
+	private static final long USER_B = 1002;
+	private static final long USER_C = 1003;
+
+	@Autowired
+	private WorkQueue workQueue;
+
+	@Autowired
+	private WorkItemRepository workItemRepository;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	private final CountDownLatch release = new CountDownLatch(1);
+	private final Set<Long> started = ConcurrentHashMap.newKeySet();
+	private final Map<Long, String> deadLettered = new ConcurrentHashMap<>();
+	private WorkQueueDispatcher dispatcher;
+
+	@BeforeEach
+	void setUp() {
+		workItemRepository.deleteAll();
+	}
+
+	@AfterEach
+	void tearDown() throws InterruptedException {
+		release.countDown();
+		if (dispatcher != null) {
+			dispatcher.destroy();
+		}
+	}
+
+	@Test
+	void claimsInteractiveWorkBeforeBulkWork() {
+		dispatcher = dispatcher(2, 2, Duration.ofMinutes(5), item -> await(release));
+		WorkItem bulk1 = enqueue(USER_A, WorkPriority.BULK);
+		enqueue(USER_A, WorkPriority.BULK);
+		enqueue(USER_A, WorkPriority.PREGENERATION);
+		WorkItem interactive = enqueue(USER_B, WorkPriority.INTERACTIVE);
+
+		dispatcher.poll();
+
+		assertThat(leasedIds()).containsExactlyInAnyOrder(interactive.getId(), bulk1.getId());
+	}
+
+	@Test
+	void capsTheLeasesHeldByOneUser() {
+		dispatcher = dispatcher(4, 2, Duration.ofMinutes(5), item -> await(release));
+		WorkItem a1 = enqueue(USER_A, WorkPriority.BULK);
+		WorkItem a2 = enqueue(USER_A, WorkPriority.BULK);
+		WorkItem a3 = enqueue(USER_A, WorkPriority.BULK);
+		WorkItem c1 = enqueue(USER_C, WorkPriority.BULK);
+
+		dispatcher.poll();
+
+		assertThat(leasedIds()).containsExactlyInAnyOrder(a1.getId(), a2.getId(), c1.getId());
+		assertThat(workItemRepository.findById(a3.getId()).orElseThrow().getStatus()).isEqualTo(WorkItemStatus.READY);
+
+		release.countDown();
+		awaitUntil(() -> workItemRepository.findById(a3.getId()).orElseThrow().getStatus() == WorkItemStatus.READY
+				&& leasedIds().isEmpty());
+		dispatcher.poll();
+		awaitUntil(() -> workItemRepository.findById(a3.getId()).orElseThrow().getStatus() == WorkItemStatus.DONE);
+	}
+
+	@Test
+	void claimsAUsersInteractiveWorkWhileTheirBackgroundWorkHoldsTheCap() {
+		dispatcher = dispatcher(4, 2, Duration.ofMinutes(5), item -> await(release));
+		WorkItem bulk1 = enqueue(USER_A, WorkPriority.BULK);
+		WorkItem bulk2 = enqueue(USER_A, WorkPriority.BULK);
+		dispatcher.poll();
+		assertThat(leasedIds()).containsExactlyInAnyOrder(bulk1.getId(), bulk2.getId());
+
+		WorkItem interactive = enqueue(USER_A, WorkPriority.INTERACTIVE);
+		WorkItem pregeneration = enqueue(USER_A, WorkPriority.PREGENERATION);
+		dispatcher.poll();
+
+		assertThat(leasedIds()).containsExactlyInAnyOrder(bulk1.getId(), bulk2.getId(), interactive.getId());
+		assertThat(workItemRepository.findById(pregeneration.getId()).orElseThrow().getStatus())
+				.isEqualTo(WorkItemStatus.READY);
+	}
+
+	@Test
+	void deadLettersPermanentFailuresAtOnce() {
+		dispatcher = dispatcher(1, 2, Duration.ofMinutes(5), item -> {
+			throw new IllegalArgumentException("bad payload");
+		});
+		WorkItem item = enqueue(USER_A, WorkPriority.BULK);
+
+		dispatcher.poll();
+
+		awaitUntil(() -> deadLettered.containsKey(item.getId()));
+		WorkItem dead = workItemRepository.findById(item.getId()).orElseThrow();
+		assertThat(dead.getStatus()).isEqualTo(WorkItemStatus.DEAD);
+		assertThat(dead.getAttempts()).isEqualTo(1);
+		assertThat(deadLettered.get(item.getId())).contains("bad payload");
+	}
+
+	@Test
+	void deadLettersTransientFailuresOnceAttemptsRunOut() {
+		AtomicInteger runs = new AtomicInteger();
+		dispatcher = dispatcher(1, 2, Duration.ofMinutes(5), item -> {
+			runs.incrementAndGet();
+			throw new RuntimeException("Gmail timed out");
+		});
+		WorkItem item = enqueue(USER_A, WorkPriority.BULK);
+
+		awaitUntil(() -> {
+			dispatcher.poll();
+			return deadLettered.containsKey(item.getId());
+		});
+
+		WorkItem dead = workItemRepository.findById(item.getId()).orElseThrow();
+		assertThat(dead.getStatus()).isEqualTo(WorkItemStatus.DEAD);
+		assertThat(dead.getAttempts()).isEqualTo(dead.getMaxAttempts());
+		assertThat(runs).hasValue(dead.getMaxAttempts());
+	}
+
+	@Test
+	void renewsTheLeaseOfARunningItem() {
+		dispatcher = dispatcher(1, 2, Duration.ofSeconds(30), item -> await(release));
+		WorkItem item = enqueue(USER_A, WorkPriority.INTERACTIVE);
+		dispatcher.poll();
+		awaitUntil(() -> started.contains(item.getId()));
+		Instant leasedUntil = workItemRepository.findById(item.getId()).orElseThrow().getLeaseExpiresAt();
+
+		sleep(20);
+		dispatcher.renewLeases();
+
+		assertThat(workItemRepository.findById(item.getId()).orElseThrow().getLeaseExpiresAt()).isAfter(leasedUntil);
+		release.countDown();
+		awaitUntil(() -> workItemRepository.findById(item.getId()).orElseThrow().getStatus() == WorkItemStatus.DONE);
+	}
+
+	private WorkQueueDispatcher dispatcher(int workers, int maxLeasedPerUser, Duration lease, Consumer<WorkItem> action) {
+		WorkHandler handler = new WorkHandler() {
+			@Override
+			public WorkItemType type() {
+				return WorkItemType.SYNC_GMAIL_DRAFT;
+			}
+
+			@Override
+			public void handle(WorkItem item, Map<String, String> payload) {
+				started.add(item.getId());
+				action.accept(item);
+			}
+
+			@Override
+			public void onDeadLetter(WorkItem item, Map<String, String> payload, String error) {
+				deadLettered.put(item.getId(), error);
+			}
+		};
+		return new WorkQueueDispatcher(workItemRepository, workQueue, transactionManager, new SimpleMeterRegistry(),
+				List.of(handler), workers, maxLeasedPerUser, lease.toMillis(), 0, 0, 86_400_000);
+	}
+
+	private WorkItem enqueue(long userId, WorkPriority priority) {
+		return workQueue.enqueue(WorkItemType.SYNC_GMAIL_DRAFT, priority, userId, Map.of());
+	}
+
+	private Set<Long> leasedIds() {
+		return workItemRepository.findAll().stream()
+				.filter(item -> item.getStatus() == WorkItemStatus.LEASED)
+				.map(WorkItem::getId)
+				.collect(Collectors.toSet());
+	}
+
+	private static void awaitUntil(Supplier<Boolean> condition) {
+		long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+		while (!condition.get()) {
+			assertThat(System.nanoTime()).as("condition not met within 10s").isLessThan(deadline);
+			sleep(10);
+		}
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static void sleep(long millis) {
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
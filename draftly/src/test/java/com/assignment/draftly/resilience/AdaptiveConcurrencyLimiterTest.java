@@ -0,0 +1,47 @@
+package com.assignment.draftly.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+
+class AdaptiveConcurrencyLimiterTest {
+
+	@Test
+	void rejectsWithRetryAfterWhenLimitAndQueueAreFull() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+				ExternalDependency.OPENAI, 1, 1, 4, 0, 10, 1000, 0.5);
+
+		AdaptiveConcurrencyLimiter.Permit held = limiter.acquire();
+
+		assertThatThrownBy(limiter::acquire)
+				.isInstanceOf(DependencyUnavailableException.class)
+				.satisfies(e -> assertThat(((DependencyUnavailableException) e).getRetryAfterSeconds()).isPositive());
+		assertThat(limiter.getRejectedCount()).isEqualTo(1);
+
+		held.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+		assertThat(limiter.getInFlight()).isZero();
+	}
+
+	@Test
+	void backsOffOnOverloadAndGrowsOnSuccess() {
+		AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(
+				ExternalDependency.OPENAI, 8, 2, 16, 0, 10, 60_000, 0.5);
+
+		limiter.acquire().release(AdaptiveConcurrencyLimiter.Outcome.DROPPED);
+		assertThat(limiter.getLimit()).isEqualTo(4);
+
+		for (int i = 0; i < 40; i++) {
+			AdaptiveConcurrencyLimiter.Permit a = limiter.acquire();
+			AdaptiveConcurrencyLimiter.Permit b = limiter.acquire();
+			AdaptiveConcurrencyLimiter.Permit c = limiter.acquire();
+			a.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+			b.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+			c.release(AdaptiveConcurrencyLimiter.Outcome.SUCCESS);
+		}
+		assertThat(limiter.getLimit()).isGreaterThan(4);
+	}
+}
@@ -0,0 +1,106 @@
+package com.assignment.draftly.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.aop.aspectj.annotation.AspectJProxyFactory;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.client.HttpServerErrorException;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.integrations.GmailAccounts;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class ExternalCallAspectTest {
+
+	private FlakyClient target;
+	private FlakyClient client;
+	private CircuitBreaker breaker;
+
+	@BeforeEach
+	void setUp() {
+		SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+		breaker = new CircuitBreaker(ExternalDependency.GMAIL, 4, 4, 0.5, 60_000, 1);
+		ResiliencePolicyRegistry policies = new ResiliencePolicyRegistry(List.of(
+				new ResiliencePolicyRegistry.DependencyPolicy(
+						breaker,
+						new RetryPolicy(3, 1, 2, Duration.ofSeconds(1)),
+						new RetryBudget(1.0, 10, 10))
+		), meterRegistry);
+		ConcurrencyLimiterRegistry limiters = new ConcurrencyLimiterRegistry(List.of(
+				new AdaptiveConcurrencyLimiter(ExternalDependency.GMAIL, 10, 1, 10, 0, 10, 60_000, 0.9)
+		), meterRegistry);
+
+		target = new FlakyClient();
+		AspectJProxyFactory factory = new AspectJProxyFactory(target);
+		factory.setProxyTargetClass(true);
+		factory.addAspect(new ExternalCallAspect(policies, limiters,
+				new GmailQuotaLimiter(meterRegistry, 250, 250, 10, 60_000), new GmailAccounts(100),
+				new HedgingPolicy(meterRegistry, new StandardEnvironment(), false, 0.95, 64, 32, 1, 0.05, 4), meterRegistry));
+		client = factory.getProxy();
+	}
+
+	@Test
+	void retriesIdempotentCallsOnServerErrors() {
+		target.failuresBeforeSuccess.set(2);
+
+		assertThat(client.read()).isEqualTo("ok");
+		assertThat(target.calls.get()).isEqualTo(3);
+	}
+
+	@Test
+	void doesNotRetryNonIdempotentCallsOnServerErrors() {
+		target.failuresBeforeSuccess.set(1);
+
+		assertThatThrownBy(client::send).isInstanceOf(HttpServerErrorException.class);
+		assertThat(target.calls.get()).isEqualTo(1);
+	}
+
+	@Test
+	void opensCircuitAndFailsFastAfterRepeatedOutages() {
+		target.failuresBeforeSuccess.set(Integer.MAX_VALUE);
+
+		assertThatThrownBy(client::send).isInstanceOf(HttpServerErrorException.class);
+		assertThatThrownBy(client::send).isInstanceOf(HttpServerErrorException.class);
+		assertThatThrownBy(client::send).isInstanceOf(HttpServerErrorException.class);
+		assertThatThrownBy(client::send).isInstanceOf(HttpServerErrorException.class);
+		int callsBeforeOpen = target.calls.get();
+
+		assertThat(breaker.getState()).isEqualTo(CircuitBreaker.State.OPEN);
+		assertThatThrownBy(client::send).isInstanceOf(DependencyUnavailableException.class);
+		assertThat(target.calls.get()).isEqualTo(callsBeforeOpen);
+	}
+
+	static class FlakyClient {
+
+		final AtomicInteger failuresBeforeSuccess = new AtomicInteger();
+		final AtomicInteger calls = new AtomicInteger();
+
+		@ExternalCall(dependency = ExternalDependency.GMAIL, operation = "read", idempotent = true)
+		public String read() {
+			return attempt();
+		}
+
+		@ExternalCall(dependency = ExternalDependency.GMAIL, operation = "send")
+		public String send() {
+			return attempt();
+		}
+
+		private String attempt() {
+			calls.incrementAndGet();
+			if (failuresBeforeSuccess.getAndDecrement() > 0) {
+				throw new HttpServerErrorException(HttpStatus.SERVICE_UNAVAILABLE);
+			}
+			return "ok";
+		}
+	}
+}
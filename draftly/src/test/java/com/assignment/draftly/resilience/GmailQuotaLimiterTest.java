@@ -0,0 +1,28 @@
+package com.assignment.draftly.resilience;
+
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import org.junit.jupiter.api.Test;
+
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class GmailQuotaLimiterTest {
+
+	@Test
+	void queuesBrieflyThenRejectsWhenUserQuotaIsExhausted() {
+		// 100 units/s, 100 burst, at most 500ms of waiting
+		GmailQuotaLimiter limiter = new GmailQuotaLimiter(new SimpleMeterRegistry(), 100, 100, 500, 60_000);
+
+		assertThatCode(() -> limiter.acquire("user-a", 100)).doesNotThrowAnyException();
+		// 30 units short -> ~300ms wait, within the limit
+		assertThatCode(() -> limiter.acquire("user-a", 30)).doesNotThrowAnyException();
+		// bucket is empty again; 100 more units would need ~1s
+		assertThatThrownBy(() -> limiter.acquire("user-a", 100))
+				.isInstanceOf(DependencyUnavailableException.class);
+		// other users have their own bucket
+		assertThatCode(() -> limiter.acquire("user-b", 100)).doesNotThrowAnyException();
+	}
+}
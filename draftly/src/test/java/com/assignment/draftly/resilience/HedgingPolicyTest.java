@@ -0,0 +1,74 @@
+package com.assignment.draftly.resilience;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class HedgingPolicyTest {
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+	private final HedgingPolicy hedging = new HedgingPolicy(meterRegistry, new StandardEnvironment(), true, 0.95, 64, 32, 1, 1.0, 4);
+
+	@AfterEach
+	void tearDown() {
+		hedging.destroy();
+	}
+
+	@Test
+	void duplicateWinsWhenPrimaryIsSlowerThanPercentile() throws Throwable {
+		warmUp();
+		AtomicInteger calls = new AtomicInteger();
+
+		long start = System.nanoTime();
+		Object result = hedging.execute("read", () -> true, () -> {
+			if (calls.incrementAndGet() == 1) {
+				Thread.sleep(2_000);
+				return "primary";
+			}
+			return "hedge";
+		});
+
+		assertThat(result).isEqualTo("hedge");
+		assertThat(System.nanoTime() - start).isLessThan(1_000_000_000L);
+		assertThat(meterRegistry.counter("draftly.dependency.hedge.won").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void noDuplicateWhenPermitDenied() throws Throwable {
+		warmUp();
+		AtomicInteger calls = new AtomicInteger();
+
+		Object result = hedging.execute("read", () -> false, () -> {
+			calls.incrementAndGet();
+			Thread.sleep(50);
+			return "primary";
+		});
+
+		assertThat(result).isEqualTo("primary");
+		assertThat(calls.get()).isEqualTo(1);
+		assertThat(meterRegistry.counter("draftly.dependency.hedge.skipped").count()).isEqualTo(1.0);
+	}
+
+	@Test
+	void failsOnlyWhenEveryCopyFailed() throws Throwable {
+		warmUp();
+
+		assertThatThrownBy(() -> hedging.execute("read", () -> true, () -> {
+			Thread.sleep(20);
+			throw new IllegalStateException("down");
+		})).isInstanceOf(IllegalStateException.class).hasMessage("down");
+	}
+
+	private void warmUp() throws Throwable {
+		for (int i = 0; i < 32; i++) {
+			hedging.execute("read", () -> true, () -> "ok");
+		}
+	}
+}
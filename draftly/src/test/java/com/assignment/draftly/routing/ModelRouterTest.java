@@ -0,0 +1,144 @@
+package com.assignment.draftly.routing;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.Test;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.enums.Tone;
+import com.assignment.draftly.exceptionHandler.DependencyUnavailableException;
+import com.assignment.draftly.llm.BatchRequest;
+import com.assignment.draftly.llm.BatchResult;
+import com.assignment.draftly.llm.LlmProvider;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+
+class ModelRouterTest {
+
+	private static final List<ModelTier> TIERS = List.of(
+			new ModelTier("fast", "nano", 0.10, 0.025, 0.40),
+			new ModelTier("standard", "mini", 0.40, 0.10, 1.60),
+			new ModelTier("advanced", "full", 2.00, 0.50, 8.00));
+	private static final ChatPrompt PROMPT = new ChatPrompt("system", "user", null);
+
+	private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+	@Test
+	void keepsShortRepliesOnTheFastTierAndEscalatesOnComplexity() {
+		ModelRouter router = router(new ScriptedClient(Set.of()));
+
+		assertThat(router.select(RoutingFeatures.of(Tone.FRIENDLY, "Lunch?", "Free at noon?", 0)).name())
+				.isEqualTo("fast");
+		assertThat(router.select(RoutingFeatures.of(Tone.FORMAL, "Contract", "Please review. ".repeat(200), 0)).name())
+				.isEqualTo("standard");
+		assertThat(router.select(new RoutingFeatures(8_000, 6, Tone.FORMAL, 0)).name()).isEqualTo("advanced");
+		assertThat(router.select(new RoutingFeatures(8_000, 6, Tone.CONCISE, 0)).name()).isEqualTo("standard");
+		assertThat(router.select(new RoutingFeatures(200, 1, Tone.FRIENDLY, 0.6)).name()).isEqualTo("standard");
+	}
+
+	@Test
+	void fallsBackToTheNextTierAndRecordsPerTierMetrics() {
+		ScriptedClient client = new ScriptedClient(Set.of("nano"));
+		ModelRouter router = router(client);
+
+		String reply = router.generate(new RoutingFeatures(100, 1, Tone.FRIENDLY, 0), PROMPT);
+
+		assertThat(reply).isEqualTo("reply from mini");
+		assertThat(client.calls).containsExactly("nano", "mini");
+		assertThat(meterRegistry.get("draftly.routing.requests").tag("tier", "fast").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("draftly.routing.fallbacks").tag("tier", "fast").counter().count()).isEqualTo(1);
+		assertThat(meterRegistry.get("draftly.routing.latency").tags("tier", "fast", "outcome", "failure").timer().count())
+				.isEqualTo(1);
+		assertThat(meterRegistry.get("draftly.routing.latency").tags("tier", "standard", "outcome", "success").timer().count())
+				.isEqualTo(1);
+		// 800 uncached + 200 cached prompt tokens and 100 completion tokens at the standard tier's prices
+		assertThat(meterRegistry.get("draftly.routing.cost").tag("tier", "standard").counter().count())
+				.isCloseTo(0.00050, within(1e-9));
+	}
+
+	@Test
+	void doesNotFallBackWhenOpenAiIsRefusedLocally() {
+		ScriptedClient client = new ScriptedClient(Set.of());
+		client.unavailable = true;
+		ModelRouter router = router(client);
+
+		assertThatThrownBy(() -> router.generate(new RoutingFeatures(100, 1, Tone.FRIENDLY, 0), PROMPT))
+				.isInstanceOf(DependencyUnavailableException.class);
+		assertThat(client.calls).containsExactly("nano");
+	}
+
+	@Test
+	void measuresThreadDepthAndInboundLengthWithoutQuotedHistory() {
+		String body = "Works for me, see you then.\n\nOn Mon, Jan 6, 2025 at 9:00 AM Sam <sam@acme.test> wrote:\n"
+				+ "> Can we move it to 3pm?\n> > Meeting at 2pm?\n";
+
+		RoutingFeatures features = RoutingFeatures.of(Tone.CONCISE, "Re: Re: Meeting", body, 0.1);
+
+		assertThat(features.inboundChars()).isEqualTo("Works for me, see you then.".length());
+		assertThat(features.threadDepth()).isEqualTo(3);
+		assertThat(RoutingFeatures.of(Tone.CONCISE, "Meeting", "Hi", 0).threadDepth()).isEqualTo(1);
+	}
+
+	@Test
+	void editRatioIsZeroForUnchangedRepliesAndOneForRewrites() {
+		assertThat(EditDistance.ratio("Thanks, see you  Monday", "thanks, see you monday")).isZero();
+		assertThat(EditDistance.ratio("Thanks, see you Monday", "Thanks, see you Tuesday")).isEqualTo(0.25);
+		assertThat(EditDistance.ratio("Sounds good", "I cannot make it this week")).isEqualTo(1.0);
+	}
+
+	private ModelRouter router(LlmProvider client) {
+		return new ModelRouter(client, TIERS, 1_500, 4, 0.35, 2, meterRegistry);
+	}
+
+	private static final class ScriptedClient implements LlmProvider {
+
+		private final Set<String> failingModels;
+		private final List<String> calls = new CopyOnWriteArrayList<>();
+		private boolean unavailable;
+
+		private ScriptedClient(Set<String> failingModels) {
+			this.failingModels = failingModels;
+		}
+
+		@Override
+		public String name() {
+			return "scripted";
+		}
+
+		@Override
+		public Completion complete(ChatPrompt prompt, String model) {
+			calls.add(model);
+			if (unavailable) {
+				throw new DependencyUnavailableException("circuit open", ExternalDependency.OPENAI, 30);
+			}
+			if (failingModels.contains(model)) {
+				throw new RuntimeException("Failed to generate email draft: 429 Too Many Requests");
+			}
+			return new Completion("reply from " + model, model, 1_000, 200, 100);
+		}
+
+		@Override
+		public Completion stream(ChatPrompt prompt, String model, Consumer<String> onDelta) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public String submitBatch(List<BatchRequest> requests, String model) {
+			throw new UnsupportedOperationException();
+		}
+
+		@Override
+		public BatchResult pollBatch(String batchId) {
+			throw new UnsupportedOperationException();
+		}
+	}
+}
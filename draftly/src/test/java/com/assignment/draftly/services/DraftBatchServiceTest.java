@@ -0,0 +1,230 @@
+package com.assignment.draftly.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.assignment.draftly.dto.DraftJobResponse;
+import com.assignment.draftly.dto.ReplyDraftRequest;
+import com.assignment.draftly.entity.DraftGenerationJob;
+import com.assignment.draftly.entity.GenerationBatch;
+import com.assignment.draftly.entity.User;
+import com.assignment.draftly.enums.DraftJobStatus;
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.enums.GenerationBatchStatus;
+import com.assignment.draftly.enums.Tone;
+import com.assignment.draftly.repository.DraftGenerationJobRepository;
+import com.assignment.draftly.repository.GenerationBatchRepository;
+import com.assignment.draftly.repository.UserRepository;
+import com.assignment.draftly.stub.FaultProfile;
+import com.assignment.draftly.stub.ProviderStubServer;
+
+@SpringBootTest(properties = {
+		"draftly.batch.max-wait-ms=0",
+		"draftly.batch.max-attempts=3",
+		// A Gmail 429 is then refused as unavailable instead of waited out
+		"draftly.gmail.retry.max-retry-after-ms=0"
+})
+@ActiveProfiles("test")
+class DraftBatchServiceTest {
+
+	private static final ProviderStubServer STUB = startStub();
+
+	@DynamicPropertySource
+	static void providerUrls(DynamicPropertyRegistry registry) {
+		registry.add("draftly.gmail.base-url", STUB::baseUrl);
+		registry.add("draftly.openai.base-url", STUB::baseUrl);
+	}
+
+	@Autowired
+	private DraftBatchService batchService;
+
+	@Autowired
+	private DraftGenerationJobService jobService;
+
+	@Autowired
+	private DraftGenerationJobRepository jobRepository;
+
+	@Autowired
+	private GenerationBatchRepository batchRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private Authentication auth;
+
+	@BeforeEach
+	void setUp() {
+		jobRepository.deleteAll();
+		batchRepository.deleteAll();
+		STUB.faults(ExternalDependency.GMAIL, FaultProfile.healthy()).expireBatches(false);
+
+		User user = new User();
+		user.setEmail("batch-" + UUID.randomUUID() + "@draftly.test");
+		user.setOauthtoken("ya29.stub-access-token-" + UUID.randomUUID());
+		user.setCreatedAt(Instant.now());
+		user = userRepository.save(user);
+		auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+	}
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Test
+	void submitsOneBatchPerTierAndTurnsTheResultsIntoDrafts() {
+		long batchesCreated = STUB.requestCount("batches.create");
+		List<DraftJobResponse> submitted = jobService.submitBatch(auth, List.of(
+				request(0, "Sam Lee <sam@acme.test>", "Can you send it today?", Tone.CONCISE),
+				request(1, "Ana Ruiz <ana@acme.test>", "Please review the terms. ".repeat(70), Tone.FORMAL),
+				request(2, "GitHub <noreply@github.com>", "Your build passed.", Tone.CONCISE)));
+
+		batchService.submitPending();
+
+		DraftGenerationJob fast = job(submitted.get(0));
+		DraftGenerationJob standard = job(submitted.get(1));
+		assertThat(job(submitted.get(2)).getStatus()).isEqualTo(DraftJobStatus.SUCCEEDED);
+		assertThat(List.of(fast, standard)).allSatisfy(job -> assertThat(job.getStatus()).isEqualTo(DraftJobStatus.RUNNING));
+		assertThat(batch(fast).getTier()).isEqualTo("fast");
+		assertThat(batch(standard).getTier()).isEqualTo("standard");
+		assertThat(STUB.requestCount("batches.create")).isEqualTo(batchesCreated + 2);
+
+		batchService.pollSubmitted();
+		assertThat(job(submitted.get(0)).getStatus()).isEqualTo(DraftJobStatus.RUNNING);
+
+		batchService.pollSubmitted();
+		for (DraftJobResponse response : submitted.subList(0, 2)) {
+			DraftGenerationJob job = job(response);
+			assertThat(job.getStatus()).isEqualTo(DraftJobStatus.SUCCEEDED);
+			assertThat(job.getDraftId()).isNotBlank();
+			assertThat(job.getReplyMessage()).isNotBlank();
+			assertThat(batch(job).getStatus()).isEqualTo(GenerationBatchStatus.COMPLETED);
+		}
+	}
+
+	@Test
+	void queuesJobsAnExpiredBatchSkippedAgainUntilTheAttemptsRunOut() {
+		STUB.expireBatches(true);
+		String jobId = jobService.submitBatch(auth, List.of(
+				request(0, "Sam Lee <sam@acme.test>", "Can you send it today?", Tone.CONCISE))).get(0).getJobId();
+
+		for (int attempt = 1; attempt < 3; attempt++) {
+			runBatch();
+			DraftGenerationJob job = jobRepository.findById(jobId).orElseThrow();
+			assertThat(job.getStatus()).isEqualTo(DraftJobStatus.QUEUED);
+			assertThat(job.getBatchId()).isNull();
+			assertThat(job.getBatchAttempts()).isEqualTo(attempt);
+		}
+
+		runBatch();
+		DraftGenerationJob job = jobRepository.findById(jobId).orElseThrow();
+		assertThat(job.getStatus()).isEqualTo(DraftJobStatus.FAILED);
+		assertThat(job.getErrorMessage()).isEqualTo("No result after 3 batches");
+	}
+
+	@Test
+	void defersTheFanOutWhileGmailIsUnavailable() {
+		DraftJobResponse submitted = jobService.submitBatch(auth, List.of(
+				request(0, "Sam Lee <sam@acme.test>", "Can you send it today?", Tone.CONCISE))).get(0);
+		batchService.submitPending();
+		batchService.pollSubmitted();
+
+		STUB.faults(ExternalDependency.GMAIL, FaultProfile.healthy().withRateLimited(1.0));
+		batchService.pollSubmitted();
+
+		DraftGenerationJob job = job(submitted);
+		assertThat(job.getStatus()).isEqualTo(DraftJobStatus.RUNNING);
+		assertThat(job.getReplyMessage()).isNotBlank();
+		assertThat(batch(job).getStatus()).isEqualTo(GenerationBatchStatus.RECEIVED);
+
+		STUB.faults(ExternalDependency.GMAIL, FaultProfile.healthy());
+		long retrieves = STUB.requestCount("batches.get");
+		batchService.pollSubmitted();
+
+		job = job(submitted);
+		assertThat(job.getStatus()).isEqualTo(DraftJobStatus.SUCCEEDED);
+		assertThat(job.getDraftId()).isNotBlank();
+		assertThat(batch(job).getStatus()).isEqualTo(GenerationBatchStatus.COMPLETED);
+		// The received results were kept; the provider was not asked again
+		assertThat(STUB.requestCount("batches.get")).isEqualTo(retrieves);
+	}
+
+	@Test
+	void leavesABatchAnotherInstanceClaimedAlone() {
+		DraftJobResponse submitted = jobService.submitBatch(auth, List.of(
+				request(0, "Sam Lee <sam@acme.test>", "Can you send it today?", Tone.CONCISE))).get(0);
+		batchService.submitPending();
+		String batchId = job(submitted).getBatchId();
+		Instant now = Instant.now();
+		assertThat(batchRepository.claim(batchId, "claim-other-instance", now, now.minus(10, ChronoUnit.MINUTES))).isOne();
+
+		long retrieves = STUB.requestCount("batches.get");
+		runBatch();
+		assertThat(STUB.requestCount("batches.get")).isEqualTo(retrieves);
+		assertThat(job(submitted).getStatus()).isEqualTo(DraftJobStatus.RUNNING);
+
+		// An instance that stopped without letting go loses the batch after the claim timeout (10 minutes)
+		batchRepository.release(batchId, "claim-other-instance");
+		Instant stoppedAt = now.minus(11, ChronoUnit.MINUTES);
+		assertThat(batchRepository.claim(batchId, "claim-stopped-instance", stoppedAt, stoppedAt)).isOne();
+		runBatch();
+
+		assertThat(job(submitted).getStatus()).isEqualTo(DraftJobStatus.SUCCEEDED);
+		GenerationBatch batch = batchRepository.findById(batchId).orElseThrow();
+		assertThat(batch.getStatus()).isEqualTo(GenerationBatchStatus.COMPLETED);
+		assertThat(batch.getClaim()).isNull();
+	}
+
+	// Submits, then polls until the stub's batch is done
+	private void runBatch() {
+		batchService.submitPending();
+		batchService.pollSubmitted();
+		batchService.pollSubmitted();
+	}
+
+	private DraftGenerationJob job(DraftJobResponse response) {
+		return jobRepository.findById(response.getJobId()).orElseThrow();
+	}
+
+	private GenerationBatch batch(DraftGenerationJob job) {
+		return batchRepository.findById(job.getBatchId()).orElseThrow();
+	}
+
+	private static ReplyDraftRequest request(int inboxIndex, String from, String body, Tone tone) {
+		Map<String, Object> message = STUB.inboxMessages().get(inboxIndex);
+		ReplyDraftRequest request = new ReplyDraftRequest();
+		request.setThreadId((String) message.get("threadId"));
+		request.setMessageId((String) message.get("id"));
+		request.setFrom(from);
+		request.setSubject("Re: Invoice");
+		request.setBody(body);
+		request.setTone(tone);
+		return request;
+	}
+
+	private static ProviderStubServer startStub() {
+		try {
+			return new ProviderStubServer(42).seedMailbox(5, 5, 400).start();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+}
@@ -0,0 +1,201 @@
+package com.assignment.draftly.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.oauth2.client.authentication.OAuth2AuthenticationToken;
+import org.springframework.security.oauth2.core.user.DefaultOAuth2User;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.assignment.draftly.dto.DraftJobResponse;
+import com.assignment.draftly.dto.ReplyDraftRequest;
+import com.assignment.draftly.entity.DraftGenerationJob;
+import com.assignment.draftly.entity.EmailReplyDraft;
+import com.assignment.draftly.entity.User;
+import com.assignment.draftly.entity.WorkItem;
+import com.assignment.draftly.enums.DraftJobStatus;
+import com.assignment.draftly.enums.ReplyDraftStatus;
+import com.assignment.draftly.enums.Tone;
+import com.assignment.draftly.enums.WorkItemStatus;
+import com.assignment.draftly.enums.WorkItemType;
+import com.assignment.draftly.enums.WorkPriority;
+import com.assignment.draftly.exceptionHandler.ResourceNotFoundException;
+import com.assignment.draftly.repository.DraftGenerationJobRepository;
+import com.assignment.draftly.repository.EmailReplyDraftRepository;
+import com.assignment.draftly.repository.UserRepository;
+import com.assignment.draftly.repository.WorkItemRepository;
+
+@SpringBootTest(properties = "draftly.jobs.callback-allowed-prefixes=https://hooks.draftly.test,https://partner.test/draftly")
+@ActiveProfiles("test")
+class DraftGenerationJobServiceTest {
+
+	@Autowired
+	private DraftGenerationJobService jobService;
+
+	@Autowired
+	private DraftGenerationJobRepository jobRepository;
+
+	@Autowired
+	private EmailReplyDraftRepository emailReplyDraftRepository;
+
+	@Autowired
+	private WorkItemRepository workItemRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private User user;
+	private Authentication auth;
+	private String threadId;
+
+	@BeforeEach
+	void setUp() {
+		user = new User();
+		user.setEmail("jobs-" + UUID.randomUUID() + "@draftly.test");
+		user.setCreatedAt(Instant.now());
+		user = userRepository.save(user);
+		auth = authenticationOf(user);
+		threadId = "thread-" + UUID.randomUUID();
+	}
+
+	@Test
+	void queuesAJobForTheWorkersThatItsOwnerCanPoll() {
+		DraftJobResponse submitted = jobService.submit(auth, request("https://hooks.draftly.test/drafts"));
+
+		assertThat(submitted.getStatus()).isEqualTo(DraftJobStatus.QUEUED);
+		assertThat(workItemRepository.findAll())
+				.filteredOn(item -> user.getId().equals(item.getUserId()))
+				.singleElement()
+				.satisfies(item -> {
+					assertThat(item.getType()).isEqualTo(WorkItemType.GENERATE_REPLY);
+					assertThat(item.getPriority()).isEqualTo(WorkPriority.INTERACTIVE);
+					assertThat(item.getStatus()).isEqualTo(WorkItemStatus.READY);
+					assertThat(item.getPayload()).contains(submitted.getJobId());
+				});
+
+		DraftJobResponse polled = jobService.getJob(auth, submitted.getJobId());
+		assertThat(polled.getStatus()).isEqualTo(DraftJobStatus.QUEUED);
+		assertThat(polled.getThreadId()).isEqualTo(threadId);
+
+		User other = new User();
+		other.setEmail("jobs-" + UUID.randomUUID() + "@draftly.test");
+		other.setCreatedAt(Instant.now());
+		Authentication otherAuth = authenticationOf(userRepository.save(other));
+		assertThatThrownBy(() -> jobService.getJob(otherAuth, submitted.getJobId()))
+				.isInstanceOf(ResourceNotFoundException.class);
+	}
+
+	@Test
+	void acceptsUsersSignedInWithGoogle() {
+		Authentication google = new OAuth2AuthenticationToken(
+				new DefaultOAuth2User(List.of(), Map.of("sub", "google-" + user.getId(), "email", user.getEmail()), "sub"),
+				List.of(), "google");
+
+		DraftJobResponse submitted = jobService.submit(google, request(null));
+
+		assertThat(jobRepository.findById(submitted.getJobId()).orElseThrow().getUserId()).isEqualTo(user.getId());
+		assertThat(jobService.getJob(google, submitted.getJobId()).getJobId()).isEqualTo(submitted.getJobId());
+		assertThat(jobService.getJob(auth, submitted.getJobId()).getJobId()).isEqualTo(submitted.getJobId());
+	}
+
+	@Test
+	void refusesACallbackOutsideTheAllowList() {
+		long jobs = jobRepository.count();
+
+		for (String callbackUrl : List.of(
+				"https://attacker.test/hook",
+				"https://hooks.draftly.test.attacker.net/hook",
+				"https://hooks.draftly.test@attacker.net/",
+				"http://hooks.draftly.test/hook",
+				"https://hooks.draftly.test:8443/hook",
+				"https://partner.test/draftly-evil/hook",
+				"https://partner.test/draftly/../admin",
+				"not a url")) {
+			assertThatThrownBy(() -> jobService.submit(auth, request(callbackUrl)))
+					.as(callbackUrl)
+					.isInstanceOf(IllegalArgumentException.class);
+		}
+		assertThatThrownBy(() -> jobService.submitBatch(auth, List.of(request(null), request("https://hooks.draftly.test.attacker.net/"))))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(jobRepository.count()).isEqualTo(jobs);
+
+		jobService.submit(auth, request("https://HOOKS.draftly.test:443/hook?job=1"));
+		jobService.submit(auth, request("https://partner.test/draftly"));
+		jobService.submit(auth, request("https://partner.test/draftly/hooks/1"));
+		assertThat(jobRepository.count()).isEqualTo(jobs + 3);
+	}
+
+	@Test
+	void reportsTheDraftAnEarlierAttemptCreatedInsteadOfGeneratingAgain() {
+		Instant submittedAt = Instant.now().minus(10, ChronoUnit.MINUTES);
+		DraftGenerationJob job = jobRepository.save(job(DraftJobStatus.RUNNING, submittedAt));
+		EmailReplyDraft existing = emailReplyDraftRepository.save(replyDraft("r-earlier-attempt", submittedAt.plusSeconds(30)));
+
+		jobService.handle(new WorkItem(), Map.of("jobId", job.getId()));
+
+		DraftGenerationJob finished = jobRepository.findById(job.getId()).orElseThrow();
+		assertThat(finished.getStatus()).isEqualTo(DraftJobStatus.SUCCEEDED);
+		assertThat(finished.getDraftId()).isEqualTo(existing.getGmailDraftId());
+		assertThat(finished.getReplyMessage()).isEqualTo(existing.getReplyMessage());
+		assertThat(emailReplyDraftRepository.findByThreadIdAndDeletedFalseOrderByCreatedAtDesc(threadId)).hasSize(1);
+	}
+
+	private ReplyDraftRequest request(String callbackUrl) {
+		ReplyDraftRequest request = new ReplyDraftRequest();
+		request.setThreadId(threadId);
+		request.setMessageId("m-1");
+		request.setFrom("Sam Lee <sam@acme.test>");
+		request.setSubject("Invoice");
+		request.setBody("Can you send it today?");
+		request.setTone(Tone.CONCISE);
+		request.setCallbackUrl(callbackUrl);
+		return request;
+	}
+
+	private static Authentication authenticationOf(User user) {
+		return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+	}
+
+	private DraftGenerationJob job(DraftJobStatus status, Instant createdAt) {
+		DraftGenerationJob job = new DraftGenerationJob();
+		job.setId(UUID.randomUUID().toString());
+		job.setUserId(user.getId());
+		job.setThreadId(threadId);
+		job.setMessageId("m-1");
+		job.setFromEmail("Sam Lee <sam@acme.test>");
+		job.setSubject("Invoice");
+		job.setBody("Can you send it today?");
+		job.setTone(Tone.CONCISE);
+		job.setStatus(status);
+		job.setCreatedAt(createdAt);
+		job.setUpdatedAt(createdAt);
+		return job;
+	}
+
+	private EmailReplyDraft replyDraft(String gmailDraftId, Instant createdAt) {
+		EmailReplyDraft draft = new EmailReplyDraft();
+		draft.setThreadId(threadId);
+		draft.setMessageId("m-1");
+		draft.setFromEmail("Sam Lee <sam@acme.test>");
+		draft.setToEmail("sam@acme.test");
+		draft.setReplyMessage("Sending it today.");
+		draft.setTone(Tone.CONCISE);
+		draft.setStatus(ReplyDraftStatus.GENERATED);
+		draft.setGmailDraftId(gmailDraftId);
+		draft.setCreatedAt(createdAt);
+		draft.setUpdatedAt(createdAt);
+		return draft;
+	}
+}
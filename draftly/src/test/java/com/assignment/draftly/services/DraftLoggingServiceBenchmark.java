@@ -0,0 +1,51 @@
+package com.assignment.draftly.services;
+
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link DraftLoggingService#buildLogMessage} with the context a draft action logs. Run with
+ * {@code mvn -Pjmh test}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DraftLoggingServiceBenchmark {
+
+	private Map<String, Object> context;
+
+	@Setup
+	public void setUp() {
+		context = new HashMap<>();
+		context.put("timestamp", Instant.parse("2025-01-01T00:00:00Z").toString());
+		context.put("actionType", "DRAFT_CREATED");
+		context.put("draftId", "r-4839201938475610293");
+		context.put("threadId", "18d0000000000001");
+		context.put("userId", 42L);
+		context.put("userEmail", "me@draftly.test");
+		context.put("outcome", "SUCCESS");
+		context.put("message", "Reply draft created successfully");
+		context.put("exceptionType", null);
+	}
+
+	@Benchmark
+	public String buildLogMessage() {
+		return DraftLoggingService.buildLogMessage(context);
+	}
+}
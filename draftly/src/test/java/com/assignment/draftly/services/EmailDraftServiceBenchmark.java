@@ -0,0 +1,42 @@
+package com.assignment.draftly.services;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Address extraction in {@link EmailDraftService}, run on every generate, regenerate and approve.
+ * Body extraction is measured in {@code GmailClientBenchmark}. Run with {@code mvn -Pjmh test}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EmailDraftServiceBenchmark {
+
+	@State(Scope.Benchmark)
+	public static class Address {
+
+		@Param({
+				"Priya Raman <priya.raman@acme.test>",
+				"\"Lee, Jordan\" <jordan.lee@globex.test>",
+				"sam@initech.test"
+		})
+		String from;
+	}
+
+	@Benchmark
+	public String extractEmailFromField(Address state) {
+		return EmailDraftService.extractEmailFromField(state.from);
+	}
+}
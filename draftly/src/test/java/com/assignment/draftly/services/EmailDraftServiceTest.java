@@ -0,0 +1,180 @@
+package com.assignment.draftly.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+
+import com.assignment.draftly.dto.InboxEmail;
+import com.assignment.draftly.dto.ReplyDraftRequest;
+import com.assignment.draftly.dto.ReplyDraftResponse;
+import com.assignment.draftly.entity.EmailReplyDraft;
+import com.assignment.draftly.entity.User;
+import com.assignment.draftly.enums.DraftStatus;
+import com.assignment.draftly.enums.ReplyDraftStatus;
+import com.assignment.draftly.enums.Tone;
+import com.assignment.draftly.repository.EmailReplyDraftRepository;
+import com.assignment.draftly.repository.EmailReplyVariantRepository;
+import com.assignment.draftly.repository.UserRepository;
+import com.assignment.draftly.stub.ProviderStubServer;
+
+// A task executor this small deadlocks as soon as a stage blocks on work queued behind it
+@SpringBootTest(properties = "spring.task.execution.pool.core-size=2")
+@ActiveProfiles("test")
+class EmailDraftServiceTest {
+
+	private static final ProviderStubServer STUB = startStub();
+
+	@DynamicPropertySource
+	static void providerUrls(DynamicPropertyRegistry registry) {
+		registry.add("draftly.gmail.base-url", STUB::baseUrl);
+		registry.add("draftly.openai.base-url", STUB::baseUrl);
+	}
+
+	@Autowired
+	private EmailDraftService emailDraftService;
+
+	@Autowired
+	private EmailReplyDraftRepository emailReplyDraftRepository;
+
+	@Autowired
+	private EmailReplyVariantRepository emailReplyVariantRepository;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	@AfterAll
+	static void stopStub() {
+		STUB.close();
+	}
+
+	@Test
+	void completesMoreConcurrentAsyncDraftsThanTheTaskExecutorHasThreads() throws Exception {
+		List<CompletableFuture<ReplyDraftResponse>> drafts = new ArrayList<>();
+		for (Map<String, Object> message : STUB.inboxMessages().subList(0, 6)) {
+			// A new user each, so every draft reads sent mail for its style profile
+			drafts.add(emailDraftService.generateReplyDraftAsync(newUser("async-"), request(message)));
+		}
+
+		CompletableFuture.allOf(drafts.toArray(CompletableFuture[]::new)).get(60, TimeUnit.SECONDS);
+		assertThat(drafts).allSatisfy(draft -> {
+			assertThat(draft.join().getStatus()).isEqualTo(DraftStatus.DRAFT_CREATED);
+			assertThat(draft.join().getVariants()).hasSize(Tone.values().length);
+		});
+	}
+
+	@Test
+	void rejectingADraftDeletesItsToneVariants() {
+		Map<String, Object> message = STUB.inboxMessages().get(6);
+		Authentication auth = newUser("reject-");
+		ReplyDraftRequest request = request(message);
+		emailDraftService.generateReplyDraft(auth, request);
+		Long draftRowId = emailReplyDraftRepository
+				.findByThreadIdAndDeletedFalseOrderByCreatedAtDesc(request.getThreadId()).get(0).getId();
+		assertThat(emailReplyVariantRepository.findByDraftId(draftRowId)).hasSize(Tone.values().length);
+
+		emailDraftService.rejectReplyDraft(auth, request.getThreadId());
+
+		assertThat(emailReplyDraftRepository.findById(draftRowId)).isEmpty();
+		assertThat(emailReplyVariantRepository.findByDraftId(draftRowId)).isEmpty();
+	}
+
+	@Test
+	void overlaysEachThreadsLatestLiveDraftOntoTheInbox() {
+		String drafted = "thread-" + UUID.randomUUID();
+		String discarded = "thread-" + UUID.randomUUID();
+		String undrafted = "thread-" + UUID.randomUUID();
+		Instant now = Instant.now();
+		String latestReply = "Sending the signed copy today. ".repeat(10);
+		emailReplyDraftRepository.saveAll(List.of(
+				replyDraft(drafted, "First take.", ReplyDraftStatus.GENERATED, false, now.minus(5, ChronoUnit.MINUTES)),
+				replyDraft(drafted, latestReply, ReplyDraftStatus.REGENERATED, false, now.minus(1, ChronoUnit.MINUTES)),
+				replyDraft(drafted, "Thrown away.", ReplyDraftStatus.REJECTED, true, now),
+				replyDraft(discarded, "Thrown away.", ReplyDraftStatus.GENERATED, true, now)));
+
+		List<InboxEmail> emails = List.of(email(drafted), email(drafted), email(discarded), email(undrafted), email(null));
+		List<InboxEmail> overlaid = emailDraftService.withDraftOverlay(emails);
+
+		assertThat(overlaid).isSameAs(emails);
+		assertThat(overlaid.subList(0, 2)).allSatisfy(email -> {
+			assertThat(email.getDraftStatus()).isEqualTo(ReplyDraftStatus.REGENERATED);
+			assertThat(email.getDraftPreview()).isEqualTo(latestReply.substring(0, 200));
+		});
+		assertThat(overlaid.subList(2, 5)).allSatisfy(email -> {
+			assertThat(email.getDraftStatus()).isNull();
+			assertThat(email.getDraftPreview()).isNull();
+		});
+	}
+
+	private static ProviderStubServer startStub() {
+		try {
+			return new ProviderStubServer(42).seedMailbox(10, 10, 400).start();
+		} catch (IOException e) {
+			throw new UncheckedIOException(e);
+		}
+	}
+
+	private Authentication newUser(String emailPrefix) {
+		User user = new User();
+		user.setEmail(emailPrefix + UUID.randomUUID() + "@draftly.test");
+		user.setOauthtoken("ya29.stub-access-token-" + UUID.randomUUID());
+		user.setCreatedAt(Instant.now());
+		user = userRepository.save(user);
+		return new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+	}
+
+	private static ReplyDraftRequest request(Map<String, Object> message) {
+		ReplyDraftRequest request = new ReplyDraftRequest();
+		request.setThreadId((String) message.get("threadId"));
+		request.setMessageId((String) message.get("id"));
+		request.setFrom("Sam Lee <sam@acme.test>");
+		request.setSubject("Invoice");
+		request.setBody("Can you send it today?");
+		request.setTone(Tone.CONCISE);
+		request.setAllTones(true);
+		return request;
+	}
+
+	private static InboxEmail email(String threadId) {
+		InboxEmail email = new InboxEmail();
+		email.setMessageId("m-" + UUID.randomUUID());
+		email.setThreadId(threadId);
+		email.setFrom("Sam Lee <sam@acme.test>");
+		email.setSubject("Contract");
+		return email;
+	}
+
+	private static EmailReplyDraft replyDraft(String threadId, String reply, ReplyDraftStatus status, boolean deleted,
+			Instant createdAt) {
+		EmailReplyDraft draft = new EmailReplyDraft();
+		draft.setThreadId(threadId);
+		draft.setMessageId("m-1");
+		draft.setFromEmail("Sam Lee <sam@acme.test>");
+		draft.setToEmail("sam@acme.test");
+		draft.setReplyMessage(reply);
+		draft.setTone(Tone.CONCISE);
+		draft.setStatus(status);
+		draft.setDeleted(deleted);
+		draft.setCreatedAt(createdAt);
+		draft.setUpdatedAt(createdAt);
+		return draft;
+	}
+}
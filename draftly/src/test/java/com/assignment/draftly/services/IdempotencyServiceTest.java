@@ -0,0 +1,127 @@
+package com.assignment.draftly.services;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.test.context.ActiveProfiles;
+
+import com.assignment.draftly.dto.ApproveReplyResponse;
+import com.assignment.draftly.entity.User;
+import com.assignment.draftly.exceptionHandler.IdempotencyConflictException;
+import com.assignment.draftly.repository.UserRepository;
+
+@SpringBootTest
+@ActiveProfiles("test")
+class IdempotencyServiceTest {
+
+	private static final List<String> REQUEST = List.of("thread-1", "Thanks, see you Monday");
+
+	@Autowired
+	private IdempotencyService idempotencyService;
+
+	@Autowired
+	private UserRepository userRepository;
+
+	private final AtomicInteger runs = new AtomicInteger();
+	private Authentication auth;
+	private String key;
+
+	@BeforeEach
+	void setUp() {
+		User user = new User();
+		user.setEmail("idempotency-" + UUID.randomUUID() + "@draftly.test");
+		user.setCreatedAt(Instant.now());
+		user = userRepository.save(user);
+		auth = new UsernamePasswordAuthenticationToken(user, null, user.getAuthorities());
+		key = UUID.randomUUID().toString();
+	}
+
+	@Test
+	void replaysTheStoredResponseWithoutRunningAgain() {
+		ApproveReplyResponse first = approve(REQUEST, 200);
+		ApproveReplyResponse second = approve(REQUEST, 200);
+
+		assertThat(runs).hasValue(1);
+		assertThat(second).isEqualTo(first);
+	}
+
+	@Test
+	void rejectsAKeyReusedForADifferentRequest() {
+		approve(REQUEST, 200);
+
+		assertThatThrownBy(() -> approve(List.of("thread-2", "Thanks, see you Monday"), 200))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(runs).hasValue(1);
+	}
+
+	@Test
+	void refusesADuplicateWhileTheFirstRequestIsRunning() throws Exception {
+		CountDownLatch started = new CountDownLatch(1);
+		CountDownLatch release = new CountDownLatch(1);
+		CompletableFuture<ApproveReplyResponse> first = CompletableFuture.supplyAsync(() -> execute(REQUEST, () -> {
+			started.countDown();
+			await(release);
+			return response(200);
+		}));
+		assertThat(started.await(10, TimeUnit.SECONDS)).isTrue();
+
+		assertThatThrownBy(() -> approve(REQUEST, 200)).isInstanceOf(IdempotencyConflictException.class);
+
+		release.countDown();
+		assertThat(first.get(10, TimeUnit.SECONDS).getStatusCode()).isEqualTo(200);
+		assertThat(approve(REQUEST, 200).getStatusCode()).isEqualTo(200);
+		assertThat(runs).hasValue(0);
+	}
+
+	@Test
+	void runsAgainAfterATransientFailureButReplaysAFinalOne() {
+		assertThat(approve(REQUEST, 500).getStatusCode()).isEqualTo(500);
+		assertThat(approve(REQUEST, 200).getStatusCode()).isEqualTo(200);
+		assertThat(approve(REQUEST, 500).getStatusCode()).isEqualTo(200);
+		assertThat(runs).hasValue(2);
+
+		key = UUID.randomUUID().toString();
+		assertThat(approve(REQUEST, 400).getStatusCode()).isEqualTo(400);
+		assertThat(approve(REQUEST, 200).getStatusCode()).isEqualTo(400);
+		assertThat(runs).hasValue(3);
+	}
+
+	private ApproveReplyResponse approve(List<String> request, int statusCode) {
+		return execute(request, () -> {
+			runs.incrementAndGet();
+			return response(statusCode);
+		});
+	}
+
+	private ApproveReplyResponse execute(List<String> request, Supplier<ApproveReplyResponse> action) {
+		return idempotencyService.execute(auth, key, "approve", request, ApproveReplyResponse.class,
+				response -> response.getStatusCode() < 500, action);
+	}
+
+	private static ApproveReplyResponse response(int statusCode) {
+		return new ApproveReplyResponse(statusCode < 400 ? "SUCCESS" : "ERROR", "status " + statusCode, "thread-1", statusCode);
+	}
+
+	private static void await(CountDownLatch latch) {
+		try {
+			latch.await(10, TimeUnit.SECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
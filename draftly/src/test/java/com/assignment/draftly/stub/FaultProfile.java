@@ -0,0 +1,35 @@
+package com.assignment.draftly.stub;
+
+/**
+ * Latency and error injection for one stubbed dependency. Rates are probabilities per request;
+ * a "timeout" holds the request for {@code timeoutMillis} and then drops the connection
+ * without a response.
+ */
+public record FaultProfile(
+        LatencyModel latency,
+        double rateLimitedRate,
+        double serverErrorRate,
+        double timeoutRate,
+        long timeoutMillis
+) {
+
+    public static FaultProfile healthy() {
+        return new FaultProfile(LatencyModel.none(), 0, 0, 0, 0);
+    }
+
+    public FaultProfile withLatency(LatencyModel latency) {
+        return new FaultProfile(latency, rateLimitedRate, serverErrorRate, timeoutRate, timeoutMillis);
+    }
+
+    public FaultProfile withRateLimited(double rate) {
+        return new FaultProfile(latency, rate, serverErrorRate, timeoutRate, timeoutMillis);
+    }
+
+    public FaultProfile withServerErrors(double rate) {
+        return new FaultProfile(latency, rateLimitedRate, rate, timeoutRate, timeoutMillis);
+    }
+
+    public FaultProfile withTimeouts(double rate, long holdMillis) {
+        return new FaultProfile(latency, rateLimitedRate, serverErrorRate, rate, holdMillis);
+    }
+}
@@ -0,0 +1,269 @@
+package com.assignment.draftly.stub;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Builds Gmail API message resources. Everything derived from a {@link SplittableRandom}
+ * is deterministic for a given seed, so runs against the stub are repeatable.
+ */
+public final class GmailFixtures {
+
+    static final String OWNER = "me@draftly.test";
+
+    private static final String[] SENDERS = {
+            "Priya Raman <priya.raman@acme.test>",
+            "\"Lee, Jordan\" <jordan.lee@globex.test>",
+            "sam@initech.test",
+            "Alex Chen <alex.chen+billing@umbrella.test>",
+            "GitHub <no-reply@github.test>",
+            "Newsletter <noreply@news.test>",
+            "Maria Garcia <maria@hooli.test>",
+            "ops-team@acme.test"
+    };
+
+    private static final String[] SUBJECTS = {
+            "Quarterly planning follow-up",
+            "Invoice #%d for March",
+            "Re: Design review notes",
+            "Can we move our call?",
+            "Your weekly summary",
+            "Contract draft v%d",
+            "Question about the API limits",
+            "Intro: %d minutes next week?"
+    };
+
+    private static final String[] WORDS = (
+            "thanks for the update i wanted to follow up on the proposal we discussed last week "
+                    + "could you share the latest numbers before friday the team is aligned on scope but "
+                    + "we still need sign off from finance let me know if tuesday works for a quick call "
+                    + "attached are the notes from the meeting happy to walk through any questions best regards"
+    ).split(" ");
+
+    private GmailFixtures() {
+    }
+
+    /** Roughly {@code approxBytes} of plain prose split into short paragraphs. */
+    public static String prose(SplittableRandom random, int approxBytes) {
+        StringBuilder text = new StringBuilder(approxBytes + 32);
+        int sentenceWords = 0;
+        while (text.length() < approxBytes) {
+            String word = WORDS[random.nextInt(WORDS.length)];
+            if (sentenceWords == 0) {
+                word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+            }
+            text.append(word);
+            if (++sentenceWords >= 8 + random.nextInt(10)) {
+                text.append(random.nextInt(5) == 0 ? ".\r\n\r\n" : ". ");
+                sentenceWords = 0;
+            } else {
+                text.append(' ');
+            }
+        }
+        return text.toString();
+    }
+
+    public static String sender(SplittableRandom random) {
+        return SENDERS[random.nextInt(SENDERS.length)];
+    }
+
+    public static String subject(SplittableRandom random) {
+        return SUBJECTS[random.nextInt(SUBJECTS.length)].formatted(100 + random.nextInt(900));
+    }
+
+    /**
+     * A full-format message: multipart/alternative with a text/plain and a text/html part,
+     * bodies Base64url encoded as Gmail returns them.
+     */
+    public static Map<String, Object> message(
+            String id,
+            String threadId,
+            List<String> labelIds,
+            String from,
+            String to,
+            String subject,
+            String rfc822MessageId,
+            String plainBody,
+            long internalDate,
+            long historyId
+    ) {
+        String html = "<html><body><p>" + plainBody
+                .replace("&", "&amp;").replace("<", "&lt;").replace("\r\n\r\n", "</p><p>")
+                + "</p></body></html>";
+
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("partId", "");
+        payload.put("mimeType", "multipart/alternative");
+        payload.put("filename", "");
+        payload.put("headers", List.of(
+                header("From", from),
+                header("To", to),
+                header("Subject", subject),
+                header("Message-ID", "<" + rfc822MessageId + ">"),
+                header("Date", DateTimeFormatter.RFC_1123_DATE_TIME.format(
+                        Instant.ofEpochMilli(internalDate).atZone(ZoneOffset.UTC))),
+                header("Content-Type", "multipart/alternative; boundary=\"b1\"")
+        ));
+        payload.put("body", Map.of("size", 0));
+        payload.put("parts", List.of(
+                part("0", "text/plain; charset=\"UTF-8\"", "text/plain", plainBody),
+                part("1", "text/html; charset=\"UTF-8\"", "text/html", html)
+        ));
+        return resource(id, threadId, labelIds, snippet(plainBody), internalDate, historyId, payload);
+    }
+
+    /**
+     * A received message of roughly {@code approxBytes} of decoded text across its text/plain and
+     * text/html parts, with the transport headers (Received, DKIM, ARC, ...) that Gmail returns ahead
+     * of From and Subject.
+     */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> deliveredMessage(SplittableRandom random, int approxBytes) {
+        long now = 1_735_689_600_000L;
+        Map<String, Object> message = message("18d0000000000001", "18d0000000000001", List.of("INBOX", "UNREAD"),
+                sender(random), OWNER, subject(random), "CAF" + random.nextLong(1L << 40) + "@mail.acme.test",
+                prose(random, Math.max(64, approxBytes / 2)), now, 1);
+
+        List<Map<String, Object>> headers = new ArrayList<>();
+        headers.add(header("Delivered-To", OWNER));
+        for (int hop = 0; hop < 6; hop++) {
+            headers.add(header("Received", "from mail-" + hop + ".acme.test (mail-" + hop + ".acme.test. [10.0.0."
+                    + hop + "]) by mx.google.com with ESMTPS id x" + random.nextInt(1 << 20)
+                    + " for <" + OWNER + ">; Wed, 01 Jan 2025 00:00:0" + hop + " +0000"));
+        }
+        headers.add(header("X-Received", "by 2002:a05:6a00:1:b0:1 with SMTP id " + random.nextInt(1 << 20)));
+        headers.add(header("ARC-Seal", "i=1; a=rsa-sha256; t=1735689600; cv=none; d=google.com; s=arc-20240605; b="
+                + prose(random, 300).replace(" ", "")));
+        headers.add(header("ARC-Message-Signature", "i=1; a=rsa-sha256; c=relaxed/relaxed; d=google.com; b="
+                + prose(random, 300).replace(" ", "")));
+        headers.add(header("ARC-Authentication-Results", "i=1; mx.google.com; dkim=pass; spf=pass; dmarc=pass"));
+        headers.add(header("Return-Path", "<bounce@acme.test>"));
+        headers.add(header("Received-SPF", "pass (google.com: domain of bounce@acme.test designates 10.0.0.1)"));
+        headers.add(header("Authentication-Results", "mx.google.com; dkim=pass header.i=@acme.test; spf=pass"));
+        headers.add(header("DKIM-Signature", "v=1; a=rsa-sha256; c=relaxed/relaxed; d=acme.test; s=s1; b="
+                + prose(random, 300).replace(" ", "")));
+        headers.add(header("X-Google-DKIM-Signature", "v=1; a=rsa-sha256; c=relaxed/relaxed; d=1e100.net"));
+        headers.add(header("X-Gm-Message-State", "AOJu0Y" + random.nextLong(1L << 40)));
+        headers.add(header("MIME-Version", "1.0"));
+        Map<String, Object> payload = new LinkedHashMap<>((Map<String, Object>) message.get("payload"));
+        headers.addAll((List<Map<String, Object>>) payload.get("headers"));
+        payload.put("headers", headers);
+        message.put("payload", payload);
+        return message;
+    }
+
+    /**
+     * A message built from the {@code raw} RFC 2822 text the client uploaded (send, draft create
+     * or update). Headers are kept as sent; the body becomes a single text/plain payload.
+     */
+    public static Map<String, Object> fromRaw(
+            String id,
+            String threadId,
+            List<String> labelIds,
+            String raw,
+            long internalDate,
+            long historyId
+    ) {
+        String mime = new String(Base64.getUrlDecoder().decode(raw), StandardCharsets.UTF_8);
+        int split = mime.indexOf("\r\n\r\n");
+        String head = split < 0 ? mime : mime.substring(0, split);
+        String body = split < 0 ? "" : mime.substring(split + 4);
+
+        List<Map<String, Object>> headers = new ArrayList<>();
+        for (String line : head.split("\r\n")) {
+            if (!headers.isEmpty() && (line.startsWith(" ") || line.startsWith("\t"))) {
+                // folded continuation of the previous header
+                Map<String, Object> previous = headers.remove(headers.size() - 1);
+                headers.add(header((String) previous.get("name"), previous.get("value") + line));
+                continue;
+            }
+            int colon = line.indexOf(':');
+            if (colon > 0) {
+                headers.add(header(line.substring(0, colon).trim(), line.substring(colon + 1).trim()));
+            }
+        }
+        Map<String, Object> payload = new LinkedHashMap<>();
+        payload.put("partId", "");
+        payload.put("mimeType", "text/plain");
+        payload.put("filename", "");
+        payload.put("headers", headers);
+        payload.put("body", body(body));
+        return resource(id, threadId, labelIds, snippet(body), internalDate, historyId, payload);
+    }
+
+    /** Value of the first header with this name, or null. */
+    @SuppressWarnings("unchecked")
+    public static String headerValue(Map<String, Object> message, String name) {
+        Map<String, Object> payload = (Map<String, Object>) message.get("payload");
+        for (Map<String, Object> header : (List<Map<String, Object>>) payload.get("headers")) {
+            if (name.equalsIgnoreCase((String) header.get("name"))) {
+                return (String) header.get("value");
+            }
+        }
+        return null;
+    }
+
+    /** The message as {@code format=metadata} returns it: headers only, no body data. */
+    @SuppressWarnings("unchecked")
+    public static Map<String, Object> metadataOnly(Map<String, Object> message) {
+        Map<String, Object> copy = new LinkedHashMap<>(message);
+        Map<String, Object> payload = new LinkedHashMap<>((Map<String, Object>) message.get("payload"));
+        payload.remove("parts");
+        payload.put("body", Map.of("size", 0));
+        copy.put("payload", payload);
+        return copy;
+    }
+
+    private static Map<String, Object> resource(
+            String id,
+            String threadId,
+            List<String> labelIds,
+            String snippet,
+            long internalDate,
+            long historyId,
+            Map<String, Object> payload
+    ) {
+        Map<String, Object> message = new LinkedHashMap<>();
+        message.put("id", id);
+        message.put("threadId", threadId);
+        message.put("labelIds", labelIds);
+        message.put("snippet", snippet);
+        message.put("historyId", String.valueOf(historyId));
+        message.put("internalDate", String.valueOf(internalDate));
+        message.put("payload", payload);
+        message.put("sizeEstimate", payload.toString().length());
+        return message;
+    }
+
+    private static Map<String, Object> part(String partId, String contentType, String mimeType, String text) {
+        Map<String, Object> part = new LinkedHashMap<>();
+        part.put("partId", partId);
+        part.put("mimeType", mimeType);
+        part.put("filename", "");
+        part.put("headers", List.of(header("Content-Type", contentType)));
+        part.put("body", body(text));
+        return part;
+    }
+
+    private static Map<String, Object> body(String text) {
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        return Map.of("size", bytes.length, "data", Base64.getUrlEncoder().encodeToString(bytes));
+    }
+
+    private static Map<String, Object> header(String name, String value) {
+        return Map.of("name", name, "value", value);
+    }
+
+    private static String snippet(String body) {
+        String flat = body.replaceAll("\\s+", " ").trim();
+        return flat.length() > 100 ? flat.substring(0, 100) : flat;
+    }
+}
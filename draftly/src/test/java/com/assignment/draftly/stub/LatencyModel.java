@@ -0,0 +1,40 @@
+package com.assignment.draftly.stub;
+
+import java.util.SplittableRandom;
+
+/**
+ * Response time distribution for a stubbed dependency.
+ */
+public interface LatencyModel {
+
+    long sampleMillis(SplittableRandom random);
+
+    static LatencyModel none() {
+        return random -> 0;
+    }
+
+    static LatencyModel fixed(long millis) {
+        return random -> millis;
+    }
+
+    static LatencyModel uniform(long minMillis, long maxMillis) {
+        return random -> minMillis + random.nextLong(maxMillis - minMillis + 1);
+    }
+
+    /**
+     * Log-normal latency with the given median and 99th percentile, the usual shape of
+     * remote API response times (most calls fast, a long tail of slow ones).
+     */
+    static LatencyModel logNormal(long medianMillis, long p99Millis) {
+        double mu = Math.log(medianMillis);
+        // z(0.99) = 2.326
+        double sigma = Math.log((double) p99Millis / medianMillis) / 2.326;
+        return random -> {
+            // Box-Muller
+            double u1 = 1.0 - random.nextDouble();
+            double u2 = random.nextDouble();
+            double z = Math.sqrt(-2 * Math.log(u1)) * Math.cos(2 * Math.PI * u2);
+            return Math.round(Math.exp(mu + sigma * z));
+        };
+    }
+}
@@ -0,0 +1,914 @@
+package com.assignment.draftly.stub;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+import com.assignment.draftly.enums.ExternalDependency;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import tools.jackson.databind.json.JsonMapper;
+
+/**
+ * Local stand-in for the Gmail REST API and OpenAI chat completions, for integration and
+ * load tests that must not reach Google or OpenAI.
+ *
+ * Point the app at it with {@code draftly.gmail.base-url} and {@code draftly.openai.base-url}
+ * (both set to {@link #baseUrl()}). Supported:
+ * <ul>
+ *   <li>Gmail: messages list (in:inbox, in:sent, rfc822msgid:, paging), get (full/metadata/minimal),
+ *       send, threads get, drafts create/get/list/update/delete, history list, profile, and the
+ *       multipart/mixed batch endpoint</li>
+ *   <li>OpenAI: {@code /v1/chat/completions}, blocking or {@code "stream": true} (SSE chunks), with
+ *       usage including simulated prompt-prefix cache hits; {@code /v1/files} upload and content and
+ *       {@code /v1/batches} create and retrieve, for batches of chat completions</li>
+ * </ul>
+ * Latency and failures (429, 5xx, dropped connections) are injected per dependency via
+ * {@link FaultProfile}. The mailbox and all random decisions derive from the seed, so a run
+ * is repeatable for the same sequence of requests.
+ *
+ * Can also run standalone: {@code java -cp <test classpath> com.assignment.draftly.stub.ProviderStubServer port=8089}.
+ */
+public class ProviderStubServer implements AutoCloseable {
+
+    private static final String GMAIL_PREFIX = "/gmail/v1/users/me/";
+    private static final int CACHE_BLOCK_CHARS = 512;   // ~128 tokens
+    private static final int MIN_CACHED_CHARS = 4096;   // ~1024 tokens
+
+    private final long seed;
+    private final JsonMapper jsonMapper = JsonMapper.builder().build();
+    private final Map<ExternalDependency, FaultProfile> faults = new EnumMap<>(ExternalDependency.class);
+    private final Map<ExternalDependency, AtomicLong> sequences = new EnumMap<>(ExternalDependency.class);
+    private final Map<String, LongAdder> requestCounts = new ConcurrentHashMap<>();
+
+    // Mailbox: newest first
+    private final Map<String, Map<String, Object>> messages = new ConcurrentHashMap<>();
+    private final List<String> messageOrder = new CopyOnWriteArrayList<>();
+    private final Map<String, Map<String, Object>> drafts = new ConcurrentHashMap<>();
+    private final List<HistoryRecord> history = new CopyOnWriteArrayList<>();
+    private final AtomicLong ids = new AtomicLong(0x18c0000000000000L);
+    private final AtomicLong historyIds = new AtomicLong(1000);
+    private final Set<Integer> promptPrefixes = ConcurrentHashMap.newKeySet();
+    private final Map<String, byte[]> files = new ConcurrentHashMap<>();
+    private final Map<String, Map<String, Object>> batches = new ConcurrentHashMap<>();
+    private final AtomicLong openAiIds = new AtomicLong();
+
+    private volatile long streamChunkDelayMillis;
+    private volatile int replyWords = 80;
+    private volatile int batchPollsUntilDone = 1;
+    private volatile boolean expireBatches;
+    private volatile int historyPageSize = 100;
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public ProviderStubServer(long seed) {
+        this.seed = seed;
+        for (ExternalDependency dependency : ExternalDependency.values()) {
+            faults.put(dependency, FaultProfile.healthy());
+            sequences.put(dependency, new AtomicLong());
+        }
+    }
+
+    /**
+     * Fills the mailbox with {@code inbox} received and {@code sent} sent messages whose plain
+     * text bodies are about {@code bodyBytes} long.
+     */
+    public ProviderStubServer seedMailbox(int inbox, int sent, int bodyBytes) {
+        SplittableRandom random = new SplittableRandom(seed);
+        long now = 1_735_689_600_000L; // fixed clock for repeatable fixtures
+        for (int i = 0; i < sent; i++) {
+            addMessage(random, List.of("SENT"), GmailFixtures.OWNER, GmailFixtures.sender(random),
+                    now - (long) (sent - i) * 3_600_000, bodyBytes);
+        }
+        for (int i = 0; i < inbox; i++) {
+            addMessage(random, List.of("INBOX", "UNREAD"), GmailFixtures.sender(random), GmailFixtures.OWNER,
+                    now - (long) (inbox - i) * 60_000, bodyBytes);
+        }
+        return this;
+    }
+
+    /** Delivers a new inbox message (recorded in history) and returns its id. */
+    public String deliver(String from, String subject, String body) {
+        String id = nextId();
+        long historyId = historyIds.incrementAndGet();
+        store(GmailFixtures.message(id, id, List.of("INBOX", "UNREAD"), from, GmailFixtures.OWNER, subject,
+                id + "@mail.stub.test", body, System.currentTimeMillis(), historyId));
+        history.add(new HistoryRecord(historyId, id, id));
+        return id;
+    }
+
+    public ProviderStubServer faults(ExternalDependency dependency, FaultProfile profile) {
+        faults.put(dependency, profile);
+        return this;
+    }
+
+    /** Delay between streamed completion chunks, to simulate token generation speed. */
+    public ProviderStubServer streamChunkDelayMillis(long millis) {
+        this.streamChunkDelayMillis = millis;
+        return this;
+    }
+
+    public ProviderStubServer replyWords(int words) {
+        this.replyWords = words;
+        return this;
+    }
+
+    /** History records per history.list page; Gmail's default is 100. */
+    public ProviderStubServer historyPageSize(int records) {
+        this.historyPageSize = records;
+        return this;
+    }
+
+    /** Retrieves of a batch that still report it in progress before it completes. */
+    public ProviderStubServer batchPollsUntilDone(int polls) {
+        this.batchPollsUntilDone = polls;
+        return this;
+    }
+
+    /** Batches created from now on end {@code expired} without output, as if the completion window ran out. */
+    public ProviderStubServer expireBatches(boolean expire) {
+        this.expireBatches = expire;
+        return this;
+    }
+
+    public ProviderStubServer start() throws IOException {
+        return start(0);
+    }
+
+    public ProviderStubServer start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(GMAIL_PREFIX, exchange -> serve(exchange, ExternalDependency.GMAIL));
+        server.createContext("/batch/gmail/v1", exchange -> serve(exchange, ExternalDependency.GMAIL));
+        server.createContext("/v1/chat/completions", exchange -> serve(exchange, ExternalDependency.OPENAI));
+        server.createContext("/v1/files", exchange -> serve(exchange, ExternalDependency.OPENAI));
+        server.createContext("/v1/batches", exchange -> serve(exchange, ExternalDependency.OPENAI));
+        server.start();
+        return this;
+    }
+
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /** Requests seen per route, e.g. {@code "messages.send"} or {@code "chat.completions"}. */
+    public long requestCount(String route) {
+        LongAdder count = requestCounts.get(route);
+        return count == null ? 0 : count.sum();
+    }
+
+    public Map<String, Long> requestCounts() {
+        Map<String, Long> counts = new TreeMap<>();
+        requestCounts.forEach((route, count) -> counts.put(route, count.sum()));
+        return counts;
+    }
+
+    public int draftCount() {
+        return drafts.size();
+    }
+
+    /** Inbox messages, newest first, as Gmail message resources. */
+    public List<Map<String, Object>> inboxMessages() {
+        return messageOrder.stream()
+                .map(messages::get)
+                .filter(m -> labels(m).contains("INBOX"))
+                .toList();
+    }
+
+    /** Sent messages, newest first, as Gmail message resources. */
+    public List<Map<String, Object>> sentMessages() {
+        return messageOrder.stream()
+                .map(messages::get)
+                .filter(m -> labels(m).contains("SENT"))
+                .toList();
+    }
+
+    @Override
+    public void close() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+        }
+    }
+
+    // ---- HTTP plumbing ----
+
+    private void serve(HttpExchange exchange, ExternalDependency dependency) throws IOException {
+        try {
+            FaultProfile profile = faults.get(dependency);
+            SplittableRandom random = new SplittableRandom(
+                    seed * 1_000_003L + dependency.ordinal() * 7_919L + sequences.get(dependency).incrementAndGet());
+            sleep(profile.latency().sampleMillis(random));
+
+            double roll = random.nextDouble();
+            if (roll < profile.timeoutRate()) {
+                count("fault.timeout");
+                sleep(profile.timeoutMillis());
+                return; // closing without a response drops the connection
+            }
+            roll -= profile.timeoutRate();
+            if (roll < profile.rateLimitedRate()) {
+                count("fault.429");
+                exchange.getResponseHeaders().set("Retry-After", "1");
+                send(exchange, errorResponse(dependency, 429));
+                return;
+            }
+            roll -= profile.rateLimitedRate();
+            if (roll < profile.serverErrorRate()) {
+                count("fault.5xx");
+                send(exchange, errorResponse(dependency, 503));
+                return;
+            }
+
+            String path = exchange.getRequestURI().getPath();
+            byte[] body = exchange.getRequestBody().readAllBytes();
+            if (path.startsWith("/v1/files")) {
+                send(exchange, files(exchange.getRequestMethod(), path, exchange.getRequestHeaders().getFirst("Content-Type"), body));
+            } else if (path.startsWith("/v1/batches")) {
+                send(exchange, batches(exchange.getRequestMethod(), path, body));
+            } else if (dependency == ExternalDependency.OPENAI) {
+                chatCompletions(exchange, body);
+            } else if (path.startsWith("/batch/")) {
+                send(exchange, batch(exchange.getRequestHeaders().getFirst("Content-Type"), body));
+            } else {
+                send(exchange, gmail(exchange.getRequestMethod(), exchange.getRequestURI(), body));
+            }
+        } catch (RuntimeException e) {
+            // Surface stub bugs as 500s rather than hung connections
+            send(exchange, json(500, Map.of("error", Map.of("code", 500, "message", String.valueOf(e)))));
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private static void send(HttpExchange exchange, Response response) throws IOException {
+        exchange.getResponseHeaders().set("Content-Type", response.contentType());
+        if (response.body().length == 0) {
+            exchange.sendResponseHeaders(response.status(), -1);
+            return;
+        }
+        exchange.sendResponseHeaders(response.status(), response.body().length);
+        exchange.getResponseBody().write(response.body());
+    }
+
+    private Response errorResponse(ExternalDependency dependency, int status) {
+        if (dependency == ExternalDependency.OPENAI) {
+            String type = status == 429 ? "rate_limit_exceeded" : "server_error";
+            return json(status, Map.of("error", Map.of("message", "Injected " + status, "type", type, "code", type)));
+        }
+        String reason = status == 429 ? "rateLimitExceeded" : "backendError";
+        return json(status, Map.of("error", Map.of(
+                "code", status,
+                "message", "Injected " + status,
+                "errors", List.of(Map.of("reason", reason)),
+                "status", status == 429 ? "RESOURCE_EXHAUSTED" : "UNAVAILABLE"
+        )));
+    }
+
+    // ---- Gmail ----
+
+    @SuppressWarnings("unchecked")
+    private Response gmail(String method, URI uri, byte[] body) {
+        String path = uri.getPath().substring(GMAIL_PREFIX.length());
+        Map<String, String> query = query(uri.getRawQuery());
+        String[] segments = path.split("/");
+
+        switch (segments[0]) {
+            case "messages" -> {
+                if (segments.length == 1 && method.equals("GET")) {
+                    count("messages.list");
+                    return listMessages(query);
+                }
+                if (segments.length == 2 && segments[1].equals("send") && method.equals("POST")) {
+                    count("messages.send");
+                    Map<String, Object> request = jsonMapper.readValue(body, Map.class);
+                    String id = nextId();
+                    String threadId = request.get("threadId") != null ? (String) request.get("threadId") : id;
+                    long historyId = historyIds.incrementAndGet();
+                    Map<String, Object> message = GmailFixtures.fromRaw(id, threadId, List.of("SENT"),
+                            (String) request.get("raw"), System.currentTimeMillis(), historyId);
+                    store(message);
+                    history.add(new HistoryRecord(historyId, id, threadId));
+                    return json(200, Map.of("id", id, "threadId", threadId, "labelIds", List.of("SENT")));
+                }
+                if (segments.length == 2 && method.equals("GET")) {
+                    count("messages.get");
+                    Map<String, Object> message = messages.get(segments[1]);
+                    if (message == null) {
+                        return notFound();
+                    }
+                    return json(200, format(message, query.getOrDefault("format", "full")));
+                }
+            }
+            case "threads" -> {
+                if (segments.length == 2 && method.equals("GET")) {
+                    count("threads.get");
+                    List<Map<String, Object>> thread = new ArrayList<>(messageOrder.stream()
+                            .map(messages::get)
+                            .filter(m -> segments[1].equals(m.get("threadId")))
+                            .map(m -> format(m, query.getOrDefault("format", "full")))
+                            .toList());
+                    Collections.reverse(thread); // oldest first, as Gmail returns threads
+                    if (thread.isEmpty()) {
+                        return notFound();
+                    }
+                    return json(200, Map.of("id", segments[1], "historyId", thread.get(thread.size() - 1).get("historyId"),
+                            "messages", thread));
+                }
+            }
+            case "drafts" -> {
+                return draftsRoute(method, segments, body);
+            }
+            case "history" -> {
+                if (method.equals("GET")) {
+                    count("history.list");
+                    return listHistory(query);
+                }
+            }
+            case "profile" -> {
+                if (method.equals("GET")) {
+                    count("profile.get");
+                    return json(200, Map.of("emailAddress", GmailFixtures.OWNER,
+                            "messagesTotal", messages.size(), "historyId", String.valueOf(historyIds.get())));
+                }
+            }
+            default -> {
+            }
+        }
+        return notFound();
+    }
+
+    private Response listMessages(Map<String, String> query) {
+        String q = query.getOrDefault("q", "");
+        int maxResults = Integer.parseInt(query.getOrDefault("maxResults", "100"));
+        int offset = Integer.parseInt(query.getOrDefault("pageToken", "0"));
+
+        List<Map<String, Object>> matches = new ArrayList<>();
+        for (String id : messageOrder) {
+            Map<String, Object> message = messages.get(id);
+            if (matchesQuery(message, q)) {
+                matches.add(message);
+            }
+        }
+        List<Map<String, Object>> page = matches.subList(Math.min(offset, matches.size()),
+                Math.min(offset + maxResults, matches.size()));
+
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (!page.isEmpty()) {
+            response.put("messages", page.stream()
+                    .map(m -> Map.of("id", m.get("id"), "threadId", m.get("threadId")))
+                    .toList());
+        }
+        if (offset + maxResults < matches.size()) {
+            response.put("nextPageToken", String.valueOf(offset + maxResults));
+        }
+        response.put("resultSizeEstimate", matches.size());
+        return json(200, response);
+    }
+
+    private static boolean matchesQuery(Map<String, Object> message, String q) {
+        for (String term : q.trim().split("\\s+")) {
+            if (term.isEmpty()) {
+                continue;
+            }
+            if (term.equals("in:inbox") && !labels(message).contains("INBOX")) {
+                return false;
+            }
+            if (term.equals("in:sent") && !labels(message).contains("SENT")) {
+                return false;
+            }
+            if (term.startsWith("rfc822msgid:")) {
+                String wanted = strip(term.substring("rfc822msgid:".length()));
+                String actual = GmailFixtures.headerValue(message, "Message-ID");
+                if (actual == null || !strip(actual).equals(wanted)) {
+                    return false;
+                }
+            }
+        }
+        return !labels(message).contains("DRAFT");
+    }
+
+    private Response listHistory(Map<String, String> query) {
+        long start = Long.parseLong(query.getOrDefault("startHistoryId", "0"));
+        int offset = Integer.parseInt(query.getOrDefault("pageToken", "0"));
+        List<HistoryRecord> matching = history.stream().filter(h -> h.id() > start).toList();
+        List<Map<String, Object>> records = matching.stream()
+                .skip(offset)
+                .limit(historyPageSize)
+                .map(h -> Map.<String, Object>of(
+                        "id", String.valueOf(h.id()),
+                        "messagesAdded", List.of(Map.of("message", Map.of("id", h.messageId(), "threadId", h.threadId(),
+                                "labelIds", labels(messages.get(h.messageId())))))
+                ))
+                .toList();
+        Map<String, Object> response = new LinkedHashMap<>();
+        if (!records.isEmpty()) {
+            response.put("history", records);
+        }
+        if (offset + historyPageSize < matching.size()) {
+            response.put("nextPageToken", String.valueOf(offset + historyPageSize));
+        }
+        response.put("historyId", String.valueOf(historyIds.get()));
+        return json(200, response);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Response draftsRoute(String method, String[] segments, byte[] body) {
+        if (segments.length == 1 && method.equals("POST")) {
+            count("drafts.create");
+            String draftId = "r" + nextId();
+            Map<String, Object> draft = draftResource(draftId, nextId(), jsonMapper.readValue(body, Map.class));
+            drafts.put(draftId, draft);
+            return json(200, summary(draft));
+        }
+        if (segments.length == 1 && method.equals("GET")) {
+            count("drafts.list");
+            return json(200, Map.of("drafts", drafts.values().stream().map(this::summary).toList(),
+                    "resultSizeEstimate", drafts.size()));
+        }
+        if (segments.length != 2) {
+            return notFound();
+        }
+        String draftId = segments[1];
+        switch (method) {
+            case "GET" -> {
+                count("drafts.get");
+                Map<String, Object> draft = drafts.get(draftId);
+                return draft == null ? notFound() : json(200, draft);
+            }
+            case "PUT" -> {
+                count("drafts.update");
+                Map<String, Object> existing = drafts.get(draftId);
+                if (existing == null) {
+                    return notFound();
+                }
+                String messageId = (String) ((Map<String, Object>) existing.get("message")).get("id");
+                Map<String, Object> draft = draftResource(draftId, messageId, jsonMapper.readValue(body, Map.class));
+                drafts.put(draftId, draft);
+                return json(200, summary(draft));
+            }
+            case "DELETE" -> {
+                count("drafts.delete");
+                return drafts.remove(draftId) == null ? notFound() : new Response(204, "application/json", new byte[0]);
+            }
+            default -> {
+                return notFound();
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> draftResource(String draftId, String messageId, Map<String, Object> request) {
+        Map<String, Object> uploaded = (Map<String, Object>) request.get("message");
+        String threadId = uploaded.get("threadId") != null ? (String) uploaded.get("threadId") : messageId;
+        Map<String, Object> message = GmailFixtures.fromRaw(messageId, threadId, List.of("DRAFT"),
+                (String) uploaded.get("raw"), System.currentTimeMillis(), historyIds.get());
+        return Map.of("id", draftId, "message", message);
+    }
+
+    @SuppressWarnings("unchecked")
+    private Map<String, Object> summary(Map<String, Object> draft) {
+        Map<String, Object> message = (Map<String, Object>) draft.get("message");
+        return Map.of("id", draft.get("id"), "message", Map.of(
+                "id", message.get("id"), "threadId", message.get("threadId"), "labelIds", List.of("DRAFT")));
+    }
+
+    /**
+     * Gmail batch: a multipart/mixed body of {@code application/http} parts, each one request.
+     * Parts are answered in order in a multipart/mixed response.
+     */
+    private Response batch(String contentType, byte[] body) {
+        count("batch");
+        String boundary = contentType == null ? null : parameter(contentType, "boundary");
+        if (boundary == null) {
+            return json(400, Map.of("error", Map.of("code", 400, "message", "Missing multipart boundary")));
+        }
+        String text = new String(body, StandardCharsets.UTF_8);
+        String responseBoundary = "batch_stub_" + Long.toHexString(seed);
+        StringBuilder out = new StringBuilder();
+
+        for (String part : text.split("--" + Pattern.quote(boundary))) {
+            String trimmed = part.strip();
+            if (trimmed.isEmpty() || trimmed.equals("--")) {
+                continue;
+            }
+            String[] sections = trimmed.split("\r?\n\r?\n", 3);
+            String contentId = header(sections[0], "Content-ID");
+            String[] requestLine = sections.length > 1 ? sections[1].lines().findFirst().orElse("").split(" ") : new String[0];
+            byte[] innerBody = sections.length > 2 ? sections[2].getBytes(StandardCharsets.UTF_8) : new byte[0];
+
+            Response inner = requestLine.length >= 2
+                    ? gmail(requestLine[0], URI.create(requestLine[1].startsWith("/gmail/")
+                            ? requestLine[1] : "/gmail/v1/users/me/" + requestLine[1]), innerBody)
+                    : json(400, Map.of("error", Map.of("code", 400, "message", "Bad batch part")));
+
+            out.append("--").append(responseBoundary).append("\r\n")
+                    .append("Content-Type: application/http\r\n");
+            if (contentId != null) {
+                out.append("Content-ID: <response-").append(strip(contentId)).append(">\r\n");
+            }
+            out.append("\r\n")
+                    .append("HTTP/1.1 ").append(inner.status()).append("\r\n")
+                    .append("Content-Type: ").append(inner.contentType()).append("\r\n\r\n")
+                    .append(new String(inner.body(), StandardCharsets.UTF_8)).append("\r\n");
+        }
+        out.append("--").append(responseBoundary).append("--\r\n");
+        return new Response(200, "multipart/mixed; boundary=" + responseBoundary,
+                out.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    // ---- OpenAI ----
+
+    @SuppressWarnings("unchecked")
+    private void chatCompletions(HttpExchange exchange, byte[] body) throws IOException {
+        count("chat.completions");
+        Map<String, Object> request = jsonMapper.readValue(body, Map.class);
+        String model = String.valueOf(request.getOrDefault("model", "stub-model"));
+        String prompt = promptOf(request);
+        String reply = reply(prompt);
+        Map<String, Object> usage = usage(prompt, reply);
+        String id = "chatcmpl-stub-" + Integer.toHexString(prompt.hashCode());
+
+        if (!Boolean.TRUE.equals(request.get("stream"))) {
+            send(exchange, json(200, completion(id, model, reply, usage)));
+            return;
+        }
+
+        count("chat.completions.stream");
+        exchange.getResponseHeaders().set("Content-Type", "text/event-stream");
+        exchange.sendResponseHeaders(200, 0);
+        OutputStream out = exchange.getResponseBody();
+        streamChunk(out, id, model, Map.of("role", "assistant", "content", ""), null);
+        String[] words = reply.split("(?<= )");
+        for (String word : words) {
+            sleep(streamChunkDelayMillis);
+            streamChunk(out, id, model, Map.of("content", word), null);
+        }
+        streamChunk(out, id, model, Map.of(), "stop");
+        Map<String, Object> options = (Map<String, Object>) request.get("stream_options");
+        if (options != null && Boolean.TRUE.equals(options.get("include_usage"))) {
+            writeEvent(out, Map.of("id", id, "object", "chat.completion.chunk", "model", model,
+                    "choices", List.of(), "usage", usage));
+        }
+        out.write("data: [DONE]\n\n".getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    private void streamChunk(OutputStream out, String id, String model, Map<String, Object> delta, String finishReason)
+            throws IOException {
+        Map<String, Object> choice = new HashMap<>();
+        choice.put("index", 0);
+        choice.put("delta", delta);
+        choice.put("finish_reason", finishReason);
+        writeEvent(out, Map.of("id", id, "object", "chat.completion.chunk", "created", 1_735_689_600L,
+                "model", model, "choices", List.of(choice)));
+    }
+
+    private void writeEvent(OutputStream out, Map<String, Object> event) throws IOException {
+        out.write(("data: " + jsonMapper.writeValueAsString(event) + "\n\n").getBytes(StandardCharsets.UTF_8));
+        out.flush();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static String promptOf(Map<String, Object> request) {
+        List<Map<String, Object>> chat = (List<Map<String, Object>>) request.getOrDefault("messages", List.of());
+        StringBuilder prompt = new StringBuilder();
+        for (Map<String, Object> message : chat) {
+            prompt.append(message.get("role")).append(": ").append(message.get("content")).append('\n');
+        }
+        return prompt.toString();
+    }
+
+    private Map<String, Object> usage(String prompt, String reply) {
+        int promptTokens = Math.max(1, prompt.length() / 4);
+        int completionTokens = Math.max(1, reply.length() / 4);
+        return Map.of(
+                "prompt_tokens", promptTokens,
+                "completion_tokens", completionTokens,
+                "total_tokens", promptTokens + completionTokens,
+                "prompt_tokens_details", Map.of("cached_tokens", cachedPrefixChars(prompt) / 4)
+        );
+    }
+
+    private static Map<String, Object> completion(String id, String model, String reply, Map<String, Object> usage) {
+        return Map.of(
+                "id", id,
+                "object", "chat.completion",
+                "created", 1_735_689_600L,
+                "model", model,
+                "choices", List.of(Map.of(
+                        "index", 0,
+                        "message", Map.of("role", "assistant", "content", reply),
+                        "finish_reason", "stop"
+                )),
+                "usage", usage
+        );
+    }
+
+    /** {@code POST /v1/files} (multipart, {@code file} part) and {@code GET /v1/files/{id}/content}. */
+    private Response files(String method, String path, String contentType, byte[] body) {
+        if (method.equals("POST") && path.equals("/v1/files")) {
+            count("files.create");
+            String boundary = contentType != null ? parameter(contentType, "boundary") : null;
+            if (boundary == null) {
+                return json(400, Map.of("error", Map.of("message", "Expected multipart/form-data")));
+            }
+            for (String part : new String(body, StandardCharsets.UTF_8).split("--" + Pattern.quote(boundary))) {
+                int split = part.indexOf("\r\n\r\n");
+                if (split < 0 || !"file".equals(parameter(String.valueOf(header(part.substring(0, split), "Content-Disposition")), "name"))) {
+                    continue;
+                }
+                String content = part.substring(split + 4);
+                content = content.endsWith("\r\n") ? content.substring(0, content.length() - 2) : content;
+                String id = "file-stub-" + openAiIds.incrementAndGet();
+                files.put(id, content.getBytes(StandardCharsets.UTF_8));
+                return json(200, Map.of("id", id, "object", "file", "purpose", "batch", "bytes", content.length()));
+            }
+            return json(400, Map.of("error", Map.of("message", "Missing file part")));
+        }
+        String[] segments = path.split("/");
+        if (method.equals("GET") && segments.length == 5 && segments[4].equals("content")) {
+            count("files.content");
+            byte[] content = files.get(segments[3]);
+            return content == null ? notFound() : new Response(200, "application/jsonl", content);
+        }
+        return notFound();
+    }
+
+    /**
+     * {@code POST /v1/batches} answers every line of the input file right away; the batch reports
+     * {@code in_progress} for {@link #batchPollsUntilDone} retrieves before it completes (or
+     * expires, see {@link #expireBatches}).
+     */
+    @SuppressWarnings("unchecked")
+    private Response batches(String method, String path, byte[] body) {
+        if (method.equals("POST") && path.equals("/v1/batches")) {
+            count("batches.create");
+            Map<String, Object> request = jsonMapper.readValue(body, Map.class);
+            byte[] input = files.get(String.valueOf(request.get("input_file_id")));
+            if (input == null) {
+                return json(400, Map.of("error", Map.of("message", "Unknown input_file_id")));
+            }
+            StringBuilder output = new StringBuilder();
+            int requests = 0;
+            for (String line : new String(input, StandardCharsets.UTF_8).split("\n")) {
+                if (line.isBlank()) {
+                    continue;
+                }
+                requests++;
+                Map<String, Object> entry = jsonMapper.readValue(line, Map.class);
+                Map<String, Object> chat = (Map<String, Object>) entry.get("body");
+                String prompt = promptOf(chat);
+                String reply = reply(prompt);
+                Map<String, Object> response = new LinkedHashMap<>();
+                response.put("status_code", 200);
+                response.put("body", completion("chatcmpl-stub-" + Integer.toHexString(prompt.hashCode()),
+                        String.valueOf(chat.getOrDefault("model", "stub-model")), reply, usage(prompt, reply)));
+                Map<String, Object> result = new LinkedHashMap<>();
+                result.put("id", "batch_req_stub_" + requests);
+                result.put("custom_id", entry.get("custom_id"));
+                result.put("response", response);
+                result.put("error", null);
+                output.append(jsonMapper.writeValueAsString(result)).append('\n');
+            }
+            String outputFileId = "file-stub-" + openAiIds.incrementAndGet();
+            files.put(outputFileId, output.toString().getBytes(StandardCharsets.UTF_8));
+            String id = "batch_stub_" + openAiIds.incrementAndGet();
+            Map<String, Object> batch = new ConcurrentHashMap<>(Map.of(
+                    "id", id,
+                    "object", "batch",
+                    "endpoint", "/v1/chat/completions",
+                    "input_file_id", request.get("input_file_id"),
+                    "completion_window", "24h",
+                    "request_counts", Map.of("total", requests, "completed", requests, "failed", 0)
+            ));
+            batch.put("pending_polls", batchPollsUntilDone);
+            batch.put("output", outputFileId);
+            batch.put("final_status", expireBatches ? "expired" : "completed");
+            batches.put(id, batch);
+            return json(200, batchView(batch, "validating"));
+        }
+        String[] segments = path.split("/");
+        if (method.equals("GET") && segments.length == 4) {
+            count("batches.get");
+            Map<String, Object> batch = batches.get(segments[3]);
+            if (batch == null) {
+                return notFound();
+            }
+            int pending = (int) batch.get("pending_polls");
+            if (pending > 0) {
+                batch.put("pending_polls", pending - 1);
+                return json(200, batchView(batch, "in_progress"));
+            }
+            String status = (String) batch.get("final_status");
+            Map<String, Object> view = batchView(batch, status);
+            if (status.equals("completed")) {
+                view.put("output_file_id", batch.get("output"));
+            }
+            return json(200, view);
+        }
+        return notFound();
+    }
+
+    private static Map<String, Object> batchView(Map<String, Object> batch, String status) {
+        Map<String, Object> view = new LinkedHashMap<>(batch);
+        view.remove("pending_polls");
+        view.remove("output");
+        view.remove("final_status");
+        view.put("status", status);
+        view.put("output_file_id", null);
+        view.put("error_file_id", null);
+        return view;
+    }
+
+    /** Deterministic reply for a prompt: the same prompt always gets the same text. */
+    private String reply(String prompt) {
+        SplittableRandom random = new SplittableRandom(seed ^ prompt.hashCode());
+        return "Hi,\r\n\r\n" + GmailFixtures.prose(random, replyWords * 6).strip() + "\r\n\r\nBest regards";
+    }
+
+    /**
+     * Mimics automatic prompt caching: the longest previously seen prefix, in whole blocks and
+     * only beyond a minimum length, counts as cached.
+     */
+    private int cachedPrefixChars(String prompt) {
+        int cached = 0;
+        for (int end = MIN_CACHED_CHARS; end <= prompt.length(); end += CACHE_BLOCK_CHARS) {
+            if (!promptPrefixes.add(prompt.substring(0, end).hashCode())) {
+                cached = end;
+            }
+        }
+        return cached;
+    }
+
+    // ---- helpers ----
+
+    private void addMessage(SplittableRandom random, List<String> labelIds, String from, String to,
+                            long internalDate, int bodyBytes) {
+        String id = nextId();
+        // Every third message continues the previous thread
+        String threadId = !messageOrder.isEmpty() && random.nextInt(3) == 0
+                ? (String) messages.get(messageOrder.get(0)).get("threadId")
+                : id;
+        store(GmailFixtures.message(id, threadId, labelIds, from, to, GmailFixtures.subject(random),
+                id + "@mail.stub.test", GmailFixtures.prose(random, bodyBytes), internalDate,
+                historyIds.incrementAndGet()));
+    }
+
+    private void store(Map<String, Object> message) {
+        messages.put((String) message.get("id"), message);
+        messageOrder.add(0, (String) message.get("id"));
+    }
+
+    private String nextId() {
+        return Long.toHexString(ids.incrementAndGet());
+    }
+
+    private static Map<String, Object> format(Map<String, Object> message, String format) {
+        return switch (format) {
+            case "metadata" -> GmailFixtures.metadataOnly(message);
+            case "minimal" -> {
+                Map<String, Object> minimal = new LinkedHashMap<>(message);
+                minimal.remove("payload");
+                yield minimal;
+            }
+            default -> message;
+        };
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<String> labels(Map<String, Object> message) {
+        return (List<String>) message.get("labelIds");
+    }
+
+    private Response json(int status, Object body) {
+        return new Response(status, "application/json; charset=UTF-8", jsonMapper.writeValueAsBytes(body));
+    }
+
+    private Response notFound() {
+        return json(404, Map.of("error", Map.of("code", 404, "message", "Requested entity was not found.",
+                "status", "NOT_FOUND")));
+    }
+
+    private void count(String route) {
+        requestCounts.computeIfAbsent(route, k -> new LongAdder()).increment();
+    }
+
+    private static Map<String, String> query(String rawQuery) {
+        Map<String, String> params = new HashMap<>();
+        if (rawQuery == null) {
+            return params;
+        }
+        for (String pair : rawQuery.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                params.put(URLDecoder.decode(pair.substring(0, eq), StandardCharsets.UTF_8),
+                        URLDecoder.decode(pair.substring(eq + 1), StandardCharsets.UTF_8));
+            }
+        }
+        return params;
+    }
+
+    private static String header(String block, String name) {
+        return block.lines()
+                .filter(line -> line.regionMatches(true, 0, name + ":", 0, name.length() + 1))
+                .map(line -> line.substring(name.length() + 1).trim())
+                .findFirst()
+                .orElse(null);
+    }
+
+    private static String parameter(String headerValue, String name) {
+        for (String param : headerValue.split(";")) {
+            String trimmed = param.trim();
+            if (trimmed.regionMatches(true, 0, name + "=", 0, name.length() + 1)) {
+                return trimmed.substring(name.length() + 1).replace("\"", "");
+            }
+        }
+        return null;
+    }
+
+    private static String strip(String value) {
+        String trimmed = value.trim();
+        return trimmed.startsWith("<") && trimmed.endsWith(">") ? trimmed.substring(1, trimmed.length() - 1) : trimmed;
+    }
+
+    private static void sleep(long millis) {
+        if (millis <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private record Response(int status, String contentType, byte[] body) {
+    }
+
+    private record HistoryRecord(long id, String messageId, String threadId) {
+    }
+
+    /**
+     * Standalone mode for manual or external load tests. Arguments are {@code key=value}:
+     * port (8089), seed (42), inbox (50), sent (20), body-bytes (2000), gmail-median-ms,
+     * gmail-p99-ms, openai-median-ms, openai-p99-ms, gmail-429-rate, gmail-5xx-rate,
+     * gmail-timeout-rate, openai-429-rate, openai-5xx-rate, openai-timeout-rate,
+     * timeout-ms (30000), stream-chunk-delay-ms (0).
+     */
+    public static void main(String[] args) throws IOException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            int eq = arg.indexOf('=');
+            if (eq > 0) {
+                options.put(arg.substring(0, eq), arg.substring(eq + 1));
+            }
+        }
+        ProviderStubServer stub = new ProviderStubServer(Long.parseLong(options.getOrDefault("seed", "42")))
+                .seedMailbox(
+                        Integer.parseInt(options.getOrDefault("inbox", "50")),
+                        Integer.parseInt(options.getOrDefault("sent", "20")),
+                        Integer.parseInt(options.getOrDefault("body-bytes", "2000")))
+                .streamChunkDelayMillis(Long.parseLong(options.getOrDefault("stream-chunk-delay-ms", "0")));
+        long timeoutMillis = Long.parseLong(options.getOrDefault("timeout-ms", "30000"));
+        for (ExternalDependency dependency : ExternalDependency.values()) {
+            String prefix = dependency.name().toLowerCase();
+            FaultProfile profile = FaultProfile.healthy()
+                    .withRateLimited(Double.parseDouble(options.getOrDefault(prefix + "-429-rate", "0")))
+                    .withServerErrors(Double.parseDouble(options.getOrDefault(prefix + "-5xx-rate", "0")))
+                    .withTimeouts(Double.parseDouble(options.getOrDefault(prefix + "-timeout-rate", "0")), timeoutMillis);
+            if (options.containsKey(prefix + "-median-ms")) {
+                long median = Long.parseLong(options.get(prefix + "-median-ms"));
+                profile = profile.withLatency(LatencyModel.logNormal(median,
+                        Long.parseLong(options.getOrDefault(prefix + "-p99-ms", String.valueOf(median * 4)))));
+            }
+            stub.faults(dependency, profile);
+        }
+        stub.start(Integer.parseInt(options.getOrDefault("port", "8089")));
+        System.out.println("Provider stub listening on " + stub.baseUrl()
+                + " (set draftly.gmail.base-url and draftly.openai.base-url to this)");
+    }
+}
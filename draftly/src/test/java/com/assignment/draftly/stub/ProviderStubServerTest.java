@@ -0,0 +1,271 @@
+package com.assignment.draftly.stub;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.env.StandardEnvironment;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import tools.jackson.databind.json.JsonMapper;
+
+import com.assignment.draftly.dto.InboxEmail;
+import com.assignment.draftly.enums.ExternalDependency;
+import com.assignment.draftly.integrations.GmailAccounts;
+import com.assignment.draftly.integrations.GmailClient;
+import com.assignment.draftly.integrations.GmailResponseCache;
+import com.assignment.draftly.integrations.OpenAiClient;
+import com.assignment.draftly.llm.BatchRequest;
+import com.assignment.draftly.llm.BatchResult;
+import com.assignment.draftly.prompt.ChatPrompt;
+import com.assignment.draftly.prompt.Completion;
+import com.assignment.draftly.prompt.PromptTemplate;
+import com.assignment.draftly.resilience.FailureClassifier;
+
+/**
+ * Runs the real clients against the stub, which also checks that their base URLs are honoured.
+ */
+class ProviderStubServerTest {
+
+	private ProviderStubServer stub;
+	private GmailClient gmailClient;
+	private OpenAiClient openAiClient;
+	private SimpleMeterRegistry meterRegistry;
+
+	@BeforeEach
+	void setUp() throws IOException {
+		stub = new ProviderStubServer(7).seedMailbox(30, 12, 1_500).start();
+
+		gmailClient = new GmailClient(new RestTemplate(), new StandardEnvironment(), 8, stub.baseUrl(), 262144,
+				new GmailResponseCache(new SimpleMeterRegistry(), 4_194_304, 1_800_000), new GmailAccounts(100));
+		ReflectionTestUtils.setField(gmailClient, "self", gmailClient);
+
+		meterRegistry = new SimpleMeterRegistry();
+		openAiClient = new OpenAiClient(new RestTemplate(), stub.baseUrl(), JsonMapper.builder().build(), meterRegistry);
+		ReflectionTestUtils.setField(openAiClient, "apiKey", "sk-stub");
+		ReflectionTestUtils.setField(openAiClient, "model", "gpt-4.1-mini");
+	}
+
+	@AfterEach
+	void tearDown() {
+		stub.close();
+	}
+
+	@Test
+	void servesInboxAndSentFixtures() {
+		List<InboxEmail> inbox = gmailClient.fetchInboxPage("token", 10, null, false).emails();
+		List<String> sentBodies = gmailClient.fetchLast10SentEmailBodies("token");
+
+		assertThat(inbox).hasSize(10).allSatisfy(email -> {
+			assertThat(email.getFrom()).isNotBlank();
+			assertThat(email.getBody()).hasSizeGreaterThan(1_000);
+		});
+		assertThat(sentBodies).hasSize(10);
+		assertThat(stub.requestCount("messages.get")).isEqualTo(20);
+	}
+
+	@Test
+	void pagesInboxWithPageTokensAndMetadataOnlyListing() {
+		GmailClient.InboxPage first = gmailClient.fetchInboxPage("token", 12, null, true);
+		GmailClient.InboxPage second = gmailClient.fetchInboxPage("token", 12, first.nextPageToken(), true);
+		GmailClient.InboxPage last = gmailClient.fetchInboxPage("token", 12, second.nextPageToken(), false);
+
+		assertThat(first.emails()).hasSize(12).allSatisfy(email -> {
+			assertThat(email.getSubject()).isNotBlank();
+			assertThat(email.getSnippet()).isNotBlank();
+			assertThat(email.getBody()).isNull();
+		});
+		assertThat(second.emails()).extracting(InboxEmail::getMessageId)
+				.doesNotContainAnyElementsOf(first.emails().stream().map(InboxEmail::getMessageId).toList());
+		assertThat(last.emails()).hasSize(6).allSatisfy(email -> assertThat(email.getBody()).isNotBlank());
+		assertThat(last.nextPageToken()).isNull();
+	}
+
+	@Test
+	void servesRepeatedReadsFromTheParsedMessageCache() {
+		List<InboxEmail> first = gmailClient.fetchInboxPage("token", 10, null, false).emails();
+		GmailClient.InboxPage listing = gmailClient.fetchInboxPage("token", 10, null, true);
+		List<InboxEmail> second = gmailClient.fetchInboxPage("token", 10, null, false).emails();
+
+		assertThat(second).usingRecursiveComparison().isEqualTo(first);
+		assertThat(listing.emails()).allSatisfy(email -> assertThat(email.getBody()).isNull());
+		// Only the first listing fetched bodies; the later ones were served from the cache
+		assertThat(stub.requestCount("messages.get")).isEqualTo(10);
+	}
+
+	@Test
+	void reportsInboxMessagesAddedSinceAHistoryId() {
+		long start = gmailClient.fetchCurrentHistoryId("token");
+		assertThat(gmailClient.fetchInboxHistory("token", start).addedMessageIds()).isEmpty();
+
+		String first = stub.deliver("Ana <ana@acme.test>", "Quarterly numbers", "See attached.");
+		gmailClient.sendReply("token", "ana@acme.test", "Quarterly numbers", "Thanks", first, null, "history-1@draftly.test");
+		String second = stub.deliver("Ben <ben@acme.test>", "Lunch", "Noon?");
+
+		GmailClient.HistoryDelta delta = gmailClient.fetchInboxHistory("token", start);
+		assertThat(delta.addedMessageIds()).containsExactly(first, second);
+		assertThat(gmailClient.getMessageMetadata("token", second).subject()).isEqualTo("Lunch");
+		assertThat(gmailClient.fetchInboxHistory("token", delta.historyId()).addedMessageIds()).isEmpty();
+	}
+
+	@Test
+	void readsEveryHistoryPageAsItsOwnCall() {
+		long start = gmailClient.fetchCurrentHistoryId("token");
+		List<String> delivered = List.of(
+				stub.deliver("Ana <ana@acme.test>", "One", "1"),
+				stub.deliver("Ben <ben@acme.test>", "Two", "2"),
+				stub.deliver("Cy <cy@acme.test>", "Three", "3"));
+		stub.historyPageSize(2);
+		long before = stub.requestCount("history.list");
+
+		assertThat(gmailClient.fetchInboxHistory("token", start).addedMessageIds()).isEqualTo(delivered);
+		assertThat(stub.requestCount("history.list") - before).isEqualTo(2);
+	}
+
+	@Test
+	void fixturesAreDeterministicForASeed() throws IOException {
+		try (ProviderStubServer twin = new ProviderStubServer(7).seedMailbox(30, 12, 1_500).start()) {
+			GmailClient twinClient = new GmailClient(new RestTemplate(), new StandardEnvironment(), 8, twin.baseUrl(), 262144,
+					new GmailResponseCache(new SimpleMeterRegistry(), 4_194_304, 1_800_000), new GmailAccounts(100));
+			ReflectionTestUtils.setField(twinClient, "self", twinClient);
+
+			assertThat(twinClient.fetchInboxPage("token", 10, null, false).emails())
+					.usingRecursiveComparison()
+					.isEqualTo(gmailClient.fetchInboxPage("token", 10, null, false).emails());
+		}
+	}
+
+	@Test
+	void draftLifecycleAndSend() {
+		String draftId = gmailClient.createReplyDraft("token", "sam@initech.test", "Hello", "First", "t1", "m1");
+		gmailClient.updateReplyDraft("token", draftId, "sam@initech.test", "Hello", "Second", "t1", "m1");
+		assertThat(stub.draftCount()).isEqualTo(1);
+
+		gmailClient.deleteDraft("token", draftId);
+		assertThat(stub.draftCount()).isZero();
+		// A draft deleted in Gmail is reported missing; recreating it is left to the caller
+		assertThat(gmailClient.updateReplyDraft("token", draftId, "sam@initech.test", "Hello", "Third", "t1", "m1")).isNull();
+		assertThat(stub.draftCount()).isZero();
+
+		gmailClient.sendReply("token", "sam@initech.test", "Hello", "Body", "t1", "m1", "reply-1@draftly.test");
+		assertThat(gmailClient.findMessageIdByRfc822Id("token", "reply-1@draftly.test")).isNotNull();
+		assertThat(gmailClient.findMessageIdByRfc822Id("token", "reply-2@draftly.test")).isNull();
+	}
+
+	@Test
+	void completionsAreDeterministicPerPrompt() {
+		String first = openAiClient.generate("system", "Reply to this");
+
+		assertThat(first).startsWith("Hi,");
+		assertThat(openAiClient.generate("system", "Reply to this")).isEqualTo(first);
+		assertThat(openAiClient.generate("system", "Reply to something else")).isNotEqualTo(first);
+	}
+
+	@Test
+	void recordsCachedPromptTokensForASharedPrefix() {
+		String instructions = "Keep replies short and match the sender's register. ".repeat(100);
+		for (String email : List.of("Can we meet on Tuesday?", "Please send the invoice.")) {
+			openAiClient.generate(PromptTemplate.create()
+					.section(PromptTemplate.Stability.REQUEST, "Email to reply to", email)
+					.section(PromptTemplate.Stability.SETTING, "Tone", "Friendly")
+					.instructions(instructions)
+					.render());
+		}
+
+		assertThat(tokens("prompt")).isGreaterThan(2_000);
+		assertThat(tokens("cached")).isGreaterThanOrEqualTo(1_024).isLessThan(tokens("prompt") / 2);
+		assertThat(tokens("completion")).isPositive();
+	}
+
+	private double tokens(String type) {
+		return meterRegistry.get("draftly.openai.tokens").tag("type", type).counter().count();
+	}
+
+	@Test
+	void streamsCompletionChunks() throws Exception {
+		HttpResponse<String> response = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create(stub.baseUrl() + "/v1/chat/completions"))
+						.header("Content-Type", "application/json")
+						.POST(HttpRequest.BodyPublishers.ofString("""
+								{"model":"m","stream":true,"stream_options":{"include_usage":true},
+								 "messages":[{"role":"user","content":"hi"}]}"""))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.headers().firstValue("Content-Type")).hasValue("text/event-stream");
+		assertThat(response.body()).contains("\"object\":\"chat.completion.chunk\"", "\"usage\"")
+				.endsWith("data: [DONE]\n\n");
+	}
+
+	@Test
+	void injectsRateLimitsAndServerErrors() {
+		stub.faults(ExternalDependency.GMAIL, FaultProfile.healthy().withRateLimited(1.0));
+		assertThatThrownBy(() -> gmailClient.fetchMessageById("token", "any"))
+				.satisfies(e -> assertThat(FailureClassifier.statusCodeOf(e)).isEqualTo(429));
+
+		stub.faults(ExternalDependency.GMAIL, FaultProfile.healthy().withServerErrors(1.0));
+		assertThatThrownBy(() -> gmailClient.fetchMessageById("token", "any"))
+				.satisfies(e -> assertThat(FailureClassifier.isOutageSignal(e)).isTrue());
+
+		stub.faults(ExternalDependency.GMAIL, FaultProfile.healthy().withTimeouts(1.0, 10));
+		assertThatThrownBy(() -> gmailClient.fetchMessageById("token", "any"))
+				.satisfies(e -> assertThat(FailureClassifier.isOverloadSignal(e)).isTrue());
+	}
+
+	@Test
+	void answersBatchRequests() throws Exception {
+		Map<String, Long> before = stub.requestCounts();
+		String id = gmailClient.fetchLast10SentMessageIds("token").get(0);
+		String body = "--b\r\nContent-Type: application/http\r\nContent-ID: <1>\r\n\r\n"
+				+ "GET /gmail/v1/users/me/messages/" + id + "?format=metadata\r\n\r\n"
+				+ "--b\r\nContent-Type: application/http\r\nContent-ID: <2>\r\n\r\n"
+				+ "GET /gmail/v1/users/me/messages/missing\r\n\r\n--b--\r\n";
+
+		HttpResponse<String> response = HttpClient.newHttpClient().send(
+				HttpRequest.newBuilder(URI.create(stub.baseUrl() + "/batch/gmail/v1"))
+						.header("Content-Type", "multipart/mixed; boundary=b")
+						.POST(HttpRequest.BodyPublishers.ofString(body))
+						.build(),
+				HttpResponse.BodyHandlers.ofString());
+
+		assertThat(response.body()).contains("Content-ID: <response-1>", "HTTP/1.1 200", "HTTP/1.1 404", "\"id\":\"" + id + "\"");
+		assertThat(before).doesNotContainKey("batch");
+		assertThat(stub.requestCount("batch")).isEqualTo(1);
+	}
+
+	@Test
+	void streamsAndBatchesCompletionsThroughTheClient() {
+		ChatPrompt prompt = new ChatPrompt("system", "Reply to this", null);
+		StringBuilder streamed = new StringBuilder();
+
+		Completion completion = openAiClient.stream(prompt, "gpt-4.1-mini", streamed::append);
+
+		assertThat(streamed.toString()).isEqualTo(completion.text()).isEqualTo(openAiClient.generate("system", "Reply to this"));
+		assertThat(completion.completionTokens()).isPositive();
+
+		stub.batchPollsUntilDone(1);
+		String batchId = openAiClient.submitBatch(List.of(
+				new BatchRequest("draft-1", prompt),
+				new BatchRequest("draft-2", new ChatPrompt("system", "Reply to something else", null))), "gpt-4.1-mini");
+
+		assertThat(openAiClient.pollBatch(batchId).status()).isEqualTo(BatchResult.Status.IN_PROGRESS);
+		BatchResult result = openAiClient.pollBatch(batchId);
+		assertThat(result.status()).isEqualTo(BatchResult.Status.COMPLETED);
+		assertThat(result.completions()).containsOnlyKeys("draft-1", "draft-2");
+		assertThat(result.completions().get("draft-1").text()).isEqualTo(completion.text());
+		assertThat(result.errors()).isEmpty();
+		assertThat(stub.requestCount("batches.create")).isEqualTo(1);
+	}
+}
@@ -0,0 +1,56 @@
+package com.assignment.draftly.style;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+import org.junit.jupiter.api.Test;
+
+import tools.jackson.databind.json.JsonMapper;
+
+class StyleStatsTest {
+
+	@Test
+	void picksUpGreetingSignOffAndRecurringPhrasesButNotQuotedText() {
+		StyleStats stats = new StyleStats();
+		stats.add("Hi Sam,\n\nThanks for the update. I'll take a look tomorrow and let me know if anything changes!\n\n"
+				+ "Cheers,\nAlex\n\nOn Mon, Jan 6, 2025 at 9:00 AM Sam <sam@acme.test> wrote:\n> Dear Alex, kindly review.");
+		stats.add("Hi Priya,\n\nSounds good. Let me know if you need anything else.\n\nCheers,\nAlex");
+		stats.add("Quick one: can we move the call to 3pm?\n\nThanks,\nAlex");
+
+		String profile = stats.describe();
+
+		assertThat(profile).contains("from 3 sent emails")
+				.contains("Greeting: \"Hi <name>,\"")
+				.contains("Sign-off: \"Cheers,\" or \"Thanks,\"")
+				.contains("Register: casual")
+				.contains("\"let me know\"")
+				.doesNotContain("kindly");
+		assertThat(stats.getFormalMarkers()).isZero();
+	}
+
+	@Test
+	void describesFormalMailWithoutContractions() {
+		StyleStats stats = new StyleStats();
+		for (int i = 0; i < 3; i++) {
+			stats.add("Dear Ms. Lee,\n\nPlease find attached the revised contract. I would like to confirm the "
+					+ "delivery date by Friday.\n\nKind regards,\nJordan Smith");
+		}
+		assertThat(stats.describe())
+				.contains("Greeting: \"Dear <name>,\"")
+				.contains("Sign-off: \"Kind regards,\"")
+				.contains("Register: formal, avoids contractions");
+	}
+
+	@Test
+	void survivesJsonRoundTripAndStaysDeterministic() {
+		StyleStats stats = new StyleStats();
+		stats.add("Hey team!\n\nShipping today. Let me know if anything breaks.\n\nThanks,\nAlex");
+		stats.add("Hey team!\n\nRolled back, let me know if anything breaks again.\n\nThanks,\nAlex");
+
+		JsonMapper mapper = JsonMapper.builder().build();
+		StyleStats restored = mapper.readValue(mapper.writeValueAsString(stats), StyleStats.class);
+		restored.add("");
+
+		assertThat(restored.describe()).isEqualTo(stats.describe());
+		assertThat(new StyleStats().describe()).startsWith("No sent emails");
+	}
+}